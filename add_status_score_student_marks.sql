@@ -0,0 +1,13 @@
+-- Typed mark storage for student_marks
+-- status / score are derived from answer whenever a mark is written.
+-- Hibernate (ddl-auto=update) adds the columns on startup; this script is for manual setups.
+
+ALTER TABLE student_marks
+ADD COLUMN IF NOT EXISTS status VARCHAR(16) NULL AFTER answer,
+ADD COLUMN IF NOT EXISTS score DOUBLE NULL AFTER status;
+
+-- Existing rows are backfilled by the application on startup (StudentMarksStatusMigration),
+-- which parses answer with the same rules as new writes. Verify afterwards:
+SELECT status, COUNT(*) AS marks, SUM(score IS NOT NULL) AS numeric_marks
+FROM student_marks
+GROUP BY status;
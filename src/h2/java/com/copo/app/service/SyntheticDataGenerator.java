@@ -0,0 +1,393 @@
+package com.copo.app.service;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.copo.app.model.Batch;
+import com.copo.app.model.Department;
+import com.copo.app.model.Question;
+import com.copo.app.model.Student;
+import com.copo.app.model.StudentMarks;
+import com.copo.app.model.Subject;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Fills the schema with a synthetic institution for load testing: departments, batches,
+ * sections, faculty, subjects, CO-PO matrices, students, questions and marks.
+ *
+ * Rows are written with batched JDBC inserts straight into the JPA tables, parents first;
+ * questions and marks go through {@link BulkWriter}, the other generated ids are read back by
+ * their parent ids, so it runs the same on MySQL and on the embedded H2 profile. Every name
+ * starts with {@code copo.seed.tag} and a run is skipped when that tag is already present, so
+ * restarting with the same settings leaves the data as it is. The same random seed always
+ * produces the same marks.
+ *
+ * Logins and ids of the generated data are written to {@code copo.seed.manifest} for the load
+ * driver. The class lives in src/h2/java, which only the h2 Maven profile compiles, so it is not
+ * part of the application jar. Seeding a MySQL database therefore also needs {@code -P h2}, with
+ * the default Spring profile:
+ * {@code mvn -P h2 spring-boot:run -Dspring-boot.run.arguments=--copo.seed.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "copo.seed.enabled", havingValue = "true")
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final String[] PARTS = { "Part A", "Part B", "Part C" };
+    private static final int[] PART_MAX_MARKS = { 5, 10, 15 };
+    private static final int CO_COUNT = 5;
+    private static final int MARKS_PER_WRITE = 50_000;
+    private static final List<String> OUTCOMES = List.of("PO1", "PO2", "PO3", "PO4", "PO5", "PO6", "PO7", "PO8",
+            "PO9", "PO10", "PO11", "PO12", "PSO1", "PSO2", "PSO3");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordService passwordService;
+
+    @Autowired
+    private QuestionAttainmentService questionAttainmentService;
+
+    @Autowired
+    private BulkWriter bulkWriter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${copo.seed.tag:SYN}")
+    private String tag;
+
+    @Value("${copo.seed.random-seed:42}")
+    private long randomSeed;
+
+    @Value("${copo.seed.departments:2}")
+    private int departments;
+
+    @Value("${copo.seed.batches:2}")
+    private int batches;
+
+    @Value("${copo.seed.sections-per-department:2}")
+    private int sectionsPerDepartment;
+
+    @Value("${copo.seed.students-per-section:60}")
+    private int studentsPerSection;
+
+    @Value("${copo.seed.semesters:2}")
+    private int semesters;
+
+    @Value("${copo.seed.subjects-per-semester:3}")
+    private int subjectsPerSemester;
+
+    @Value("${copo.seed.exam-types:CAT 1,CAT 2,Model}")
+    private List<String> examTypes;
+
+    @Value("${copo.seed.questions-per-exam:6}")
+    private int questionsPerExam;
+
+    /** Share of (student, question) cells that get a mark. */
+    @Value("${copo.seed.mark-fill:0.9}")
+    private double markFill;
+
+    @Value("${copo.seed.faculty-password:load-test}")
+    private String facultyPassword;
+
+    @Value("${copo.seed.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${copo.seed.manifest:target/seed-manifest.json}")
+    private String manifestPath;
+
+    @Override
+    @Transactional
+    public void run(String... args) {
+        try {
+            Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM departments WHERE name LIKE ?",
+                    Integer.class, tag + "-D%");
+            if (existing != null && existing > 0) {
+                logger.info("Synthetic data with tag {} is already present, skipping generation", tag);
+                return;
+            }
+
+            long started = System.nanoTime();
+            Random random = new Random(randomSeed);
+
+            List<Long> departmentIds = insertDepartments();
+            List<Long> batchIds = insertBatches();
+            Map<Long, List<Long>> sectionIds = insertSections(departmentIds);
+            List<Map<String, Object>> faculty = insertFaculty(departmentIds);
+            List<Map<String, Object>> subjects = insertSubjects(departmentIds);
+            int matrixEntries = insertCoPoMatrix(subjects, random);
+            List<Map<String, Object>> students = insertStudents(departmentIds, batchIds, sectionIds, random);
+            Map<List<Long>, List<Question>> questions = insertQuestions(batchIds, subjects);
+            int marks = insertMarks(students, questions, random);
+
+            List<Long> questionIds = questions.values().stream()
+                    .flatMap(List::stream)
+                    .map(Question::getId)
+                    .toList();
+            questionAttainmentService.invalidate(questionIds);
+
+            writeManifest(departmentIds, batchIds, faculty, subjects, students, questions);
+            logger.info("Generated {} students, {} subjects, {} questions, {} marks and {} CO-PO entries in {} ms",
+                    students.size(), subjects.size(), questionIds.size(), marks, matrixEntries,
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            logger.error("Error generating synthetic data", e);
+            throw new RuntimeException("Failed to generate synthetic data. Error: " + e.getMessage());
+        }
+    }
+
+    private List<Long> insertDepartments() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int d = 1; d <= departments; d++) {
+            rows.add(new Object[] { tag + "-D" + d, "Synthetic department " + d, false });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO departments (name, description, is_deleted) VALUES (?, ?, ?)", rows);
+        return jdbcTemplate.queryForList("SELECT id FROM departments WHERE name LIKE ? ORDER BY id", Long.class,
+                tag + "-D%");
+    }
+
+    private List<Long> insertBatches() {
+        List<Object[]> rows = new ArrayList<>();
+        int firstYear = 2020 - batches;
+        for (int b = 1; b <= batches; b++) {
+            int start = firstYear + b;
+            rows.add(new Object[] { tag + "-B" + b, start + "-" + (start + 4) });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO batches (name, description) VALUES (?, ?)", rows);
+        return jdbcTemplate.queryForList("SELECT id FROM batches WHERE name LIKE ? ORDER BY id", Long.class,
+                tag + "-B%");
+    }
+
+    private Map<Long, List<Long>> insertSections(List<Long> departmentIds) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Long departmentId : departmentIds) {
+            for (int s = 0; s < sectionsPerDepartment; s++) {
+                rows.add(new Object[] { String.valueOf((char) ('A' + s)), departmentId });
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO sections (section_name, department_id) VALUES (?, ?)", rows);
+
+        Map<Long, List<Long>> sections = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, department_id FROM sections WHERE department_id IN (" + ids(departmentIds)
+                + ") ORDER BY id", rs -> {
+                    sections.computeIfAbsent(rs.getLong(2), k -> new ArrayList<>()).add(rs.getLong(1));
+                });
+        return sections;
+    }
+
+    private List<Map<String, Object>> insertFaculty(List<Long> departmentIds) {
+        String hashed = passwordService.hashPassword(facultyPassword);
+        List<Object[]> rows = new ArrayList<>();
+        List<Map<String, Object>> faculty = new ArrayList<>();
+        for (int d = 0; d < departmentIds.size(); d++) {
+            String code = tag + "-F" + (d + 1);
+            rows.add(new Object[] { code, "Synthetic Faculty " + (d + 1), "Professor", hashed, departmentIds.get(d) });
+            faculty.add(Map.of("facultycode", code, "password", facultyPassword, "departmentId", departmentIds.get(d)));
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO faculty (facultycode, name, designation, password, department_id) VALUES (?, ?, ?, ?, ?)",
+                rows);
+        return faculty;
+    }
+
+    private List<Map<String, Object>> insertSubjects(List<Long> departmentIds) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int d = 0; d < departmentIds.size(); d++) {
+            for (int semester = 1; semester <= semesters; semester++) {
+                for (int k = 1; k <= subjectsPerSemester; k++) {
+                    String code = tag + "-D" + (d + 1) + "S" + semester + "-" + k;
+                    rows.add(new Object[] { code, "Synthetic Subject " + code, semester, departmentIds.get(d) });
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO subjects (code, name, semester, department_id) VALUES (?, ?, ?, ?)",
+                rows);
+        return jdbcTemplate.query("SELECT id, name, code, semester, department_id FROM subjects WHERE department_id IN ("
+                + ids(departmentIds) + ") ORDER BY id", (rs, i) -> {
+                    Map<String, Object> subject = new LinkedHashMap<>();
+                    subject.put("id", rs.getLong(1));
+                    subject.put("name", rs.getString(2));
+                    subject.put("code", rs.getString(3));
+                    subject.put("semester", rs.getInt(4));
+                    subject.put("departmentId", rs.getLong(5));
+                    return subject;
+                });
+    }
+
+    private int insertCoPoMatrix(List<Map<String, Object>> subjects, Random random) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Map<String, Object> subject : subjects) {
+            for (int co = 1; co <= CO_COUNT; co++) {
+                for (String outcome : OUTCOMES) {
+                    // about a quarter of the cells are '-'
+                    int level = random.nextInt(4);
+                    rows.add(new Object[] { subject.get("code"), subject.get("name"), co, outcome,
+                            level == 0 ? null : level });
+                }
+            }
+        }
+        insertInBatches(
+                "INSERT INTO co_po_matrix_entry (subject_code, subject_name, co_number, outcome, level) VALUES (?, ?, ?, ?, ?)",
+                rows);
+        return rows.size();
+    }
+
+    private List<Map<String, Object>> insertStudents(List<Long> departmentIds, List<Long> batchIds,
+            Map<Long, List<Long>> sectionIds, Random random) {
+        List<Object[]> rows = new ArrayList<>();
+        LocalDate firstDob = LocalDate.of(2003, 1, 1);
+        int n = 0;
+        for (Long departmentId : departmentIds) {
+            for (Long batchId : batchIds) {
+                for (Long sectionId : sectionIds.getOrDefault(departmentId, List.of())) {
+                    for (int i = 0; i < studentsPerSection; i++) {
+                        n++;
+                        String roll = String.format("%s-R%06d", tag, n);
+                        String register = String.format("%s-G%06d", tag, n);
+                        String dob = firstDob.plusDays(random.nextInt(1460)).toString();
+                        rows.add(new Object[] { "Student " + n, roll, register, dob, departmentId, batchId, sectionId });
+                    }
+                }
+            }
+        }
+        insertInBatches("INSERT INTO students (name, roll_number, register_number, dob, department_id, batch_id,"
+                + " section_id) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+        return jdbcTemplate.query("SELECT id, roll_number, dob, department_id, batch_id, section_id FROM students"
+                + " WHERE department_id IN (" + ids(departmentIds) + ") ORDER BY id", (rs, i) -> {
+                    Map<String, Object> student = new LinkedHashMap<>();
+                    student.put("id", rs.getLong(1));
+                    student.put("rollNumber", rs.getString(2));
+                    student.put("dob", rs.getString(3));
+                    student.put("departmentId", rs.getLong(4));
+                    student.put("batchId", rs.getLong(5));
+                    student.put("sectionId", rs.getLong(6));
+                    return student;
+                });
+    }
+
+    /** Questions of every subject for every batch, keyed by (department id, batch id). */
+    private Map<List<Long>, List<Question>> insertQuestions(List<Long> batchIds, List<Map<String, Object>> subjects) {
+        Map<List<Long>, List<Question>> questions = new LinkedHashMap<>();
+        List<Question> all = new ArrayList<>();
+        for (Map<String, Object> subject : subjects) {
+            Long departmentId = (Long) subject.get("departmentId");
+            for (Long batchId : batchIds) {
+                for (String examType : examTypes) {
+                    for (int q = 0; q < questionsPerExam; q++) {
+                        int part = q * PARTS.length / questionsPerExam;
+                        Question question = Question.builder()
+                                .examType(examType)
+                                .subject(Subject.builder().id((Long) subject.get("id")).build())
+                                .department(Department.builder().id(departmentId).build())
+                                .batch(Batch.builder().id(batchId).build())
+                                .semester((Integer) subject.get("semester"))
+                                .part(PARTS[part])
+                                .questionNumber("Q" + (q + 1))
+                                .text(subject.get("code") + " " + examType + " question " + (q + 1))
+                                .maxMarks(PART_MAX_MARKS[part])
+                                .courseOutcome("CO" + (q % CO_COUNT + 1))
+                                .build();
+                        questions.computeIfAbsent(List.of(departmentId, batchId), k -> new ArrayList<>()).add(question);
+                        all.add(question);
+                    }
+                }
+            }
+        }
+        bulkWriter.insertQuestions(all);
+        return questions;
+    }
+
+    /** Marks of every student for the questions of their own department and batch. */
+    private int insertMarks(List<Map<String, Object>> students, Map<List<Long>, List<Question>> questions,
+            Random random) {
+        List<StudentMarks> pending = new ArrayList<>(MARKS_PER_WRITE);
+        int marks = 0;
+        for (Map<String, Object> student : students) {
+            Student owner = Student.builder().id((Long) student.get("id")).build();
+            List<Long> scope = List.of((Long) student.get("departmentId"), (Long) student.get("batchId"));
+            for (Question question : questions.getOrDefault(scope, List.of())) {
+                if (random.nextDouble() >= markFill) {
+                    continue;
+                }
+                pending.add(StudentMarks.builder()
+                        .student(owner)
+                        .question(question)
+                        .answer(answer(random, question.getMaxMarks()))
+                        .build());
+                if (pending.size() == MARKS_PER_WRITE) {
+                    marks += bulkWriter.upsertMarks(pending);
+                    pending.clear();
+                }
+            }
+        }
+        return marks + bulkWriter.upsertMarks(pending);
+    }
+
+    /** Mostly marks around two thirds of the max, with a few absentees and unattempted questions. */
+    private static String answer(Random random, int maxMarks) {
+        double roll = random.nextDouble();
+        if (roll < 0.03) {
+            return "AB";
+        }
+        if (roll < 0.06) {
+            return "N";
+        }
+        double score = maxMarks * (0.65 + random.nextGaussian() * 0.2);
+        return String.valueOf(Math.max(0, Math.min(maxMarks, Math.round(score))));
+    }
+
+    private void insertInBatches(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+    }
+
+    private void writeManifest(List<Long> departmentIds, List<Long> batchIds, List<Map<String, Object>> faculty,
+            List<Map<String, Object>> subjects, List<Map<String, Object>> students,
+            Map<List<Long>, List<Question>> questions) throws Exception {
+        Map<String, List<Long>> questionIds = new HashMap<>();
+        questions.forEach((scope, list) -> questionIds.put(scope.get(0) + ":" + scope.get(1),
+                list.stream().map(Question::getId).toList()));
+
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("tag", tag);
+        manifest.put("departmentIds", departmentIds);
+        manifest.put("batchIds", batchIds);
+        manifest.put("examTypes", examTypes);
+        manifest.put("faculty", faculty);
+        manifest.put("subjects", subjects);
+        manifest.put("students", students);
+        manifest.put("questionIds", questionIds);
+
+        File file = new File(manifestPath);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, manifest);
+        logger.info("Wrote load test manifest to {}", file.getAbsolutePath());
+    }
+
+    private static String ids(List<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,65 @@
+package com.copo.app.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.copo.app.model.CoPoMatrixEntry;
+
+/**
+ * A full 5 CO x 15 PO/PSO matrix: building its {@link CoPoMatrixView} from the stored entries,
+ * as on a write, and rendering the cached view, as on every {@code /copo/matrix} request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoPoMatrixBenchmark {
+
+	private List<CoPoMatrixEntry> entries;
+	private CoPoMatrixView view;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		entries = new ArrayList<>();
+		for (int co = 1; co <= CoPoMatrixView.CO_COUNT; co++) {
+			for (String outcome : CoPoMatrixView.OUTCOMES) {
+				int level = random.nextInt(4);
+				entries.add(CoPoMatrixEntry.builder()
+						.subjectCode("BENCH")
+						.subjectName("Benchmark Subject")
+						.coNumber(co)
+						.outcome(outcome)
+						.level(level == 0 ? null : level)
+						.build());
+			}
+		}
+		view = CoPoMatrixView.of("Benchmark Subject", entries);
+	}
+
+	@Benchmark
+	public CoPoMatrixView buildView() {
+		return CoPoMatrixView.of("Benchmark Subject", entries);
+	}
+
+	@Benchmark
+	public Map<String, Object> renderView() {
+		return view.toResponse();
+	}
+}
@@ -0,0 +1,71 @@
+package com.copo.app.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Faculty marks views over synthetic in-memory data, from a small class to a whole semester.
+ * Run with the gc profiler (the jmh profile does) to see the allocation rate next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarksViewBenchmark {
+
+	@Param({ "30", "120", "500" })
+	int students;
+
+	@Param({ "20", "100", "300" })
+	int questions;
+
+	private FacultyMarksViewService service;
+	private MarksCube cube;
+
+	@Setup
+	public void setUp() {
+		SyntheticMarks data = new SyntheticMarks(students, questions, 42);
+		service = data.service();
+		cube = data.cube();
+	}
+
+	@Benchmark
+	public Map<String, Object> getFilteredMarks() {
+		return service.getFilteredMarks(1L, 1L, 1, "CAT 1", 1L, null, 0L);
+	}
+
+	@Benchmark
+	public Map<String, Object> getFullGroupedMarksWithoutExamType() {
+		return service.getFullGroupedMarksWithoutExamType(1L, 1L, 1, 1L, 0L);
+	}
+
+	@Benchmark
+	public Object groupQuestionsByCOExamType() {
+		return service.groupQuestionsByCOExamType(cube);
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> groupStudentMarks() {
+		return service.groupStudentMarks(cube);
+	}
+
+	@Benchmark
+	public Object calculateQuestionStats() {
+		return service.calculateQuestionStats(cube);
+	}
+}
@@ -0,0 +1,122 @@
+package com.copo.app.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.copo.app.model.MarkStatus;
+import com.copo.app.model.QuestionAttainment;
+import com.copo.app.repository.FacultyMarksViewRepo;
+import com.copo.app.repository.QuestionSlotProjection;
+import com.copo.app.repository.StudentMarksProjection;
+import com.copo.app.repository.StudentRosterProjection;
+
+/**
+ * In-memory roster, questions and marks of one subject, shaped like the sparse fetch results,
+ * and a {@link FacultyMarksViewService} wired to them.
+ */
+final class SyntheticMarks {
+
+	private static final String[] EXAM_TYPES = { "CAT 1", "CAT 2", "Assignment" };
+	private static final String[] OTHER_ANSWERS = { "AB", "N", "" };
+
+	final List<StudentRosterProjection> roster = new ArrayList<>();
+	final List<QuestionSlotProjection> questions = new ArrayList<>();
+	final List<StudentMarksProjection> marks = new ArrayList<>();
+
+	SyntheticMarks(int studentCount, int questionCount, long seed) {
+		Random random = new Random(seed);
+		for (int s = 0; s < studentCount; s++) {
+			roster.add(new Student((long) s + 1, "Student " + s, "R" + (1000 + s)));
+		}
+		for (int q = 0; q < questionCount; q++) {
+			String co = "CO" + (q % 5 + 1);
+			String examType = EXAM_TYPES[(q / 5) % EXAM_TYPES.length];
+			String part = q % 2 == 0 ? "A" : "B";
+			questions.add(new Question((long) q + 1, part, String.valueOf(q / 2 + 1), "Question " + q,
+					q % 2 == 0 ? 2 : 10, examType, co));
+		}
+		questions.sort((a, b) -> {
+			int c = a.getCourseOutcome().compareTo(b.getCourseOutcome());
+			return c != 0 ? c : a.getExamType().compareTo(b.getExamType());
+		});
+
+		long id = 1;
+		for (StudentRosterProjection s : roster) {
+			for (QuestionSlotProjection q : questions) {
+				// ~10% of the cells stay empty
+				if (random.nextInt(10) == 0) {
+					continue;
+				}
+				String answer = random.nextInt(8) == 0
+						? OTHER_ANSWERS[random.nextInt(OTHER_ANSWERS.length)]
+						: String.valueOf(random.nextInt(q.getMaxMarks() + 1));
+				marks.add(new Mark(id++, s.getStudentId(), q.getQuestionId(), answer));
+			}
+		}
+	}
+
+	FacultyMarksViewService service() {
+		FacultyMarksViewService service = new FacultyMarksViewService();
+		ReflectionTestUtils.setField(service, "fetchMode", "sparse");
+		ReflectionTestUtils.setField(service, "facultyMarksViewRepo", repository());
+		ReflectionTestUtils.setField(service, "questionAttainmentService", new QuestionAttainmentService() {
+			@Override
+			public Map<Long, QuestionAttainment> getCounters(java.util.Collection<Long> questionIds) {
+				return Map.of();
+			}
+		});
+		return service;
+	}
+
+	MarksCube cube() {
+		return MarksCube.fromSparse(roster, questions, marks.stream());
+	}
+
+	private FacultyMarksViewRepo repository() {
+		return (FacultyMarksViewRepo) java.lang.reflect.Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { FacultyMarksViewRepo.class }, (proxy, method, args) -> switch (method.getName()) {
+					case "getRoster" -> roster;
+					case "getQuestionSlots" -> questions;
+					case "getQuestionSlotsByExamType" ->
+						questions.stream().filter(q -> q.getExamType().equals(args[3])).toList();
+					case "getSubmittedMarks" -> marks;
+					case "streamSubmittedMarks" -> marks.stream();
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private record Student(Long studentId, String studentName, String rollNumber) implements StudentRosterProjection {
+		public Long getStudentId() { return studentId; }
+		public String getStudentName() { return studentName; }
+		public String getRollNumber() { return rollNumber; }
+	}
+
+	private record Question(Long questionId, String part, String questionNumber, String questionText, Integer maxMarks,
+			String examType, String courseOutcome) implements QuestionSlotProjection {
+		public Long getQuestionId() { return questionId; }
+		public String getPart() { return part; }
+		public String getQuestionNumber() { return questionNumber; }
+		public String getQuestionText() { return questionText; }
+		public Integer getMaxMarks() { return maxMarks; }
+		public String getExamType() { return examType; }
+		public String getCourseOutcome() { return courseOutcome; }
+	}
+
+	private record Mark(Long id, Long studentId, Long questionId, String answer, MarkStatus status, Double score)
+			implements StudentMarksProjection {
+		Mark(Long id, Long studentId, Long questionId, String answer) {
+			this(id, studentId, questionId, answer, MarkStatus.of(answer), MarkStatus.scoreOf(answer));
+		}
+		public Long getId() { return id; }
+		public Long getStudentId() { return studentId; }
+		public Long getQuestionId() { return questionId; }
+		public String getAnswer() { return answer; }
+		public MarkStatus getStatus() { return status; }
+		public Double getScore() { return score; }
+	}
+}
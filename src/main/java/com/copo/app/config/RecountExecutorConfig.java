@@ -0,0 +1,22 @@
+package com.copo.app.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class RecountExecutorConfig {
+
+    // Runs the attainment recounts that follow a commit, off the committing thread, which still
+    // holds its connection then. One thread, so recounts never take more than one connection
+    // and run in the order they were queued
+    @Bean(name = "recountExecutor")
+    public ThreadPoolTaskExecutor recountExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("recount-");
+        executor.initialize();
+        return executor;
+    }
+}
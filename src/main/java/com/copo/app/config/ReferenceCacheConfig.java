@@ -0,0 +1,155 @@
+package com.copo.app.config;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.interceptor.SimpleCacheResolver;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import com.copo.app.service.ScopeVersions;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Caches of the reference data (departments, batches, subjects, sections) read on almost every
+ * page. Each is a {@link TwoTierCache}: Caffeine in process and Redis shared by all nodes, so a
+ * node that starts cold finds what the others loaded. They hold the records of
+ * {@link com.copo.app.service.ReferenceCache}, never entities. Evictions are applied after the
+ * transaction commits and bump the cache's {@link ScopeVersions} counter, on which the ETags of the
+ * reference endpoints rest. Every node follows these counters and drops its local tier when
+ * another node moved one on: at the latest after {@code copo.reference-cache.sync-interval}, or at
+ * once when the changing node announces it on the Redis channel. Cache keys carry the version, so
+ * entries of an older version are never read again and expire in both tiers.
+ *
+ * With {@code copo.reference-cache.redis=false}, e.g. for a single node without Redis, every node
+ * keeps its own local tier only, still kept in step through the shared counters.
+ *
+ * The caches are reached through the {@code referenceCacheResolver} bean rather than a second
+ * {@code CacheManager}, which would replace the auto-configured one of the marks views.
+ */
+@Configuration
+public class ReferenceCacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceCacheConfig.class);
+
+    public static final String DEPARTMENTS = "departments";
+    public static final String BATCHES = "batches";
+    public static final String SUBJECTS = "subjects";
+    public static final String SECTIONS = "sections";
+
+    private static final String EVICTION_CHANNEL = "copo:reference-cache:evict";
+
+    @Autowired
+    private ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+
+    @Autowired
+    private ScopeVersions scopeVersions;
+
+    @Value("${copo.reference-cache.redis:true}")
+    private boolean redis;
+
+    @Value("${copo.reference-cache.local-ttl:10m}")
+    private Duration localTtl;
+
+    @Value("${copo.reference-cache.local-max-entries:1000}")
+    private long localMaxEntries;
+
+    @Value("${copo.reference-cache.redis-ttl:10m}")
+    private Duration redisTtl;
+
+    private Map<String, TwoTierCache> caches;
+
+    @Bean
+    public CacheResolver referenceCacheResolver() {
+        List<Cache> decorated = new ArrayList<>();
+        for (TwoTierCache cache : caches().values()) {
+            decorated.add(new TransactionAwareCacheDecorator(cache));
+        }
+        SimpleCacheManager manager = new SimpleCacheManager();
+        manager.setCaches(decorated);
+        manager.afterPropertiesSet();
+        return new SimpleCacheResolver(manager);
+    }
+
+    // Applies a change announced by any node, including this one, without waiting for the next
+    // sync; the message is sent once the version is bumped. Without Redis at startup the node
+    // still starts and relies on the sync alone
+    @Bean
+    @ConditionalOnProperty(name = "copo.reference-cache.redis", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer referenceCacheEvictionListener() {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public void start() {
+                try {
+                    super.start();
+                } catch (RuntimeException e) {
+                    ReferenceCacheConfig.logger.warn("Reference cache evictions are not received from Redis: {}", e.getMessage());
+                }
+            }
+        };
+        container.setConnectionFactory(redisConnectionFactory.getObject());
+        container.addMessageListener((message, pattern) -> {
+            String name = new String(message.getBody(), StandardCharsets.UTF_8);
+            if (caches().containsKey(name)) {
+                scopeVersions.sync();
+            }
+        }, new ChannelTopic(EVICTION_CHANNEL));
+        return container;
+    }
+
+    private synchronized Map<String, TwoTierCache> caches() {
+        if (caches != null) {
+            return caches;
+        }
+        RedisCacheManager shared = null;
+        StringRedisTemplate publisher = null;
+        if (redis) {
+            RedisConnectionFactory factory = redisConnectionFactory.getObject();
+            shared = RedisCacheManager.builder(factory)
+                    .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig(getClass().getClassLoader())
+                            .entryTtl(redisTtl)
+                            .prefixCacheNameWith("copo:ref:"))
+                    .build();
+            shared.afterPropertiesSet();
+            publisher = new StringRedisTemplate(factory);
+        }
+
+        Map<String, TwoTierCache> built = new LinkedHashMap<>();
+        for (String name : List.of(DEPARTMENTS, BATCHES, SUBJECTS, SECTIONS)) {
+            StringRedisTemplate channel = publisher;
+            Consumer<String> onEvict = scopeVersions::bump;
+            if (channel != null) {
+                onEvict = onEvict.andThen(changed -> channel.convertAndSend(EVICTION_CHANNEL, changed));
+            }
+            TwoTierCache cache = new TwoTierCache(name,
+                    Caffeine.newBuilder().expireAfterWrite(localTtl).maximumSize(localMaxEntries).build(),
+                    shared != null ? shared.getCache(name) : null,
+                    onEvict);
+            scopeVersions.follow(name, cache::clearLocal);
+            built.put(name, cache);
+        }
+        caches = built;
+        return caches;
+    }
+}
@@ -26,7 +26,8 @@ public class RoleFilter implements HandlerInterceptor {
      // Do NOT include /student-marks here anymore
         if (uri.startsWith("/faculty") || uri.startsWith("/faculty-marks") ||
             uri.startsWith("/batches") || 
-            uri.startsWith("/departments") || uri.startsWith("/copo") || uri.startsWith("/copo/**") ) {
+            uri.startsWith("/departments") || uri.startsWith("/copo") || uri.startsWith("/copo/**") ||
+            uri.startsWith("/upload-jobs") ) {
             
         	System.out.println("PreHandle faculy");
             if (!"faculty".equals(role)) {
@@ -0,0 +1,172 @@
+package com.copo.app.config;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * A cache with a local Caffeine tier in front of an optional shared tier (Redis).
+ *
+ * Reads try the local tier, then the shared one, and copy shared hits into the local tier.
+ * Writes and evictions go to both; evictions are also announced through {@code onEvict} so the
+ * other nodes drop their local copies, see {@link ReferenceCacheConfig}. A failing shared tier is
+ * logged and skipped for {@link #SHARED_RETRY}, lookups then fall through to the database. Null
+ * values are not cached.
+ *
+ * Keys are used as given; the callers put the cache's version into them, see
+ * {@link com.copo.app.service.ReferenceCache}.
+ */
+public class TwoTierCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoTierCache.class);
+
+    static final Duration SHARED_RETRY = Duration.ofSeconds(30);
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache shared;
+    private final Consumer<String> onEvict;
+
+    // System.nanoTime() from which on the shared tier is used again after a failure
+    private volatile long sharedRetryAt = System.nanoTime();
+
+    /**
+     * @param shared  the shared tier, or null for a local cache only
+     * @param onEvict called with the cache name after an evict or clear, or null
+     */
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> local, Cache shared,
+            Consumer<String> onEvict) {
+        this.name = name;
+        this.local = local;
+        this.shared = shared;
+        this.onEvict = onEvict;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+        if (sharedUp()) {
+            try {
+                ValueWrapper hit = shared.get(key);
+                if (hit != null && hit.get() != null) {
+                    local.put(key, hit.get());
+                    return hit;
+                }
+            } catch (RuntimeException e) {
+                sharedFailed("get", e);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper hit = get(key);
+        Object value = hit != null ? hit.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper hit = get(key);
+        if (hit != null) {
+            return (T) hit.get();
+        }
+        try {
+            T value = valueLoader.call();
+            put(key, value);
+            return value;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        local.put(key, value);
+        if (sharedUp()) {
+            try {
+                shared.put(key, value);
+            } catch (RuntimeException e) {
+                sharedFailed("put", e);
+            }
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (sharedUp()) {
+            try {
+                shared.evict(key);
+            } catch (RuntimeException e) {
+                sharedFailed("evict", e);
+            }
+        }
+        local.invalidate(key);
+        announce();
+    }
+
+    @Override
+    public void clear() {
+        if (sharedUp()) {
+            try {
+                shared.clear();
+            } catch (RuntimeException e) {
+                sharedFailed("clear", e);
+            }
+        }
+        local.invalidateAll();
+        announce();
+    }
+
+    /** Drops the local tier only, when another node announced a change. */
+    public void clearLocal() {
+        local.invalidateAll();
+    }
+
+    private boolean sharedUp() {
+        return shared != null && System.nanoTime() - sharedRetryAt >= 0;
+    }
+
+    private void sharedFailed(String operation, RuntimeException e) {
+        sharedRetryAt = System.nanoTime() + SHARED_RETRY.toNanos();
+        logger.warn("Shared cache {} unavailable on {}, skipped for {}s: {}", name, operation,
+                SHARED_RETRY.toSeconds(), e.getMessage());
+    }
+
+    private void announce() {
+        if (onEvict != null) {
+            try {
+                onEvict.accept(name);
+            } catch (RuntimeException e) {
+                logger.warn("Could not announce eviction of cache {}: {}", name, e.getMessage());
+            }
+        }
+    }
+}
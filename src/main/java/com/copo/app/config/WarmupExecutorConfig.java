@@ -0,0 +1,22 @@
+package com.copo.app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class WarmupExecutorConfig {
+
+    // Worker pool for the startup cache warm-up, one subject per task; kept small so the
+    // warm-up leaves database connections to the first requests
+    @Bean(name = "warmupExecutor")
+    public ThreadPoolTaskExecutor warmupExecutor(@Value("${copo.warmup.parallelism:2}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("warmup-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -5,14 +5,17 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.copo.app.model.CoPoMatrixEntry;
 import com.copo.app.service.CoPoMatrixService;
 import com.copo.app.service.DepartmentService;
+import com.copo.app.service.ScopeVersions;
 import com.copo.app.service.SubjectService;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +32,9 @@ public class CoPoMatrixController {
     @Autowired
     private SubjectService subjectService;
 
+    @Autowired
+    private ScopeVersions scopeVersions;
+
     // Load CO-PO Matrix form
     @GetMapping("/form")
     public String showCopoMatrixForm(Model model) {
@@ -60,11 +66,16 @@ public class CoPoMatrixController {
     @GetMapping("/matrix")
     public ResponseEntity<?> getMatrixData(
         @RequestParam String subjectName,
-        @RequestParam String subjectCode
+        @RequestParam String subjectCode,
+        ServletWebRequest request
     ) {
+        long version = scopeVersions.version(ScopeVersions.coPoMatrix(subjectCode));
+        if (ConditionalGet.notModified(request, scopeVersions.etag(version))) {
+            return null;
+        }
         try {
         	System.out.println("Starting of matrix");
-            Map<String, Object> matrixData = service.getMatrixData(subjectName, subjectCode);
+            Map<String, Object> matrixData = service.getMatrixView(subjectName, subjectCode, version).toResponse();
             System.out.println("Mapped data  ::  "+matrixData);
             return ResponseEntity.ok(matrixData);
         } catch (Exception e) {
@@ -76,10 +87,22 @@ public class CoPoMatrixController {
     public String uploadCopoExcel(@RequestParam("file") MultipartFile file,
                                   @RequestParam("subjectCode") String subjectCode,
                                   @RequestParam("subjectName") String subjectName,
+                                  @RequestParam(name = "incremental", defaultValue = "false") boolean incremental,
                                   RedirectAttributes redirectAttributes) {
         try {
-        	service.parseAndSaveExcel(file, subjectCode.trim(), subjectName.trim());
-            redirectAttributes.addFlashAttribute("success", "CO-PO matrix uploaded successfully.");
+            if (incremental) {
+                // re-upload of an existing matrix: only the changed cells are written
+                Map<String, Integer> changes;
+                try (InputStream in = file.getInputStream()) {
+                    changes = service.updateFromExcel(in, subjectCode.trim(), subjectName.trim());
+                }
+                redirectAttributes.addFlashAttribute("success", "CO-PO matrix updated: " + changes.get("inserted")
+                        + " added, " + changes.get("updated") + " changed, " + changes.get("unchanged") + " unchanged, "
+                        + changes.get("deleted") + " removed.");
+            } else {
+                service.parseAndSaveExcel(file, subjectCode.trim(), subjectName.trim());
+                redirectAttributes.addFlashAttribute("success", "CO-PO matrix uploaded successfully.");
+            }
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Upload failed: " + e.getMessage());
         }
@@ -0,0 +1,29 @@
+package com.copo.app.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Conditional GET for the JSON endpoints tagged through {@link com.copo.app.service.ScopeVersions}.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Tags the response with {@code etag}, and answers 304 when the client already has it; the
+     * caller then returns without querying. The response may be kept but must be revalidated
+     * (Spring Security would otherwise send no-store, and browsers would never ask again).
+     */
+    static boolean notModified(ServletWebRequest request, String etag) {
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        return request.checkNotModified(etag);
+    }
+
+    /** For a response that carries a fallback instead of the data, which must not be revalidated later. */
+    static void doNotStore(ServletWebRequest request) {
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+    }
+}
@@ -2,6 +2,7 @@ package com.copo.app.controller;
 
 import com.copo.app.model.Department;
 import com.copo.app.service.DepartmentService;
+import com.copo.app.service.ReferenceDictionary;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -23,6 +24,9 @@ public class DepartmentController {
     @Autowired
     private DepartmentService departmentService;
 
+    @Autowired
+    private ReferenceDictionary referenceDictionary;
+
     // Get all departments
     @GetMapping
     public String getAllDepartments(Model model,@RequestParam(value = "successMessage", required = false) String successMessage,
@@ -121,7 +125,7 @@ public class DepartmentController {
     @ResponseBody
     public Department getDepartmentByName(@RequestParam String name) {
         try {
-            return departmentService.getDepartmentByName(name);
+            return referenceDictionary.departmentId(name).flatMap(departmentService::getDepartmentById).orElse(null);
         } catch (Exception e) {
             logger.error("Error fetching department by name: {}", name, e);
             return null;
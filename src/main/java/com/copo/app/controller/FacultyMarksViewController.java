@@ -1,17 +1,25 @@
 package com.copo.app.controller;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import com.copo.app.service.AttainmentReportService;
 import com.copo.app.service.BatchService;
 import com.copo.app.service.DepartmentService;
 import com.copo.app.service.FacultyMarksViewService;
+import com.copo.app.service.QuestionAttainmentService;
 import com.copo.app.service.QuestionService;
+import com.copo.app.service.ScopeVersions;
+import com.copo.app.service.StudentMarksService;
 import com.copo.app.service.SubjectService;
 import com.copo.app.model.Subject;
 
@@ -22,8 +30,17 @@ public class FacultyMarksViewController {
     @Autowired
     private FacultyMarksViewService facultyMarksViewService;
 
+    @Autowired
+    private ScopeVersions scopeVersions;
+
     @Autowired
     QuestionService questionService;
+    @Autowired
+    QuestionAttainmentService questionAttainmentService;
+    @Autowired
+    AttainmentReportService attainmentReportService;
+    @Autowired
+    StudentMarksService studentMarksService;
 	@Autowired
     SubjectService subjectService;
 	@Autowired
@@ -60,13 +77,15 @@ public class FacultyMarksViewController {
             @RequestParam Integer semester,
             @RequestParam String examType,
             @RequestParam Long subjectId,
-            @RequestParam(required = false) Integer sectionId) {
-    	
-    	//System.out.println("Inputs = "+departmentId+" - "+batchId+" - "+semester+" - "+examType+" - "+subjectId);
-    	//System.out.println("View Result : "+facultyMarksViewService.getFilteredMarks(departmentId, batchId, semester, examType, subjectId));
-        return facultyMarksViewService.getFilteredMarks(departmentId, batchId, semester, examType, subjectId, sectionId);
-        
-        
+            @RequestParam(required = false) Integer sectionId,
+            ServletWebRequest request) {
+
+        long version = scopeVersions.version(ScopeVersions.marks(departmentId, batchId, semester, subjectId));
+        if (ConditionalGet.notModified(request, scopeVersions.etag(version))) {
+            return null;
+        }
+        return facultyMarksViewService.getFilteredMarks(departmentId, batchId, semester, examType, subjectId, sectionId,
+                version);
     }
     
     
@@ -90,15 +109,52 @@ public class FacultyMarksViewController {
         @RequestParam Long batchId,
         @RequestParam Integer semester,
         @RequestParam Long subjectId,
-        Model model
+        ServletWebRequest request
+    ) {
+
+        long version = scopeVersions.version(ScopeVersions.marks(departmentId, batchId, semester, subjectId));
+        if (ConditionalGet.notModified(request, scopeVersions.etag(version))) {
+            return null;
+        }
+        return facultyMarksViewService.getFullGroupedMarksWithoutExamType(departmentId, batchId, semester, subjectId,
+                version);
+    }
+
+    // CO attainment of every subject of a department, batch and semester, with per-subject timing
+    @GetMapping("/attainment-report")
+    @ResponseBody
+    public Map<String, Object> getAttainmentReport(
+        @RequestParam Long departmentId,
+        @RequestParam Long batchId,
+        @RequestParam Integer semester
+    ) {
+        return attainmentReportService.getDepartmentReport(departmentId, batchId, semester);
+    }
+
+    // Marks of a whole class for one exam from an .xlsx grid of roll numbers x "Part X - Qn" columns
+    @PostMapping("/import")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> importMarksSheet(
+        @RequestParam("file") MultipartFile file,
+        @RequestParam Long departmentId,
+        @RequestParam Long batchId,
+        @RequestParam Integer semester,
+        @RequestParam Long subjectId,
+        @RequestParam String examType
     ) {
+        try (InputStream in = file.getInputStream()) {
+            return ResponseEntity.ok(studentMarksService.importMarksSheet(in, departmentId, batchId, semester, subjectId,
+                    examType));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 
-    	//System.out.println("===========================================================================================================================");
-    	//System.out.println("departmentId "+departmentId+" batchId "+batchId+" semester "+semester+" subjectId "+subjectId);
-    	//System.out.println("===========================================================================================================================");
-    	//System.out.println("View Full Marks : --->>>  "+ facultyMarksViewService.getFullGroupedMarksWithoutExamType(departmentId, batchId, semester, subjectId));
-    	//System.out.println("===========================================================================================================================");
-        return facultyMarksViewService.getFullGroupedMarksWithoutExamType(departmentId, batchId, semester, subjectId); 
+    // Recount every question attainment counter from the raw marks
+    @PostMapping("/attainment/rebuild")
+    @ResponseBody
+    public Map<String, Object> rebuildAttainmentCounters() {
+        return Map.of("questions", questionAttainmentService.rebuildAll());
     }
 
     
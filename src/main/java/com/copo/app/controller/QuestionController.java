@@ -5,6 +5,8 @@ import com.copo.app.model.QuestionForm;
 import com.copo.app.model.Subject;
 import com.copo.app.model.Department;
 import com.copo.app.service.QuestionService;
+import com.copo.app.service.ReferenceDictionary;
+import com.copo.app.service.ScopeVersions;
 import com.copo.app.service.SubjectService;
 import com.copo.app.service.BatchService;
 import com.copo.app.service.DepartmentService;
@@ -13,6 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
@@ -20,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Optional;
 
 
 @Controller
@@ -40,6 +44,12 @@ public class QuestionController {
     @Autowired
     BatchService batchService;
 
+    @Autowired
+    ReferenceDictionary referenceDictionary;
+
+    @Autowired
+    ScopeVersions scopeVersions;
+
     @GetMapping("/filtered")
     @ResponseBody
     public List<Question> getQuestions(
@@ -47,19 +57,34 @@ public class QuestionController {
             @RequestParam String batch,
             @RequestParam int semester,
             @RequestParam String examType,
-            @RequestParam String subject
+            @RequestParam String subject,
+            ServletWebRequest request
     ) {
         logger.info("GET /questions/filtered - department={}, batch={}, semester={}, examType={}, subject={}",
                 department, batch, semester, examType, subject);
-        return questionService.getFilteredQuestions(department, batch, semester, examType, subject);
+        // the dictionary's version is read before the names are resolved with it
+        long dictionaryVersion = referenceDictionary.version();
+        Optional<Long> departmentId = referenceDictionary.departmentId(department);
+        Optional<Long> batchId = referenceDictionary.batchId(batch);
+        Optional<Long> subjectId = departmentId.flatMap(id -> referenceDictionary.subjectId(id, semester, subject));
+        if (departmentId.isEmpty() || batchId.isEmpty() || subjectId.isEmpty()) {
+            return ConditionalGet.notModified(request, scopeVersions.etag(dictionaryVersion)) ? null : List.of();
+        }
+        String etag = scopeVersions.etag(dictionaryVersion, scopeVersions.version(
+                ScopeVersions.marks(departmentId.get(), batchId.get(), semester, subjectId.get())));
+        if (ConditionalGet.notModified(request, etag)) {
+            return null;
+        }
+        return questionService.getFilteredQuestions(departmentId.get(), batchId.get(), semester, examType, subjectId.get());
     }
 
     @GetMapping("/by-dept-sem")
     @ResponseBody
     public List<Subject> getSubjectsByDepartmentAndSemester(@RequestParam String department, @RequestParam Integer semester) {
         logger.info("GET /questions/by-dept-sem - department={}, semester={}", department, semester);
-        Department departmentEntity = departmentService.getDepartmentByName(department);
-        return subjectService.getSubjectsByDepartmentAndSemester(departmentEntity.getId(), semester);
+        Long departmentId = referenceDictionary.departmentId(department)
+                .orElseThrow(() -> new RuntimeException("Department not found: " + department));
+        return subjectService.getSubjectsByDepartmentAndSemester(departmentId, semester);
     }
 
     @GetMapping("/new")
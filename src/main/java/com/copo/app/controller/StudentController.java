@@ -1,9 +1,12 @@
 package com.copo.app.controller;
 import com.copo.app.service.SectionService;
 
+import com.copo.app.config.ReferenceCacheConfig;
 import com.copo.app.model.Student;
 import com.copo.app.service.BatchService;
 import com.copo.app.service.DepartmentService;
+import com.copo.app.service.ReferenceDictionary;
+import com.copo.app.service.ScopeVersions;
 import com.copo.app.service.StudentService;
 import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
@@ -12,6 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
@@ -34,6 +38,10 @@ public class StudentController {
     private DepartmentService departmentService;
     @Autowired
     private BatchService batchService;
+    @Autowired
+    private ReferenceDictionary referenceDictionary;
+    @Autowired
+    private ScopeVersions scopeVersions;
 
     // List all students
     @GetMapping("/students")
@@ -83,10 +91,12 @@ public class StudentController {
 
             // Prefer IDs if provided; otherwise resolve by names
             Long resolvedDepartmentId = departmentId != null ? departmentId :
-                ((department != null && !department.isEmpty()) ? departmentService.getDepartmentByName(department).getId() : null);
+                ((department != null && !department.isEmpty()) ? referenceDictionary.departmentId(department)
+                    .orElseThrow(() -> new RuntimeException("Department not found: " + department)) : null);
 
             Long resolvedBatchId = batchId != null ? batchId :
-                ((batch != null && !batch.isEmpty()) ? batchService.getBatchByName(batch).getId() : null);
+                ((batch != null && !batch.isEmpty()) ? referenceDictionary.batchId(batch)
+                    .orElseThrow(() -> new RuntimeException("Batch not found: " + batch)) : null);
 
             Long sectionId = null;
             if (section != null && !section.isEmpty()) {
@@ -112,11 +122,16 @@ public class StudentController {
     // Get sections by department ID (for AJAX calls)
     @GetMapping("/students/sections")
     @ResponseBody
-    public List<com.copo.app.model.Section> getSectionsByDepartment(@RequestParam Long departmentId) {
+    public List<com.copo.app.model.Section> getSectionsByDepartment(@RequestParam Long departmentId,
+                                                                    ServletWebRequest request) {
+        if (ConditionalGet.notModified(request, scopeVersions.etag(ReferenceCacheConfig.SECTIONS))) {
+            return null;
+        }
         try {
             return sectionService.getSectionsByDepartmentId(departmentId);
         } catch (Exception e) {
             logger.error("Error fetching sections for department ID: {}", departmentId, e);
+            ConditionalGet.doNotStore(request);
             return List.of();
         }
     }
@@ -11,7 +11,6 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
-import com.copo.app.model.Department;
 import com.copo.app.model.Question;
 import com.copo.app.model.QuestionForm;
 import com.copo.app.model.Student;
@@ -21,6 +20,7 @@ import com.copo.app.repository.StudentMarksProjection;
 import com.copo.app.service.BatchService;
 import com.copo.app.service.DepartmentService;
 import com.copo.app.service.QuestionService;
+import com.copo.app.service.ReferenceDictionary;
 import com.copo.app.service.StudentMarksService;
 import com.copo.app.service.StudentService;
 import com.copo.app.service.SubjectService;
@@ -43,6 +43,8 @@ public class StudentMarksController {
     BatchService batchService;;
     @Autowired
     StudentService studentService;
+    @Autowired
+    ReferenceDictionary referenceDictionary;
 
     @GetMapping
     public String getStudentMarks(Model model,HttpSession session) {
@@ -90,21 +92,7 @@ public class StudentMarksController {
         System.out.println("Submitting marks for Student ID: " + student.getId());
         
         System.out.println("Final Marks to Save: " + marks);
-
-        marks.forEach(mark -> {
-            mark.setStudent(student);
-
-            // Convert the incoming Question ID to a proper Question entity
-            if (mark.getQuestion() != null && mark.getQuestion().getId() != null) {
-                Question fullQuestion = questionService.getQuestionById(mark.getQuestion().getId());
-                mark.setQuestion(fullQuestion);
-            } else {
-                throw new RuntimeException("Question ID is missing in submitted marks.");
-            }
-        });
-
-        System.out.println("Final Marks to Save: " + marks);
-        studentMarksService.saveStudentMarks(marks);
+        studentMarksService.saveStudentMarks(student, marks);
         return "Marks submitted successfully!";
     }
 
@@ -125,22 +113,23 @@ public class StudentMarksController {
         System.out.println("Fetching data for Student ID: " + studentId + ", Department: " + department + 
             ", Batch: " + batch + ", Semester: " + semester + ", Exam Type: " + examType + ", Subject: " + subject);
 
-        // Fetch all questions based on criteria
-        List<Question> questions = questionService.getFilteredQuestions(department, batch, semester, examType, subject);
-        System.out.println("Fetched Questions: " + questions);
-
-        Department dept = departmentService.getDepartmentByName(department);
-        System.out.println("Fetched Department: " + dept);
-
-        Long departmentId = dept.getId();
+        // Resolve the names in memory, everything below queries by id
+        Long departmentId = referenceDictionary.departmentId(department)
+                .orElseThrow(() -> new RuntimeException("Department not found: " + department));
         System.out.println("Department ID: " + departmentId);
 
-        Long batchId = batchService.getBatchByName(batch).getId();
+        Long batchId = referenceDictionary.batchId(batch)
+                .orElseThrow(() -> new RuntimeException("Batch not found: " + batch));
         System.out.println("Batch ID: " + batchId);
 
-        Long subjectId = subjectService.getSubjectByDepartmentSemesterAndName(dept, semester, subject).getId();
+        Long subjectId = referenceDictionary.subjectId(departmentId, semester, subject)
+                .orElseThrow(() -> new RuntimeException("Subject not found: " + subject));
         System.out.println("Subject ID: " + subjectId);
 
+        // Fetch all questions based on criteria
+        List<Question> questions = questionService.getFilteredQuestions(departmentId, batchId, semester, examType, subjectId);
+        System.out.println("Fetched Questions: " + questions);
+
         // Check if the student has already submitted marks
         List<StudentMarksProjection> submittedMarks = studentMarksService.getMarksByStudentIdAndCriteria(
             studentId, departmentId, batchId, semester, examType, subjectId);
@@ -1,8 +1,11 @@
 package com.copo.app.controller;
 
+import com.copo.app.config.ReferenceCacheConfig;
 import com.copo.app.model.Department;
 import com.copo.app.model.Subject;
 import com.copo.app.service.DepartmentService;
+import com.copo.app.service.ReferenceDictionary;
+import com.copo.app.service.ScopeVersions;
 import com.copo.app.service.SubjectService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
@@ -29,6 +33,12 @@ public class SubjectController {
     @Autowired
     DepartmentService departmentService;
 
+    @Autowired
+    ReferenceDictionary referenceDictionary;
+
+    @Autowired
+    ScopeVersions scopeVersions;
+
     // ✅ 1. Filtered subjects (AJAX call)
     @GetMapping("/filtered")
     @ResponseBody
@@ -50,13 +60,18 @@ public class SubjectController {
     @GetMapping("/by-deptId-sem")
     @ResponseBody
     public List<Subject> getSubjectsByDepartmentIDAndSemester(@RequestParam Long department,
-                                                              @RequestParam Integer semester) {
+                                                              @RequestParam Integer semester,
+                                                              ServletWebRequest request) {
+        if (ConditionalGet.notModified(request, scopeVersions.etag(ReferenceCacheConfig.SUBJECTS))) {
+            return null;
+        }
         try {
             List<Subject> subjects = subjectService.getSubjectsByDepartmentAndSemester(department, semester);
             logger.info("Fetched subjects for deptId={}, semester={}", department, semester);
             return subjects;
         } catch (Exception e) {
             logger.error("Error fetching subjects by deptId and semester", e);
+            ConditionalGet.doNotStore(request);
             return List.of();
         }
     }
@@ -67,8 +82,9 @@ public class SubjectController {
     public List<Subject> getSubjectsByDepartmentAndSemester(@RequestParam String department,
                                                             @RequestParam Integer semester) {
         try {
-            Department dept = departmentService.getDepartmentByName(department);
-            List<Subject> subjects = subjectService.getSubjectsByDepartmentAndSemester(dept.getId(), semester);
+            Long departmentId = referenceDictionary.departmentId(department)
+                    .orElseThrow(() -> new RuntimeException("Department not found: " + department));
+            List<Subject> subjects = subjectService.getSubjectsByDepartmentAndSemester(departmentId, semester);
             logger.info("Fetched subjects for department={}, semester={}", department, semester);
             return subjects;
         } catch (Exception e) {
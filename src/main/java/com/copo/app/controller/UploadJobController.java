@@ -0,0 +1,77 @@
+package com.copo.app.controller;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.copo.app.model.UploadJob;
+import com.copo.app.service.UploadJobService;
+
+// Background uploads: each POST returns a job id at once, its progress is polled with GET /upload-jobs/{id}
+@RestController
+@RequestMapping("/upload-jobs")
+public class UploadJobController {
+
+    @Autowired
+    private UploadJobService uploadJobService;
+
+    @PostMapping("/students")
+    public ResponseEntity<Map<String, Object>> uploadStudents(@RequestParam("file") MultipartFile file) {
+        return accepted(() -> uploadJobService.submitStudents(file));
+    }
+
+    @PostMapping("/faculty")
+    public ResponseEntity<Map<String, Object>> uploadFaculty(@RequestParam("file") MultipartFile file) {
+        return accepted(() -> uploadJobService.submitFaculty(file));
+    }
+
+    @PostMapping("/subjects")
+    public ResponseEntity<Map<String, Object>> uploadSubjects(@RequestParam("file") MultipartFile file) {
+        return accepted(() -> uploadJobService.submitSubjects(file));
+    }
+
+    @PostMapping("/questions")
+    public ResponseEntity<Map<String, Object>> uploadQuestions(@RequestParam("file") MultipartFile file) {
+        return accepted(() -> uploadJobService.submitQuestions(file));
+    }
+
+    @PostMapping("/copo")
+    public ResponseEntity<Map<String, Object>> uploadCoPoMatrix(@RequestParam("file") MultipartFile file,
+                                                                @RequestParam("subjectCode") String subjectCode,
+                                                                @RequestParam("subjectName") String subjectName,
+                                                                @RequestParam(name = "incremental", defaultValue = "false") boolean incremental) {
+        return accepted(() -> uploadJobService.submitCoPoMatrix(file, subjectCode.trim(), subjectName.trim(), incremental));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String id) {
+        return uploadJobService.getJob(id)
+                .map(job -> ResponseEntity.ok(uploadJobService.toStatus(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Unknown upload job: " + id)));
+    }
+
+    @GetMapping
+    public List<Map<String, Object>> getJobs() {
+        return uploadJobService.getJobs().stream().map(uploadJobService::toStatus).toList();
+    }
+
+    private ResponseEntity<Map<String, Object>> accepted(Supplier<UploadJob> submit) {
+        try {
+            UploadJob job = submit.get();
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(Map.of("jobId", job.getId(), "statusUrl", "/upload-jobs/" + job.getId()));
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many uploads in progress, try again later."));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.copo.app.controller;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.copo.app.model.UploadJob;
+import com.copo.app.service.UploadSessionService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Chunked uploads: open a session, PUT the file part by part, then POST /import; a failed import resumes from its checkpoint
+@RestController
+@RequestMapping("/upload-jobs/sessions")
+public class UploadSessionController {
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createSession(@RequestParam("kind") String kind,
+                                                             @RequestParam(name = "fileName", required = false) String fileName) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(uploadSessionService.toStatus(uploadSessionService.createSession(kind, fileName)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getSession(@PathVariable String id) {
+        return uploadSessionService.getSession(id)
+                .map(session -> ResponseEntity.ok(uploadSessionService.toStatus(session)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Unknown upload session: " + id)));
+    }
+
+    @PutMapping("/{id}/parts/{index}")
+    public ResponseEntity<Map<String, Object>> uploadPart(@PathVariable String id, @PathVariable int index,
+                                                          HttpServletRequest request) {
+        return respond(HttpStatus.OK, () -> {
+            try {
+                return uploadSessionService.toStatus(uploadSessionService.appendPart(id, index, request.getInputStream()));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read part " + index + ". Error: " + e.getMessage());
+            }
+        });
+    }
+
+    @DeleteMapping("/{id}/parts")
+    public ResponseEntity<Map<String, Object>> discardParts(@PathVariable String id) {
+        return respond(HttpStatus.OK, () -> uploadSessionService.toStatus(uploadSessionService.discardParts(id)));
+    }
+
+    @PostMapping("/{id}/import")
+    public ResponseEntity<Map<String, Object>> startImport(@PathVariable String id) {
+        return respond(HttpStatus.ACCEPTED, () -> {
+            UploadJob job = uploadSessionService.startImport(id);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("jobId", job.getId());
+            body.put("statusUrl", "/upload-jobs/" + job.getId());
+            body.put("sessionUrl", "/upload-jobs/sessions/" + id);
+            return body;
+        });
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> deleteSession(@PathVariable String id) {
+        return respond(HttpStatus.OK, () -> {
+            uploadSessionService.deleteSession(id);
+            return Map.of("deleted", id);
+        });
+    }
+
+    private ResponseEntity<Map<String, Object>> respond(HttpStatus status, Supplier<Map<String, Object>> action) {
+        try {
+            return ResponseEntity.status(status).body(action.get());
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many uploads in progress, try again later."));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
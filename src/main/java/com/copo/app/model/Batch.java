@@ -10,7 +10,7 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name ="batches")
+@Table(name ="batches", indexes = @Index(name = "idx_batches_name", columnList = "name"))
 public class Batch implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -14,7 +14,7 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "departments")
+@Table(name = "departments", indexes = @Index(name = "idx_departments_name", columnList = "name"))
 public class Department {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,36 @@
+package com.copo.app.model;
+
+/**
+ * Status of a submitted mark, derived once from the entered text when the mark is written.
+ */
+public enum MarkStatus {
+    PRESENT,        // a mark was entered
+    ABSENT,         // "AB"
+    NOT_ATTEMPTED;  // empty, "N", "NA" ...
+
+    public static MarkStatus of(String answer) {
+        if (answer == null || answer.isEmpty()) {
+            return NOT_ATTEMPTED;
+        }
+        if (answer.contains("AB")) {
+            return ABSENT;
+        }
+        if (answer.contains("N")) {
+            return NOT_ATTEMPTED;
+        }
+        return PRESENT;
+    }
+
+    /** Numeric value of the entered text, or null when it is not a finite number. */
+    public static Double scoreOf(String answer) {
+        if (answer == null || answer.isEmpty()) {
+            return null;
+        }
+        try {
+            double score = Double.parseDouble(answer);
+            return Double.isFinite(score) ? score : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
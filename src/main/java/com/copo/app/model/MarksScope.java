@@ -0,0 +1,30 @@
+package com.copo.app.model;
+
+import java.io.Serializable;
+
+/**
+ * Cache key of a faculty marks view: the subject of one department, batch and semester,
+ * optionally narrowed to one exam type and one section.
+ */
+public record MarksScope(Long departmentId, Long batchId, Integer semester, Long subjectId, String examType,
+        Integer sectionId) implements Serializable {
+
+    /** Scope of the questions of one exam type, across all sections. */
+    public MarksScope(Long departmentId, Long batchId, Integer semester, Long subjectId, String examType) {
+        this(departmentId, batchId, semester, subjectId, examType, null);
+    }
+
+    public static MarksScope of(Question question) {
+        return new MarksScope(question.getDepartment().getId(), question.getBatch().getId(), question.getSemester(),
+                question.getSubject().getId(), question.getExamType());
+    }
+
+    /** Key of the full view, which covers every exam type and section. */
+    public MarksScope fullView() {
+        return new MarksScope(departmentId, batchId, semester, subjectId, null, null);
+    }
+
+    public MarksScope withSection(Integer section) {
+        return new MarksScope(departmentId, batchId, semester, subjectId, examType, section);
+    }
+}
@@ -0,0 +1,28 @@
+package com.copo.app.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Running attainment counters of one question, kept in step with the student_marks rows of
+ * the students in the question's department and batch (latest mark per student).
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@Table(name = "question_attainment")
+public class QuestionAttainment {
+
+    @Id
+    private Long questionId; // same id as questions.id
+
+    private int attempted;
+
+    private int aboveHalf; // marks >= 50% of max marks
+
+    private double marksTotal;
+}
@@ -0,0 +1,25 @@
+package com.copo.app.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Version counter of one cached scope, shared by all nodes; see
+ * {@link com.copo.app.service.ScopeVersions}.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@Table(name = "scope_versions")
+public class ScopeVersion {
+
+    @Id
+    @Column(length = 191)
+    private String scope; // e.g. marks:1:2:3:4, copo:CS101 or subjects
+
+    private long version;
+}
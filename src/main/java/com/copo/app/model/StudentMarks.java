@@ -14,8 +14,11 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @ToString
+// One mark per student and question: StudentMarksCellKeyMigration adds the key BulkWriter upserts on
 @Table(name = "student_marks")
 public class StudentMarks {
+    public static final String CELL_KEY = "uk_student_marks_cell";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -32,4 +35,18 @@ public class StudentMarks {
 
 
     private String answer;
+
+    // Normalized from answer on every write, so aggregation never parses the text
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private MarkStatus status;
+
+    private Double score;
+
+    @PrePersist
+    @PreUpdate
+    void normalizeAnswer() {
+        status = MarkStatus.of(answer);
+        score = MarkStatus.scoreOf(answer);
+    }
 }
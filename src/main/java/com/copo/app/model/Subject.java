@@ -9,7 +9,7 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @ToString(exclude = {"department"})
-@Table(name="subjects")
+@Table(name="subjects", indexes = @Index(name = "idx_subjects_department_semester_name", columnList = "department_id, semester, name"))
 public class Subject {
 	
 	@Id
@@ -0,0 +1,62 @@
+package com.copo.app.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Progress of one upload processed in the background, kept in the database so that any node can
+ * report it. Only the worker running the job writes it, after each chunk; {@code updatedAt} is
+ * also touched while the job waits, so a job whose node went away can be told apart.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(exclude = "errors")
+@Table(name = "upload_jobs", indexes = @Index(name = "idx_upload_jobs_status", columnList = "status, updatedAt"))
+public class UploadJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    private String id;
+
+    private String kind; // students, faculty, subjects, questions or copo
+
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private int rowsProcessed;
+
+    private int rowsFailed;
+
+    private int chunksCommitted;
+
+    private int errorCount; // row errors kept in errors, at most UploadJobService.MAX_ERRORS
+
+    @Column(length = 200000)
+    private String errors; // one per line
+
+    @Column(length = 2000)
+    private String failure;
+
+    private Instant submittedAt;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    private Instant updatedAt;
+
+    public boolean isActive() {
+        return status == Status.QUEUED || status == Status.RUNNING;
+    }
+}
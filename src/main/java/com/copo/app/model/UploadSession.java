@@ -0,0 +1,53 @@
+package com.copo.app.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A chunked upload: the parts received so far and the checkpoint of its import. Rows up to
+ * {@code committedThroughRow} (line number of a CSV, sheet row of an .xlsx) are saved, so an
+ * interrupted or rejected import resumes after them.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@Table(name = "upload_sessions")
+public class UploadSession {
+
+    public enum Status {
+        RECEIVING, IMPORTING, FAILED, COMPLETED
+    }
+
+    @Id
+    private String id;
+
+    private String kind; // students, faculty, subjects or questions
+
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private int partsReceived;
+
+    private long bytesReceived;
+
+    private int committedThroughRow;
+
+    private int rowsCommitted;
+
+    private String jobId; // last import run, see UploadJobService
+
+    @Column(length = 2000)
+    private String lastError;
+
+    private Instant createdAt;
+
+    private Instant updatedAt;
+}
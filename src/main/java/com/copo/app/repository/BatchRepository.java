@@ -1,8 +1,11 @@
 package com.copo.app.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.copo.app.model.Batch;
@@ -12,5 +15,12 @@ import com.copo.app.model.Batch;
 public interface BatchRepository extends JpaRepository<Batch, Long> {
 
 	Optional<Batch> findBatchByName(String batch);
+
+	@Query("SELECT b.id AS id, b.name AS name FROM Batch b ORDER BY b.id")
+	List<NameRefProjection> findNameRefs();
+
+	// Ids of the batches with a name, on the name index; case is left to the column's collation
+	@Query("SELECT b.id FROM Batch b WHERE b.name = :name ORDER BY b.id")
+	List<Long> findIdsByName(@Param("name") String name);
     // Add custom query methods if needed
 }
@@ -13,4 +13,8 @@ public interface CoPoMatrixRepository extends JpaRepository<CoPoMatrixEntry, Lon
     List<com.copo.app.model.CoPoMatrixEntry>  findBySubjectName(String subjectName);
     
     List<CoPoMatrixEntry> findBySubjectNameAndSubjectCode(String subjectName, String subjectCode);
+
+    boolean existsBySubjectCode(String subjectCode);
+
+    boolean existsBySubjectName(String subjectName);
 }
\ No newline at end of file
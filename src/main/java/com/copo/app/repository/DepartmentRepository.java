@@ -3,6 +3,7 @@ package com.copo.app.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.Modifying;
@@ -16,14 +17,27 @@ public interface DepartmentRepository extends JpaRepository<Department, Long> {
 
 	Optional<Department> findDepartmentByName(String department);
 	
+	// Departments are cached with their sections, see ReferenceCache
+	@EntityGraph(attributePaths = "sections")
+	Optional<Department> findWithSectionsById(Long id);
+
 	// Find only non-deleted departments
+	@EntityGraph(attributePaths = "sections")
 	@Query("SELECT d FROM Department d WHERE d.isDeleted = false")
 	List<Department> findAllActive();
 	
 	// Find department by name (only non-deleted)
+	@EntityGraph(attributePaths = "sections")
 	@Query("SELECT d FROM Department d WHERE d.name = :name AND d.isDeleted = false")
 	Optional<Department> findActiveDepartmentByName(@Param("name") String name);
 	
+	@Query("SELECT d.id AS id, d.name AS name FROM Department d WHERE d.isDeleted = false ORDER BY d.id")
+	List<NameRefProjection> findActiveNameRefs();
+
+	// Ids of the active departments with a name, on the name index; case is left to the column's collation
+	@Query("SELECT d.id FROM Department d WHERE d.name = :name AND d.isDeleted = false ORDER BY d.id")
+	List<Long> findActiveIdsByName(@Param("name") String name);
+
 	// Soft delete - mark as deleted
 	@Modifying
 	@Query("UPDATE Department d SET d.isDeleted = true WHERE d.id = :id")
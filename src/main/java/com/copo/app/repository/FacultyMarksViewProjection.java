@@ -1,5 +1,7 @@
 package com.copo.app.repository;
 
+import com.copo.app.model.MarkStatus;
+
 public interface FacultyMarksViewProjection {
     Long getStudentId();
     String getStudentName();
@@ -12,4 +14,6 @@ public interface FacultyMarksViewProjection {
     String getExamType();
     String getCourseOutcome(); // New field for course outcome
     String getSubmittedMarks();
+    MarkStatus getMarkStatus();
+    Double getScore();
 }
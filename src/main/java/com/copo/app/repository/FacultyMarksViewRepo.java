@@ -1,6 +1,7 @@
 package com.copo.app.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -13,7 +14,7 @@ import com.copo.app.model.StudentMarks;
 public interface FacultyMarksViewRepo extends JpaRepository<StudentMarks, Long> {
     @Query("SELECT s.id AS studentId, s.name AS studentName, q.id AS questionId, " +
            "q.part AS part, q.questionNumber AS questionNumber, q.text AS questionText, " +
-           "q.maxMarks AS maxMarks, q.courseOutcome AS courseOutcome, sm.answer AS submittedMarks " +
+           "q.maxMarks AS maxMarks, q.courseOutcome AS courseOutcome, sm.answer AS submittedMarks, sm.status AS markStatus, sm.score AS score " +
            "FROM Student s " +
            "CROSS JOIN Question q " +
            "LEFT JOIN StudentMarks sm ON s.id = sm.student.id AND q.id = sm.question.id " +
@@ -31,7 +32,7 @@ public interface FacultyMarksViewRepo extends JpaRepository<StudentMarks, Long>
 
     @Query("SELECT s.id AS studentId, s.name AS studentName, q.id AS questionId, " +
            "q.part AS part, q.questionNumber AS questionNumber, q.text AS questionText, " +
-           "q.maxMarks AS maxMarks, q.courseOutcome AS courseOutcome, sm.answer AS submittedMarks " +
+           "q.maxMarks AS maxMarks, q.courseOutcome AS courseOutcome, sm.answer AS submittedMarks, sm.status AS markStatus, sm.score AS score " +
            "FROM Student s " +
            "CROSS JOIN Question q " +
            "LEFT JOIN StudentMarks sm ON s.id = sm.student.id AND q.id = sm.question.id " +
@@ -55,7 +56,7 @@ public interface FacultyMarksViewRepo extends JpaRepository<StudentMarks, Long>
     @Query("SELECT s.id AS studentId, s.name AS studentName, s.rollNumber AS rollNumber, q.id AS questionId, " +
     	       "q.part AS part, q.questionNumber AS questionNumber, q.text AS questionText, " +
     	       "q.maxMarks AS maxMarks, q.courseOutcome AS courseOutcome, q.examType AS examType, " +  // Include examType!
-    	       "sm.answer AS submittedMarks " +
+    	       "sm.answer AS submittedMarks, sm.status AS markStatus, sm.score AS score " +
     	       "FROM Student s " +
     	       "CROSS JOIN Question q " +
     	       "LEFT JOIN StudentMarks sm ON s.id = sm.student.id AND q.id = sm.question.id " +
@@ -74,6 +75,78 @@ public interface FacultyMarksViewRepo extends JpaRepository<StudentMarks, Long>
     
     
     
-}
+    // Sparse fetch: roster, question list and only the marks that exist, joined in the service layer
 
+    @Query("SELECT s.id AS studentId, s.name AS studentName, s.rollNumber AS rollNumber " +
+           "FROM Student s LEFT JOIN s.section sec " +
+           "WHERE s.department.id = :departmentId AND s.batch.id = :batchId " +
+           "AND (:sectionId IS NULL OR sec.id = :sectionId) " +
+           "ORDER BY s.name, s.id")
+    List<StudentRosterProjection> getRoster(
+        @Param("departmentId") Long departmentId,
+        @Param("batchId") Long batchId,
+        @Param("sectionId") Integer sectionId
+    );
 
+    @Query("SELECT q.id AS questionId, q.part AS part, q.questionNumber AS questionNumber, q.text AS questionText, " +
+           "q.maxMarks AS maxMarks, q.examType AS examType, q.courseOutcome AS courseOutcome " +
+           "FROM Question q " +
+           "WHERE q.department.id = :departmentId AND q.batch.id = :batchId AND q.semester = :semester " +
+           "AND q.examType = :examType AND q.subject.id = :subjectId " +
+           "ORDER BY q.part, q.questionNumber")
+    List<QuestionSlotProjection> getQuestionSlotsByExamType(
+        @Param("departmentId") Long departmentId,
+        @Param("batchId") Long batchId,
+        @Param("semester") Integer semester,
+        @Param("examType") String examType,
+        @Param("subjectId") Long subjectId
+    );
+
+    @Query("SELECT q.id AS questionId, q.part AS part, q.questionNumber AS questionNumber, q.text AS questionText, " +
+           "q.maxMarks AS maxMarks, q.examType AS examType, q.courseOutcome AS courseOutcome " +
+           "FROM Question q " +
+           "WHERE q.department.id = :departmentId AND q.batch.id = :batchId AND q.semester = :semester " +
+           "AND q.subject.id = :subjectId " +
+           "ORDER BY q.courseOutcome, q.examType, q.part, q.questionNumber")
+    List<QuestionSlotProjection> getQuestionSlots(
+        @Param("departmentId") Long departmentId,
+        @Param("batchId") Long batchId,
+        @Param("semester") Integer semester,
+        @Param("subjectId") Long subjectId
+    );
+
+    // Ordered by id so that a later submission for the same cell wins
+    @Query("SELECT sm.id AS id, s.id AS studentId, q.id AS questionId, sm.answer AS answer, sm.status AS status, sm.score AS score " +
+           "FROM StudentMarks sm JOIN sm.student s JOIN sm.question q LEFT JOIN s.section sec " +
+           "WHERE s.department.id = :departmentId AND s.batch.id = :batchId " +
+           "AND (:sectionId IS NULL OR sec.id = :sectionId) " +
+           "AND q.department.id = :departmentId AND q.batch.id = :batchId AND q.semester = :semester " +
+           "AND (:examType IS NULL OR q.examType = :examType) AND q.subject.id = :subjectId " +
+           "ORDER BY sm.id")
+    List<StudentMarksProjection> getSubmittedMarks(
+        @Param("departmentId") Long departmentId,
+        @Param("batchId") Long batchId,
+        @Param("semester") Integer semester,
+        @Param("examType") String examType,
+        @Param("subjectId") Long subjectId,
+        @Param("sectionId") Integer sectionId
+    );
+
+    // Same rows, read one by one; the caller must close the stream inside a transaction
+    @Query("SELECT sm.id AS id, s.id AS studentId, q.id AS questionId, sm.answer AS answer, sm.status AS status, sm.score AS score " +
+           "FROM StudentMarks sm JOIN sm.student s JOIN sm.question q LEFT JOIN s.section sec " +
+           "WHERE s.department.id = :departmentId AND s.batch.id = :batchId " +
+           "AND (:sectionId IS NULL OR sec.id = :sectionId) " +
+           "AND q.department.id = :departmentId AND q.batch.id = :batchId AND q.semester = :semester " +
+           "AND (:examType IS NULL OR q.examType = :examType) AND q.subject.id = :subjectId " +
+           "ORDER BY sm.id")
+    Stream<StudentMarksProjection> streamSubmittedMarks(
+        @Param("departmentId") Long departmentId,
+        @Param("batchId") Long batchId,
+        @Param("semester") Integer semester,
+        @Param("examType") String examType,
+        @Param("subjectId") Long subjectId,
+        @Param("sectionId") Integer sectionId
+    );
+
+}
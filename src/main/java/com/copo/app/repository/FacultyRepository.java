@@ -1,5 +1,7 @@
 package com.copo.app.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -18,6 +20,9 @@ public interface FacultyRepository extends JpaRepository<Faculty, Long> {
 
 	Optional<Faculty> findByFacultycode(String facultycode);
 
+	@Query("SELECT f.facultycode FROM Faculty f WHERE f.facultycode IN :facultycodes")
+	List<String> findExistingFacultycodes(@Param("facultycodes") Collection<String> facultycodes);
+
 
 	
 	//Optional<Faculty> findByNameAndEmail(String name, String email);
@@ -0,0 +1,9 @@
+package com.copo.app.repository;
+
+/**
+ * Id and name of a department or batch, for resolving names without loading the entities.
+ */
+public interface NameRefProjection {
+    Long getId();
+    String getName();
+}
@@ -0,0 +1,36 @@
+package com.copo.app.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.copo.app.model.QuestionAttainment;
+
+@Repository
+public interface QuestionAttainmentRepository extends JpaRepository<QuestionAttainment, Long> {
+
+    @Modifying
+    @Query("UPDATE QuestionAttainment a SET a.attempted = a.attempted + :attempted, " +
+           "a.aboveHalf = a.aboveHalf + :aboveHalf, a.marksTotal = a.marksTotal + :marksTotal " +
+           "WHERE a.questionId = :questionId")
+    int increment(
+        @Param("questionId") Long questionId,
+        @Param("attempted") int attempted,
+        @Param("aboveHalf") int aboveHalf,
+        @Param("marksTotal") double marksTotal
+    );
+
+    @Modifying
+    @Query("DELETE FROM QuestionAttainment a WHERE a.questionId NOT IN (SELECT q.id FROM Question q)")
+    int deleteOrphans();
+
+    // one statement rather than a find and a remove per row, which fails at commit when a
+    // concurrent invalidation removed the row first
+    @Modifying
+    @Query("DELETE FROM QuestionAttainment a WHERE a.questionId IN :questionIds")
+    int deleteByQuestionIdIn(@Param("questionIds") List<Long> questionIds);
+}
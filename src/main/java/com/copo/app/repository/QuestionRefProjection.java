@@ -0,0 +1,15 @@
+package com.copo.app.repository;
+
+/**
+ * The columns of a question needed to save a mark against it, read from the questions table
+ * alone without joining its subject, department and batch.
+ */
+public interface QuestionRefProjection {
+    Long getId();
+    Long getDepartmentId();
+    Long getBatchId();
+    Integer getSemester();
+    Long getSubjectId();
+    String getExamType();
+    Integer getMaxMarks();
+}
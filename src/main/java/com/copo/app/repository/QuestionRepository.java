@@ -1,6 +1,7 @@
 package com.copo.app.repository;
 
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -19,6 +20,27 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
 	
 	List<Question> findBySubjectIdAndSemesterAndExamType(Long subjectId, int semester, String examType);
 
+	@Query("SELECT q.id FROM Question q ORDER BY q.id")
+	List<Long> findAllIds();
+
+	@Query("SELECT DISTINCT q.department.id AS departmentId, q.batch.id AS batchId, q.semester AS semester, " +
+	       "q.subject.id AS subjectId, q.examType AS examType FROM Question q " +
+	       "WHERE q.department.id = :departmentId AND q.batch.id = :batchId")
+	List<QuestionScopeProjection> findScopes(@Param("departmentId") Long departmentId, @Param("batchId") Long batchId);
+
+	// Scopes of the latest semester with questions of every active department and batch, i.e. the current one
+	@Query("SELECT DISTINCT q.department.id AS departmentId, q.batch.id AS batchId, q.semester AS semester, " +
+	       "q.subject.id AS subjectId, q.examType AS examType FROM Question q " +
+	       "WHERE q.department.isDeleted = false AND q.semester = (SELECT MAX(q2.semester) FROM Question q2 " +
+	       "WHERE q2.department = q.department AND q2.batch = q.batch) " +
+	       "ORDER BY q.department.id, q.batch.id, q.subject.id")
+	List<QuestionScopeProjection> findCurrentSemesterScopes();
+
+	@Query("SELECT q.id AS id, q.department.id AS departmentId, q.batch.id AS batchId, q.semester AS semester, " +
+	       "q.subject.id AS subjectId, q.examType AS examType, q.maxMarks AS maxMarks FROM Question q " +
+	       "WHERE q.id IN :ids")
+	List<QuestionRefProjection> findRefsByIdIn(@Param("ids") Collection<Long> ids);
+
 	
 	/*
 	 * @Query("SELECT q FROM Question q " + "JOIN q.department d " +
@@ -38,21 +60,22 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
 	 * @Param("subject") String subject );
 	 */
 	
+	// Names are resolved to ids by the ReferenceDictionary, so the filter uses the foreign key columns
 	@Query("SELECT q FROM Question q "
 		     + "JOIN FETCH q.department d "
 		     + "JOIN FETCH q.batch b "
 		     + "JOIN FETCH q.subject s "
-		     + "WHERE LOWER(d.name) = LOWER(:department) "
-		     + "AND LOWER(b.name) = LOWER(:batch) "
+		     + "WHERE d.id = :departmentId "
+		     + "AND b.id = :batchId "
 		     + "AND q.semester = :semester "
 		     + "AND LOWER(q.examType) = LOWER(:examType) "
-		     + "AND LOWER(s.name) = LOWER(:subject)")
+		     + "AND s.id = :subjectId")
 		List<Question> findQuestions(
-		    @Param("department") String department,
-		    @Param("batch") String batch,
+		    @Param("departmentId") Long departmentId,
+		    @Param("batchId") Long batchId,
 		    @Param("semester") int semester,
 		    @Param("examType") String examType,
-		    @Param("subject") String subject
+		    @Param("subjectId") Long subjectId
 		);
 
 
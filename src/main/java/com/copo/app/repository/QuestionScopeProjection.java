@@ -0,0 +1,9 @@
+package com.copo.app.repository;
+
+public interface QuestionScopeProjection {
+    Long getDepartmentId();
+    Long getBatchId();
+    Integer getSemester();
+    Long getSubjectId();
+    String getExamType();
+}
@@ -0,0 +1,11 @@
+package com.copo.app.repository;
+
+public interface QuestionSlotProjection {
+    Long getQuestionId();
+    String getPart();
+    String getQuestionNumber();
+    String getQuestionText();
+    Integer getMaxMarks();
+    String getExamType();
+    String getCourseOutcome();
+}
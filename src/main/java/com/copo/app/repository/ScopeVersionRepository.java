@@ -0,0 +1,28 @@
+package com.copo.app.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.copo.app.model.ScopeVersion;
+
+@Repository
+public interface ScopeVersionRepository extends JpaRepository<ScopeVersion, String> {
+
+    // creates the counter at 1 on the first bump
+    @Modifying
+    @Query(value = "INSERT INTO scope_versions (scope, version) VALUES (:scope, 1) "
+            + "ON DUPLICATE KEY UPDATE version = version + 1", nativeQuery = true)
+    int increment(@Param("scope") String scope);
+
+    @Query("SELECT v.version FROM ScopeVersion v WHERE v.scope = :scope")
+    Optional<Long> findVersion(@Param("scope") String scope);
+
+    List<ScopeVersion> findByScopeIn(Collection<String> scopes);
+}
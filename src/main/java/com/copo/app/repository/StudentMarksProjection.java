@@ -1,9 +1,13 @@
 package com.copo.app.repository;
 
+import com.copo.app.model.MarkStatus;
+
 public interface StudentMarksProjection {
 	Long getId();
     Long getStudentId();
     Long getQuestionId();
     String getAnswer();
+    MarkStatus getStatus();
+    Double getScore();
 
 }
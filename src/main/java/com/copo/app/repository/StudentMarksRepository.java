@@ -9,6 +9,7 @@ import com.copo.app.model.Question;
 import com.copo.app.model.Student;
 import com.copo.app.model.StudentMarks;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -21,7 +22,23 @@ public interface StudentMarksRepository extends JpaRepository<StudentMarks, Long
 
     
     
-    @Query("SELECT sm.id AS id, sm.student.id AS studentId, sm.question.id AS questionId, sm.answer AS answer FROM StudentMarks sm "
+    // Marks of the students in each question's own department and batch, oldest first
+    @Query("SELECT sm.id AS id, s.id AS studentId, q.id AS questionId, sm.answer AS answer, sm.status AS status, sm.score AS score FROM StudentMarks sm "
+            + "JOIN sm.student s JOIN sm.question q "
+            + "WHERE q.id IN :questionIds "
+            + "AND s.department.id = q.department.id AND s.batch.id = q.batch.id "
+            + "ORDER BY sm.id")
+    List<StudentMarksProjection> findRosterMarksByQuestionIds(@Param("questionIds") List<Long> questionIds);
+
+    @Query("SELECT sm.id AS id, sm.student.id AS studentId, sm.question.id AS questionId, sm.answer AS answer, sm.status AS status, sm.score AS score FROM StudentMarks sm "
+            + "WHERE sm.student.id = :studentId AND sm.question.id IN :questionIds")
+    List<StudentMarksProjection> findMarksByStudentIdAndQuestionIds(@Param("studentId") Long studentId,
+            @Param("questionIds") Collection<Long> questionIds);
+
+    @Query("SELECT DISTINCT sm.question.id FROM StudentMarks sm WHERE sm.student.id = :studentId")
+    List<Long> findQuestionIdsByStudentId(@Param("studentId") Long studentId);
+
+    @Query("SELECT sm.id AS id, sm.student.id AS studentId, sm.question.id AS questionId, sm.answer AS answer, sm.status AS status, sm.score AS score FROM StudentMarks sm "
             + "JOIN sm.question q "
             + "WHERE sm.student.id = :studentId "
             + "AND q.department.id = :departmentId "
@@ -0,0 +1,10 @@
+package com.copo.app.repository;
+
+/**
+ * The department and batch a student currently belongs to, read from the students table alone.
+ */
+public interface StudentRefProjection {
+    Long getId();
+    Long getDepartmentId();
+    Long getBatchId();
+}
@@ -1,5 +1,6 @@
 package com.copo.app.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,8 +39,18 @@ public interface StudentRepository extends JpaRepository<Student,Long> {
 
 	Optional<Student> findByRollNumber(String rollNumber);
 
+	@Query("SELECT s.id AS id, d.id AS departmentId, b.id AS batchId FROM Student s "
+			+ "LEFT JOIN s.department d LEFT JOIN s.batch b WHERE s.id = :id")
+	Optional<StudentRefProjection> findRefById(@Param("id") Long id);
+
 	Optional<Student> findByRegisterNumber(String registerNumber);
 
+	@Query("SELECT s.rollNumber FROM Student s WHERE s.rollNumber IN :rollNumbers")
+	List<String> findExistingRollNumbers(@Param("rollNumbers") Collection<String> rollNumbers);
+
+	@Query("SELECT s.registerNumber FROM Student s WHERE s.registerNumber IN :registerNumbers")
+	List<String> findExistingRegisterNumbers(@Param("registerNumbers") Collection<String> registerNumbers);
+
 	@Query("SELECT COUNT(s) FROM Student s WHERE s.department.id = :departmentId")
 	long countByDepartmentId(@Param("departmentId") Long departmentId);
 
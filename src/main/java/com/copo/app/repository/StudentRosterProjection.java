@@ -0,0 +1,7 @@
+package com.copo.app.repository;
+
+public interface StudentRosterProjection {
+    Long getStudentId();
+    String getStudentName();
+    String getRollNumber();
+}
@@ -0,0 +1,11 @@
+package com.copo.app.repository;
+
+/**
+ * Name and code of a subject with the department and semester they are unique in.
+ */
+public interface SubjectKeyProjection {
+    Long getDepartmentId();
+    Integer getSemester();
+    String getName();
+    String getCode();
+}
@@ -0,0 +1,11 @@
+package com.copo.app.repository;
+
+/**
+ * Id of a subject with the department, semester and name it is looked up by.
+ */
+public interface SubjectNameRefProjection {
+    Long getId();
+    Long getDepartmentId();
+    Integer getSemester();
+    String getName();
+}
@@ -1,5 +1,6 @@
 package com.copo.app.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,6 +36,21 @@ public interface SubjectRepository extends JpaRepository<Subject,Long> {
 	boolean existsByNameAndDepartmentAndSemester(String name, Department department, int semester);
 	boolean existsByCodeAndDepartmentAndSemester(String code, Department department, int semester);
 
+	@Query("SELECT s.id AS id, s.department.id AS departmentId, s.semester AS semester, s.name AS name "
+	       + "FROM Subject s ORDER BY s.id")
+	List<SubjectNameRefProjection> findNameRefs();
+
+	// Ids of the subjects with a name in a department and semester, on the (department, semester, name) index;
+	// case is left to the column's collation
+	@Query("SELECT s.id FROM Subject s WHERE s.department.id = :departmentId AND s.semester = :semester "
+	       + "AND s.name = :name ORDER BY s.id")
+	List<Long> findIdsByName(@Param("departmentId") Long departmentId, @Param("semester") int semester,
+			@Param("name") String name);
+
+	@Query("SELECT s.department.id AS departmentId, s.semester AS semester, s.name AS name, s.code AS code "
+	       + "FROM Subject s WHERE s.department.id IN :departmentIds")
+	List<SubjectKeyProjection> findKeysByDepartmentIdIn(@Param("departmentIds") Collection<Long> departmentIds);
+
 	@Query("SELECT COUNT(s) FROM Subject s WHERE s.department.id = :departmentId")
 	long countByDepartmentId(@Param("departmentId") Long departmentId);
 
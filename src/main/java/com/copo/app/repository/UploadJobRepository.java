@@ -0,0 +1,38 @@
+package com.copo.app.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.copo.app.model.UploadJob;
+
+@Repository
+public interface UploadJobRepository extends JpaRepository<UploadJob, String> {
+
+    List<UploadJob> findAllByOrderBySubmittedAtAsc();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadJob j SET j.updatedAt = :now WHERE j.id IN :ids")
+    int touch(@Param("ids") Collection<String> ids, @Param("now") Instant now);
+
+    // jobs of a node that stopped: queued or running, but no longer touched
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadJob j SET j.status = com.copo.app.model.UploadJob.Status.FAILED, j.failure = :failure, "
+            + "j.finishedAt = :now WHERE j.status IN (com.copo.app.model.UploadJob.Status.QUEUED, "
+            + "com.copo.app.model.UploadJob.Status.RUNNING) AND j.updatedAt < :cutoff")
+    int failStale(@Param("cutoff") Instant cutoff, @Param("now") Instant now, @Param("failure") String failure);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UploadJob j WHERE j.finishedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") Instant cutoff);
+}
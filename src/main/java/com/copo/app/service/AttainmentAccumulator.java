@@ -0,0 +1,123 @@
+package com.copo.app.service;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Streaming attainment counters for one subject.
+ *
+ * Marks are fed in one at a time, in whatever order the repository returns them, and the
+ * attempted / >=50% counts are kept per question column, per CO / exam type group and per CO
+ * at the same time. A replaced cell is handled by taking back its previous contribution, so the
+ * counters are always final after a single pass over the rows.
+ */
+public final class AttainmentAccumulator {
+
+	private final int[] columnGroup;
+	private final int[] groupCo;
+
+	private final int[] attempted;
+	private final int[] aboveHalf;
+	private final int[] groupAttempted;
+	private final int[] groupAboveHalf;
+	private final int[] coAttempted;
+	private final int[] coAboveHalf;
+
+	/**
+	 * @param groups the CO / exam type groups of the cube, CO by CO, with their column ranges fixed
+	 * @param columnCount total number of question columns
+	 */
+	public AttainmentAccumulator(List<MarksCube.Group> groups, int columnCount) {
+		columnGroup = new int[columnCount];
+		groupCo = new int[groups.size()];
+
+		int co = -1;
+		for (int g = 0; g < groups.size(); g++) {
+			MarksCube.Group group = groups.get(g);
+			if (g == 0 || !Objects.equals(groups.get(g - 1).co(), group.co())) {
+				co++;
+			}
+			groupCo[g] = co;
+			for (int column = group.start(); column < group.end(); column++) {
+				columnGroup[column] = g;
+			}
+		}
+
+		attempted = new int[columnCount];
+		aboveHalf = new int[columnCount];
+		groupAttempted = new int[groups.size()];
+		groupAboveHalf = new int[groups.size()];
+		coAttempted = new int[co + 1];
+		coAboveHalf = new int[co + 1];
+	}
+
+	/** Adds one cell with the given {@link MarksCube} status flags. */
+	public void add(int column, byte status) {
+		count(column, status, 1);
+	}
+
+	/** Replaces the contribution of a cell that was already counted. */
+	public void replace(int column, byte previous, byte current) {
+		count(column, previous, -1);
+		count(column, current, 1);
+	}
+
+	/** Adds pre-counted totals for a column, e.g. from the persisted question counters. */
+	public void addCounts(int column, int attemptedCount, int aboveHalfCount) {
+		int group = columnGroup[column];
+		int co = groupCo[group];
+		attempted[column] += attemptedCount;
+		groupAttempted[group] += attemptedCount;
+		coAttempted[co] += attemptedCount;
+		aboveHalf[column] += aboveHalfCount;
+		groupAboveHalf[group] += aboveHalfCount;
+		coAboveHalf[co] += aboveHalfCount;
+	}
+
+	private void count(int column, byte status, int delta) {
+		if ((status & (MarksCube.ATTEMPTED | MarksCube.ABOVE_HALF)) == 0) {
+			return;
+		}
+		addCounts(column,
+				(status & MarksCube.ATTEMPTED) != 0 ? delta : 0,
+				(status & MarksCube.ABOVE_HALF) != 0 ? delta : 0);
+	}
+
+	public int attempted(int column) {
+		return attempted[column];
+	}
+
+	public int aboveHalf(int column) {
+		return aboveHalf[column];
+	}
+
+	/** Question-wise percentage of attempted students that scored >=50%. */
+	public double percentage(int column) {
+		return percentage(aboveHalf[column], attempted[column]);
+	}
+
+	public int groupAttempted(int group) {
+		return groupAttempted[group];
+	}
+
+	public int groupAboveHalf(int group) {
+		return groupAboveHalf[group];
+	}
+
+	/** Assessment-wise percentage of one CO / exam type group. */
+	public double groupPercentage(int group) {
+		return percentage(groupAboveHalf[group], groupAttempted[group]);
+	}
+
+	public int coAttempted(int co) {
+		return coAttempted[co];
+	}
+
+	public int coAboveHalf(int co) {
+		return coAboveHalf[co];
+	}
+
+	private static double percentage(int above, int total) {
+		return (total == 0) ? 0.0 : ((double) above / total) * 100.0;
+	}
+}
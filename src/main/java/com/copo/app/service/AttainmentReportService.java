@@ -0,0 +1,119 @@
+package com.copo.app.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.copo.app.model.Subject;
+import com.copo.app.repository.SubjectRepository;
+
+/**
+ * CO attainment of every subject of a department, batch and semester, computed in parallel.
+ *
+ * Subjects run on the bounded report executor, and a semaphore caps how many of them hold a
+ * database connection at the same time, so a report cannot starve the pool used by the pages.
+ */
+@Service
+public class AttainmentReportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttainmentReportService.class);
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private FacultyMarksViewService facultyMarksViewService;
+
+    @Autowired
+    private ScopeVersions scopeVersions;
+
+    @Autowired
+    @Qualifier("reportExecutor")
+    private ThreadPoolTaskExecutor reportExecutor;
+
+    private final Semaphore dbPermits;
+
+    public AttainmentReportService(@Value("${copo.report.max-db-connections:4}") int maxDbConnections) {
+        this.dbPermits = new Semaphore(maxDbConnections, true);
+    }
+
+    public Map<String, Object> getDepartmentReport(Long departmentId, Long batchId, int semester) {
+        try {
+            long start = System.nanoTime();
+            List<Subject> subjects = subjectRepository.findByDepartmentIdAndSemester(departmentId, semester);
+
+            List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<>(subjects.size());
+            for (Subject subject : subjects) {
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> computeSubject(departmentId, batchId, semester, subject), reportExecutor));
+            }
+
+            List<Map<String, Object>> results = new ArrayList<>(subjects.size());
+            for (CompletableFuture<Map<String, Object>> future : futures) {
+                results.add(future.join());
+            }
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("departmentId", departmentId);
+            report.put("batchId", batchId);
+            report.put("semester", semester);
+            report.put("subjects", results);
+            report.put("totalMs", (System.nanoTime() - start) / 1_000_000);
+            logger.info("Attainment report for department {} batch {} semester {}: {} subjects in {} ms",
+                    departmentId, batchId, semester, subjects.size(), report.get("totalMs"));
+            return report;
+        } catch (Exception e) {
+            logger.error("Error building attainment report for department {} batch {} semester {}",
+                    departmentId, batchId, semester, e);
+            throw new RuntimeException("Failed to build attainment report. Error: " + e.getMessage());
+        }
+    }
+
+    private Map<String, Object> computeSubject(Long departmentId, Long batchId, int semester, Subject subject) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("subjectId", subject.getId());
+        result.put("code", subject.getCode());
+        result.put("name", subject.getName());
+
+        long queued = System.nanoTime();
+        long started = queued;
+        boolean acquired = false;
+        try {
+            dbPermits.acquire();
+            acquired = true;
+            started = System.nanoTime();
+
+            long version = scopeVersions.version(ScopeVersions.marks(departmentId, batchId, semester, subject.getId()));
+            Map<String, Object> view = facultyMarksViewService.getFullGroupedMarksWithoutExamType(departmentId, batchId,
+                    semester, subject.getId(), version);
+            result.put("assessmentPercentages", view.get("assessmentPercentages"));
+            result.put("coAttainment", view.get("averageQuestionWisePercentages"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.put("error", "Interrupted");
+        } catch (Exception e) {
+            logger.error("Error computing attainment for subject {}", subject.getId(), e);
+            result.put("error", e.getMessage());
+        } finally {
+            if (acquired) {
+                dbPermits.release();
+            }
+        }
+
+        long finished = System.nanoTime();
+        result.put("waitMs", (started - queued) / 1_000_000);
+        result.put("elapsedMs", (finished - started) / 1_000_000);
+        return result;
+    }
+}
@@ -1,5 +1,6 @@
 package com.copo.app.service;
 
+import com.copo.app.config.ReferenceCacheConfig;
 import com.copo.app.model.Batch;
 import com.copo.app.repository.BatchRepository;
 import com.copo.app.exception.BatchNotFoundException;
@@ -8,6 +9,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +19,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
+@CacheConfig(cacheResolver = "referenceCacheResolver", cacheNames = ReferenceCacheConfig.BATCHES)
 public class BatchService {
 
     private static final Logger logger = LoggerFactory.getLogger(BatchService.class);
@@ -22,11 +27,23 @@ public class BatchService {
     @Autowired
     private BatchRepository batchRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ReferenceCache referenceCache;
+
+    @Autowired
+    private ScopeVersions scopeVersions;
+
     // Save a new batch
+    @CacheEvict(allEntries = true)
     public Batch saveBatch(Batch batch) {
         try {
             logger.info("Saving new batch: {}", batch.getName());
-            return batchRepository.save(batch);
+            Batch saved = batchRepository.save(batch);
+            eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceCacheConfig.BATCHES));
+            return saved;
         } catch (Exception e) {
             logger.error("Error while saving batch: {}", batch.getName(), e);
             throw new RuntimeException("Failed to save batch", e);
@@ -37,7 +54,7 @@ public class BatchService {
     public List<Batch> getAllBatches() {
         try {
             logger.info("Fetching all batches");
-            return batchRepository.findAll();
+            return ReferenceCache.entities(referenceCache.batches(version()), ReferenceCache.BatchRef::toEntity);
         } catch (Exception e) {
             logger.error("Error while fetching all batches", e);
             throw new RuntimeException("Failed to fetch batches", e);
@@ -60,7 +77,7 @@ public class BatchService {
     public Optional<Batch> getBatchById(Long id) {
         try {
             logger.info("Fetching batch by ID: {}", id);
-            return Optional.of(batchRepository.findById(id)
+            return Optional.of(referenceCache.batch(version(), id).map(ReferenceCache.BatchRef::toEntity)
                     .orElseThrow(() -> new BatchNotFoundException("Batch not found with id: " + id)));
         } catch (BatchNotFoundException e) {
             logger.warn(e.getMessage());
@@ -75,7 +92,7 @@ public class BatchService {
     public Batch getBatchByName(String batchName) {
         try {
             logger.info("Fetching batch by name: {}", batchName);
-            return batchRepository.findBatchByName(batchName)
+            return referenceCache.batchByName(version(), batchName).map(ReferenceCache.BatchRef::toEntity)
                     .orElseThrow(() -> new RuntimeException("Batch not found: " + batchName));
         } catch (RuntimeException e) {
             logger.warn(e.getMessage());
@@ -88,6 +105,7 @@ public class BatchService {
 
     // Update a batch
     @Transactional
+    @CacheEvict(allEntries = true)
     public Batch updateBatch(Long id, Batch batchDetails) {
         try {
             logger.info("Updating batch with ID: {}", id);
@@ -97,7 +115,9 @@ public class BatchService {
             batch.setName(batchDetails.getName());
             batch.setDescription(batchDetails.getDescription());
 
-            return batchRepository.save(batch);
+            Batch updated = batchRepository.save(batch);
+            eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceCacheConfig.BATCHES));
+            return updated;
         } catch (BatchNotFoundException e) {
             logger.warn(e.getMessage());
             throw e;
@@ -109,6 +129,7 @@ public class BatchService {
 
     // Delete a batch
     @Transactional
+    @CacheEvict(allEntries = true)
     public void deleteBatch(Long id) {
         try {
             logger.info("Deleting batch with ID: {}", id);
@@ -116,6 +137,7 @@ public class BatchService {
                 throw new BatchNotFoundException("Batch not found with ID: " + id);
             }
             batchRepository.deleteById(id);
+            eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceCacheConfig.BATCHES));
             logger.info("Batch deleted successfully with ID: {}", id);
         } catch (BatchNotFoundException e) {
             logger.warn(e.getMessage());
@@ -125,4 +147,9 @@ public class BatchService {
             throw new RuntimeException("Failed to delete batch with ID: " + id, e);
         }
     }
+
+    // Version of the cached batches, read before the lookup, see ReferenceCache
+    private long version() {
+        return scopeVersions.version(ReferenceCacheConfig.BATCHES);
+    }
 }
@@ -0,0 +1,227 @@
+package com.copo.app.service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.copo.app.model.CoPoMatrixEntry;
+import com.copo.app.model.MarkStatus;
+import com.copo.app.model.Question;
+import com.copo.app.model.StudentMarks;
+
+/**
+ * Writes questions, student marks and CO-PO matrix entries in JDBC batches.
+ *
+ * Both entities use IDENTITY ids, so Hibernate sends one INSERT per row; here each chunk of
+ * {@code copo.bulk.batch-size} rows goes out as a single batch, which MySQL Connector/J turns into
+ * multi-row INSERTs with {@code rewriteBatchedStatements=true}. Generated ids are set back on the
+ * entities, and every new question gets its attainment counter at zero. Marks are upserted on
+ * their (student_id, question_id) key, so a resubmitted mark replaces the stored one. Rows are
+ * written past the persistence context: callers that already hold managed copies of updated rows
+ * must clear it before reading them again.
+ */
+@Component
+public class BulkWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkWriter.class);
+
+    private static final String INSERT_QUESTION = "INSERT INTO questions (exam_type, subject_id, department_id,"
+            + " batch_id, semester, part, question_number, text, max_marks, course_outcome)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_MATRIX_ENTRY = "INSERT INTO co_po_matrix_entry (subject_code, subject_name,"
+            + " co_number, outcome, level) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_MATRIX_LEVEL = "UPDATE co_po_matrix_entry SET level = ? WHERE id = ?";
+    private static final String DELETE_MATRIX_ENTRY = "DELETE FROM co_po_matrix_entry WHERE id = ?";
+    private static final String INSERT_COUNTER = "INSERT INTO question_attainment (question_id, attempted, above_half,"
+            + " marks_total) VALUES (?, 0, 0, 0) ON DUPLICATE KEY UPDATE question_id = question_id";
+    private static final String UPSERT_MARK = "INSERT INTO student_marks (student_id, question_id, answer, status, score)"
+            + " VALUES (?, ?, ?, ?, ?) AS new"
+            + " ON DUPLICATE KEY UPDATE answer = new.answer, status = new.status, score = new.score";
+    // H2, and MySQL before 8.0.19, only know the VALUES(col) form
+    private static final String UPSERT_MARK_VALUES = "INSERT INTO student_marks (student_id, question_id, answer, status, score)"
+            + " VALUES (?, ?, ?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE answer = VALUES(answer), status = VALUES(status), score = VALUES(score)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    @Value("${copo.bulk.batch-size:1000}")
+    private int batchSize;
+
+    /** Inserts new questions and sets their generated ids. */
+    public int insertQuestions(List<Question> questions) {
+        if (questions.isEmpty()) {
+            return 0;
+        }
+        try {
+            long started = System.nanoTime();
+            insert(INSERT_QUESTION, questions, (ps, q) -> {
+                ps.setString(1, q.getExamType());
+                ps.setLong(2, q.getSubject().getId());
+                ps.setLong(3, q.getDepartment().getId());
+                ps.setLong(4, q.getBatch().getId());
+                ps.setInt(5, q.getSemester());
+                ps.setString(6, q.getPart());
+                ps.setString(7, q.getQuestionNumber());
+                ps.setString(8, q.getText());
+                ps.setInt(9, q.getMaxMarks());
+                ps.setString(10, q.getCourseOutcome());
+            }, Question::setId);
+            insertCounters(questions.stream().map(Question::getId).toList());
+            report("questions", questions.size(), started);
+            return questions.size();
+        } catch (Exception e) {
+            logger.error("Error bulk inserting questions", e);
+            throw new RuntimeException("Failed to save questions. Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Inserts marks, or replaces the answer of a (student, question) cell that already has one;
+     * within the list the last mark of a cell wins. Status and score are normalized from the
+     * answer, as the entity does on persist. Ids are not set back, the statement does not report
+     * which rows were inserted.
+     */
+    public int upsertMarks(List<StudentMarks> marks) {
+        if (marks.isEmpty()) {
+            return 0;
+        }
+        try {
+            long started = System.nanoTime();
+            for (StudentMarks mark : marks) {
+                mark.setStatus(MarkStatus.of(mark.getAnswer()));
+                mark.setScore(MarkStatus.scoreOf(mark.getAnswer()));
+            }
+            String upsert = databaseDialect.supportsRowAliases() ? UPSERT_MARK : UPSERT_MARK_VALUES;
+            jdbcTemplate.batchUpdate(upsert, marks, batchSize, BulkWriter::bindMark);
+            report("student_marks", marks.size(), started);
+            return marks.size();
+        } catch (Exception e) {
+            logger.error("Error bulk saving student marks", e);
+            throw new RuntimeException("Failed to save student marks. Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Inserts the CO-PO matrix entries without an id, setting their generated ids, and writes the
+     * level of those with one; other columns of existing entries are left as they are.
+     */
+    public int saveMatrixEntries(List<CoPoMatrixEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        try {
+            long started = System.nanoTime();
+            List<CoPoMatrixEntry> updates = entries.stream().filter(e -> e.getId() != null).toList();
+            insert(INSERT_MATRIX_ENTRY, entries.stream().filter(e -> e.getId() == null).toList(), (ps, e) -> {
+                ps.setString(1, e.getSubjectCode());
+                ps.setString(2, e.getSubjectName());
+                ps.setInt(3, e.getCoNumber());
+                ps.setString(4, e.getOutcome());
+                setLevel(ps, 5, e.getLevel());
+            }, CoPoMatrixEntry::setId);
+            jdbcTemplate.batchUpdate(UPDATE_MATRIX_LEVEL, updates, batchSize, (ps, e) -> {
+                setLevel(ps, 1, e.getLevel());
+                ps.setLong(2, e.getId());
+            });
+            report("co_po_matrix_entry", entries.size(), started);
+            return entries.size();
+        } catch (Exception e) {
+            logger.error("Error bulk saving CO-PO matrix entries", e);
+            throw new RuntimeException("Failed to save CO-PO matrix entries. Error: " + e.getMessage());
+        }
+    }
+
+    /** Deletes CO-PO matrix entries by id. */
+    public int deleteMatrixEntries(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        try {
+            long started = System.nanoTime();
+            jdbcTemplate.batchUpdate(DELETE_MATRIX_ENTRY, ids, batchSize, (ps, id) -> ps.setLong(1, id));
+            report("co_po_matrix_entry", ids.size(), started);
+            return ids.size();
+        } catch (Exception e) {
+            logger.error("Error bulk deleting CO-PO matrix entries", e);
+            throw new RuntimeException("Failed to delete CO-PO matrix entries. Error: " + e.getMessage());
+        }
+    }
+
+    private static void setLevel(PreparedStatement ps, int index, Integer level) throws SQLException {
+        if (level != null) {
+            ps.setInt(index, level);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+
+    /**
+     * Creates zero attainment counters for the given questions. Counters that already exist are
+     * kept as they are, but like the new ones stay locked until the transaction ends.
+     */
+    public void insertCounters(List<Long> questionIds) {
+        jdbcTemplate.batchUpdate(INSERT_COUNTER, questionIds, batchSize, (ps, id) -> ps.setLong(1, id));
+    }
+
+    private static void bindMark(PreparedStatement ps, StudentMarks m) throws SQLException {
+        ps.setLong(1, m.getStudent().getId());
+        ps.setLong(2, m.getQuestion().getId());
+        ps.setString(3, m.getAnswer());
+        ps.setString(4, m.getStatus() != null ? m.getStatus().name() : null);
+        if (m.getScore() != null) {
+            ps.setDouble(5, m.getScore());
+        } else {
+            ps.setNull(5, Types.DOUBLE);
+        }
+    }
+
+    private <T> void insert(String sql, List<T> rows, RowBinder<T> binder, BiConsumer<T, Long> idSetter) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < rows.size(); from += batchSize) {
+                    List<T> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                    for (T row : chunk) {
+                        binder.bind(ps, row);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        for (int i = 0; i < chunk.size() && keys.next(); i++) {
+                            idSetter.accept(chunk.get(i), keys.getLong(1));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private void report(String table, int rows, long started) {
+        long micros = Math.max(1, (System.nanoTime() - started) / 1_000);
+        logger.info("Wrote {} {} rows in {} ms ({} rows/s)", rows, table, micros / 1_000, rows * 1_000_000L / micros);
+    }
+
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement ps, T row) throws SQLException;
+    }
+}
@@ -0,0 +1,200 @@
+package com.copo.app.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.copo.app.model.Department;
+import com.copo.app.model.MarksScope;
+import com.copo.app.repository.QuestionRepository;
+import com.copo.app.repository.QuestionScopeProjection;
+
+/**
+ * Fills the caches of the marks pages once the application is ready, so the first faculty after
+ * a deploy or restart does not pay for cold caches.
+ *
+ * On {@code warmupExecutor} it loads the reference dictionary and reference caches, then, for the
+ * current semester of every active department and batch (the latest one with questions), the
+ * cached faculty marks views of each subject, which hold its roster and question sets. At most
+ * {@code copo.warmup.max-subjects} subjects are warmed. Until the warm-up ends this indicator is
+ * OUT_OF_SERVICE, which keeps the node out of the readiness health group. A warm-up that fails or
+ * runs past {@code copo.warmup.deadline} only logs, and the node then reports ready and serves
+ * what is not warm yet from cold caches; subjects not started by then are skipped.
+ */
+@Component
+public class CacheWarmup implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmup.class);
+
+    private enum State { PENDING, WARMING, DONE, DISABLED }
+
+    @Autowired
+    @Qualifier("warmupExecutor")
+    private ThreadPoolTaskExecutor warmupExecutor;
+
+    @Autowired
+    private ReferenceDictionary referenceDictionary;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private BatchService batchService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private SectionService sectionService;
+
+    @Autowired
+    private FacultyMarksViewService facultyMarksViewService;
+
+    @Autowired
+    private ScopeVersions scopeVersions;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Value("${copo.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${copo.warmup.max-subjects:200}")
+    private int maxSubjects;
+
+    @Value("${copo.warmup.deadline:2m}")
+    private Duration deadline;
+
+    private volatile State state = State.PENDING;
+    private volatile long startedAt;
+    private volatile long elapsedMs;
+    private volatile String error;
+    private final AtomicInteger subjectsTotal = new AtomicInteger();
+    private final AtomicInteger subjectsWarmed = new AtomicInteger();
+    private final AtomicInteger subjectsFailed = new AtomicInteger();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            state = State.DISABLED;
+            return;
+        }
+        state = State.WARMING;
+        startedAt = System.nanoTime();
+        CompletableFuture.supplyAsync(this::warmReferenceData, warmupExecutor)
+                .thenCompose(subjects -> CompletableFuture.allOf(subjects.entrySet().stream()
+                        .map(subject -> CompletableFuture.runAsync(() -> warmSubject(subject.getKey(), subject.getValue()),
+                                warmupExecutor))
+                        .toArray(CompletableFuture[]::new)))
+                .orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, e) -> finish(e));
+    }
+
+    @Override
+    public Health health() {
+        return switch (state) {
+            case DISABLED -> Health.up().withDetail("warmup", "disabled").build();
+            case DONE -> details(Health.up()).build();
+            default -> details(Health.outOfService()).build();
+        };
+    }
+
+    /**
+     * Loads the reference data and returns the subjects to warm: their full view scope and the
+     * exam types with questions.
+     */
+    private Map<MarksScope, Set<String>> warmReferenceData() {
+        referenceDictionary.ensureLoaded();
+        batchService.getAllBatches();
+        subjectService.getAllSubjects();
+        for (Department department : departmentService.getAllDepartments()) {
+            sectionService.getSectionsByDepartmentId(department.getId());
+        }
+
+        Map<MarksScope, Set<String>> subjects = new LinkedHashMap<>();
+        Set<String> semesters = new LinkedHashSet<>();
+        for (QuestionScopeProjection q : questionRepository.findCurrentSemesterScopes()) {
+            MarksScope subject = new MarksScope(q.getDepartmentId(), q.getBatchId(), q.getSemester(), q.getSubjectId(), null);
+            if (!subjects.containsKey(subject) && subjects.size() == maxSubjects) {
+                continue;
+            }
+            subjects.computeIfAbsent(subject, s -> new LinkedHashSet<>()).add(q.getExamType());
+            if (semesters.add(q.getDepartmentId() + ":" + q.getSemester())) {
+                subjectService.getSubjectsByDepartmentAndSemester(q.getDepartmentId(), q.getSemester());
+            }
+        }
+        subjectsTotal.set(subjects.size());
+        logger.info("Warming caches: reference data loaded, {} current-semester subjects to warm", subjects.size());
+        return subjects;
+    }
+
+    private void warmSubject(MarksScope subject, Set<String> examTypes) {
+        if (state == State.DONE) {
+            // past the deadline, the queued subjects are left cold
+            return;
+        }
+        try {
+            long version = scopeVersions.version(ScopeVersions.marks(subject.departmentId(), subject.batchId(),
+                    subject.semester(), subject.subjectId()));
+            facultyMarksViewService.getFullGroupedMarksWithoutExamType(subject.departmentId(), subject.batchId(),
+                    subject.semester(), subject.subjectId(), version);
+            for (String examType : examTypes) {
+                facultyMarksViewService.getFilteredMarks(subject.departmentId(), subject.batchId(), subject.semester(),
+                        examType, subject.subjectId(), null, version);
+            }
+            subjectsWarmed.incrementAndGet();
+        } catch (RuntimeException e) {
+            subjectsFailed.incrementAndGet();
+            logger.warn("Could not warm the caches of {}: {}", subject, e.getMessage());
+        }
+    }
+
+    private void finish(Throwable e) {
+        elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+        if (e instanceof TimeoutException) {
+            error = "Deadline of " + deadline + " passed";
+            logger.warn("Cache warm-up passed its deadline of {} after {} of {} subjects, serving the rest from cold caches",
+                    deadline, subjectsWarmed.get() + subjectsFailed.get(), subjectsTotal.get());
+        } else if (e != null) {
+            error = e.getMessage();
+            logger.error("Cache warm-up failed after {} ms, serving from cold caches", elapsedMs, e);
+        } else {
+            logger.info("Cache warm-up done in {} ms: {} subjects warmed, {} failed", elapsedMs, subjectsWarmed.get(),
+                    subjectsFailed.get());
+        }
+        state = State.DONE;
+    }
+
+    private Health.Builder details(Health.Builder builder) {
+        builder.withDetail("warmup", state.name().toLowerCase(Locale.ROOT))
+                .withDetail("subjects", subjectsTotal.get())
+                .withDetail("subjectsWarmed", subjectsWarmed.get())
+                .withDetail("subjectsFailed", subjectsFailed.get());
+        if (state == State.DONE) {
+            builder.withDetail("elapsedMs", elapsedMs);
+        }
+        if (error != null) {
+            builder.withDetail("error", error);
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,7 @@
+package com.copo.app.service;
+
+/**
+ * Published when the CO-PO matrix of a subject is saved or updated.
+ */
+public record CoPoMatrixChangedEvent(String subjectCode, String subjectName) {
+}
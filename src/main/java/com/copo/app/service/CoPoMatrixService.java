@@ -3,26 +3,54 @@ package com.copo.app.service;
 import com.copo.app.model.CoPoMatrixEntry;
 import com.copo.app.repository.CoPoMatrixRepository;
 
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.multipart.MultipartFile;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class CoPoMatrixService {
 
     private static final Logger logger = LoggerFactory.getLogger(CoPoMatrixService.class);
 
+    /** Widest matrix sheet read: the CO column and the outcome columns. */
+    private static final int MAX_MATRIX_COLUMNS = 64;
+
     @Autowired
     private CoPoMatrixRepository repository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ScopeVersions scopeVersions;
+
+    @Autowired
+    private BulkWriter bulkWriter;
+
+    private final Cache<ViewKey, CoPoMatrixView> views;
+
+    public CoPoMatrixService(@Value("${copo.copo-matrix.cache-size:500}") long cacheSize,
+            @Value("${copo.copo-matrix.cache-ttl:10m}") Duration cacheTtl) {
+        this.views = Caffeine.newBuilder().maximumSize(cacheSize).expireAfterWrite(cacheTtl).build();
+    }
+
+    @Transactional
     public void saveMatrix(String subjectCode, String subjectName, Map<String, String> params) {
         logger.info("Saving CO-PO matrix for subjectCode: {}, subjectName: {}", subjectCode, subjectName);
 
@@ -30,8 +58,8 @@ public class CoPoMatrixService {
         List<String> outcomes = List.of("PO1","PO2","PO3","PO4","PO5","PO6",
                 "PO7","PO8","PO9","PO10","PO11","PO12","PSO1","PSO2","PSO3");
 
-        boolean codeExists = !repository.findBySubjectCode(subjectCode).isEmpty();
-        boolean nameExists = !repository.findBySubjectName(subjectName).isEmpty();
+        boolean codeExists = repository.existsBySubjectCode(subjectCode);
+        boolean nameExists = repository.existsBySubjectName(subjectName);
 
         if (subjectCode ==null || subjectCode.isEmpty() || subjectName ==null || subjectName.isEmpty()) {
             logger.warn("Subject Code or Subject Name is empty or null subjectCode={}, subjectName={}", codeExists, nameExists);
@@ -56,7 +84,8 @@ public class CoPoMatrixService {
         }
 
         logger.debug("Total entries prepared: {}", entries.size());
-        repository.saveAll(entries);
+        bulkWriter.saveMatrixEntries(entries);
+        eventPublisher.publishEvent(new CoPoMatrixChangedEvent(subjectCode, subjectName));
         logger.info("Entries saved successfully.");
     }
 
@@ -64,157 +93,179 @@ public class CoPoMatrixService {
         return repository.findBySubjectCode(subjectCode);
     }
 
+    @Transactional
     public void parseAndSaveExcel(MultipartFile file, String subjectCode, String subjectName) throws Exception {
+        try (InputStream in = file.getInputStream()) {
+            parseAndSaveExcel(in, subjectCode, subjectName);
+        }
+    }
+
+    /** Same as above for an already spooled upload; returns the number of matrix entries saved. */
+    @Transactional
+    public int parseAndSaveExcel(InputStream in, String subjectCode, String subjectName) throws Exception {
         logger.info("Parsing Excel for subjectCode: {}, subjectName: {}", subjectCode, subjectName);
 
         // Check for existing entries by subject code or subject name
-        boolean codeExists = !repository.findBySubjectCode(subjectCode).isEmpty();
-        boolean nameExists = !repository.findBySubjectName(subjectName).isEmpty();
+        boolean codeExists = repository.existsBySubjectCode(subjectCode);
+        boolean nameExists = repository.existsBySubjectName(subjectName);
 
         if (codeExists || nameExists) {
             logger.warn("Duplicate subject detected: subjectCodeExists={}, subjectNameExists={}", codeExists, nameExists);
             throw new IllegalArgumentException("Subject Code or Subject Name already exists.");
         }
 
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            List<CoPoMatrixEntry> entries = new ArrayList<>();
-
-            Row headerRow = sheet.getRow(0);
-            List<String> outcomes = new ArrayList<>();
-            for (int j = 1; j < headerRow.getLastCellNum(); j++) {
-                outcomes.add(headerRow.getCell(j).getStringCellValue().trim());
-            }
-
-            for (int i = 1; i <= 5; i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-
-                int coNumber = (int) row.getCell(0).getNumericCellValue();
-
-                for (int j = 1; j <= outcomes.size(); j++) {
-                    Cell cell = row.getCell(j);
-                    String value = (cell == null) ? "-" : cell.toString().trim();
-
-                    CoPoMatrixEntry entry = CoPoMatrixEntry.builder()
-                            .subjectCode(subjectCode)
-                            .subjectName(subjectName)
-                            .coNumber(coNumber)
-                            .outcome(outcomes.get(j - 1))
-                            .level((value.isEmpty() || value.equals("-")) ? null : (int) Double.parseDouble(value))
-                            .build();
-
-                    entries.add(entry);
-                }
-
-            }
+        try {
+            List<CoPoMatrixEntry> entries = readExcel(in, subjectCode, subjectName);
 
             logger.debug("Parsed {} entries from Excel", entries.size());
-            repository.saveAll(entries);
+            bulkWriter.saveMatrixEntries(entries);
+            eventPublisher.publishEvent(new CoPoMatrixChangedEvent(subjectCode, subjectName));
             logger.info("CO-PO matrix saved successfully from Excel.");
+            return entries.size();
         } catch (Exception e) {
             logger.error("Failed to parse and save Excel file", e);
             throw e;
         }
     }
-    
-    
-    
-    
+
     /**
-     * Load matrix entries for a subject and convert to JSON-friendly Map structure:
-     * {
-     *   "outcomes": ["PO1", "PO2", ..., "PSO2"],
-     *   "matrix": {
-     *      "1": {"PO1": 2, "PO2": 1, ...},
-     *      ...
-     *      "5": {...}
-     *    },
-     *   "weightedAverage": { ... } // optional, compute if needed
-     * }
+     * Re-uploads the matrix of a subject: the sheet is compared with the stored entries and only
+     * the (CO, outcome) cells whose level changed are written, cells missing so far are added and
+     * stored cells the sheet no longer has are deleted. Returns the counts of inserted, updated,
+     * unchanged and deleted cells.
      */
-    public Map<String, Object> getMatrixData(String subjectName, String subjectCode) {
-        List<CoPoMatrixEntry> entries = repository.findBySubjectNameAndSubjectCode(subjectName, subjectCode);
+    @Transactional
+    public Map<String, Integer> updateFromExcel(InputStream in, String subjectCode, String subjectName) throws Exception {
+        logger.info("Updating CO-PO matrix from Excel for subjectCode: {}, subjectName: {}", subjectCode, subjectName);
 
-        // Extract distinct outcomes sorted (PO1...PO12, PSO1, PSO2)
-        Set<String> outcomeSet = new TreeSet<>(Comparator.comparing(String::toString));
-        outcomeSet.addAll(entries.stream()
-            .map(CoPoMatrixEntry::getOutcome)
-            .collect(Collectors.toSet()));
-
-        // Sort outcomes explicitly: PO1 to PO12, then PSO1, PSO2
-        List<String> outcomes = new ArrayList<>();
-        for (int i = 1; i <= 12; i++) outcomes.add("PO" + i);
-        outcomes.add("PSO1");
-        outcomes.add("PSO2");
-        outcomes.add("PSO3");
+        List<CoPoMatrixEntry> stored = repository.findBySubjectNameAndSubjectCode(subjectName, subjectCode);
+        if (stored.isEmpty() && (repository.existsBySubjectCode(subjectCode) || repository.existsBySubjectName(subjectName))) {
+            logger.warn("Subject code or name belongs to another matrix: subjectCode={}, subjectName={}", subjectCode, subjectName);
+            throw new IllegalArgumentException("Subject Code or Subject Name already exists.");
+        }
 
-        // Filter only outcomes present in data to avoid empty columns
-        outcomes = outcomes.stream().filter(outcomeSet::contains).collect(Collectors.toList());
+        try {
+            Map<String, CoPoMatrixEntry> cells = new HashMap<>();
+            for (CoPoMatrixEntry entry : stored) {
+                cells.put(entry.getCoNumber() + ":" + entry.getOutcome(), entry);
+            }
 
-        // Create matrix map: CO number -> (Outcome -> Level or "-")
-        Map<Integer, Map<String, String>> matrix = new HashMap<>();
-        for (int co = 1; co <= 5; co++) {
-            Map<String, String> row = new LinkedHashMap<>();
-            for (String outcome : outcomes) {
-                row.put(outcome, "-");
+            List<CoPoMatrixEntry> changed = new ArrayList<>();
+            Set<String> inSheet = new HashSet<>();
+            int inserted = 0;
+            int unchanged = 0;
+            for (CoPoMatrixEntry incoming : readExcel(in, subjectCode, subjectName)) {
+                String key = incoming.getCoNumber() + ":" + incoming.getOutcome();
+                inSheet.add(key);
+                CoPoMatrixEntry current = cells.get(key);
+                if (current == null) {
+                    changed.add(incoming);
+                    inserted++;
+                } else if (Objects.equals(current.getLevel(), incoming.getLevel())) {
+                    unchanged++;
+                } else {
+                    // a detached copy: the managed entry stays clean, so the flush does not update it again
+                    changed.add(CoPoMatrixEntry.builder()
+                            .id(current.getId())
+                            .subjectCode(current.getSubjectCode())
+                            .subjectName(current.getSubjectName())
+                            .coNumber(current.getCoNumber())
+                            .outcome(current.getOutcome())
+                            .level(incoming.getLevel())
+                            .build());
+                }
+            }
+            List<Long> removed = cells.entrySet().stream()
+                    .filter(cell -> !inSheet.contains(cell.getKey()))
+                    .map(cell -> cell.getValue().getId())
+                    .toList();
+
+            // one JDBC batch each for the new cells, the changed levels and the removed cells
+            bulkWriter.saveMatrixEntries(changed);
+            bulkWriter.deleteMatrixEntries(removed);
+            if (!changed.isEmpty() || !removed.isEmpty()) {
+                eventPublisher.publishEvent(new CoPoMatrixChangedEvent(subjectCode, subjectName));
             }
-            matrix.put(co, row);
+            logger.info("CO-PO matrix updated from Excel: {} inserted, {} updated, {} unchanged, {} deleted",
+                    inserted, changed.size() - inserted, unchanged, removed.size());
+            return Map.of("inserted", inserted, "updated", changed.size() - inserted, "unchanged", unchanged,
+                    "deleted", removed.size());
+        } catch (Exception e) {
+            logger.error("Failed to parse and update Excel file", e);
+            throw e;
         }
+    }
 
-        // Fill matrix with values from DB entries
-        for (CoPoMatrixEntry e : entries) {
-            int coNum = e.getCoNumber();
-            String outcome = e.getOutcome();
-            Integer level = e.getLevel();
+    /**
+     * Streams the matrix sheet: a header row of outcomes from the second column on, then one row
+     * per CO (rows 2 to 6) with its number in the first column. Blank cells and "-" have no level.
+     */
+    private List<CoPoMatrixEntry> readExcel(InputStream in, String subjectCode, String subjectName) throws IOException {
+        List<CoPoMatrixEntry> entries = new ArrayList<>();
+        List<String> outcomes = new ArrayList<>();
 
-            if (matrix.containsKey(coNum) && matrix.get(coNum).containsKey(outcome)) {
-                matrix.get(coNum).put(outcome, level != null ? level.toString() : "-");
+        XlsxRowReader.read(in, MAX_MATRIX_COLUMNS, (i, cells) -> {
+            if (i == 0) {
+                int last = cells.length - 1;
+                while (last > 0 && cells[last].isEmpty()) last--;
+                for (int j = 1; j <= last; j++) {
+                    outcomes.add(cells[j]);
+                }
+                return;
             }
-        }
+            if (i > 5) return;
 
-        // (Optional) Compute weighted average per outcome
-        Map<String, String> weightedAverage = computeWeightedAverage(matrix);
+            int coNumber = (int) Double.parseDouble(cells[0]);
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("outcomes", outcomes);
-        result.put("matrix", matrix);
-        result.put("weightedAverage", weightedAverage);
+            for (int j = 1; j <= outcomes.size(); j++) {
+                String value = cells[j];
 
-        return result;
-    }
+                CoPoMatrixEntry entry = CoPoMatrixEntry.builder()
+                        .subjectCode(subjectCode)
+                        .subjectName(subjectName)
+                        .coNumber(coNumber)
+                        .outcome(outcomes.get(j - 1))
+                        .level((value.isEmpty() || value.equals("-")) ? null : (int) Double.parseDouble(value))
+                        .build();
 
-    private Map<String, String> computeWeightedAverage(Map<Integer, Map<String, String>> matrix) {
-        Map<String, Double> sumMap = new HashMap<>();
-        Map<String, Integer> countMap = new HashMap<>();
-
-        for (Map<String, String> row : matrix.values()) {
-            for (Map.Entry<String, String> e : row.entrySet()) {
-                String outcome = e.getKey();
-                String valStr = e.getValue();
-                if (!"-".equals(valStr)) {
-                    try {
-                        int val = Integer.parseInt(valStr);
-                        sumMap.put(outcome, sumMap.getOrDefault(outcome, 0.0) + val);
-                        countMap.put(outcome, countMap.getOrDefault(outcome, 0) + 1);
-                    } catch (NumberFormatException ex) {
-                        // Ignore invalid numbers
-                    }
-                }
+                entries.add(entry);
             }
-        }
+        });
+        return entries;
+    }
 
-        Map<String, String> weightedAvg = new HashMap<>();
-        for (String outcome : sumMap.keySet()) {
-            double avg = sumMap.get(outcome) / countMap.get(outcome);
-            weightedAvg.put(outcome, String.format("%.2f", avg));
+    /**
+     * The matrix of a subject, from the views cached by subject code, name and the version of
+     * {@link ScopeVersions#coPoMatrix} read by the caller before this call. A view is built on
+     * first read of a version; a view read before a write and cached after it stays under the
+     * old version, which no later read asks for. Subjects without entries are not cached.
+     */
+    public CoPoMatrixView getMatrixView(String subjectName, String subjectCode, long version) {
+        ViewKey key = new ViewKey(subjectCode, subjectName, version);
+        CoPoMatrixView view = views.getIfPresent(key);
+        if (view != null) {
+            return view;
         }
-
-        // Fill missing outcomes with "-"
-        for (String outcome : matrix.get(1).keySet()) {
-            weightedAvg.putIfAbsent(outcome, "-");
+        // loaded outside the cache, so a slow query does not block other subjects
+        view = loadView(subjectName, subjectCode);
+        if (view.isEmpty()) {
+            return view;
         }
+        CoPoMatrixView cached = views.asMap().putIfAbsent(key, view);
+        return cached != null ? cached : view;
+    }
+
+    /** Moves the ETag of a written matrix on as the write commits, which retires its cached views. */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCoPoMatrixChanged(CoPoMatrixChangedEvent event) {
+        scopeVersions.bumpInTransaction(List.of(ScopeVersions.coPoMatrix(event.subjectCode())));
+        logger.debug("Retired cached CO-PO matrix views of {}", event.subjectCode());
+    }
+
+    private CoPoMatrixView loadView(String subjectName, String subjectCode) {
+        return CoPoMatrixView.of(subjectName, repository.findBySubjectNameAndSubjectCode(subjectName, subjectCode));
+    }
 
-        return weightedAvg;
+    private record ViewKey(String subjectCode, String subjectName, long version) {
     }
 }
@@ -0,0 +1,136 @@
+package com.copo.app.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.copo.app.model.CoPoMatrixEntry;
+
+/**
+ * Immutable CO-PO matrix of one subject, as served by {@code /copo/matrix}.
+ *
+ * The levels of the five COs are kept in a byte grid over the fixed PO1..PO12, PSO1..PSO3
+ * columns, together with the columns that have entries and the average level of each column,
+ * all computed once when the view is built from the stored entries.
+ */
+public final class CoPoMatrixView {
+
+    /** Outcome columns, in display order. */
+    static final List<String> OUTCOMES = List.of("PO1", "PO2", "PO3", "PO4", "PO5", "PO6", "PO7", "PO8", "PO9",
+            "PO10", "PO11", "PO12", "PSO1", "PSO2", "PSO3");
+
+    static final int CO_COUNT = 5;
+
+    private static final byte NO_LEVEL = Byte.MIN_VALUE;
+
+    private static final Map<String, Integer> COLUMNS = new HashMap<>();
+    static {
+        for (int i = 0; i < OUTCOMES.size(); i++) {
+            COLUMNS.put(OUTCOMES.get(i), i);
+        }
+    }
+
+    private final String subjectName;
+    private final byte[][] levels;
+    private final boolean[] present;
+    private final String[] averages;
+    private final List<String> outcomes;
+
+    private CoPoMatrixView(String subjectName, byte[][] levels, boolean[] present) {
+        this.subjectName = subjectName;
+        this.levels = levels;
+        this.present = present;
+        this.averages = new String[OUTCOMES.size()];
+        List<String> presentOutcomes = new ArrayList<>();
+        for (int column = 0; column < OUTCOMES.size(); column++) {
+            if (!present[column]) {
+                continue;
+            }
+            presentOutcomes.add(OUTCOMES.get(column));
+            int sum = 0;
+            int count = 0;
+            for (byte[] row : levels) {
+                if (row[column] != NO_LEVEL) {
+                    sum += row[column];
+                    count++;
+                }
+            }
+            averages[column] = count == 0 ? "-" : String.format("%.2f", (double) sum / count);
+        }
+        this.outcomes = List.copyOf(presentOutcomes);
+    }
+
+    /**
+     * Builds the view from the entries of one subject. A column is shown when any entry names it;
+     * when a cell is stored more than once, the last entry wins. Entries of other COs or outcomes
+     * are ignored.
+     *
+     * @throws IllegalArgumentException for a level outside -127..127
+     */
+    public static CoPoMatrixView of(String subjectName, List<CoPoMatrixEntry> entries) {
+        byte[][] levels = new byte[CO_COUNT][OUTCOMES.size()];
+        for (byte[] row : levels) {
+            Arrays.fill(row, NO_LEVEL);
+        }
+        boolean[] present = new boolean[OUTCOMES.size()];
+        for (CoPoMatrixEntry entry : entries) {
+            Integer column = COLUMNS.get(entry.getOutcome());
+            if (column == null) {
+                continue;
+            }
+            present[column] = true;
+            if (entry.getCoNumber() < 1 || entry.getCoNumber() > CO_COUNT) {
+                continue;
+            }
+            Integer level = entry.getLevel();
+            if (level != null && (level <= NO_LEVEL || level > Byte.MAX_VALUE)) {
+                throw new IllegalArgumentException("CO-PO level out of range for CO" + entry.getCoNumber() + " "
+                        + entry.getOutcome() + ": " + level);
+            }
+            levels[entry.getCoNumber() - 1][column] = level != null ? level.byteValue() : NO_LEVEL;
+        }
+        return new CoPoMatrixView(subjectName, levels, present);
+    }
+
+    public String getSubjectName() {
+        return subjectName;
+    }
+
+    /** Whether no outcome has entries, i.e. the subject has no matrix. */
+    public boolean isEmpty() {
+        return outcomes.isEmpty();
+    }
+
+    /**
+     * The JSON read by the CO-PO page: {@code outcomes} with entries, {@code matrix} (CO number
+     * to outcome to level, or "-") and {@code weightedAverage} (outcome to average, or "-").
+     */
+    public Map<String, Object> toResponse() {
+        Map<Integer, Map<String, String>> matrix = new LinkedHashMap<>();
+        for (int co = 1; co <= CO_COUNT; co++) {
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int column = 0; column < OUTCOMES.size(); column++) {
+                if (present[column]) {
+                    byte level = levels[co - 1][column];
+                    row.put(OUTCOMES.get(column), level != NO_LEVEL ? String.valueOf(level) : "-");
+                }
+            }
+            matrix.put(co, row);
+        }
+        Map<String, String> weightedAverage = new LinkedHashMap<>();
+        for (int column = 0; column < OUTCOMES.size(); column++) {
+            if (present[column]) {
+                weightedAverage.put(OUTCOMES.get(column), averages[column]);
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("outcomes", outcomes);
+        response.put("matrix", matrix);
+        response.put("weightedAverage", weightedAverage);
+        return response;
+    }
+}
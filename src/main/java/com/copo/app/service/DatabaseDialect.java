@@ -0,0 +1,98 @@
+package com.copo.app.service;
+
+import java.sql.DatabaseMetaData;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The SQL features the hand-written statements depend on that differ between MySQL and the
+ * embedded H2 database of the load-test profile: row aliases in upserts (MySQL 8.0.19 and
+ * later, where {@code VALUES(col)} is deprecated) and named locks ({@code GET_LOCK}).
+ */
+@Component
+public class DatabaseDialect {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseDialect.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile Boolean mySql;
+    private volatile Boolean rowAliases;
+
+    public boolean isMySql() {
+        if (mySql == null) {
+            mySql = jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> con.getMetaData()
+                    .getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql"));
+        }
+        return mySql;
+    }
+
+    /** Whether upserts can name the new row, {@code INSERT ... AS new ON DUPLICATE KEY UPDATE a = new.a}. */
+    public boolean supportsRowAliases() {
+        if (rowAliases == null) {
+            rowAliases = isMySql() && jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+                DatabaseMetaData meta = con.getMetaData();
+                // MariaDB also reports itself as MySQL 5.5 to the MySQL driver
+                String version = meta.getDatabaseProductVersion();
+                int major = meta.getDatabaseMajorVersion();
+                int minor = meta.getDatabaseMinorVersion();
+                return !version.toLowerCase(Locale.ROOT).contains("mariadb")
+                        && (major > 8 || major == 8 && (minor > 0 || patchVersion(version) >= 19));
+            });
+        }
+        return rowAliases;
+    }
+
+    /**
+     * Runs {@code task} while holding the MySQL named lock {@code name}, waiting up to
+     * {@code timeoutSeconds} for another node to release it. The lock belongs to a connection, so
+     * the task runs in a transaction that keeps the one it was taken on; statements that commit
+     * implicitly (DDL) do not release it. Other databases only run in one process and run the
+     * task directly.
+     *
+     * @throws IllegalStateException when the lock is not granted in time
+     */
+    public <T> T runLocked(String name, int timeoutSeconds, Supplier<T> task) {
+        if (!isMySql()) {
+            return task.get();
+        }
+        return new TransactionTemplate(transactionManager).execute(tx -> {
+            Integer granted = jdbcTemplate.queryForObject("SELECT GET_LOCK(?, ?)", Integer.class, name, timeoutSeconds);
+            if (granted == null || granted != 1) {
+                throw new IllegalStateException("Lock " + name + " not granted within " + timeoutSeconds + " s");
+            }
+            try {
+                return task.get();
+            } finally {
+                try {
+                    jdbcTemplate.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, name);
+                } catch (RuntimeException e) {
+                    // most likely the connection broke, which ends its locks too
+                    logger.warn("Could not release lock {}: {}", name, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private static int patchVersion(String version) {
+        String[] parts = version.split("[.-]");
+        try {
+            return parts.length > 2 ? Integer.parseInt(parts[2].replaceAll("\\D.*", "")) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
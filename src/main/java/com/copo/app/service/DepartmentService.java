@@ -1,11 +1,15 @@
 package com.copo.app.service;
 
+import com.copo.app.config.ReferenceCacheConfig;
 import com.copo.app.model.Department;
 import com.copo.app.model.Section;
 import com.copo.app.repository.DepartmentRepository;
 import com.copo.app.repository.SectionRepository;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,6 +20,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Service
+@CacheConfig(cacheResolver = "referenceCacheResolver")
 public class DepartmentService {
 
     private static final Logger logger = LoggerFactory.getLogger(DepartmentService.class);
@@ -26,8 +31,18 @@ public class DepartmentService {
     @Autowired
     private SectionRepository sectionRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ReferenceCache referenceCache;
+
+    @Autowired
+    private ScopeVersions scopeVersions;
+
     // Save Department with Validation
     @Transactional
+    @CacheEvict(cacheNames = ReferenceCacheConfig.DEPARTMENTS, allEntries = true)
     public Department saveDepartment(Department department) {
         try {
         	
@@ -39,6 +54,7 @@ public class DepartmentService {
             }
 
             Department saved = departmentRepository.save(department);
+            eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceCacheConfig.DEPARTMENTS));
             logger.info("Department saved successfully: {}", saved.getName());
             return saved;
 
@@ -48,6 +64,7 @@ public class DepartmentService {
         }
     }
 
+    @CacheEvict(cacheNames = { ReferenceCacheConfig.DEPARTMENTS, ReferenceCacheConfig.SECTIONS }, allEntries = true)
     public void createSectionsForDepartment(Department department, List<String> sectionNames) {
         if (sectionNames == null || sectionNames.isEmpty()) {
             return;
@@ -62,10 +79,11 @@ public class DepartmentService {
         }
     }
 
-    // Get All Departments (only active/non-deleted)
+    // Get All Departments (only active/non-deleted), with their sections
     public List<Department> getAllDepartments() {
         try {
-            List<Department> list = departmentRepository.findAllActive();
+            List<Department> list = ReferenceCache.entities(referenceCache.departments(version()),
+                    ReferenceCache.DepartmentRef::toEntity);
             logger.info("Fetched {} active departments", list.size());
             return list;
         } catch (Exception e) {
@@ -74,10 +92,11 @@ public class DepartmentService {
         }
     }
 
-    // Get Department by ID
+    // Get Department by ID, with its sections
     public Optional<Department> getDepartmentById(Long id) {
         try {
-            Optional<Department> department = departmentRepository.findById(id);
+            Optional<Department> department = referenceCache.department(version(), id)
+                    .map(ReferenceCache.DepartmentRef::toEntity);
             if (department.isPresent()) {
                 logger.info("Department found with id {}", id);
             } else {
@@ -90,8 +109,9 @@ public class DepartmentService {
         }
     }
 
-    // Update Department with Validation
+    // Update Department with Validation; subjects and sections hold a copy of the department
     @Transactional
+    @CacheEvict(cacheNames = { ReferenceCacheConfig.DEPARTMENTS, ReferenceCacheConfig.SECTIONS, ReferenceCacheConfig.SUBJECTS }, allEntries = true)
     public Department updateDepartment(Long id, Department departmentDetails) {
         try {
             Optional<Department> optionalDepartment = departmentRepository.findById(id);
@@ -111,6 +131,7 @@ public class DepartmentService {
             department.setName(departmentDetails.getName());
             department.setDescription(departmentDetails.getDescription());
             Department updated = departmentRepository.save(department);
+            eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceCacheConfig.DEPARTMENTS));
             logger.info("Department updated successfully with id {}", id);
             return updated;
 
@@ -120,6 +141,7 @@ public class DepartmentService {
         }
     }
 
+    @CacheEvict(cacheNames = { ReferenceCacheConfig.DEPARTMENTS, ReferenceCacheConfig.SECTIONS }, allEntries = true)
     public void syncSectionsForDepartment(Department department, List<String> desiredSectionNames) {
         // Normalize input
         List<String> desired = desiredSectionNames == null ? List.of() : desiredSectionNames.stream()
@@ -152,6 +174,7 @@ public class DepartmentService {
 
     // Soft Delete Department (mark as deleted instead of actually deleting)
     @Transactional
+    @CacheEvict(cacheNames = { ReferenceCacheConfig.DEPARTMENTS, ReferenceCacheConfig.SECTIONS, ReferenceCacheConfig.SUBJECTS }, allEntries = true)
     public void deleteDepartment(Long id) {
         try {
         	// Check if department exists and is not already deleted
@@ -169,6 +192,7 @@ public class DepartmentService {
         	
         	// Soft delete - mark as deleted instead of actually deleting
         	departmentRepository.softDeleteById(id);
+        	eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceCacheConfig.DEPARTMENTS));
             logger.info("Department soft deleted with id {}", id);
             
         } catch (Exception e) {
@@ -180,7 +204,8 @@ public class DepartmentService {
     // Get Department by Name (only active)
     public Department getDepartmentByName(String departmentName) {
         try {
-            Department found = departmentRepository.findActiveDepartmentByName(departmentName)
+            Department found = referenceCache.departmentByName(version(), departmentName)
+                    .map(ReferenceCache.DepartmentRef::toEntity)
                     .orElseThrow(() -> {
                         logger.warn("Active department not found: {}", departmentName);
                         return new RuntimeException("Department not found: " + departmentName);
@@ -192,5 +217,9 @@ public class DepartmentService {
             throw new RuntimeException("Failed to get department by name: " + departmentName+" , Error :"+e.getMessage());
         }
     }
-    
+
+    // Version of the cached departments, read before the lookup, see ReferenceCache
+    private long version() {
+        return scopeVersions.version(ReferenceCacheConfig.DEPARTMENTS);
+    }
 }
@@ -6,23 +6,40 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.copo.app.model.MarksScope;
 import com.copo.app.model.Question;
 import com.copo.app.model.Student;
 import com.copo.app.model.StudentMarks;
 import com.copo.app.repository.FacultyMarksViewProjection;
 import com.copo.app.repository.FacultyMarksViewRepo;
+import com.copo.app.repository.QuestionSlotProjection;
 import com.copo.app.repository.QuestionRepository;
+import com.copo.app.repository.StudentMarksProjection;
 import com.copo.app.repository.StudentMarksRepository;
 import com.copo.app.repository.StudentRepository;
+import com.copo.app.repository.StudentRosterProjection;
 
 @Service
 public class FacultyMarksViewService {
+
+	/**
+	 * Caches of the two views, keyed by {@link MarksScope} and the scope's {@link ScopeVersions}
+	 * version, which {@link MarksViewCacheEvictor} moves on after every change.
+	 */
+	public static final String FILTERED_MARKS_CACHE = "facultyMarksView";
+	public static final String FULL_MARKS_CACHE = "facultyMarksFullView";
+
 	@Autowired
 	private FacultyMarksViewRepo facultyMarksViewRepo;
 
@@ -35,8 +52,33 @@ public class FacultyMarksViewService {
 	@Autowired
 	private StudentMarksRepository marksRepository;
 
+	@Autowired
+	private QuestionAttainmentService questionAttainmentService;
+
+	/**
+	 * How marks are read for the faculty views: "sparse" issues three narrow queries (roster,
+	 * questions, existing marks) and fills the empty cells here, "cross-join" keeps the single
+	 * Student x Question query.
+	 */
+	@Value("${copo.marks.fetch-mode:sparse}")
+	private String fetchMode;
+
+	/**
+	 * The marks of one exam type, read-only. {@code version} is the scope's version, read by the
+	 * caller before this call: a view cached under an older version is never served for a newer
+	 * one, so a change made on any node retires the cached views of every node.
+	 */
+    @Cacheable(cacheNames = FILTERED_MARKS_CACHE,
+            key = "{new com.copo.app.model.MarksScope(#departmentId, #batchId, #semester, #subjectId, #examType, #sectionId), #version}")
     public Map<String, Object> getFilteredMarks(Long departmentId, Long batchId, Integer semester, String examType,
-            Long subjectId, Integer sectionId) {
+            Long subjectId, Integer sectionId, long version) {
+        return readOnly(isSparseFetch()
+                ? getFilteredMarksSparse(departmentId, batchId, semester, examType, subjectId, sectionId)
+                : getFilteredMarksCrossJoin(departmentId, batchId, semester, examType, subjectId, sectionId));
+    }
+
+    private Map<String, Object> getFilteredMarksCrossJoin(Long departmentId, Long batchId, Integer semester,
+            String examType, Long subjectId, Integer sectionId) {
         List<FacultyMarksViewProjection> rawData = (sectionId != null)
                 ? facultyMarksViewRepo.getFilteredMarksBySection(departmentId, batchId, semester, examType, subjectId, sectionId)
                 : facultyMarksViewRepo.getFilteredMarks(departmentId, batchId, semester, examType, subjectId);
@@ -84,245 +126,220 @@ public class FacultyMarksViewService {
 	
 	
 
+	boolean isSparseFetch() {
+		return !"cross-join".equalsIgnoreCase(fetchMode);
+	}
+
+	/** Read-only copy of a view, whose maps and lists are shared by every reader of the cache. */
+	@SuppressWarnings("unchecked")
+	static <T> T readOnly(T value) {
+		if (value instanceof Map<?, ?> map) {
+			Map<Object, Object> copy = new LinkedHashMap<>();
+			map.forEach((key, item) -> copy.put(key, readOnly(item)));
+			return (T) Collections.unmodifiableMap(copy);
+		}
+		if (value instanceof List<?> list) {
+			List<Object> copy = new ArrayList<>(list.size());
+			for (Object item : list) {
+				copy.add(readOnly(item));
+			}
+			return (T) Collections.unmodifiableList(copy);
+		}
+		return value;
+	}
+
+	// Same response as the cross join, built from the roster, the question list and the existing marks
+	private Map<String, Object> getFilteredMarksSparse(Long departmentId, Long batchId, Integer semester,
+			String examType, Long subjectId, Integer sectionId) {
+		List<StudentRosterProjection> roster = facultyMarksViewRepo.getRoster(departmentId, batchId, sectionId);
+		List<QuestionSlotProjection> questionSlots = facultyMarksViewRepo.getQuestionSlotsByExamType(departmentId,
+				batchId, semester, examType, subjectId);
+
+		// The cross join yields nothing at all when either side is empty
+		if (roster.isEmpty() || questionSlots.isEmpty()) {
+			roster = List.of();
+			questionSlots = List.of();
+		}
+
+		Map<Long, Map<Long, String>> submitted = new HashMap<>();
+		if (!roster.isEmpty()) {
+			for (StudentMarksProjection m : facultyMarksViewRepo.getSubmittedMarks(departmentId, batchId, semester,
+					examType, subjectId, sectionId)) {
+				submitted.computeIfAbsent(m.getStudentId(), k -> new HashMap<>()).put(m.getQuestionId(), m.getAnswer());
+			}
+		}
+
+		// Extract unique questions
+		List<Map<String, Object>> questions = questionSlots.stream().map(q -> {
+			Map<String, Object> questionMap = new LinkedHashMap<>();
+			questionMap.put("part", q.getPart());
+			questionMap.put("questionNumber", q.getQuestionNumber());
+			questionMap.put("text", q.getQuestionText());
+			questionMap.put("maxMarks", q.getMaxMarks());
+			questionMap.put("courseOutcome", q.getCourseOutcome());
+			return questionMap;
+		}).distinct().collect(Collectors.toList());
+
+		// Keyed by student ID in a HashMap, as groupingBy does for the cross join
+		Map<Long, Map<String, Object>> byStudent = new HashMap<>();
+		for (StudentRosterProjection s : roster) {
+			Map<Long, String> studentMarks = submitted.getOrDefault(s.getStudentId(), Map.of());
+
+			Map<String, String> marksMap = new LinkedHashMap<>();
+			for (QuestionSlotProjection q : questionSlots) {
+				String answer = studentMarks.get(q.getQuestionId());
+				marksMap.put("Part " + q.getPart() + " - Q" + q.getQuestionNumber(), answer == null ? "" : answer);
+			}
+
+			Map<String, Object> studentData = new LinkedHashMap<>();
+			studentData.put("name", s.getStudentName());
+			studentData.put("marks", marksMap);
+			byStudent.putIfAbsent(s.getStudentId(), studentData);
+		}
+
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("questions", questions);
+		response.put("students", new ArrayList<>(byStudent.values()));
+
+		return response;
+	}
+
+	private MarksCube loadSparseCube(Long departmentId, Long batchId, Integer semester, Long subjectId) {
+		List<StudentRosterProjection> roster = facultyMarksViewRepo.getRoster(departmentId, batchId, null);
+		List<QuestionSlotProjection> questions = facultyMarksViewRepo.getQuestionSlots(departmentId, batchId,
+				semester, subjectId);
+
+		if (roster.isEmpty() || questions.isEmpty()) {
+			return MarksCube.fromSparse(List.of(), List.of(), Stream.empty());
+		}
+		try (Stream<StudentMarksProjection> marks = facultyMarksViewRepo.streamSubmittedMarks(departmentId, batchId,
+				semester, null, subjectId, null)) {
+			return MarksCube.fromSparse(roster, questions, marks);
+		}
+	}
+
+	/** The marks of every exam type with their statistics, read-only; {@code version} as for {@link #getFilteredMarks}. */
+	@Cacheable(cacheNames = FULL_MARKS_CACHE,
+			key = "{new com.copo.app.model.MarksScope(#departmentId, #batchId, #semester, #subjectId, null, null), #version}")
+	@Transactional(readOnly = true)
 	public Map<String, Object> getFullGroupedMarksWithoutExamType(Long departmentId, Long batchId, Integer semester,
-			Long subjectId) {
-		List<FacultyMarksViewProjection> rawData = facultyMarksViewRepo.getFullMarksWithoutExamType(departmentId,
-				batchId, semester, subjectId);
-		
-		//System.out.println("First ==> "+rawData);
+			Long subjectId, long version) {
+		// Index students and questions once, then work on the primitive cube
+		MarksCube cube = isSparseFetch()
+				? loadSparseCube(departmentId, batchId, semester, subjectId)
+				: MarksCube.fromRows(facultyMarksViewRepo.getFullMarksWithoutExamType(departmentId, batchId, semester,
+						subjectId));
+		// Stats come from the per-question counters, kept up to date on every marks write
+		cube.useCounters(questionAttainmentService.getCounters(cube.columnOwners()));
 
 		// Group Questions by CO → Exam Type → Questions
-		Map<String, Map<String, Map<String, List<Map<String, Object>>>>> groupedQuestions = groupQuestionsByCOExamType(
-				rawData);
+		Map<String, Map<String, Map<String, List<Map<String, Object>>>>> groupedQuestions = groupQuestionsByCOExamType(cube);
 
-		//System.out.println("Second ==> "+groupedQuestions);
-		
 		// Group Student Marks
-		Map<Long, Map<String, Object>> studentMap = groupStudentMarks(rawData);
-		
-		//System.out.println("Third ==> "+studentMap);
+		List<Map<String, Object>> students = groupStudentMarks(cube);
 
 		// Calculate >=50% Count and Attempted for each question
-		Map<String, Map<String, Map<String, Map<String, Integer>>>> questionStats = calculateQuestionStats(groupedQuestions, studentMap);
-
-		//Map<String, Map<String, Map<String, Integer>>> questionStats = calculateQuestionStats(groupedQuestions,studentMap);
+		Map<String, Map<String, Map<String, Map<String, Integer>>>> questionStats = calculateQuestionStats(cube);
 
 		// Calculate assessment-wise percentage per CO
-		Map<String, Map<String, Double>> assessmentPercentages = calculateAssessmentPercentages(questionStats);
+		Map<String, Map<String, Double>> assessmentPercentages = calculateAssessmentPercentages(cube);
 		
 		//questionswise percentage %
-		Map<String, Map<String, Map<String, Double>>> questionWisePercentages =  calculateQuestionWisePercentages(questionStats);
+		Map<String, Map<String, Map<String, Double>>> questionWisePercentages = calculateQuestionWisePercentages(cube);
 		
 		// overall percentage %
-		Map<String, Double> averageQuestionWisePercentages =calculateAverageQuestionWisePercentages(questionWisePercentages);
+		Map<String, Double> averageQuestionWisePercentages = calculateAverageQuestionWisePercentages(cube);
 
 
 
 		// Prepare the final response
 		Map<String, Object> response = new LinkedHashMap<>();
 		response.put("groupedQuestions", groupedQuestions);
-		response.put("students", studentMap.values());
+		response.put("students", students);
 		response.put("questionStats", questionStats); // Add the question statistics (>=50% and attempted count)
 		response.put("assessmentPercentages", assessmentPercentages);
 		response.put("questionWisePercentages", questionWisePercentages);
 		response.put("averageQuestionWisePercentages", averageQuestionWisePercentages);
 
 
-		return response;
+		return readOnly(response);
 	}
 
 	// Helper method to group questions by CO and exam type
-	private Map<String, Map<String, Map<String, List<Map<String, Object>>>>> groupQuestionsByCOExamType(
-			List<FacultyMarksViewProjection> rawData) {
+	Map<String, Map<String, Map<String, List<Map<String, Object>>>>> groupQuestionsByCOExamType(MarksCube cube) {
 		Map<String, Map<String, Map<String, List<Map<String, Object>>>>> groupedQuestions = new LinkedHashMap<>();
 
-		for (FacultyMarksViewProjection p : rawData) {
-			String co = p.getCourseOutcome();
-			String examType = p.getExamType();
-
-			Map<String, List<Map<String, Object>>> examTypeMap = groupedQuestions
-					.computeIfAbsent(co, k -> new LinkedHashMap<>())
-					.computeIfAbsent(examType, k -> new LinkedHashMap<>());
-
-			List<Map<String, Object>> questions = examTypeMap.computeIfAbsent("questions", k -> new ArrayList<>());
-
-			Map<String, Object> question = new LinkedHashMap<>();
-			question.put("part", p.getPart());
-			question.put("questionNumber", p.getQuestionNumber());
-			question.put("text", p.getQuestionText());
-			question.put("maxMarks", p.getMaxMarks());
-			question.put("questionId", p.getQuestionId());
-
-			if (!questions.contains(question)) {
+		for (MarksCube.Group group : cube.groups()) {
+			List<Map<String, Object>> questions = new ArrayList<>();
+			for (MarksCube.QuestionSlot slot : group.questions()) {
+				Map<String, Object> question = new LinkedHashMap<>();
+				question.put("part", slot.part());
+				question.put("questionNumber", slot.questionNumber());
+				question.put("text", slot.text());
+				question.put("maxMarks", slot.maxMarks());
+				question.put("questionId", slot.questionId());
 				questions.add(question);
 			}
+
+			groupedQuestions.computeIfAbsent(group.co(), k -> new LinkedHashMap<>())
+					.computeIfAbsent(group.examType(), k -> new LinkedHashMap<>())
+					.put("questions", questions);
 		}
 		return groupedQuestions;
 	}
 
 	// Helper method to group student marks by CO, exam type, and question
-	private Map<Long, Map<String, Object>> groupStudentMarks(List<FacultyMarksViewProjection> rawData) {
-		Map<Long, Map<String, Object>> studentMap = new LinkedHashMap<>();
-
-		for (FacultyMarksViewProjection p : rawData) {
-			Long studentId = p.getStudentId();
-			String studentName = p.getStudentName();
-			String studentRollnumber = p.getRollNumber();
-
-			String co = p.getCourseOutcome();
-			String examType = p.getExamType();
-			String key = "Part " + p.getPart() + " - Q" + p.getQuestionNumber();
-
-			studentMap.putIfAbsent(studentId, new LinkedHashMap<>());
-			studentMap.get(studentId).putIfAbsent("name", studentName);
-			studentMap.get(studentId).putIfAbsent("rollNumber", studentRollnumber);
-
-			Map<String, Map<String, Map<String, String>>> coExamMarksMap = (Map<String, Map<String, Map<String, String>>>) studentMap
-					.get(studentId).computeIfAbsent("marks", k -> new LinkedHashMap<>());
+	List<Map<String, Object>> groupStudentMarks(MarksCube cube) {
+		List<Map<String, Object>> students = new ArrayList<>(cube.studentCount());
+
+		for (int s = 0; s < cube.studentCount(); s++) {
+			Map<String, Map<String, Map<String, String>>> coExamMarksMap = new LinkedHashMap<>();
+			for (MarksCube.Group group : cube.groups()) {
+				Map<String, String> marks = coExamMarksMap.computeIfAbsent(group.co(), k -> new LinkedHashMap<>())
+						.computeIfAbsent(group.examType(), k -> new LinkedHashMap<>());
+				for (int column = group.start(); column < group.end(); column++) {
+					marks.put(cube.columnKey(column), cube.answer(s, column));
+				}
+			}
 
-			coExamMarksMap.computeIfAbsent(co, k -> new LinkedHashMap<>())
-					.computeIfAbsent(examType, k -> new LinkedHashMap<>())
-					.put(key, p.getSubmittedMarks() == null ? "" : p.getSubmittedMarks());
+			Map<String, Object> student = new LinkedHashMap<>();
+			student.put("name", cube.studentName(s));
+			student.put("rollNumber", cube.rollNumber(s));
+			student.put("marks", coExamMarksMap);
+			students.add(student);
 		}
 
-		return studentMap;
+		return students;
 	}
 
-	private Map<String, Map<String, Map<String, Map<String, Integer>>>> calculateQuestionStats(
-	        Map<String, Map<String, Map<String, List<Map<String, Object>>>>> groupedQuestions,
-	        Map<Long, Map<String, Object>> studentMap) {
-
+	Map<String, Map<String, Map<String, Map<String, Integer>>>> calculateQuestionStats(MarksCube cube) {
 	    Map<String, Map<String, Map<String, Map<String, Integer>>>> questionStats = new LinkedHashMap<>();
 
-	    for (String co : groupedQuestions.keySet()) {
-	        Map<String, Map<String, List<Map<String, Object>>>> examTypeMap = groupedQuestions.get(co);
-
-	        for (String examType : examTypeMap.keySet()) {
-	            List<Map<String, Object>> questions = examTypeMap.get(examType).get("questions");
-
-	            for (Map<String, Object> question : questions) {
-	                String key = "Part " + question.get("part") + " - Q" + question.get("questionNumber");
-
-	                // Init nested maps
-	                questionStats.putIfAbsent(co, new LinkedHashMap<>());
-	                questionStats.get(co).putIfAbsent(examType, new LinkedHashMap<>());
-
-	                int attemptedCount = calculateAttemptedCount(co, examType, question, studentMap);
-	                int above50Count = calculateAbove50Count(co, examType, question, studentMap);
-
-	                Map<String, Integer> stats = new LinkedHashMap<>();
-	                stats.put("attempted", attemptedCount);
-	                stats.put(">=50%", above50Count);
+	    for (MarksCube.Group group : cube.groups()) {
+	        Map<String, Map<String, Integer>> examStats = questionStats
+	                .computeIfAbsent(group.co(), k -> new LinkedHashMap<>())
+	                .computeIfAbsent(group.examType(), k -> new LinkedHashMap<>());
 
-	                questionStats.get(co).get(examType).put(key, stats);
-	            }
+	        for (int column = group.start(); column < group.end(); column++) {
+	            Map<String, Integer> stats = new LinkedHashMap<>();
+	            stats.put("attempted", cube.stats().attempted(column));
+	            stats.put(">=50%", cube.stats().aboveHalf(column));
+	            examStats.put(cube.columnKey(column), stats);
 	        }
 	    }
 
 	    return questionStats;
 	}
 
-
-	private int calculateAbove50Count(String co, String examType, Map<String, Object> question,
-			Map<Long, Map<String, Object>> studentMap) {
-		int count = 0;
-		int maxMarks = (Integer) question.get("maxMarks");
-		int threshold = (int) Math.ceil(maxMarks * 0.5); // Correct rounding
-		String key = "Part " + question.get("part") + " - Q" + question.get("questionNumber");
-
-		//System.out.println("inside CalculateAbove50Count");
-		//System.out.println("CO =>" +co+" examType => "+examType+" question => "+question+" studentMap => "+studentMap);
-		//System.out.println("Max marks ==> " +maxMarks);
-		//System.out.println("threshold ==> "+threshold);
-		//System.out.println("key ==> " +key);
-
-		for (Long studentId : studentMap.keySet()) {
-			Map<String, Map<String, Map<String, String>>> marksMap = (Map<String, Map<String, Map<String, String>>>) studentMap
-					.get(studentId).get("marks");
-			
-			//System.out.println("studentId ==> "+studentId);
-			//System.out.println("key ==> " +key);
-			//System.out.println("marksMap ==>" +marksMap);
-
-			if (marksMap.containsKey(co) && marksMap.get(co).containsKey(examType)
-					&& marksMap.get(co).get(examType).containsKey(key)) {
-
-				
-				
-				String mark = marksMap.get(co).get(examType).get(key);
-				
-				//System.out.println("studentId ==> "+studentId);
-				//System.out.println("key ==> " +key);
-				//System.out.println("first if loop  ==> "+mark);
-				
-				if (mark != null && !mark.isEmpty()) {
-					//System.out.println("second loop");
-					try {
-						Double numericMark = Double.parseDouble(mark);
-						if (numericMark >= threshold) {
-							
-							count++;
-							
-							//System.out.println("final count ==> "+count);
-						}
-					} catch (NumberFormatException e) {
-// ignore non-numeric values
-					}
-				}
-			}
-		}
-
-		return count;
-	}
-
-	private int calculateAttemptedCount(String co, String examType, Map<String, Object> question,
-			Map<Long, Map<String, Object>> studentMap) {
-		int count = 0;
-		String key = "Part " + question.get("part") + " - Q" + question.get("questionNumber");
-
-		for (Long studentId : studentMap.keySet()) {
-			Map<String, Map<String, Map<String, String>>> marksMap = (Map<String, Map<String, Map<String, String>>>) studentMap
-					.get(studentId).get("marks");
-
-			if (marksMap.containsKey(co) && marksMap.get(co).containsKey(examType)
-					&& marksMap.get(co).get(examType).containsKey(key)) {
-
-				String mark = marksMap.get(co).get(examType).get(key);
-				if (mark != null && !mark.isEmpty() && !mark.contains("N") && !mark.contains("AB")) {
-					count++;
-				}
-			}
-		}
-
-		return count;
-	}
-
-	
-	
 	// Assessment wise percentage
-	private Map<String, Map<String, Double>> calculateAssessmentPercentages(
-	        Map<String, Map<String, Map<String, Map<String, Integer>>>> questionStats) {
-
+	Map<String, Map<String, Double>> calculateAssessmentPercentages(MarksCube cube) {
 	    Map<String, Map<String, Double>> assessmentPercentages = new LinkedHashMap<>();
 
-	    for (String co : questionStats.keySet()) {
-	        Map<String, Double> examPercentMap = new LinkedHashMap<>();
-	        Map<String, Map<String, Map<String, Integer>>> examTypeStats = questionStats.get(co);
-
-	        for (String examType : examTypeStats.keySet()) {
-	            int totalAbove50 = 0;
-	            int totalAttempted = 0;
-
-	            for (Map<String, Integer> questionStat : examTypeStats.get(examType).values()) {
-	                totalAbove50 += questionStat.getOrDefault(">=50%", 0);
-	                totalAttempted += questionStat.getOrDefault("attempted", 0);
-	            }
-
-	            double percentage = (totalAttempted == 0) ? 0.0 : ((double) totalAbove50 / totalAttempted) * 100.0;
-	            examPercentMap.put(examType, percentage);
-	        }
-
-	        assessmentPercentages.put(co, examPercentMap);
+	    List<MarksCube.Group> groups = cube.groups();
+	    for (int g = 0; g < groups.size(); g++) {
+	        MarksCube.Group group = groups.get(g);
+	        assessmentPercentages.computeIfAbsent(group.co(), k -> new LinkedHashMap<>())
+	                .put(group.examType(), cube.stats().groupPercentage(g));
 	    }
 
 	    return assessmentPercentages;
@@ -330,33 +347,17 @@ public class FacultyMarksViewService {
 	
 	
 	//questions wise percentage %
-	private Map<String, Map<String, Map<String, Double>>> calculateQuestionWisePercentages(
-	        Map<String, Map<String, Map<String, Map<String, Integer>>>> questionStats) {
-
+	Map<String, Map<String, Map<String, Double>>> calculateQuestionWisePercentages(MarksCube cube) {
 	    Map<String, Map<String, Map<String, Double>>> questionWisePercentages = new LinkedHashMap<>();
 
-	    for (String co : questionStats.keySet()) {
-	        Map<String, Map<String, Double>> examTypeMap = new LinkedHashMap<>();
-	        Map<String, Map<String, Map<String, Integer>>> examTypes = questionStats.get(co);
-
-	        Map<String, Map<String, Double>> examMap = new LinkedHashMap<>();
-
-	        for (String examType : examTypes.keySet()) {
-	            Map<String, Double> questionMap = new LinkedHashMap<>();
-
-	            for (String questionKey : examTypes.get(examType).keySet()) {
-	                Map<String, Integer> stats = examTypes.get(examType).get(questionKey);
-	                int attempted = stats.getOrDefault("attempted", 0);
-	                int above50 = stats.getOrDefault(">=50%", 0);
-
-	                double percentage = (attempted == 0) ? 0.0 : ((double) above50 / attempted) * 100.0;
-	                questionMap.put(questionKey, percentage);
-	            }
+	    for (MarksCube.Group group : cube.groups()) {
+	        Map<String, Double> questionMap = questionWisePercentages
+	                .computeIfAbsent(group.co(), k -> new LinkedHashMap<>())
+	                .computeIfAbsent(group.examType(), k -> new LinkedHashMap<>());
 
-	            examMap.put(examType, questionMap);
+	        for (int column = group.start(); column < group.end(); column++) {
+	            questionMap.put(cube.columnKey(column), cube.stats().percentage(column));
 	        }
-
-	        questionWisePercentages.put(co, examMap);
 	    }
 
 	    return questionWisePercentages;
@@ -365,26 +366,32 @@ public class FacultyMarksViewService {
 	
 	
 	//overall percentage CO wise
-	private Map<String, Double> calculateAverageQuestionWisePercentages(
-	        Map<String, Map<String, Map<String, Double>>> questionWisePercentages) {
-
+	Map<String, Double> calculateAverageQuestionWisePercentages(MarksCube cube) {
 	    Map<String, Double> averagePercentages = new LinkedHashMap<>();
 
-	    for (String co : questionWisePercentages.keySet()) {
-	        Map<String, Map<String, Double>> examTypeMap = questionWisePercentages.get(co);
-
-	        double sum = 0.0;
-	        int count = 0;
+	    String co = null;
+	    double sum = 0.0;
+	    int count = 0;
+	    List<MarksCube.Group> groups = cube.groups();
+
+	    for (int g = 0; g < groups.size(); g++) {
+	        MarksCube.Group group = groups.get(g);
+	        if (g == 0 || !Objects.equals(co, group.co())) {
+	            co = group.co();
+	            sum = 0.0;
+	            count = 0;
+	        }
 
-	        for (Map<String, Double> questionMap : examTypeMap.values()) {
-	            for (double percentage : questionMap.values()) {
-	                sum += percentage;
-	                count++;
-	            }
+	        for (int column = group.start(); column < group.end(); column++) {
+	            sum += cube.stats().percentage(column);
+	            count++;
 	        }
 
-	        double average = (count == 0) ? 0.0 : sum / count;
-	        averagePercentages.put(co, average);
+	        // groups of one CO are contiguous, so the CO is complete once the next group moves on
+	        if (g == groups.size() - 1 || !Objects.equals(co, groups.get(g + 1).co())) {
+	            double average = (count == 0) ? 0.0 : sum / count;
+	            averagePercentages.put(co, average);
+	        }
 	    }
 
 	    return averagePercentages;
@@ -12,6 +12,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -26,10 +27,16 @@ public class FacultyService {
 
     @Autowired
     private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private ReferenceDictionary referenceDictionary;
     
     @Autowired
     private PasswordService passwordService;
 
+    @Autowired
+    private IngestPipeline ingestPipeline;
+
     /**
      * Save a new faculty after checking for duplicate code.
      */
@@ -154,20 +161,81 @@ public class FacultyService {
      */
     @Transactional
     public Map<String, Object> uploadFaculty(MultipartFile file) {
-        List<String> uploaded = new ArrayList<>();
-        List<String> errors = new ArrayList<>();
-        int rowNum = 0;
-
         logger.info("Starting CSV upload for faculty...");
 
         try (BufferedReader br = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                rowNum++;
-                final int currentRow = rowNum;
+            FacultyImport faculties = new FacultyImport();
+            return faculties.finish(ingestPipeline.run(br, faculties::lookup, faculties::validate, faculties::save));
+        } catch (IOException e) {
+            logger.error("CSV upload failed due to file error", e);
+            throw new RuntimeException("Failed to upload CSV file. Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves already split CSV rows (code,name,designation,departmentName) in one go, for the upload jobs.
+     */
+    @Transactional
+    public Map<String, Object> importFacultyRows(List<UploadRow> rows) {
+        FacultyImport faculties = new FacultyImport();
+        List<String> errors = new ArrayList<>();
+        faculties.save(faculties.validate(rows, faculties.lookup(rows), errors), errors);
+        return faculties.finish(errors);
+    }
+
+    private record FacultyRow(int rowNumber, Faculty faculty) {
+    }
+
+    // existing codes (lower case) and the departments named in one chunk
+    private record FacultyLookups(Set<String> facultyCodes, Map<String, Department> departments) {
+    }
+
+    /**
+     * One faculty upload: the existing codes and the departments a chunk refers to are read in two
+     * queries, the rows are checked against them in memory, possibly on an ingest worker, then
+     * saved in file order, where codes repeated within the file are caught.
+     */
+    private class FacultyImport {
+        private final Set<String> savedCodes = new HashSet<>();
+        private final List<String> uploaded = new ArrayList<>();
+
+        FacultyLookups lookup(List<UploadRow> rows) {
+            Set<String> codes = new HashSet<>();
+            Set<String> departmentNames = new HashSet<>();
+            for (UploadRow row : rows) {
+                String[] fields = row.cells();
+                if (fields.length >= 4) {
+                    codes.add(fields[0].trim());
+                    departmentNames.add(fields[3].trim());
+                }
+            }
+            Map<String, Long> departmentIds = referenceDictionary.departmentIds(departmentNames);
+            Set<String> existing = new HashSet<>();
+            if (!codes.isEmpty()) {
+                for (String code : facultyRepository.findExistingFacultycodes(codes)) {
+                    existing.add(code.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            Map<Long, Department> byId = new HashMap<>();
+            for (Department department : departmentRepository.findAllById(new HashSet<>(departmentIds.values()))) {
+                byId.put(department.getId(), department);
+            }
+            Map<String, Department> departments = new HashMap<>();
+            departmentIds.forEach((name, id) -> {
+                if (byId.containsKey(id)) {
+                    departments.put(name, byId.get(id));
+                }
+            });
+            return new FacultyLookups(existing, departments);
+        }
+
+        List<FacultyRow> validate(List<UploadRow> rows, FacultyLookups lookups, List<String> errors) {
+            List<FacultyRow> accepted = new ArrayList<>();
+            for (UploadRow row : rows) {
+                final int currentRow = row.number();
 
                 try {
-                    String[] fields = line.split(",");
+                    String[] fields = row.cells();
 
                     if (fields.length < 4) {
                         throw new RuntimeException("Expected 4 fields (code,name,designation,departmentName)");
@@ -182,42 +250,56 @@ public class FacultyService {
                         throw new RuntimeException("Missing required field(s)");
                     }
 
-                    if (facultyRepository.existsByFacultycode(facultyCode)) {
+                    if (lookups.facultyCodes().contains(facultyCode.toLowerCase(Locale.ROOT))) {
                         logger.warn("Skipping duplicate faculty code: {}", facultyCode);
                         errors.add("Row " + currentRow + ": Duplicate faculty code: " + facultyCode);
                         continue;
                     }
 
-                    Department department = departmentRepository.findDepartmentByName(departmentName)
-                            .orElseThrow(() -> new RuntimeException("Department not found: " + departmentName));
+                    Department department = lookups.departments().get(departmentName);
+                    if (department == null) {
+                        throw new RuntimeException("Department not found: " + departmentName);
+                    }
 
-                    Faculty faculty = Faculty.builder()
+                    accepted.add(new FacultyRow(currentRow, Faculty.builder()
                             .facultycode(facultyCode)
                             .name(name)
                             .designation(designation)
                             .department(department)
-                            .build();
-
-                    facultyRepository.save(faculty);
-                    uploaded.add("Faculty Code : "+facultyCode +" : : Facuty name :"+name);
-                    logger.info("Row {}: Faculty uploaded: {}", currentRow, facultyCode);
+                            .build()));
 
                 } catch (Exception rowEx) {
                     logger.error("Row {} failed to upload: {}", currentRow, rowEx.getMessage());
                     errors.add("Row " + currentRow + ": " + rowEx.getMessage());
                 }
             }
-        } catch (Exception e) {
-            logger.error("CSV upload failed due to file error", e);
-            throw new RuntimeException("Failed to upload CSV file. Error: " + e.getMessage());
+            return accepted;
         }
 
-        logger.info("Faculty upload completed. Success: {}, Errors: {}", uploaded.size(), errors.size());
+        void save(List<FacultyRow> rows, List<String> errors) {
+            List<Faculty> faculties = new ArrayList<>(rows.size());
+            for (FacultyRow row : rows) {
+                String facultyCode = row.faculty().getFacultycode();
+                if (!savedCodes.add(facultyCode.toLowerCase(Locale.ROOT))) {
+                    logger.warn("Skipping duplicate faculty code: {}", facultyCode);
+                    errors.add("Row " + row.rowNumber() + ": Duplicate faculty code: " + facultyCode);
+                    continue;
+                }
+                faculties.add(row.faculty());
+                uploaded.add("Faculty Code : "+facultyCode +" : : Facuty name :"+row.faculty().getName());
+                logger.info("Row {}: Faculty uploaded: {}", row.rowNumber(), facultyCode);
+            }
+            facultyRepository.saveAll(faculties);
+        }
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("uploadedFaculties", uploaded);
-        result.put("errors", errors);
-        return result;
+        Map<String, Object> finish(List<String> errors) {
+            logger.info("Faculty upload completed. Success: {}, Errors: {}", uploaded.size(), errors.size());
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("uploadedFaculties", uploaded);
+            result.put("errors", errors);
+            return result;
+        }
     }
     
     /**
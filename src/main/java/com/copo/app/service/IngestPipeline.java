@@ -0,0 +1,143 @@
+package com.copo.app.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Parse, look-up, validate and write stages for the CSV uploads.
+ *
+ * The calling thread reads the lines and cuts them into chunks of {@code copo.ingest.chunk-size}
+ * rows, and reads what each chunk is checked against (existing keys, referenced departments) in
+ * a few set-based queries. The chunk is then validated in memory on the {@code ingestExecutor}
+ * pool while reading goes on; validators never touch the database, so the workers take no
+ * connection while the caller holds one. Validated chunks are written in file order on the
+ * calling thread, so lookups and writes stay in its transaction and each chunk sees the rows
+ * written before it. At most {@code copo.ingest.chunks-in-flight} chunks wait for validation or
+ * writing; past that the reader stops and writes the oldest one.
+ */
+@Component
+public class IngestPipeline {
+
+    /** Reads what one chunk is validated against; runs on the calling thread. */
+    @FunctionalInterface
+    public interface Lookup<L> {
+        L lookup(List<UploadRow> rows);
+    }
+
+    /**
+     * Checks one chunk against its lookups, without database access, and returns the rows to
+     * write; rejected rows go to errors as "Row n: ...".
+     */
+    @FunctionalInterface
+    public interface Validator<L, T> {
+        List<T> validate(List<UploadRow> rows, L lookups, List<String> errors);
+    }
+
+    /** Writes one validated chunk; rows it still rejects go to errors. */
+    @FunctionalInterface
+    public interface Writer<T> {
+        void write(List<T> rows, List<String> errors);
+    }
+
+    private record Validated<T>(List<T> rows, List<String> errors) {
+    }
+
+    @Autowired
+    @Qualifier("ingestExecutor")
+    private ThreadPoolTaskExecutor ingestExecutor;
+
+    @Value("${copo.ingest.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${copo.ingest.chunks-in-flight:8}")
+    private int chunksInFlight;
+
+    /**
+     * Runs the lines of a CSV file through the stages and returns the row errors, ordered by row
+     * number.
+     */
+    public <L, T> List<String> run(BufferedReader reader, Lookup<L> lookup, Validator<L, T> validator, Writer<T> writer)
+            throws IOException {
+        List<String> errors = new ArrayList<>();
+        Deque<Future<Validated<T>>> inFlight = new ArrayDeque<>();
+        try {
+            List<UploadRow> chunk = new ArrayList<>(chunkSize);
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                chunk.add(new UploadRow(++lineNumber, line.split(",")));
+                if (chunk.size() == chunkSize) {
+                    if (inFlight.size() >= chunksInFlight) {
+                        write(inFlight.poll(), writer, errors);
+                    }
+                    inFlight.add(validate(chunk, lookup, validator));
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                inFlight.add(validate(chunk, lookup, validator));
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll(), writer, errors);
+            }
+            return errors;
+        } finally {
+            // a failed read or write leaves nothing worth validating
+            inFlight.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private <L, T> Future<Validated<T>> validate(List<UploadRow> chunk, Lookup<L> lookup, Validator<L, T> validator) {
+        L lookups = lookup.lookup(chunk);
+        return ingestExecutor.submit(() -> {
+            List<String> errors = new ArrayList<>();
+            List<T> rows = validator.validate(chunk, lookups, errors);
+            return new Validated<>(rows, errors);
+        });
+    }
+
+    private static <T> void write(Future<Validated<T>> pending, Writer<T> writer, List<String> errors) {
+        Validated<T> validated;
+        try {
+            validated = pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Upload interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+        // a chunk's write errors come after its validation errors, but may be for earlier rows
+        List<String> chunkErrors = new ArrayList<>(validated.errors());
+        writer.write(validated.rows(), chunkErrors);
+        chunkErrors.sort(Comparator.comparingInt(IngestPipeline::rowOf));
+        errors.addAll(chunkErrors);
+    }
+
+    /** Row number of a "Row n: ..." error, 0 for other messages. */
+    static int rowOf(String error) {
+        if (!error.startsWith("Row ")) {
+            return 0;
+        }
+        int end = 4;
+        while (end < error.length() && Character.isDigit(error.charAt(end))) {
+            end++;
+        }
+        return end > 4 && end - 4 < 10 ? Integer.parseInt(error.substring(4, end)) : 0;
+    }
+}
@@ -0,0 +1,332 @@
+package com.copo.app.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.copo.app.model.MarkStatus;
+import com.copo.app.model.QuestionAttainment;
+import com.copo.app.repository.FacultyMarksViewProjection;
+import com.copo.app.repository.QuestionSlotProjection;
+import com.copo.app.repository.StudentMarksProjection;
+import com.copo.app.repository.StudentRosterProjection;
+
+/**
+ * Columnar, in-memory view of the marks of one subject.
+ *
+ * Every student and every question slot ("Part A - Q1" inside a CO / exam type group) gets an
+ * ordinal index, and the cells are kept in flat primitive arrays indexed by
+ * {@code student * columnCount + column}. Groups are laid out so that the columns of one
+ * CO / exam type pair form a contiguous range, CO by CO, in the order they were first seen.
+ */
+public final class MarksCube {
+
+	/** Cell flag: a non-empty mark that is not "N" / "AB". */
+	static final byte ATTEMPTED = 1;
+
+	/** Cell flag: a numeric mark that reaches half of the question's max marks. */
+	static final byte ABOVE_HALF = 2;
+
+	/** Cell flag: the mark parses as a number. */
+	static final byte NUMERIC = 4;
+
+	private final List<Long> studentIds = new ArrayList<>();
+	private final List<String> studentNames = new ArrayList<>();
+	private final List<String> rollNumbers = new ArrayList<>();
+	private final Map<Long, Integer> studentIndex = new HashMap<>();
+
+	private final List<Group> groups = new ArrayList<>();
+	private final Map<String, Integer> coIndex = new HashMap<>();
+	private final Map<String, Map<String, Group>> groupIndex = new HashMap<>();
+	private final Map<Long, QuestionSlot> questionIndex = new HashMap<>();
+
+	private String[] columnKeys;
+	private float[] scores;
+	private byte[] status;
+	private String[] answers;
+	private AttainmentAccumulator accumulator;
+
+	/**
+	 * Builds a cube from the Student x Question rows of the repository. The first pass only
+	 * assigns ordinals, the second one fills the cells and the counters.
+	 */
+	public static MarksCube fromRows(List<FacultyMarksViewProjection> rows) {
+		MarksCube cube = new MarksCube();
+		for (FacultyMarksViewProjection p : rows) {
+			cube.addStudent(p.getStudentId(), p.getStudentName(), p.getRollNumber());
+			cube.addQuestion(p.getQuestionId(), p.getCourseOutcome(), p.getExamType(), p.getPart(),
+					p.getQuestionNumber(), p.getQuestionText(), p.getMaxMarks());
+		}
+		cube.allocate();
+		for (FacultyMarksViewProjection p : rows) {
+			cube.put(p.getStudentId(), p.getQuestionId(), p.getSubmittedMarks(), p.getMarkStatus(), p.getScore());
+		}
+		return cube;
+	}
+
+	/**
+	 * Builds a cube from the sparse fetch: the roster and question list define the layout and
+	 * only the marks that were actually submitted are filled in, in one pass as they are read.
+	 */
+	public static MarksCube fromSparse(List<StudentRosterProjection> roster, List<QuestionSlotProjection> questions,
+			Stream<StudentMarksProjection> marks) {
+		MarksCube cube = new MarksCube();
+		for (StudentRosterProjection s : roster) {
+			cube.addStudent(s.getStudentId(), s.getStudentName(), s.getRollNumber());
+		}
+		for (QuestionSlotProjection q : questions) {
+			cube.addQuestion(q.getQuestionId(), q.getCourseOutcome(), q.getExamType(), q.getPart(),
+					q.getQuestionNumber(), q.getQuestionText(), q.getMaxMarks());
+		}
+		cube.allocate();
+		marks.forEach(m -> cube.put(m.getStudentId(), m.getQuestionId(), m.getAnswer(), m.getStatus(), m.getScore()));
+		return cube;
+	}
+
+	public void addStudent(Long studentId, String name, String rollNumber) {
+		if (studentIndex.containsKey(studentId)) {
+			return;
+		}
+		studentIndex.put(studentId, studentIds.size());
+		studentIds.add(studentId);
+		studentNames.add(name);
+		rollNumbers.add(rollNumber);
+	}
+
+	public void addQuestion(Long questionId, String co, String examType, String part, String questionNumber,
+			String text, Integer maxMarks) {
+		if (questionIndex.containsKey(questionId)) {
+			return;
+		}
+		int coOrdinal = coIndex.computeIfAbsent(co, k -> coIndex.size());
+		Group group = groupIndex.computeIfAbsent(co, k -> new HashMap<>()).get(examType);
+		if (group == null) {
+			group = new Group(co, examType, coOrdinal, groups.size());
+			groupIndex.get(co).put(examType, group);
+			groups.add(group);
+		}
+
+		String key = "Part " + part + " - Q" + questionNumber;
+		Integer local = group.keyIndex.get(key);
+		if (local == null) {
+			local = group.keys.size();
+			group.keyIndex.put(key, local);
+			group.keys.add(key);
+			group.owners.add(questionId);
+		} else {
+			// the last question with this key owns the cell, as with the ordered cross join
+			group.owners.set(local, questionId);
+		}
+
+		QuestionSlot slot = new QuestionSlot(questionId, part, questionNumber, text, maxMarks, group, local);
+		group.questions.add(slot);
+		questionIndex.put(questionId, slot);
+	}
+
+	/**
+	 * Fixes the column layout once all students and questions are known and allocates the cell
+	 * arrays.
+	 */
+	public void allocate() {
+		groups.sort((a, b) -> a.coOrdinal != b.coOrdinal
+				? Integer.compare(a.coOrdinal, b.coOrdinal)
+				: Integer.compare(a.ordinal, b.ordinal));
+
+		int column = 0;
+		for (Group group : groups) {
+			group.start = column;
+			column += group.keys.size();
+			group.end = column;
+		}
+
+		columnKeys = new String[column];
+		for (Group group : groups) {
+			for (int i = 0; i < group.keys.size(); i++) {
+				columnKeys[group.start + i] = group.keys.get(i);
+			}
+		}
+
+		int cells = studentIds.size() * column;
+		scores = new float[cells];
+		status = new byte[cells];
+		answers = new String[cells];
+		accumulator = new AttainmentAccumulator(groups, column);
+	}
+
+	/**
+	 * Stores one submitted mark. A later value for the same cell replaces the earlier one.
+	 */
+	public void put(Long studentId, Long questionId, String answer, MarkStatus markStatus, Double score) {
+		Integer student = studentIndex.get(studentId);
+		QuestionSlot question = questionIndex.get(questionId);
+		if (student == null || question == null || !question.isColumnOwner()) {
+			return;
+		}
+
+		int column = question.column();
+		int cell = student * columnKeys.length + column;
+		byte flags = classify(markStatus, score, question.maxMarks());
+
+		accumulator.replace(column, status[cell], flags);
+		answers[cell] = answer;
+		status[cell] = flags;
+		scores[cell] = score != null ? score.floatValue() : 0f;
+	}
+
+	/**
+	 * Status flags of one submitted mark, from the status and score normalized when it was
+	 * written: attempted when present, above half when the score reaches half of the max marks.
+	 */
+	static byte classify(MarkStatus markStatus, Double score, Integer maxMarks) {
+		byte flags = 0;
+		if (markStatus == MarkStatus.PRESENT) {
+			flags |= ATTEMPTED;
+		}
+		if (score != null) {
+			flags |= NUMERIC;
+			if (score >= threshold(maxMarks)) {
+				flags |= ABOVE_HALF;
+			}
+		}
+		return flags;
+	}
+
+	static int threshold(int maxMarks) {
+		return (int) Math.ceil(maxMarks * 0.5);
+	}
+
+	public int studentCount() {
+		return studentIds.size();
+	}
+
+	public Long studentId(int student) {
+		return studentIds.get(student);
+	}
+
+	public String studentName(int student) {
+		return studentNames.get(student);
+	}
+
+	public String rollNumber(int student) {
+		return rollNumbers.get(student);
+	}
+
+	public int columnCount() {
+		return columnKeys.length;
+	}
+
+	public String columnKey(int column) {
+		return columnKeys[column];
+	}
+
+	/** Submitted mark as it was entered, or "" when the cell is empty. */
+	public String answer(int student, int column) {
+		String answer = answers[student * columnKeys.length + column];
+		return answer == null ? "" : answer;
+	}
+
+	public float score(int student, int column) {
+		return scores[student * columnKeys.length + column];
+	}
+
+	/** Question ids whose marks fill a column. */
+	public List<Long> columnOwners() {
+		List<Long> owners = new ArrayList<>(columnKeys.length);
+		for (Group group : groups) {
+			owners.addAll(group.owners);
+		}
+		return owners;
+	}
+
+	/**
+	 * Replaces the counted stats with the persisted question counters. Columns without a counter
+	 * keep the counts taken from the cells.
+	 */
+	public void useCounters(Map<Long, QuestionAttainment> counters) {
+		AttainmentAccumulator fromCounters = new AttainmentAccumulator(groups, columnKeys.length);
+		for (Group group : groups) {
+			for (int local = 0; local < group.owners.size(); local++) {
+				int column = group.start + local;
+				QuestionAttainment counter = counters.get(group.owners.get(local));
+				if (counter != null) {
+					fromCounters.addCounts(column, counter.getAttempted(), counter.getAboveHalf());
+				} else {
+					fromCounters.addCounts(column, accumulator.attempted(column), accumulator.aboveHalf(column));
+				}
+			}
+		}
+		accumulator = fromCounters;
+	}
+
+	/** Attempted / >=50% counters, complete as soon as the last mark has been put. */
+	public AttainmentAccumulator stats() {
+		return accumulator;
+	}
+
+	/** CO / exam type groups, CO by CO in the order they were first seen. */
+	public List<Group> groups() {
+		return Collections.unmodifiableList(groups);
+	}
+
+	/**
+	 * A CO / exam type pair, owning the column range {@code [start, end)}.
+	 */
+	public static final class Group {
+		private final String co;
+		private final String examType;
+		private final int coOrdinal;
+		private final int ordinal;
+		private final List<String> keys = new ArrayList<>();
+		private final List<Long> owners = new ArrayList<>();
+		private final Map<String, Integer> keyIndex = new HashMap<>();
+		private final List<QuestionSlot> questions = new ArrayList<>();
+		private int start;
+		private int end;
+
+		private Group(String co, String examType, int coOrdinal, int ordinal) {
+			this.co = co;
+			this.examType = examType;
+			this.coOrdinal = coOrdinal;
+			this.ordinal = ordinal;
+		}
+
+		public String co() {
+			return co;
+		}
+
+		public String examType() {
+			return examType;
+		}
+
+		public int start() {
+			return start;
+		}
+
+		public int end() {
+			return end;
+		}
+
+		public List<QuestionSlot> questions() {
+			return Collections.unmodifiableList(questions);
+		}
+	}
+
+	/**
+	 * A question of the subject. Questions sharing the same part and number inside one group
+	 * share a column.
+	 */
+	public record QuestionSlot(Long questionId, String part, String questionNumber, String text, Integer maxMarks,
+			Group group, int localColumn) {
+
+		public int column() {
+			return group.start + localColumn;
+		}
+
+		boolean isColumnOwner() {
+			return questionId.equals(group.owners.get(localColumn));
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.copo.app.service;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.copo.app.model.MarksScope;
+import com.copo.app.model.Question;
+import com.copo.app.repository.QuestionScopeProjection;
+
+/**
+ * Published when marks, questions or the roster of some marks scopes change. Scopes carry no
+ * section; every section of the department is affected.
+ */
+public record MarksScopeChangedEvent(Set<MarksScope> scopes) {
+
+    public static MarksScopeChangedEvent of(Collection<Question> questions) {
+        Set<MarksScope> scopes = new LinkedHashSet<>();
+        for (Question question : questions) {
+            scopes.add(MarksScope.of(question));
+        }
+        return new MarksScopeChangedEvent(scopes);
+    }
+
+    /** Every scope with questions in the department and batch, for roster changes. */
+    public static MarksScopeChangedEvent ofRoster(List<QuestionScopeProjection> questionScopes) {
+        Set<MarksScope> scopes = new LinkedHashSet<>();
+        for (QuestionScopeProjection q : questionScopes) {
+            scopes.add(new MarksScope(q.getDepartmentId(), q.getBatchId(), q.getSemester(), q.getSubjectId(),
+                    q.getExamType()));
+        }
+        return new MarksScopeChangedEvent(scopes);
+    }
+}
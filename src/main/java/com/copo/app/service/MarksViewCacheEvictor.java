@@ -0,0 +1,40 @@
+package com.copo.app.service;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.copo.app.model.MarksScope;
+
+/**
+ * Retires the cached faculty marks views of the scopes in a {@link MarksScopeChangedEvent} by
+ * bumping the scopes' {@link ScopeVersions} in the transaction that changed them, just before it
+ * commits. The views are cached under the version they were read at, so the bump retires them on
+ * every node once the change is visible; the old entries are left to the caches' size bound and
+ * expiry. A failing bump fails the write, which is rolled back rather than left behind stale views.
+ */
+@Component
+public class MarksViewCacheEvictor {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarksViewCacheEvictor.class);
+
+    @Autowired
+    private ScopeVersions scopeVersions;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onMarksScopeChanged(MarksScopeChangedEvent event) {
+        // one bump per subject, whatever the exam types and sections changed
+        Set<String> subjects = new TreeSet<>();
+        for (MarksScope scope : event.scopes()) {
+            subjects.add(ScopeVersions.marks(scope.departmentId(), scope.batchId(), scope.semester(), scope.subjectId()));
+        }
+        scopeVersions.bumpInTransaction(subjects);
+        logger.debug("Retired cached marks views of {}", subjects);
+    }
+}
@@ -0,0 +1,283 @@
+package com.copo.app.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.copo.app.model.MarkStatus;
+import com.copo.app.model.Question;
+import com.copo.app.model.QuestionAttainment;
+import com.copo.app.model.Student;
+import com.copo.app.model.StudentMarks;
+import com.copo.app.repository.QuestionAttainmentRepository;
+import com.copo.app.repository.QuestionRepository;
+import com.copo.app.repository.StudentMarksProjection;
+import com.copo.app.repository.StudentMarksRepository;
+
+/**
+ * Maintains the per-question attainment counters (attempted, >=50%, sum of marks).
+ *
+ * A counter only covers the students of the question's own department and batch, and only
+ * their latest mark for the question, which is what the faculty full view shows. Counters are
+ * created at zero with their question (see {@link BulkWriter#insertQuestions}); a question
+ * without one is counted from its marks by the views. Writers either pass the before / after
+ * rows of the cells they touched ({@link #applyChanges}), which moves the counters by atomic
+ * increments, or {@link #invalidate} the affected questions, which are then recounted on
+ * {@code recountExecutor} once the write has committed.
+ *
+ * A recount runs in transactions of its own and locks the counters before it reads any marks,
+ * so a submission committed before it is in the marks it reads, and one still running waits on
+ * the counter and applies its increment on top of the recount. Counters are locked in question
+ * id order everywhere, so submissions and recounts cannot deadlock on them.
+ */
+@Service
+public class QuestionAttainmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionAttainmentService.class);
+
+    private static final int REBUILD_CHUNK = 500;
+
+    @Autowired
+    private QuestionAttainmentRepository questionAttainmentRepository;
+
+    @Autowired
+    private StudentMarksRepository studentMarksRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private BulkWriter bulkWriter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("recountExecutor")
+    private ThreadPoolTaskExecutor recountExecutor;
+
+    // questions queued for a recount that has not started yet
+    private final Set<Long> queuedRecounts = ConcurrentHashMap.newKeySet();
+
+    /** Counters of the given questions; questions that have none yet are left out. */
+    public Map<Long, QuestionAttainment> getCounters(Collection<Long> questionIds) {
+        if (questionIds.isEmpty()) {
+            return Map.of();
+        }
+        return questionAttainmentRepository.findAllById(questionIds).stream()
+                .collect(Collectors.toMap(QuestionAttainment::getQuestionId, Function.identity()));
+    }
+
+    /**
+     * Applies the difference between two states of the same (student, question) cells.
+     *
+     * @param before copies of the existing rows of the cells, taken before the write
+     * @param after  all rows of the same cells once the write is done
+     */
+    @Transactional
+    public void applyChanges(List<StudentMarks> before, List<StudentMarks> after) {
+        Map<List<Long>, StudentMarks> previous = latestByCell(before);
+        Map<List<Long>, StudentMarks> current = latestByCell(after);
+
+        Map<Long, QuestionAttainment> deltas = new TreeMap<>();
+        for (Map.Entry<List<Long>, StudentMarks> entry : current.entrySet()) {
+            StudentMarks next = entry.getValue();
+            if (!isRoster(next.getStudent(), next.getQuestion())) {
+                continue;
+            }
+            StudentMarks prev = previous.get(entry.getKey());
+            if (prev != null && prev.getStatus() == next.getStatus() && Objects.equals(prev.getScore(), next.getScore())) {
+                continue;
+            }
+
+            Question question = next.getQuestion();
+            QuestionAttainment delta = deltas.computeIfAbsent(question.getId(),
+                    id -> QuestionAttainment.builder().questionId(id).build());
+            if (prev != null) {
+                count(delta, prev.getStatus(), prev.getScore(), question.getMaxMarks(), -1);
+            }
+            count(delta, next.getStatus(), next.getScore(), question.getMaxMarks(), 1);
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Long> missing = new ArrayList<>();
+        for (QuestionAttainment delta : deltas.values()) {
+            int updated = questionAttainmentRepository.increment(delta.getQuestionId(), delta.getAttempted(),
+                    delta.getAboveHalf(), delta.getMarksTotal());
+            if (updated == 0) {
+                missing.add(delta.getQuestionId());
+            }
+        }
+        // No counter for these questions (created before counters were kept): the views count them
+        // from the marks until they are recounted, which waits for this write to commit
+        if (!missing.isEmpty()) {
+            recountAfterCommit(missing);
+        }
+    }
+
+    /**
+     * Drops the counters of questions whose marks, roster or max marks changed in the current
+     * transaction, so the views count them from the marks, and recounts them once it commits.
+     */
+    @Transactional
+    public void invalidate(Collection<Long> questionIds) {
+        if (questionIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(new TreeSet<>(questionIds));
+        questionAttainmentRepository.deleteByQuestionIdIn(ids);
+        recountAfterCommit(ids);
+    }
+
+    /** Reconciles every counter against the raw data. Returns the number of questions counted. */
+    public int rebuildAll() {
+        List<Long> questionIds = questionRepository.findAllIds();
+        rebuild(questionIds);
+        Integer orphans = newTransaction().execute(tx -> questionAttainmentRepository.deleteOrphans());
+        logger.info("Rebuilt attainment counters for {} questions, removed {} orphaned counters",
+                questionIds.size(), orphans);
+        return questionIds.size();
+    }
+
+    @Transactional
+    public void deleteCounters(List<Long> questionIds) {
+        if (!questionIds.isEmpty()) {
+            questionAttainmentRepository.deleteByQuestionIdIn(questionIds);
+        }
+    }
+
+    /**
+     * Recounts the given questions from the raw student_marks rows, chunk by chunk in new
+     * transactions, so it only sees committed marks. Counters of questions that no longer exist
+     * are removed.
+     */
+    private void rebuild(Collection<Long> questionIds) {
+        try {
+            List<Long> ids = new ArrayList<>(new TreeSet<>(questionIds));
+            for (int from = 0; from < ids.size(); from += REBUILD_CHUNK) {
+                List<Long> chunk = ids.subList(from, Math.min(from + REBUILD_CHUNK, ids.size()));
+                newTransaction().executeWithoutResult(tx -> rebuildChunk(chunk));
+            }
+        } catch (Exception e) {
+            logger.error("Error rebuilding attainment counters", e);
+            throw new RuntimeException("Failed to rebuild attainment counters. Error: " + e.getMessage());
+        }
+    }
+
+    private void recountAfterCommit(List<Long> questionIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // Queued rather than run here: this thread still holds the committed transaction's
+                // connection, and with as many writers committing as the pool has connections,
+                // each waiting for a second one, the pool stalls
+                List<Long> queued = questionIds.stream().filter(queuedRecounts::add).toList();
+                if (!queued.isEmpty()) {
+                    recountExecutor.execute(() -> recount(queued));
+                }
+            }
+        });
+    }
+
+    private void recount(List<Long> questionIds) {
+        // a change committed from here on queues the question again
+        queuedRecounts.removeAll(questionIds);
+        try {
+            rebuild(questionIds);
+        } catch (RuntimeException e) {
+            // the questions keep no counter and are counted from the marks until the next recount
+            logger.warn("Could not recount {} questions: {}", questionIds.size(), e.getMessage());
+        }
+    }
+
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    // Sorted question ids; the counters are locked before the first read, which starts the snapshot
+    private void rebuildChunk(List<Long> questionIds) {
+        bulkWriter.insertCounters(questionIds);
+        Map<Long, Question> questions = questionRepository.findAllById(questionIds).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+
+        // latest mark per student, per question
+        Map<Long, Map<Long, StudentMarksProjection>> latest = new HashMap<>();
+        for (StudentMarksProjection m : studentMarksRepository.findRosterMarksByQuestionIds(questionIds)) {
+            latest.computeIfAbsent(m.getQuestionId(), k -> new HashMap<>()).put(m.getStudentId(), m);
+        }
+
+        List<QuestionAttainment> counters = new ArrayList<>(questions.size());
+        List<Long> removed = new ArrayList<>();
+        for (Long questionId : questionIds) {
+            Question question = questions.get(questionId);
+            if (question == null) {
+                removed.add(questionId);
+                continue;
+            }
+            QuestionAttainment counter = QuestionAttainment.builder().questionId(questionId).build();
+            for (StudentMarksProjection m : latest.getOrDefault(questionId, Map.of()).values()) {
+                count(counter, m.getStatus(), m.getScore(), question.getMaxMarks(), 1);
+            }
+            counters.add(counter);
+        }
+
+        questionAttainmentRepository.saveAll(counters);
+        if (!removed.isEmpty()) {
+            questionAttainmentRepository.deleteByQuestionIdIn(removed);
+        }
+    }
+
+    private static void count(QuestionAttainment counter, MarkStatus status, Double score, int maxMarks, int sign) {
+        byte flags = MarksCube.classify(status, score, maxMarks);
+        if ((flags & MarksCube.ATTEMPTED) != 0) {
+            counter.setAttempted(counter.getAttempted() + sign);
+        }
+        if ((flags & MarksCube.ABOVE_HALF) != 0) {
+            counter.setAboveHalf(counter.getAboveHalf() + sign);
+        }
+        if ((flags & MarksCube.NUMERIC) != 0) {
+            counter.setMarksTotal(counter.getMarksTotal() + sign * score);
+        }
+    }
+
+    private static Map<List<Long>, StudentMarks> latestByCell(List<StudentMarks> rows) {
+        Map<List<Long>, StudentMarks> latest = new HashMap<>();
+        for (StudentMarks row : rows) {
+            List<Long> cell = List.of(row.getStudent().getId(), row.getQuestion().getId());
+            latest.merge(cell, row, (a, b) -> a.getId() >= b.getId() ? a : b);
+        }
+        return latest;
+    }
+
+    private static boolean isRoster(Student student, Question question) {
+        return student.getDepartment() != null && student.getBatch() != null
+                && Objects.equals(student.getDepartment().getId(), question.getDepartment().getId())
+                && Objects.equals(student.getBatch().getId(), question.getBatch().getId());
+    }
+}
@@ -2,26 +2,30 @@ package com.copo.app.service;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import com.copo.app.model.Batch;
 import com.copo.app.model.Department;
+import com.copo.app.model.MarksScope;
 import com.copo.app.model.Question;
 import com.copo.app.model.Subject;
 import com.copo.app.repository.QuestionRepository;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 @Slf4j
 @Service
@@ -36,20 +40,47 @@ public class QuestionService {
     DepartmentService departmentService;
 	@Autowired
     BatchService batchService;
+	@Autowired
+    QuestionAttainmentService questionAttainmentService;
+	@Autowired
+    ApplicationEventPublisher eventPublisher;
+	@Autowired
+    BulkWriter bulkWriter;
+	@Autowired
+    ReferenceDictionary referenceDictionary;
+
+    private static final int IMPORT_BATCH_SIZE = 500;
 	
-	// ✅ Get questions based on user input
+	// ✅ Get questions based on user input; names resolve through the reference dictionary
         public List<Question> getFilteredQuestions(String department, String batch, int semester, String examType, String subject) {
+        Optional<Long> departmentId = referenceDictionary.departmentId(department);
+        Optional<Long> batchId = referenceDictionary.batchId(batch);
+        Optional<Long> subjectId = departmentId.flatMap(id -> referenceDictionary.subjectId(id, semester, subject));
+        if (departmentId.isEmpty() || batchId.isEmpty() || subjectId.isEmpty()) {
+            return List.of();
+        }
+        return getFilteredQuestions(departmentId.get(), batchId.get(), semester, examType, subjectId.get());
+    }
+
+        public List<Question> getFilteredQuestions(Long departmentId, Long batchId, int semester, String examType, Long subjectId) {
         try {
-            return questionRepository.findQuestions(department, batch, semester, examType, subject);
+            return questionRepository.findQuestions(departmentId, batchId, semester, examType, subjectId);
         } catch (Exception e) {
             throw new RuntimeException("Error retrieving questions: " + e.getMessage());
         }
     }
 
 
+    @Transactional
     public void saveAllQuestions(List<Question> questions) {
         try {
-            questionRepository.saveAll(questions);
+            // new questions go out in JDBC batches, edits of existing ones through JPA
+            bulkWriter.insertQuestions(questions.stream().filter(q -> q.getId() == null).toList());
+            List<Question> edited = questions.stream().filter(q -> q.getId() != null).toList();
+            questionRepository.saveAll(edited);
+            // max marks may have changed
+            questionAttainmentService.invalidate(edited.stream().map(Question::getId).toList());
+            eventPublisher.publishEvent(MarksScopeChangedEvent.of(questions));
         } catch (Exception e) {
             throw new RuntimeException("Error saving questions: " + e.getMessage());
         }
@@ -67,7 +98,10 @@ public class QuestionService {
     @Transactional
     public void deleteQuestion(Long id) {
         try {
+            Optional<Question> question = questionRepository.findById(id);
             questionRepository.deleteById(id);
+            questionAttainmentService.deleteCounters(List.of(id));
+            question.ifPresent(q -> eventPublisher.publishEvent(MarksScopeChangedEvent.of(List.of(q))));
         } catch (Exception e) {
             throw new RuntimeException("Error deleting question: " + e.getMessage());
         }
@@ -81,6 +115,8 @@ public class QuestionService {
                 log.warn("No questions found for the given filters. Nothing to delete.");
             } else {
                 questionRepository.deleteAll(questions);
+                questionAttainmentService.deleteCounters(questions.stream().map(Question::getId).toList());
+                eventPublisher.publishEvent(MarksScopeChangedEvent.of(questions));
                 log.info("Deleted {} questions for the given filters.", questions.size());
             }
         } catch (Exception ex) {
@@ -105,6 +141,7 @@ public class QuestionService {
     public Question updateQuestion(Long id, Question updatedQuestion) {
         try {
             Question existingQuestion = getQuestionById(id);
+            MarksScope previousScope = MarksScope.of(existingQuestion);
             existingQuestion.setExamType(updatedQuestion.getExamType());
             existingQuestion.setSubject(updatedQuestion.getSubject());
             existingQuestion.setDepartment(updatedQuestion.getDepartment());
@@ -115,7 +152,11 @@ public class QuestionService {
             existingQuestion.setText(updatedQuestion.getText());
             existingQuestion.setMaxMarks(updatedQuestion.getMaxMarks());
             existingQuestion.setCourseOutcome(updatedQuestion.getCourseOutcome());
-            return questionRepository.save(existingQuestion);
+            Question saved = questionRepository.save(existingQuestion);
+            // max marks, department or batch may have changed
+            questionAttainmentService.invalidate(List.of(saved.getId()));
+            eventPublisher.publishEvent(new MarksScopeChangedEvent(new LinkedHashSet<>(List.of(previousScope, MarksScope.of(saved)))));
+            return saved;
         } catch (Exception e) {
             throw new RuntimeException("Error updating question: " + e.getMessage());
         }
@@ -135,7 +176,7 @@ public class QuestionService {
     public List<Question> getQuestionsBySubject(String department, String batch, int semester, String examType, String subject) {
     	try {
      	   
-    		return questionRepository.findQuestions(department, batch, semester, examType, subject);
+    		return getFilteredQuestions(department, batch, semester, examType, subject);
      	   
         }catch(Exception e) {
      	   throw new RuntimeException("Error getQuestionsBySubject: " + e.getMessage());
@@ -146,107 +187,172 @@ public class QuestionService {
   
 
 
+    /**
+     * Imports questions from the first sheet of an .xlsx file, one row at a time. Valid rows are
+     * saved in batches of {@value #IMPORT_BATCH_SIZE} as the sheet is read; any invalid row fails
+     * the whole upload and rolls back what was already saved, listing every invalid row.
+     */
     @Transactional
     public void saveQuestionsFromExcel(MultipartFile file) throws Exception {
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            List<Question> questions = new ArrayList<>();
-            List<String> errorMessages = new ArrayList<>();
+        List<Question> pending = new ArrayList<>(IMPORT_BATCH_SIZE);
+        List<String> errorMessages = new ArrayList<>();
+        Set<MarksScope> scopes = new LinkedHashSet<>();
+        QuestionRowParser parser = new QuestionRowParser();
+        int[] saved = { 0 };
 
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
+        try (InputStream in = file.getInputStream()) {
+            XlsxRowReader.read(in, QuestionRowParser.COLUMNS, (i, cells) -> {
+                if (i == 0) return; // header
 
                 try {
-                    Question q = new Question();
-
-                    String examType = getCellValue(row.getCell(0));
-                    if (examType.isEmpty()) throw new Exception("Exam Type is missing");
-
-                    String deptName = getCellValue(row.getCell(1));
-                    String batchName = getCellValue(row.getCell(2));
-                    String subjectName = getCellValue(row.getCell(3));
-                    String semesterStr = getCellValue(row.getCell(4));
-                    String part = getCellValue(row.getCell(5));
-                    String questionNo = getCellValue(row.getCell(6));
-                    String questionText = getCellValue(row.getCell(7));
-                    String maxMarksStr = getCellValue(row.getCell(8));
-                    String co = getCellValue(row.getCell(9));
-
-                    if (deptName.isEmpty()) throw new Exception("Department is missing");
-                    if (batchName.isEmpty()) throw new Exception("Batch is missing");
-                    if (subjectName.isEmpty()) throw new Exception("Subject is missing");
-                    if (semesterStr.isEmpty()) throw new Exception("Semester is missing");
-                    if (part.isEmpty()) throw new Exception("Part is missing");
-                    if (questionNo.isEmpty()) throw new Exception("Question Number is missing");
-                    if (questionText.isEmpty()) throw new Exception("Question Text is missing");
-                    if (maxMarksStr.isEmpty()) throw new Exception("Max Marks is missing");
-                    if (co.isEmpty()) throw new Exception("Course Outcome is missing");
-
-                    int semester = Integer.parseInt(semesterStr);
-                    
-                    Department dept = departmentService.getDepartmentByName(deptName);
-                    Batch batch = batchService.getBatchByName(batchName);
-                    Subject subject = subjectService.getSubjectByDepartmentSemesterAndName(dept,semester,subjectName);
-
-                    if (dept == null) throw new Exception("Invalid Department: " + deptName);
-                    if (batch == null) throw new Exception("Invalid Batch: " + batchName);
-                    if (subject == null) throw new Exception("Invalid Subject: " + subjectName);
-
-                    
-                    int maxMarks = Integer.parseInt(maxMarksStr);
-
-                    q.setExamType(ExamTypeNormalizer.normalize(examType));
-                    q.setDepartment(dept);
-                    q.setBatch(batch);
-                    q.setSubject(subject);
-                    q.setSemester(semester);
-                    q.setPart(part);
-                    q.setQuestionNumber(questionNo);
-                    q.setText(questionText);
-                    q.setMaxMarks(maxMarks);
-                    q.setCourseOutcome(co);
-
-                    questions.add(q);
+                    Question q = parser.parse(cells);
+                    scopes.add(MarksScope.of(q));
+                    // once a row has failed nothing will be kept, so stop writing
+                    if (errorMessages.isEmpty()) {
+                        pending.add(q);
+                        if (pending.size() == IMPORT_BATCH_SIZE) {
+                            saved[0] += flushImportBatch(pending);
+                        }
+                    }
                 } catch (Exception e) {
                     errorMessages.add("Row " + (i + 1) + ": " + e.getMessage());
                 }
-            }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse Excel file: " + e.getMessage());
+        }
+
+        if (!errorMessages.isEmpty()) {
+            throw new RuntimeException("Errors in Excel Upload:\n" + String.join("\n", errorMessages));
+        }
 
-            if (!errorMessages.isEmpty()) {
-                throw new RuntimeException("Errors in Excel Upload:\n" + String.join("\n", errorMessages));
+        saved[0] += flushImportBatch(pending);
+        eventPublisher.publishEvent(new MarksScopeChangedEvent(scopes));
+        log.info("Successfully uploaded {} questions.", saved[0]);
+    }
+
+    /**
+     * Saves one chunk of question sheet rows for an upload job. Unlike the Excel upload above,
+     * valid rows are kept even when others in the chunk fail; the failures are returned.
+     */
+    @Transactional
+    public Map<String, Object> importQuestionRows(List<UploadRow> rows) {
+        List<Question> questions = new ArrayList<>();
+        List<String> errorMessages = new ArrayList<>();
+        QuestionRowParser parser = new QuestionRowParser();
+
+        for (UploadRow row : rows) {
+            try {
+                questions.add(parser.parse(row.cells()));
+            } catch (Exception e) {
+                errorMessages.add("Row " + row.number() + ": " + e.getMessage());
             }
+        }
 
-            questionRepository.saveAll(questions);
-            System.out.println("Successfully uploaded " + questions.size() + " questions.");
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to parse Excel file: " + e.getMessage());
+        bulkWriter.insertQuestions(questions);
+        if (!questions.isEmpty()) {
+            eventPublisher.publishEvent(MarksScopeChangedEvent.of(questions));
         }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("uploadedQuestions", questions.size());
+        result.put("errors", errorMessages);
+        return result;
     }
 
-    private String getCellValue(Cell cell) {
-        if (cell == null) return "";
+    private int flushImportBatch(List<Question> batch) {
+        int size = bulkWriter.insertQuestions(batch);
+        batch.clear();
+        return size;
+    }
 
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue().trim();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString(); // format if needed
-                }
-                return String.valueOf(cell.getNumericCellValue()).replaceAll("\\.0$", "").trim();
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue()).trim();
-            case FORMULA:
-                try {
-                    return cell.getStringCellValue().trim(); // try as string
-                } catch (Exception ex) {
-                    return String.valueOf(cell.getNumericCellValue()).replaceAll("\\.0$", "").trim();
-                }
-            case BLANK:
-            default:
-                return "";
+    /**
+     * Turns a question sheet row (examType, department, batch, subject, semester, part, questionNo,
+     * text, maxMarks, co) into a question. Names resolve through the {@link ReferenceDictionary}; the
+     * same few departments, batches and subjects repeat on every row, so each is loaded once per parser.
+     */
+    private class QuestionRowParser {
+        static final int COLUMNS = 10;
+
+        private final Map<Long, Object> departments = new HashMap<>();
+        private final Map<Long, Object> batches = new HashMap<>();
+        private final Map<Long, Object> subjects = new HashMap<>();
+
+        Question parse(String[] cells) throws Exception {
+            Question q = new Question();
+
+            String examType = cells[0];
+            if (examType.isEmpty()) throw new Exception("Exam Type is missing");
+
+            String deptName = cells[1];
+            String batchName = cells[2];
+            String subjectName = cells[3];
+            String semesterStr = cells[4];
+            String part = cells[5];
+            String questionNo = cells[6];
+            String questionText = cells[7];
+            String maxMarksStr = cells[8];
+            String co = cells[9];
+
+            if (deptName.isEmpty()) throw new Exception("Department is missing");
+            if (batchName.isEmpty()) throw new Exception("Batch is missing");
+            if (subjectName.isEmpty()) throw new Exception("Subject is missing");
+            if (semesterStr.isEmpty()) throw new Exception("Semester is missing");
+            if (part.isEmpty()) throw new Exception("Part is missing");
+            if (questionNo.isEmpty()) throw new Exception("Question Number is missing");
+            if (questionText.isEmpty()) throw new Exception("Question Text is missing");
+            if (maxMarksStr.isEmpty()) throw new Exception("Max Marks is missing");
+            if (co.isEmpty()) throw new Exception("Course Outcome is missing");
+
+            int semester = Integer.parseInt(semesterStr);
+
+            Long deptId = referenceDictionary.departmentId(deptName)
+                    .orElseThrow(() -> new Exception("Invalid Department: " + deptName));
+            Long batchId = referenceDictionary.batchId(batchName)
+                    .orElseThrow(() -> new Exception("Invalid Batch: " + batchName));
+            Long subjectId = referenceDictionary.subjectId(deptId, semester, subjectName)
+                    .orElseThrow(() -> new Exception("Invalid Subject: " + subjectName));
+
+            Department dept = memoized(departments, deptId, id -> departmentService.getDepartmentById(id).orElse(null));
+            Batch batch = memoized(batches, batchId, id -> batchService.getBatchById(id).orElse(null));
+            Subject subject = memoized(subjects, subjectId, id -> subjectService.getSubjectById(id).orElse(null));
+
+            if (dept == null) throw new Exception("Invalid Department: " + deptName);
+            if (batch == null) throw new Exception("Invalid Batch: " + batchName);
+            if (subject == null) throw new Exception("Invalid Subject: " + subjectName);
+
+            int maxMarks = Integer.parseInt(maxMarksStr);
+
+            q.setExamType(ExamTypeNormalizer.normalize(examType));
+            q.setDepartment(dept);
+            q.setBatch(batch);
+            q.setSubject(subject);
+            q.setSemester(semester);
+            q.setPart(part);
+            q.setQuestionNumber(questionNo);
+            q.setText(questionText);
+            q.setMaxMarks(maxMarks);
+            q.setCourseOutcome(co);
+            return q;
+        }
+    }
+
+    /** Looks a value up once per key; a lookup that failed fails again with the same error. */
+    @SuppressWarnings("unchecked")
+    private static <K, V> V memoized(Map<K, Object> cache, K key, Function<K, V> lookup) {
+        Object value = cache.get(key);
+        if (value == null && !cache.containsKey(key)) {
+            try {
+                value = lookup.apply(key);
+            } catch (RuntimeException e) {
+                value = e;
+            }
+            cache.put(key, value);
+        }
+        if (value instanceof RuntimeException e) {
+            throw e;
         }
+        return (V) value;
     }
 
 
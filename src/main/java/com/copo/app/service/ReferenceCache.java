@@ -0,0 +1,213 @@
+package com.copo.app.service;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import com.copo.app.config.ReferenceCacheConfig;
+import com.copo.app.model.Batch;
+import com.copo.app.model.Department;
+import com.copo.app.model.Section;
+import com.copo.app.model.Subject;
+import com.copo.app.repository.BatchRepository;
+import com.copo.app.repository.DepartmentRepository;
+import com.copo.app.repository.SectionRepository;
+import com.copo.app.repository.SubjectRepository;
+
+/**
+ * The cached reads of {@link DepartmentService}, {@link SubjectService}, {@link BatchService} and
+ * {@link SectionService}, see {@link ReferenceCacheConfig}.
+ *
+ * Entries are plain records rather than entities, so what is shared through Redis carries no
+ * Hibernate state such as the lazy {@code sections} of a department; the services turn them back
+ * into new, detached entities on every call. Each read takes the version of its cache, which the
+ * caller reads from {@link ScopeVersions} before the query, and keys the entry by it: a value read
+ * before a change and put after it stays under the old version, where nobody looks for it anymore.
+ */
+@Service
+@CacheConfig(cacheResolver = "referenceCacheResolver")
+public class ReferenceCache {
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private BatchRepository batchRepository;
+
+    @Autowired
+    private SectionRepository sectionRepository;
+
+    /** A department; {@code sections} is null where they were not loaded. */
+    public record DepartmentRef(Long id, String name, String description, Boolean isDeleted,
+            List<SectionRef> sections) implements Serializable {
+
+        static DepartmentRef of(Department department, boolean withSections) {
+            List<SectionRef> sections = null;
+            if (withSections) {
+                sections = new ArrayList<>();
+                for (Section section : department.getSections()) {
+                    sections.add(new SectionRef(section.getId(), section.getSectionName(), null));
+                }
+            }
+            return new DepartmentRef(department.getId(), department.getName(), department.getDescription(),
+                    department.getIsDeleted(), sections);
+        }
+
+        public Department toEntity() {
+            Department department = new Department();
+            department.setId(id);
+            department.setName(name);
+            department.setDescription(description);
+            department.setIsDeleted(isDeleted);
+            if (sections != null) {
+                for (SectionRef section : sections) {
+                    department.getSections().add(Section.builder().id(section.id())
+                            .sectionName(section.sectionName()).department(department).build());
+                }
+            }
+            return department;
+        }
+    }
+
+    /** A section; {@code department} is null for the sections of a {@link DepartmentRef}. */
+    public record SectionRef(Integer id, String sectionName, DepartmentRef department) implements Serializable {
+
+        public Section toEntity() {
+            return Section.builder().id(id).sectionName(sectionName)
+                    .department(department != null ? department.toEntity() : null).build();
+        }
+    }
+
+    public record SubjectRef(Long id, String name, String code, int semester, DepartmentRef department)
+            implements Serializable {
+
+        static SubjectRef of(Subject subject) {
+            Department department = subject.getDepartment();
+            return new SubjectRef(subject.getId(), subject.getName(), subject.getCode(), subject.getSemester(),
+                    department != null ? DepartmentRef.of(department, false) : null);
+        }
+
+        public Subject toEntity() {
+            return Subject.builder().id(id).name(name).code(code).semester(semester)
+                    .department(department != null ? department.toEntity() : null).build();
+        }
+    }
+
+    public record BatchRef(Long id, String name, String description) implements Serializable {
+
+        static BatchRef of(Batch batch) {
+            return new BatchRef(batch.getId(), batch.getName(), batch.getDescription());
+        }
+
+        public Batch toEntity() {
+            return Batch.builder().id(id).name(name).description(description).build();
+        }
+    }
+
+    // Departments, with their sections
+
+    @Cacheable(cacheNames = ReferenceCacheConfig.DEPARTMENTS, key = "'v' + #version + ':all'")
+    public List<DepartmentRef> departments(long version) {
+        return departmentRepository.findAllActive().stream().map(d -> DepartmentRef.of(d, true)).toList();
+    }
+
+    @Cacheable(cacheNames = ReferenceCacheConfig.DEPARTMENTS, key = "'v' + #version + ':id:' + #id")
+    public Optional<DepartmentRef> department(long version, Long id) {
+        return departmentRepository.findWithSectionsById(id).map(d -> DepartmentRef.of(d, true));
+    }
+
+    @Cacheable(cacheNames = ReferenceCacheConfig.DEPARTMENTS, key = "'v' + #version + ':name:' + #name")
+    public Optional<DepartmentRef> departmentByName(long version, String name) {
+        return departmentRepository.findActiveDepartmentByName(name).map(d -> DepartmentRef.of(d, true));
+    }
+
+    // Subjects, with their department but not its sections
+
+    @Cacheable(cacheNames = ReferenceCacheConfig.SUBJECTS,
+            key = "'v' + #version + ':filter:' + #departmentId + ':' + #semester")
+    public List<SubjectRef> filteredSubjects(long version, Long departmentId, Integer semester) {
+        List<Subject> subjects;
+        if (departmentId != null && semester != null) {
+            subjects = subjectRepository.findByDepartmentIdAndSemester(departmentId, semester);
+        } else if (departmentId != null) {
+            subjects = subjectRepository.findByDepartmentId(departmentId);
+        } else if (semester != null) {
+            subjects = subjectRepository.findBySemester(semester);
+        } else {
+            subjects = subjectRepository.findAll();
+        }
+        return subjects.stream().map(SubjectRef::of).toList();
+    }
+
+    @Cacheable(cacheNames = ReferenceCacheConfig.SUBJECTS,
+            key = "'v' + #version + ':dept-sem:' + #departmentId + ':' + #semester")
+    public List<SubjectRef> subjectsOf(long version, Long departmentId, Integer semester) {
+        return subjectRepository.findByDepartmentIdAndSemester(departmentId, semester).stream()
+                .map(SubjectRef::of).toList();
+    }
+
+    @Cacheable(cacheNames = ReferenceCacheConfig.SUBJECTS, key = "'v' + #version + ':all'")
+    public List<SubjectRef> subjects(long version) {
+        return subjectRepository.findAll().stream().map(SubjectRef::of).toList();
+    }
+
+    @Cacheable(cacheNames = ReferenceCacheConfig.SUBJECTS, key = "'v' + #version + ':id:' + #id")
+    public Optional<SubjectRef> subject(long version, Long id) {
+        return subjectRepository.findById(id).map(SubjectRef::of);
+    }
+
+    @Cacheable(cacheNames = ReferenceCacheConfig.SUBJECTS, key = "'v' + #version + ':name:' + #name")
+    public Optional<SubjectRef> subjectByName(long version, String name) {
+        return Optional.ofNullable(subjectRepository.findByName(name)).map(SubjectRef::of);
+    }
+
+    @Cacheable(cacheNames = ReferenceCacheConfig.SUBJECTS,
+            key = "'v' + #version + ':dept-sem-name:' + #department.id + ':' + #semester + ':' + #name")
+    public Optional<SubjectRef> subject(long version, Department department, int semester, String name) {
+        return Optional.ofNullable(subjectRepository.findByDepartmentAndSemesterAndName(department, semester, name))
+                .map(SubjectRef::of);
+    }
+
+    // Batches
+
+    @Cacheable(cacheNames = ReferenceCacheConfig.BATCHES, key = "'v' + #version + ':all'")
+    public List<BatchRef> batches(long version) {
+        return batchRepository.findAll().stream().map(BatchRef::of).toList();
+    }
+
+    @Cacheable(cacheNames = ReferenceCacheConfig.BATCHES, key = "'v' + #version + ':id:' + #id")
+    public Optional<BatchRef> batch(long version, Long id) {
+        return batchRepository.findById(id).map(BatchRef::of);
+    }
+
+    @Cacheable(cacheNames = ReferenceCacheConfig.BATCHES, key = "'v' + #version + ':name:' + #name")
+    public Optional<BatchRef> batchByName(long version, String name) {
+        return batchRepository.findBatchByName(name).map(BatchRef::of);
+    }
+
+    // Sections, with their department but not its other sections
+
+    @Cacheable(cacheNames = ReferenceCacheConfig.SECTIONS, key = "'v' + #version + ':dept:' + #departmentId")
+    public List<SectionRef> sections(long version, Long departmentId) {
+        return sectionRepository.findByDepartment_Id(departmentId).stream()
+                .map(s -> new SectionRef(s.getId(), s.getSectionName(),
+                        s.getDepartment() != null ? DepartmentRef.of(s.getDepartment(), false) : null))
+                .toList();
+    }
+
+    /** New entities of cached records, in a list the caller may change. */
+    static <R, E> List<E> entities(List<R> refs, Function<R, E> toEntity) {
+        return refs.stream().map(toEntity).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,9 @@
+package com.copo.app.service;
+
+/**
+ * Published when departments, batches, subjects or sections change, on this node or (through the
+ * reference cache channel) on another one. {@code cache} is one of the cache names of
+ * {@link com.copo.app.config.ReferenceCacheConfig}.
+ */
+public record ReferenceDataChangedEvent(String cache) {
+}
@@ -0,0 +1,227 @@
+package com.copo.app.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.copo.app.config.ReferenceCacheConfig;
+import com.copo.app.repository.BatchRepository;
+import com.copo.app.repository.DepartmentRepository;
+import com.copo.app.repository.NameRefProjection;
+import com.copo.app.repository.SubjectNameRefProjection;
+import com.copo.app.repository.SubjectRepository;
+
+/**
+ * Resolves department, batch and subject names to ids in memory, so name-based endpoints and
+ * importers query by id only.
+ *
+ * Names are matched trimmed and case-insensitively, as MySQL compares them. Only active
+ * departments resolve; subjects are keyed by (department, semester, name). The maps are loaded
+ * once the application is ready and rebuilt as a whole (they are a few hundred rows) on every
+ * {@link ReferenceDataChangedEvent} of this node and whenever the departments, batches or
+ * subjects {@link ScopeVersions} move on, on any node; readers always see one complete snapshot.
+ *
+ * A node only learns of another node's changes at its next version sync, and a change whose bump
+ * failed is never announced. A name the maps miss is therefore looked up in the database, on the
+ * indexed name column; when it is found there the maps are stale and are rebuilt. A name the
+ * database does not have either is remembered as missing until the maps are next rebuilt, so a
+ * misspelt name in an upload costs one query, not one per row. The maps are also rebuilt every
+ * {@code copo.reference-dictionary.refresh-interval}.
+ */
+@Component
+public class ReferenceDictionary {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDictionary.class);
+
+    /** Names remembered as missing per snapshot, at most; past that a miss is looked up every time. */
+    private static final int MAX_MISSES = 10_000;
+
+    private static final List<String> SCOPES = List.of(ReferenceCacheConfig.DEPARTMENTS, ReferenceCacheConfig.BATCHES,
+            ReferenceCacheConfig.SUBJECTS);
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private BatchRepository batchRepository;
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private ScopeVersions scopeVersions;
+
+    private volatile Snapshot snapshot;
+
+    public Optional<Long> departmentId(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        Snapshot current = snapshot();
+        return resolve(current, current.departments().get(key(name)), "department:" + key(name),
+                () -> departmentRepository.findActiveIdsByName(name.trim()));
+    }
+
+    public Optional<Long> batchId(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        Snapshot current = snapshot();
+        return resolve(current, current.batches().get(key(name)), "batch:" + key(name),
+                () -> batchRepository.findIdsByName(name.trim()));
+    }
+
+    public Optional<Long> subjectId(Long departmentId, int semester, String name) {
+        if (departmentId == null || name == null) {
+            return Optional.empty();
+        }
+        Snapshot current = snapshot();
+        SubjectKey key = new SubjectKey(departmentId, semester, key(name));
+        return resolve(current, current.subjects().get(key), key,
+                () -> subjectRepository.findIdsByName(departmentId, semester, name.trim()));
+    }
+
+    /** Ids of the department names that resolve, by name; each distinct name is resolved once. */
+    public Map<String, Long> departmentIds(Collection<String> names) {
+        return resolveAll(names, this::departmentId);
+    }
+
+    /** Ids of the batch names that resolve, by name; each distinct name is resolved once. */
+    public Map<String, Long> batchIds(Collection<String> names) {
+        return resolveAll(names, this::batchId);
+    }
+
+    /** Loads the maps unless they are loaded already. */
+    public void ensureLoaded() {
+        snapshot();
+    }
+
+    /**
+     * Version of the loaded maps, for ETags: the sum of the shared versions of the departments,
+     * batches and subjects, read before the maps were.
+     */
+    public long version() {
+        return snapshot().version();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        for (String scope : SCOPES) {
+            scopeVersions.follow(scope, this::reload);
+        }
+        reload();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        if (!ReferenceCacheConfig.SECTIONS.equals(event.cache())) {
+            reload();
+        }
+    }
+
+    /** Rebuilds the maps once loaded, in case a change reached this node without a version bump. */
+    @Scheduled(fixedDelayString = "${copo.reference-dictionary.refresh-interval:10m}",
+            initialDelayString = "${copo.reference-dictionary.refresh-interval:10m}")
+    public void refresh() {
+        if (snapshot != null) {
+            reload();
+        }
+    }
+
+    /** Rebuilds the maps from the database; the first match wins when names repeat. */
+    public synchronized void reload() {
+        long started = System.nanoTime();
+        long version = 0;
+        for (String scope : SCOPES) {
+            version += scopeVersions.latest(scope);
+        }
+        Map<String, Long> departments = new HashMap<>();
+        for (NameRefProjection d : departmentRepository.findActiveNameRefs()) {
+            departments.putIfAbsent(key(d.getName()), d.getId());
+        }
+        Map<String, Long> batches = new HashMap<>();
+        for (NameRefProjection b : batchRepository.findNameRefs()) {
+            batches.putIfAbsent(key(b.getName()), b.getId());
+        }
+        Map<SubjectKey, Long> subjects = new HashMap<>();
+        for (SubjectNameRefProjection s : subjectRepository.findNameRefs()) {
+            if (s.getDepartmentId() != null && s.getSemester() != null) {
+                subjects.putIfAbsent(new SubjectKey(s.getDepartmentId(), s.getSemester(), key(s.getName())), s.getId());
+            }
+        }
+        snapshot = new Snapshot(Map.copyOf(departments), Map.copyOf(batches), Map.copyOf(subjects),
+                ConcurrentHashMap.newKeySet(), version);
+        logger.info("Loaded reference dictionary: {} departments, {} batches, {} subjects in {} ms", departments.size(),
+                batches.size(), subjects.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // A miss of the maps is looked up in the database once per snapshot; a hit there means the maps are stale
+    private Optional<Long> resolve(Snapshot seen, Long cached, Object missKey, Supplier<List<Long>> lookup) {
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (seen.misses().contains(missKey)) {
+            return Optional.empty();
+        }
+        List<Long> ids = lookup.get();
+        if (ids.isEmpty()) {
+            if (seen.misses().size() < MAX_MISSES) {
+                seen.misses().add(missKey);
+            }
+            return Optional.empty();
+        }
+        synchronized (this) {
+            // one rebuild for a burst of misses on the same stale maps
+            if (snapshot == seen) {
+                logger.info("Reference dictionary missed a name the database has, reloading");
+                reload();
+            }
+        }
+        return Optional.of(ids.get(0));
+    }
+
+    private static Map<String, Long> resolveAll(Collection<String> names, Function<String, Optional<Long>> resolver) {
+        Map<String, Long> ids = new HashMap<>();
+        for (String name : Set.copyOf(names)) {
+            resolver.apply(name).ifPresent(id -> ids.put(name, id));
+        }
+        return ids;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            reload();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private static String key(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record SubjectKey(Long departmentId, int semester, String name) {
+    }
+
+    // misses is the one mutable part: the names the database did not have while this snapshot was current
+    private record Snapshot(Map<String, Long> departments, Map<String, Long> batches, Map<SubjectKey, Long> subjects,
+            Set<Object> misses, long version) {
+    }
+}
@@ -0,0 +1,201 @@
+package com.copo.app.service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.info.BuildProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.copo.app.model.ScopeVersion;
+import com.copo.app.repository.ScopeVersionRepository;
+
+/**
+ * Version counters of the cached data behind the read-mostly JSON endpoints, from which their
+ * ETags are built.
+ *
+ * The counters are rows of the {@code scope_versions} table, so every node sees the same version
+ * and an ETag stays valid across nodes and restarts. {@link MarksViewCacheEvictor} and
+ * {@link CoPoMatrixService} bump their scopes in the transaction that writes the change, just
+ * before it commits, so the data and its version commit together and the bump needs no connection
+ * besides the writer's. The reference caches of {@link com.copo.app.config.ReferenceCacheConfig}
+ * bump theirs in a transaction of their own when they are cleared after a commit. Endpoints read
+ * the versions before they query, so old data can never be sent with a new ETag.
+ *
+ * Scopes whose data a node keeps in memory (the reference caches and the
+ * {@link ReferenceDictionary}) are followed instead: each node polls their counters every
+ * {@code copo.reference-cache.sync-interval}, runs the scope's listeners (which drop the node's
+ * copies) and only then applies the new version. For these scopes {@link #version(String)} is the
+ * version applied on this node, so a node that has not caught up yet still keys and tags its data
+ * with the old version.
+ *
+ * The counters outlive a deploy, so an ETag also names the build that produced the response: a
+ * new build answers a tag of the old one in full, in case the JSON layout changed. Without
+ * {@code build-info.properties} (e.g. run from an IDE) the node's start time stands in for it.
+ */
+@Component
+public class ScopeVersions {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScopeVersions.class);
+
+    @Autowired
+    private ScopeVersionRepository scopeVersionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<String, Followed> followed = new ConcurrentHashMap<>();
+
+    private final String build;
+
+    public ScopeVersions(ObjectProvider<BuildProperties> buildProperties) {
+        BuildProperties buildInfo = buildProperties.getIfAvailable();
+        Instant built = buildInfo != null && buildInfo.getTime() != null ? buildInfo.getTime() : Instant.now();
+        this.build = (buildInfo != null ? buildInfo.getVersion() + "." : "")
+                + Long.toString(built.toEpochMilli(), Character.MAX_RADIX);
+    }
+
+    /** Marks and questions of one subject of a department, batch and semester, across exam types. */
+    public static String marks(Long departmentId, Long batchId, Integer semester, Long subjectId) {
+        return "marks:" + departmentId + ":" + batchId + ":" + semester + ":" + subjectId;
+    }
+
+    public static String coPoMatrix(String subjectCode) {
+        return "copo:" + subjectCode;
+    }
+
+    /** Moves the scope's version on and returns it; call once the change is committed. */
+    public long bump(String scope) {
+        TransactionTemplate ownTransaction = new TransactionTemplate(transactionManager);
+        ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        long version = ownTransaction.execute(tx -> {
+            scopeVersionRepository.increment(scope);
+            return scopeVersionRepository.findVersion(scope).orElseThrow();
+        });
+        Followed scopeFollowed = followed.get(scope);
+        if (scopeFollowed != null) {
+            // every change up to this version is committed, so this node can apply it right away
+            scopeFollowed.apply(scope, version);
+        }
+        return version;
+    }
+
+    /**
+     * Moves the scopes' versions on in the current transaction, in name order so that concurrent
+     * writers lock them in the same order; call just before it commits. Followed scopes are applied
+     * once it has. Without a transaction each scope is bumped in one of its own.
+     */
+    public void bumpInTransaction(Collection<String> scopes) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            scopes.forEach(this::bump);
+            return;
+        }
+        for (String scope : new TreeSet<>(scopes)) {
+            scopeVersionRepository.increment(scope);
+            Followed scopeFollowed = followed.get(scope);
+            if (scopeFollowed != null) {
+                long version = scopeVersionRepository.findVersion(scope).orElseThrow();
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        scopeFollowed.apply(scope, version);
+                    }
+                });
+            }
+        }
+    }
+
+    /** The scope's version: the shared one, or for a followed scope the one applied on this node. */
+    public long version(String scope) {
+        Followed scopeFollowed = followed.get(scope);
+        return scopeFollowed != null ? scopeFollowed.applied : latest(scope);
+    }
+
+    /** The shared version of the scope, as last committed by any node. */
+    public long latest(String scope) {
+        return scopeVersionRepository.findVersion(scope).orElse(0L);
+    }
+
+    /**
+     * Follows a scope whose data this node keeps in memory: {@code onChange} runs
+     * whenever the scope's shared version moved past the one applied here, before the new version
+     * is applied. Registering starts from the shared version of now.
+     */
+    public void follow(String scope, Runnable onChange) {
+        followed.computeIfAbsent(scope, s -> new Followed(latest(s))).listeners.add(onChange);
+    }
+
+    /** Applies the versions of the followed scopes that other nodes moved on. */
+    @Scheduled(fixedDelayString = "${copo.reference-cache.sync-interval:15s}",
+            initialDelayString = "${copo.reference-cache.sync-interval:15s}")
+    public void sync() {
+        if (followed.isEmpty()) {
+            return;
+        }
+        for (ScopeVersion shared : scopeVersionRepository.findByScopeIn(followed.keySet())) {
+            followed.get(shared.getScope()).apply(shared.getScope(), shared.getVersion());
+        }
+    }
+
+    /** Strong ETag of a response built from the given scopes. */
+    public String etag(String... scopes) {
+        long[] read = new long[scopes.length];
+        for (int i = 0; i < scopes.length; i++) {
+            read[i] = version(scopes[i]);
+        }
+        return etag(read);
+    }
+
+    /**
+     * Strong ETag from versions read earlier, for a response whose scopes are only known after
+     * reading other data (e.g. ids resolved through the dictionary, whose version is read first).
+     */
+    public String etag(long... scopeVersions) {
+        StringBuilder tag = new StringBuilder("\"v");
+        for (long version : scopeVersions) {
+            tag.append('-').append(version);
+        }
+        return tag.append('.').append(build).append('"').toString();
+    }
+
+    private static final class Followed {
+
+        private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+        private volatile long applied;
+
+        private Followed(long applied) {
+            this.applied = applied;
+        }
+
+        private synchronized void apply(String scope, long version) {
+            if (version <= applied) {
+                return;
+            }
+            for (Runnable listener : listeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    // not applied, so the next sync runs the listeners again
+                    logger.warn("Could not apply version {} of {}: {}", version, scope, e.getMessage());
+                    return;
+                }
+            }
+            applied = version;
+            logger.debug("Applied version {} of {}", version, scope);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.copo.app.service;
 
+import com.copo.app.config.ReferenceCacheConfig;
 import com.copo.app.model.Section;
 import com.copo.app.repository.SectionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,11 +13,18 @@ public class SectionService {
     @Autowired
     private SectionRepository sectionRepository;
 
+    @Autowired
+    private ReferenceCache referenceCache;
+
+    @Autowired
+    private ScopeVersions scopeVersions;
+
     public List<Section> getAllSections() {
         return sectionRepository.findAll();
     }
 
     public List<Section> getSectionsByDepartmentId(Long departmentId) {
-        return sectionRepository.findByDepartment_Id(departmentId);
+        long version = scopeVersions.version(ReferenceCacheConfig.SECTIONS);
+        return ReferenceCache.entities(referenceCache.sections(version, departmentId), ReferenceCache.SectionRef::toEntity);
     }
 }
@@ -0,0 +1,111 @@
+package com.copo.app.service;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.copo.app.model.StudentMarks;
+
+/**
+ * One-off cleanup of student_marks written before a (student, question) cell could hold only
+ * one row. For every cell with several rows the newest is kept, which is the one the views and
+ * the attainment counters already use, then the unique key the mark upsert relies on is added.
+ * The key is owned by this migration, not by the entity mapping, so schema updates never try to
+ * add it over duplicate rows. Nodes starting together take turns through a named lock, and the
+ * first one to hold it does the work. Once the key exists later startups stop after a metadata
+ * lookup.
+ */
+@Component
+public class StudentMarksCellKeyMigration implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentMarksCellKeyMigration.class);
+
+    private static final int CHUNK = 1000;
+
+    private static final String LOCK = "copo.student_marks_cell_key";
+
+    private static final int LOCK_TIMEOUT_SECONDS = 600;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            if (hasCellKey()) {
+                return;
+            }
+            databaseDialect.runLocked(LOCK, LOCK_TIMEOUT_SECONDS, this::migrate);
+        } catch (Exception e) {
+            logger.error("Error deduplicating student marks", e);
+            throw new RuntimeException("Failed to migrate student marks. Error: " + e.getMessage());
+        }
+    }
+
+    private Void migrate() {
+        // another node may have finished while this one waited for the lock
+        if (hasCellKey()) {
+            return null;
+        }
+
+        List<Object[]> cells = jdbcTemplate.query(
+                "SELECT student_id, question_id, MAX(id) FROM student_marks"
+                        + " GROUP BY student_id, question_id HAVING COUNT(*) > 1",
+                (rs, i) -> new Object[] { rs.getLong(1), rs.getLong(2), rs.getLong(3) });
+        int removed = 0;
+        for (int from = 0; from < cells.size(); from += CHUNK) {
+            int[][] counts = jdbcTemplate.batchUpdate(
+                    "DELETE FROM student_marks WHERE student_id = ? AND question_id = ? AND id < ?",
+                    cells.subList(from, Math.min(from + CHUNK, cells.size())), CHUNK,
+                    (ps, cell) -> {
+                        ps.setLong(1, (Long) cell[0]);
+                        ps.setLong(2, (Long) cell[1]);
+                        ps.setLong(3, (Long) cell[2]);
+                    });
+            for (int[] chunk : counts) {
+                for (int count : chunk) {
+                    removed += Math.max(count, 0);
+                }
+            }
+        }
+
+        jdbcTemplate.execute("ALTER TABLE student_marks ADD CONSTRAINT " + StudentMarks.CELL_KEY
+                + " UNIQUE (student_id, question_id)");
+        logger.info("Removed {} duplicate student marks in {} cells and added the {} key", removed, cells.size(),
+                StudentMarks.CELL_KEY);
+        return null;
+    }
+
+    /** Whether a unique index covers exactly (student_id, question_id), whatever its name. */
+    private boolean hasCellKey() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            DatabaseMetaData meta = con.getMetaData();
+            Map<String, Set<String>> uniqueIndexes = new HashMap<>();
+            try (ResultSet rs = meta.getIndexInfo(con.getCatalog(), con.getSchema(), "student_marks", true, false)) {
+                while (rs.next()) {
+                    String index = rs.getString("INDEX_NAME");
+                    String column = rs.getString("COLUMN_NAME");
+                    if (index != null && column != null) {
+                        uniqueIndexes.computeIfAbsent(index, k -> new HashSet<>()).add(column.toLowerCase());
+                    }
+                }
+            }
+            return uniqueIndexes.containsValue(Set.of("student_id", "question_id"));
+        });
+    }
+}
@@ -1,20 +1,72 @@
 package com.copo.app.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.copo.app.model.Batch;
+import com.copo.app.model.Department;
+import com.copo.app.model.MarkStatus;
+import com.copo.app.model.MarksScope;
+import com.copo.app.model.Question;
 import com.copo.app.model.Student;
 import com.copo.app.model.StudentMarks;
+import com.copo.app.model.Subject;
+import com.copo.app.repository.FacultyMarksViewRepo;
+import com.copo.app.repository.QuestionRefProjection;
+import com.copo.app.repository.QuestionRepository;
+import com.copo.app.repository.QuestionSlotProjection;
 import com.copo.app.repository.StudentMarksProjection;
+import com.copo.app.repository.StudentRefProjection;
+import com.copo.app.repository.StudentRepository;
+import com.copo.app.repository.StudentRosterProjection;
 import com.copo.app.repository.StudentMarksRepository;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
 @Service
 public class StudentMarksService {
 
     @Autowired
     private StudentMarksRepository studentMarksRepository;
+
+    @Autowired
+    private QuestionAttainmentService questionAttainmentService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BulkWriter bulkWriter;
+
+    @Autowired
+    private FacultyMarksViewRepo facultyMarksViewRepo;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    /** Widest marks sheet read: a roll number column, a name column and the question columns. */
+    private static final int MAX_SHEET_COLUMNS = 256;
+
+    @PersistenceContext
+    private EntityManager entityManager;
     
 
     
@@ -28,7 +80,181 @@ public class StudentMarksService {
         return studentMarksRepository.findByStudent(student);
     }
 
-    public void saveStudentMarks(List<StudentMarks> marks) {
-        studentMarksRepository.saveAll(marks);
+    /**
+     * Saves the marks a student submitted. Their questions are read in one query on the questions
+     * table alone, which also checks that every one belongs to the student's department and batch.
+     * Those are read again too, the logged-in copy of the student may be out of date.
+     */
+    @Transactional
+    public void saveStudentMarks(Student loggedIn, List<StudentMarks> marks) {
+        StudentRefProjection ref = studentRepository.findRefById(loggedIn.getId())
+                .orElseThrow(() -> new RuntimeException("Student not found with ID: " + loggedIn.getId()));
+        if (ref.getDepartmentId() == null || ref.getBatchId() == null) {
+            throw new RuntimeException("Student " + loggedIn.getRollNumber()
+                    + " is not assigned to a department and batch, marks cannot be saved.");
+        }
+        Student student = Student.builder()
+                .id(ref.getId())
+                .department(Department.builder().id(ref.getDepartmentId()).build())
+                .batch(Batch.builder().id(ref.getBatchId()).build())
+                .build();
+
+        Set<Long> questionIds = new LinkedHashSet<>();
+        for (StudentMarks mark : marks) {
+            if (mark.getQuestion() == null || mark.getQuestion().getId() == null) {
+                throw new RuntimeException("Question ID is missing in submitted marks.");
+            }
+            questionIds.add(mark.getQuestion().getId());
+        }
+
+        Map<Long, Question> questions = new HashMap<>();
+        for (QuestionRefProjection question : questionRepository.findRefsByIdIn(questionIds)) {
+            if (!question.getDepartmentId().equals(ref.getDepartmentId()) || !question.getBatchId().equals(ref.getBatchId())) {
+                throw new RuntimeException("Question " + question.getId() + " is not set for your department and batch.");
+            }
+            questions.put(question.getId(), toQuestion(question));
+        }
+        for (StudentMarks mark : marks) {
+            Question question = questions.get(mark.getQuestion().getId());
+            if (question == null) {
+                throw new RuntimeException("Question not found with ID: " + mark.getQuestion().getId());
+            }
+            mark.setStudent(student);
+            mark.setQuestion(question);
+        }
+
+        // Copy the current cells first, the upsert overwrites them
+        List<StudentMarks> before = findCells(student, questions);
+        bulkWriter.upsertMarks(marks);
+        List<StudentMarks> after = findCells(student, questions);
+
+        questionAttainmentService.applyChanges(before, after);
+        eventPublisher.publishEvent(MarksScopeChangedEvent.of(new ArrayList<>(questions.values())));
+    }
+
+    private List<StudentMarks> findCells(Student student, Map<Long, Question> questions) {
+        return studentMarksRepository.findMarksByStudentIdAndQuestionIds(student.getId(), questions.keySet()).stream()
+                .map(m -> StudentMarks.builder().id(m.getId()).student(student).question(questions.get(m.getQuestionId()))
+                        .answer(m.getAnswer()).status(m.getStatus()).score(m.getScore()).build())
+                .toList();
+    }
+
+    /** A detached question carrying only what saving a mark and its attainment delta read. */
+    private static Question toQuestion(QuestionRefProjection ref) {
+        return Question.builder()
+                .id(ref.getId())
+                .department(Department.builder().id(ref.getDepartmentId()).build())
+                .batch(Batch.builder().id(ref.getBatchId()).build())
+                .subject(Subject.builder().id(ref.getSubjectId()).build())
+                .semester(ref.getSemester())
+                .examType(ref.getExamType())
+                .maxMarks(ref.getMaxMarks())
+                .build();
+    }
+
+    /**
+     * Imports the marks of a whole class for one exam from an .xlsx grid: a header row of
+     * "Roll Number", optional other columns and one "Part X - Qn" column per question, then one
+     * row per student. Blank cells leave the stored mark as it is.
+     *
+     * Students and questions are resolved with one query each, the sheet is read as a stream and
+     * the marks are upserted in JDBC batches. Any invalid row rejects the whole sheet. The exam
+     * type is normalized like question uploads store it, e.g. "cat1" reads the "CAT 1" questions.
+     */
+    @Transactional
+    public Map<String, Object> importMarksSheet(InputStream in, Long departmentId, Long batchId, Integer semester,
+            Long subjectId, String rawExamType) throws IOException {
+        String examType = ExamTypeNormalizer.normalize(rawExamType);
+        Map<String, Long> students = new HashMap<>();
+        for (StudentRosterProjection s : facultyMarksViewRepo.getRoster(departmentId, batchId, null)) {
+            students.put(s.getRollNumber().toLowerCase(Locale.ROOT), s.getStudentId());
+        }
+        // one question per "Part X - Qn" key, the last one like the marks views
+        Map<String, QuestionSlotProjection> questions = new HashMap<>();
+        for (QuestionSlotProjection q : facultyMarksViewRepo.getQuestionSlotsByExamType(departmentId, batchId, semester,
+                examType, subjectId)) {
+            questions.put(columnKey("Part " + q.getPart() + " - Q" + q.getQuestionNumber()), q);
+        }
+        if (students.isEmpty() || questions.isEmpty()) {
+            throw new RuntimeException("No students or questions found for the selected exam.");
+        }
+
+        Map<Integer, QuestionSlotProjection> columns = new LinkedHashMap<>();
+        Map<List<Long>, StudentMarks> marks = new LinkedHashMap<>();
+        Set<Long> seenStudents = new HashSet<>();
+        List<String> errorMessages = new ArrayList<>();
+
+        XlsxRowReader.read(in, MAX_SHEET_COLUMNS, (i, cells) -> {
+            if (i == 0) {
+                for (int c = 1; c < cells.length; c++) {
+                    String key = columnKey(cells[c]);
+                    if (questions.containsKey(key)) {
+                        columns.put(c, questions.get(key));
+                    } else if (key.startsWith("part")) {
+                        errorMessages.add("Row 1: Unknown question column: " + cells[c]);
+                    }
+                }
+                if (columns.isEmpty()) {
+                    errorMessages.add("Row 1: No \"Part X - Qn\" question columns found");
+                }
+                return;
+            }
+
+            String rollNumber = cells[0];
+            if (rollNumber.isEmpty()) return;
+            Long studentId = students.get(rollNumber.toLowerCase(Locale.ROOT));
+            if (studentId == null) {
+                errorMessages.add("Row " + (i + 1) + ": Unknown roll number: " + rollNumber);
+                return;
+            }
+            if (!seenStudents.add(studentId)) {
+                errorMessages.add("Row " + (i + 1) + ": Duplicate roll number: " + rollNumber);
+                return;
+            }
+
+            for (Map.Entry<Integer, QuestionSlotProjection> column : columns.entrySet()) {
+                String answer = cells[column.getKey()];
+                if (answer.isEmpty()) continue;
+                QuestionSlotProjection q = column.getValue();
+                Double score = MarkStatus.scoreOf(answer);
+                if (MarkStatus.of(answer) == MarkStatus.PRESENT && (score == null || score < 0 || score > q.getMaxMarks())) {
+                    errorMessages.add("Row " + (i + 1) + ": Invalid mark " + answer + " for Part " + q.getPart() + " - Q"
+                            + q.getQuestionNumber() + " (max " + q.getMaxMarks() + ")");
+                    continue;
+                }
+                if (errorMessages.isEmpty()) {
+                    marks.put(List.of(studentId, q.getQuestionId()), StudentMarks.builder()
+                            .student(entityManager.getReference(Student.class, studentId))
+                            .question(entityManager.getReference(Question.class, q.getQuestionId()))
+                            .answer(answer)
+                            .build());
+                }
+            }
+        });
+
+        if (!errorMessages.isEmpty()) {
+            throw new RuntimeException("Errors in marks sheet:\n" + String.join("\n", errorMessages));
+        }
+
+        List<Long> questionIds = columns.values().stream().map(QuestionSlotProjection::getQuestionId).distinct().toList();
+        List<StudentMarks> rows = new ArrayList<>(marks.values());
+        bulkWriter.upsertMarks(rows);
+        entityManager.clear();
+
+        // every changed cell belongs to these questions, recounting them is cheaper than diffing
+        questionAttainmentService.invalidate(questionIds);
+        eventPublisher.publishEvent(new MarksScopeChangedEvent(
+                Set.of(new MarksScope(departmentId, batchId, semester, subjectId, examType))));
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("students", seenStudents.size());
+        result.put("questions", questionIds.size());
+        result.put("marksSaved", rows.size());
+        return result;
+    }
+
+    /** Header text of a question column, compared without case and spaces. */
+    private static String columnKey(String header) {
+        return header.replaceAll("\\s+", "").toLowerCase(Locale.ROOT);
     }
 }
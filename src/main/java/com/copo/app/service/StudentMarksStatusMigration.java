@@ -0,0 +1,60 @@
+package com.copo.app.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.copo.app.model.MarkStatus;
+
+/**
+ * One-off backfill of student_marks.status / score for rows written before those columns
+ * existed. Runs once all beans are ready but before the web server takes requests, so the
+ * views never see a mark without a status. Rows that already have a status are left alone,
+ * which makes later startups a single empty query.
+ */
+@Component
+public class StudentMarksStatusMigration implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentMarksStatusMigration.class);
+
+    private static final int CHUNK = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            long lastId = 0;
+            int migrated = 0;
+            while (true) {
+                List<Object[]> rows = jdbcTemplate.query(
+                        "SELECT id, answer FROM student_marks WHERE status IS NULL AND id > ? ORDER BY id LIMIT ?",
+                        (rs, i) -> new Object[] { rs.getLong(1), rs.getString(2) }, lastId, CHUNK);
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                List<Object[]> updates = rows.stream().map(row -> {
+                    String answer = (String) row[1];
+                    return new Object[] { MarkStatus.of(answer).name(), MarkStatus.scoreOf(answer), row[0] };
+                }).toList();
+                jdbcTemplate.batchUpdate("UPDATE student_marks SET status = ?, score = ? WHERE id = ?", updates);
+
+                migrated += rows.size();
+                lastId = (Long) rows.get(rows.size() - 1)[0];
+            }
+            if (migrated > 0) {
+                logger.info("Normalized status and score of {} existing student marks", migrated);
+            }
+        } catch (Exception e) {
+            logger.error("Error normalizing existing student marks", e);
+            throw new RuntimeException("Failed to migrate student marks. Error: " + e.getMessage());
+        }
+    }
+}
@@ -1,15 +1,15 @@
 package com.copo.app.service;
 
-import com.copo.app.model.Batch;
-import com.copo.app.model.Department;
 import com.copo.app.model.Student;
-import com.copo.app.repository.BatchRepository;
-import com.copo.app.repository.DepartmentRepository;
+import com.copo.app.repository.QuestionRepository;
+import com.copo.app.repository.StudentMarksRepository;
 import com.copo.app.repository.StudentRepository;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -18,10 +18,16 @@ import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 public class StudentService {
@@ -49,10 +55,27 @@ public class StudentService {
     private StudentRepository studentRepository;
 
     @Autowired
-    private DepartmentRepository departmentRepository;
+    private IngestPipeline ingestPipeline;
 
     @Autowired
-    private BatchRepository batchRepository;
+    private ReferenceDictionary referenceDictionary;
+
+    @Autowired
+    private StudentMarksRepository studentMarksRepository;
+
+    @Autowired
+    private QuestionAttainmentService questionAttainmentService;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final int UPLOAD_BATCH_SIZE = 500;
 
     /**
      * Save a new student with validation and logging.
@@ -94,6 +117,7 @@ public class StudentService {
 
             // Save student (section is already set by controller/model binding)
             Student saved = studentRepository.save(student);
+            publishRosterChange(saved);
             logger.info("Student saved successfully: {}", saved.getRollNumber());
             return saved;
 
@@ -137,6 +161,7 @@ public class StudentService {
     /**
      * Update student after checking for duplicate roll number and register number.
      */
+    @Transactional
     public Student updateStudent(Long id, Student studentDetails) {
         try {
             Student student = studentRepository.findById(id)
@@ -163,6 +188,8 @@ public class StudentService {
                 }
             }
 
+            Student previous = Student.builder().department(student.getDepartment()).batch(student.getBatch()).build();
+
             // Trim and update values
             student.setName(studentDetails.getName().trim());
             student.setRollNumber(studentDetails.getRollNumber().trim());
@@ -173,6 +200,12 @@ public class StudentService {
             student.setSection(studentDetails.getSection());
 
             Student updated = studentRepository.save(student);
+            // moving to another department or batch takes the student's marks out of one roster's counters and into another's
+            if (!rosterOf(previous).equals(rosterOf(updated))) {
+                questionAttainmentService.invalidate(studentMarksRepository.findQuestionIdsByStudentId(id));
+            }
+            publishRosterChange(previous);
+            publishRosterChange(updated);
             logger.info("Student updated: {}", updated.getRollNumber());
             return updated;
 
@@ -187,11 +220,15 @@ public class StudentService {
     @Transactional
     public void deleteStudent(Long id) {
     	try {
-    		if (!studentRepository.existsById(id)) {
+    		Student student = studentRepository.findById(id).orElse(null);
+    		if (student == null) {
                 logger.warn("Student not found for deletion: ID {}", id);
                 throw new RuntimeException("Student not found with ID: " + id);
             }
+            publishRosterChange(student);
+            List<Long> questionIds = studentMarksRepository.findQuestionIdsByStudentId(id);
             studentRepository.deleteById(id);
+            questionAttainmentService.invalidate(questionIds);
             logger.info("Student deleted successfully with ID: {}", id);
 
         } catch (Exception e) {
@@ -201,25 +238,98 @@ public class StudentService {
         
     }
 
+    private static List<Long> rosterOf(Student student) {
+        return Arrays.asList(student.getDepartment() != null ? student.getDepartment().getId() : null,
+                student.getBatch() != null ? student.getBatch().getId() : null);
+    }
+
+    // The marks views list the roster, so every cached view of the student's department and batch goes stale
+    private void publishRosterChange(Student student) {
+        if (student.getDepartment() == null || student.getBatch() == null) {
+            return;
+        }
+        eventPublisher.publishEvent(MarksScopeChangedEvent.ofRoster(
+                questionRepository.findScopes(student.getDepartment().getId(), student.getBatch().getId())));
+    }
+
     // Bulk upload students from CSV file
     @Transactional
     public Map<String, Object> uploadStudents(MultipartFile file) throws Exception {
         logger.info("Starting student upload from file: {}", file.getOriginalFilename());
-        
-        List<String> uploaded = new ArrayList<>();
-        List<String> errors = new ArrayList<>();
 
         try (BufferedReader br = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            int lineNumber = 0;
+            StudentImport students = new StudentImport();
+            return students.finish(ingestPipeline.run(br, students::lookup, students::validate, students::insert));
+        } catch (Exception ex) {
+            logger.error("Failed to process student file upload: {}", ex.getMessage());
+            throw new RuntimeException("Failed to upload students: " + ex.getMessage(), ex);
+        }
+    }
+
+    // Imports already split CSV lines in one go, for the upload jobs
+    @Transactional
+    public Map<String, Object> importStudentRows(List<UploadRow> lines) {
+        try {
+            StudentImport students = new StudentImport();
+            List<String> errors = new ArrayList<>();
+            students.insert(students.validate(lines, students.lookup(lines), errors), errors);
+            return students.finish(errors);
+        } catch (Exception ex) {
+            logger.error("Failed to process student file upload: {}", ex.getMessage());
+            throw new RuntimeException("Failed to upload students: " + ex.getMessage(), ex);
+        }
+    }
+
+    // existing numbers (lower case) and the department / batch ids of the names in one chunk
+    private record StudentLookups(Set<String> rollNumbers, Set<String> registerNumbers, Map<String, Long> departments,
+            Map<String, Long> batches) {
+    }
+
+    private record StudentRow(int lineNumber, String name, String rollNumber, String registerNumber, String dob,
+            Long departmentId, Long batchId) {
+    }
 
-            while ((line = br.readLine()) != null) {
-                lineNumber++;
+    // One student upload. For each chunk the uploading thread looks up the existing roll / register numbers in a couple of queries and
+    // resolves department and batch names through the ReferenceDictionary; the chunk is then checked in memory, possibly on an ingest
+    // worker. Inserts run in file order with batched JDBC writes, which is also where numbers repeated within the file are caught.
+    // Names and numbers are compared case-insensitively, like the database does.
+    private class StudentImport {
+        private final Set<String> insertedRollNumbers = new HashSet<>();
+        private final Set<String> insertedRegisterNumbers = new HashSet<>();
+        private final Set<List<Long>> rosters = new LinkedHashSet<>();
+        private final List<String> uploaded = new ArrayList<>();
+
+        StudentLookups lookup(List<UploadRow> lines) {
+            Set<String> rollNumbers = new HashSet<>();
+            Set<String> registerNumbers = new HashSet<>();
+            Set<String> departmentNames = new HashSet<>();
+            Set<String> batchNames = new HashSet<>();
+            for (UploadRow row : lines) {
+                String[] fields = row.cells();
+                if (fields.length >= 6) {
+                    rollNumbers.add(fields[1].trim());
+                    registerNumbers.add(fields[2].trim());
+                    departmentNames.add(fields[4].trim());
+                    batchNames.add(fields[5].trim());
+                }
+            }
+            return new StudentLookups(lowerCase(inChunks(rollNumbers, studentRepository::findExistingRollNumbers)),
+                    lowerCase(inChunks(registerNumbers, studentRepository::findExistingRegisterNumbers)),
+                    referenceDictionary.departmentIds(departmentNames), referenceDictionary.batchIds(batchNames));
+        }
+
+        List<StudentRow> validate(List<UploadRow> lines, StudentLookups lookups, List<String> errors) {
+            Set<String> existingRollNumbers = lookups.rollNumbers();
+            Set<String> existingRegisterNumbers = lookups.registerNumbers();
+
+            List<StudentRow> accepted = new ArrayList<>();
+            for (UploadRow row : lines) {
+                final int lineNumber = row.number();
                 final int currentRow = lineNumber;
-                String[] fields = line.split(",");
+                String[] fields = row.cells();
 
                 if (fields.length < 6) {
-                    logger.warn("Skipping line {} due to incorrect format: {}", lineNumber, line);
+                    logger.warn("Skipping line {} due to incorrect format: {}", lineNumber, String.join(",", fields));
                     continue;
                 }
 
@@ -238,56 +348,94 @@ public class StudentService {
                     continue;
                 }
 
-                try {
-                	
-                	
-                    if (studentRepository.existsByRollNumber(rollNumber)) {
-                        logger.info("Skipping duplicate roll number at line {}: {}", lineNumber, rollNumber);
-                        errors.add("Row " + currentRow + ": Duplicate student rollNumber: " + rollNumber);
-                        continue;
-                    }
-                    if (studentRepository.existsByRegisterNumber(registerNumber)) {
-                        logger.info("Skipping duplicate roll number at line {}: {}", lineNumber, registerNumber);
-                        errors.add("Row " + currentRow + ": Duplicate student registerNumber: " + registerNumber);
-                        continue;
-                    }
-
-                    Department department = departmentRepository.findDepartmentByName(departmentName)
-                            .orElseThrow(() -> new RuntimeException("Department not found: " + departmentName));
-
-                    Batch batch = batchRepository.findBatchByName(batchName)
-                            .orElseThrow(() -> new RuntimeException("Batch not found: " + batchName));
-
-                    Student student = Student.builder()
-                            .name(name)
-                            .rollNumber(rollNumber)
-                            .registerNumber(registerNumber)
-                            .dob(dob)
-                            .department(department)
-                            .batch(batch)
-                            .build();
-
-                    studentRepository.save(student);
-                    uploaded.add("Student Code : "+rollNumber +" : : Student name :"+name);
-                    logger.info("Row {}: Student uploaded: {}", currentRow, rollNumber);
-                    
-
-                } catch (Exception e) {
-                    logger.error("Row {} failed to upload: {}", currentRow, e.getMessage());
-                    errors.add("Row " + currentRow + ": " + e.getMessage());
+                if (existingRollNumbers.contains(key(rollNumber))) {
+                    logger.info("Skipping duplicate roll number at line {}: {}", lineNumber, rollNumber);
+                    errors.add("Row " + currentRow + ": Duplicate student rollNumber: " + rollNumber);
+                    continue;
+                }
+                if (existingRegisterNumbers.contains(key(registerNumber))) {
+                    logger.info("Skipping duplicate register number at line {}: {}", lineNumber, registerNumber);
+                    errors.add("Row " + currentRow + ": Duplicate student registerNumber: " + registerNumber);
+                    continue;
                 }
+
+                Long departmentId = lookups.departments().get(departmentName);
+                if (departmentId == null) {
+                    logger.error("Row {} failed to upload: Department not found: {}", currentRow, departmentName);
+                    errors.add("Row " + currentRow + ": Department not found: " + departmentName);
+                    continue;
+                }
+                Long batchId = lookups.batches().get(batchName);
+                if (batchId == null) {
+                    logger.error("Row {} failed to upload: Batch not found: {}", currentRow, batchName);
+                    errors.add("Row " + currentRow + ": Batch not found: " + batchName);
+                    continue;
+                }
+
+                accepted.add(new StudentRow(lineNumber, name, rollNumber, registerNumber, dob, departmentId, batchId));
             }
-        } catch (Exception ex) {
-            logger.error("Failed to process student file upload: {}", ex.getMessage());
-            throw new RuntimeException("Failed to upload students: " + ex.getMessage(), ex);
+            return accepted;
         }
 
-        logger.info("student upload completed. Success: {}, Errors: {}", uploaded.size(), errors.size());
+        void insert(List<StudentRow> rows, List<String> errors) {
+            List<Object[]> inserts = new ArrayList<>(rows.size());
+            for (StudentRow row : rows) {
+                // numbers accepted earlier in the file count as existing ones
+                if (!insertedRollNumbers.add(key(row.rollNumber()))) {
+                    logger.info("Skipping duplicate roll number at line {}: {}", row.lineNumber(), row.rollNumber());
+                    errors.add("Row " + row.lineNumber() + ": Duplicate student rollNumber: " + row.rollNumber());
+                    continue;
+                }
+                if (!insertedRegisterNumbers.add(key(row.registerNumber()))) {
+                    insertedRollNumbers.remove(key(row.rollNumber()));
+                    logger.info("Skipping duplicate register number at line {}: {}", row.lineNumber(), row.registerNumber());
+                    errors.add("Row " + row.lineNumber() + ": Duplicate student registerNumber: " + row.registerNumber());
+                    continue;
+                }
+                inserts.add(new Object[] { row.name(), row.rollNumber(), row.registerNumber(), row.dob(), row.departmentId(), row.batchId() });
+                rosters.add(List.of(row.departmentId(), row.batchId()));
+                uploaded.add("Student Code : "+row.rollNumber() +" : : Student name :"+row.name());
+            }
+
+            for (int from = 0; from < inserts.size(); from += UPLOAD_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("INSERT INTO students (name, roll_number, register_number, dob, department_id, batch_id)"
+                        + " VALUES (?, ?, ?, ?, ?, ?)", inserts.subList(from, Math.min(from + UPLOAD_BATCH_SIZE, inserts.size())));
+            }
+        }
+
+        Map<String, Object> finish(List<String> errors) {
+            for (List<Long> roster : rosters) {
+                eventPublisher.publishEvent(MarksScopeChangedEvent.ofRoster(questionRepository.findScopes(roster.get(0), roster.get(1))));
+            }
+
+            logger.info("student upload completed. Success: {}, Errors: {}", uploaded.size(), errors.size());
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("uploadedStudents", uploaded);
-        result.put("errors", errors);
-        return result;
+            Map<String, Object> result = new HashMap<>();
+            result.put("uploadedStudents", uploaded);
+            result.put("errors", errors);
+            return result;
+        }
+    }
+
+    private static String key(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> lowerCase(List<String> values) {
+        Set<String> keys = new HashSet<>();
+        for (String value : values) {
+            keys.add(key(value));
+        }
+        return keys;
+    }
+
+    private static List<String> inChunks(Set<String> values, Function<List<String>, List<String>> query) {
+        List<String> all = new ArrayList<>(values);
+        List<String> found = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += UPLOAD_BATCH_SIZE) {
+            found.addAll(query.apply(all.subList(from, Math.min(from + UPLOAD_BATCH_SIZE, all.size()))));
+        }
+        return found;
     }
 
     /**
@@ -1,14 +1,19 @@
 package com.copo.app.service;
 
+import com.copo.app.config.ReferenceCacheConfig;
 import com.copo.app.model.Department;
 import com.copo.app.model.Subject;
 import com.copo.app.repository.DepartmentRepository;
+import com.copo.app.repository.SubjectKeyProjection;
 import com.copo.app.repository.SubjectRepository;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -20,6 +25,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @Service
+@CacheConfig(cacheResolver = "referenceCacheResolver", cacheNames = ReferenceCacheConfig.SUBJECTS)
 public class SubjectService {
 
     private static final Logger logger = LoggerFactory.getLogger(SubjectService.class);
@@ -30,22 +36,35 @@ public class SubjectService {
     @Autowired
     private DepartmentRepository departmentRepository;
 
+    @Autowired
+    private ReferenceDictionary referenceDictionary;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ReferenceCache referenceCache;
+
+    @Autowired
+    private ScopeVersions scopeVersions;
+
+    @Autowired
+    private IngestPipeline ingestPipeline;
+
     // Get filtered subjects by dept and/or semester
     public List<Subject> getFilteredSubjects(Long departmentId, Integer semester) {
         try {
             if (departmentId != null && semester != null) {
                 logger.info("Fetching subjects by departmentId {} and semester {}", departmentId, semester);
-                return subjectRepository.findByDepartmentIdAndSemester(departmentId, semester);
             } else if (departmentId != null) {
                 logger.info("Fetching subjects by departmentId {}", departmentId);
-                return subjectRepository.findByDepartmentId(departmentId);
             } else if (semester != null) {
                 logger.info("Fetching subjects by semester {}", semester);
-                return subjectRepository.findBySemester(semester);
             } else {
                 logger.info("Fetching all subjects");
-                return subjectRepository.findAll();
             }
+            return ReferenceCache.entities(referenceCache.filteredSubjects(version(), departmentId, semester),
+                    ReferenceCache.SubjectRef::toEntity);
         } catch (Exception e) {
             logger.error("Error while fetching filtered subjects", e);
             throw new RuntimeException("Failed to fetch subjects. Error: " + e.getMessage());
@@ -54,7 +73,8 @@ public class SubjectService {
 
     public List<Subject> getSubjectsByDepartmentAndSemester(Long departmentId, Integer semester) {
         try {
-            return subjectRepository.findByDepartmentIdAndSemester(departmentId, semester);
+            return ReferenceCache.entities(referenceCache.subjectsOf(version(), departmentId, semester),
+                    ReferenceCache.SubjectRef::toEntity);
         } catch (Exception e) {
             logger.error("Error fetching subjects by department and semester", e);
             throw new RuntimeException("Failed to fetch subjects. Error: " + e.getMessage());
@@ -63,6 +83,7 @@ public class SubjectService {
 
     // Save Subject with validation
     @Transactional
+    @CacheEvict(allEntries = true)
     public Subject saveSubject(Subject subject) {
         try {
             String name = subject.getName().trim();
@@ -86,6 +107,7 @@ public class SubjectService {
             subject.setCode(code); // Trimmed code
 
             Subject saved = subjectRepository.save(subject);
+            eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceCacheConfig.SUBJECTS));
             logger.info("Subject saved: {}", saved.getName());
             return saved;
         } catch (Exception e) {
@@ -97,7 +119,8 @@ public class SubjectService {
 
     public List<Subject> getAllSubjects() {
         try {
-            List<Subject> list = subjectRepository.findAll();
+            List<Subject> list = ReferenceCache.entities(referenceCache.subjects(version()),
+                    ReferenceCache.SubjectRef::toEntity);
             logger.info("Fetched {} subjects", list.size());
             return list;
         } catch (Exception e) {
@@ -108,7 +131,7 @@ public class SubjectService {
 
     public Optional<Subject> getSubjectById(Long id) {
         try {
-            return subjectRepository.findById(id);
+            return referenceCache.subject(version(), id).map(ReferenceCache.SubjectRef::toEntity);
         } catch (Exception e) {
             logger.error("Error fetching subject by id {}", id, e);
             throw new RuntimeException("Failed to fetch subject with id: " + id + ". Error: " + e.getMessage());
@@ -116,6 +139,7 @@ public class SubjectService {
     }
 
     @Transactional
+    @CacheEvict(allEntries = true)
     public Subject updateSubject(Long id, Subject subjectDetails) {
         try {
             Subject subject = subjectRepository.findById(id)
@@ -146,6 +170,7 @@ public class SubjectService {
             subject.setSemester(newSemester);
 
             Subject updated = subjectRepository.save(subject);
+            eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceCacheConfig.SUBJECTS));
             logger.info("Subject updated successfully: {}", updated.getName());
             return updated;
 
@@ -157,9 +182,11 @@ public class SubjectService {
 
 
     @Transactional
+    @CacheEvict(allEntries = true)
     public void deleteSubject(Long id) {
         try {
             subjectRepository.deleteById(id);
+            eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceCacheConfig.SUBJECTS));
             logger.info("Subject deleted with id {}", id);
         } catch (Exception e) {
             logger.error("Error deleting subject with id {}", id, e);
@@ -169,7 +196,8 @@ public class SubjectService {
 
     public Subject getSubjectByName(String subjectName) {
         try {
-            return subjectRepository.findByName(subjectName);
+            return referenceCache.subjectByName(version(), subjectName).map(ReferenceCache.SubjectRef::toEntity)
+                    .orElse(null);
         } catch (Exception e) {
             logger.error("Error fetching subject by name: {}", subjectName, e);
             throw new RuntimeException("Failed to fetch subject by name: " + subjectName + ". Error: " + e.getMessage());
@@ -178,7 +206,8 @@ public class SubjectService {
 
     public Subject getSubjectByDepartmentSemesterAndName(Department dept, int semester, String subjectName) {
         try {
-            return subjectRepository.findByDepartmentAndSemesterAndName(dept, semester, subjectName);
+            return referenceCache.subject(version(), dept, semester, subjectName)
+                    .map(ReferenceCache.SubjectRef::toEntity).orElse(null);
         } catch (Exception e) {
             logger.error("Error fetching subject by department, semester and name", e);
             throw new RuntimeException("Failed to fetch subject. Error: " + e.getMessage());
@@ -186,18 +215,90 @@ public class SubjectService {
     }
 
     @Transactional
+    @CacheEvict(allEntries = true)
     public Map<String, Object> uploadSubjects(MultipartFile file) {
-    	List<String> uploadedSubjects = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            SubjectImport subjects = new SubjectImport();
+            return subjects.finish(ingestPipeline.run(br, subjects::lookup, subjects::validate, subjects::save));
+        } catch (IOException e) {
+            logger.error("CSV upload failed", e);
+            Map<String, Object> result = new HashMap<>();
+            result.put("uploadedSubjects", new ArrayList<String>());
+            result.put("errors", new ArrayList<>(List.of("File read error: " + e.getMessage())));
+            return result;
+        }
+    }
+
+    /**
+     * Saves already split CSV rows (name,code,departmentName,semester) in one go, for the upload jobs.
+     */
+    @Transactional
+    @CacheEvict(allEntries = true)
+    public Map<String, Object> importSubjectRows(List<UploadRow> rows) {
+        SubjectImport subjects = new SubjectImport();
         List<String> errors = new ArrayList<>();
-        int rowNum = 0;
+        subjects.save(subjects.validate(rows, subjects.lookup(rows), errors), errors);
+        return subjects.finish(errors);
+    }
 
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                rowNum++;
-                final int currentRow = rowNum;
+    private record SubjectRow(int rowNumber, Subject subject) {
+    }
+
+    // departments named in one chunk, and the (lower case name or code, department id, semester) keys of their subjects
+    private record SubjectLookups(Map<String, Department> departments, Set<List<Object>> names, Set<List<Object>> codes) {
+    }
 
-                String[] fields = line.split(",");
+    /**
+     * One subject upload: the departments and existing subjects a chunk refers to are read in two
+     * queries, the rows are checked against them in memory, possibly on an ingest worker, then
+     * saved in file order, where names and codes repeated within the file are caught.
+     */
+    private class SubjectImport {
+        private final Set<List<Object>> savedNames = new HashSet<>();
+        private final Set<List<Object>> savedCodes = new HashSet<>();
+        private final List<String> uploadedSubjects = new ArrayList<>();
+
+        SubjectLookups lookup(List<UploadRow> rows) {
+            Set<String> departmentNames = new HashSet<>();
+            for (UploadRow row : rows) {
+                String[] fields = row.cells();
+                if (fields.length >= 4) {
+                    departmentNames.add(fields[2].trim());
+                }
+            }
+            Map<String, Long> departmentIds = referenceDictionary.departmentIds(departmentNames);
+            Map<Long, Department> byId = new HashMap<>();
+            for (Department department : departmentRepository.findAllById(new HashSet<>(departmentIds.values()))) {
+                byId.put(department.getId(), department);
+            }
+            Map<String, Department> departments = new HashMap<>();
+            departmentIds.forEach((name, id) -> {
+                if (byId.containsKey(id)) {
+                    departments.put(name, byId.get(id));
+                }
+            });
+
+            Set<List<Object>> names = new HashSet<>();
+            Set<List<Object>> codes = new HashSet<>();
+            if (!byId.isEmpty()) {
+                for (SubjectKeyProjection subject : subjectRepository.findKeysByDepartmentIdIn(byId.keySet())) {
+                    if (subject.getName() != null) {
+                        names.add(List.of(subject.getName().trim().toLowerCase(Locale.ROOT), subject.getDepartmentId(), subject.getSemester()));
+                    }
+                    if (subject.getCode() != null) {
+                        codes.add(List.of(subject.getCode().trim().toLowerCase(Locale.ROOT), subject.getDepartmentId(), subject.getSemester()));
+                    }
+                }
+            }
+            return new SubjectLookups(departments, names, codes);
+        }
+
+        List<SubjectRow> validate(List<UploadRow> rows, SubjectLookups lookups, List<String> errors) {
+            List<SubjectRow> accepted = new ArrayList<>();
+            for (UploadRow row : rows) {
+                final int currentRow = row.number();
+
+                String[] fields = row.cells();
                 if (fields.length < 4) {
                     errors.add("Row " + currentRow + ": Missing fields. Expected 4, found " + fields.length);
                     continue;
@@ -221,43 +322,69 @@ public class SubjectService {
                     continue;
                 }
 
-                
-
-
-                Optional<Department> departmentOpt = departmentRepository.findDepartmentByName(departmentName);
-                if (departmentOpt.isEmpty()) {
+                Department department = lookups.departments().get(departmentName);
+                if (department == null) {
                     errors.add("Row " + currentRow + ": Department not found: " + departmentName);
                     continue;
                 }
                 
-                if (subjectRepository.existsByNameAndDepartmentAndSemester(name, departmentOpt.get(), semester)) {
+                if (lookups.names().contains(List.of(name.toLowerCase(Locale.ROOT), department.getId(), semester))) {
                     errors.add("Row " + currentRow + ": Duplicate subject name in same department and semester: " + name);
                     continue;
                 }
 
-                if (subjectRepository.existsByCodeAndDepartmentAndSemester(code, departmentOpt.get(), semester)) {
+                if (lookups.codes().contains(List.of(code.toLowerCase(Locale.ROOT), department.getId(), semester))) {
                     errors.add("Row " + currentRow + ": Duplicate subject code in same department and semester: " + code);
                     continue;
                 }
 
-                Subject subject = Subject.builder()
+                accepted.add(new SubjectRow(currentRow, Subject.builder()
                         .name(name)
                         .code(code)
-                        .department(departmentOpt.get())
+                        .department(department)
                         .semester(semester)
-                        .build();
+                        .build()));
+            }
+            return accepted;
+        }
 
-                subjectRepository.save(subject);
-                uploadedSubjects.add(name);
-                logger.info("Subject uploaded from CSV: {}", code);
+        void save(List<SubjectRow> rows, List<String> errors) {
+            List<Subject> subjects = new ArrayList<>(rows.size());
+            for (SubjectRow row : rows) {
+                Subject subject = row.subject();
+                Long departmentId = subject.getDepartment().getId();
+                List<Object> nameKey = List.of(subject.getName().toLowerCase(Locale.ROOT), departmentId, subject.getSemester());
+                List<Object> codeKey = List.of(subject.getCode().toLowerCase(Locale.ROOT), departmentId, subject.getSemester());
+                if (savedNames.contains(nameKey)) {
+                    errors.add("Row " + row.rowNumber() + ": Duplicate subject name in same department and semester: " + subject.getName());
+                    continue;
+                }
+                if (savedCodes.contains(codeKey)) {
+                    errors.add("Row " + row.rowNumber() + ": Duplicate subject code in same department and semester: " + subject.getCode());
+                    continue;
+                }
+                savedNames.add(nameKey);
+                savedCodes.add(codeKey);
+                subjects.add(subject);
+                uploadedSubjects.add(subject.getName());
+                logger.info("Subject uploaded from CSV: {}", subject.getCode());
             }
-        } catch (IOException e) {
-            logger.error("CSV upload failed", e);
-            errors.add("File read error: " + e.getMessage());
+            subjectRepository.saveAll(subjects);
         }
-        Map<String, Object> result = new HashMap<>();
-        result.put("uploadedSubjects", uploadedSubjects);
-        result.put("errors", errors);
-        return result;
+
+        Map<String, Object> finish(List<String> errors) {
+            if (!uploadedSubjects.isEmpty()) {
+                eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceCacheConfig.SUBJECTS));
+            }
+            Map<String, Object> result = new HashMap<>();
+            result.put("uploadedSubjects", uploadedSubjects);
+            result.put("errors", errors);
+            return result;
+        }
+    }
+
+    // Version of the cached subjects, read before the lookup, see ReferenceCache
+    private long version() {
+        return scopeVersions.version(ReferenceCacheConfig.SUBJECTS);
     }
 }
@@ -0,0 +1,419 @@
+package com.copo.app.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.copo.app.model.UploadJob;
+import com.copo.app.repository.UploadJobRepository;
+
+/**
+ * Runs uploads in the background and keeps their progress for polling.
+ *
+ * The file is spooled to disk on the request thread and a job id is returned straight away. A
+ * worker of {@code uploadExecutor} then reads it in chunks of {@code copo.upload.chunk-size} rows;
+ * each chunk is saved by the import service in its own transaction, so a failure only loses the
+ * chunk it happened in. The progress is written to the {@code upload_jobs} table after each
+ * chunk, so the job can be polled through any node. Every {@code copo.upload.heartbeat} a node
+ * touches the jobs it still has queued or running; a job left untouched for
+ * {@code copo.upload.stale-after} belonged to a node that stopped and is marked failed. Finished
+ * jobs are kept for {@code copo.upload.retention}.
+ */
+@Service
+public class UploadJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadJobService.class);
+
+    /** Row errors kept per job; the rest are only counted. */
+    static final int MAX_ERRORS = 1000;
+
+    @Autowired
+    @Qualifier("uploadExecutor")
+    private ThreadPoolTaskExecutor uploadExecutor;
+
+    @Autowired
+    private UploadJobRepository uploadJobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private FacultyService facultyService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private QuestionService questionService;
+
+    @Autowired
+    private CoPoMatrixService coPoMatrixService;
+
+    @Value("${copo.upload.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${copo.upload.retention:1h}")
+    private Duration retention;
+
+    @Value("${copo.upload.stale-after:5m}")
+    private Duration staleAfter;
+
+    // jobs queued or running on this node, touched by heartbeat()
+    private final Set<String> localJobs = ConcurrentHashMap.newKeySet();
+
+    public UploadJob submitStudents(MultipartFile file) {
+        return submit("students", file, ".csv", (job, path) -> importCsv(job, path, studentService::importStudentRows));
+    }
+
+    public UploadJob submitFaculty(MultipartFile file) {
+        return submit("faculty", file, ".csv", (job, path) -> importCsv(job, path, facultyService::importFacultyRows));
+    }
+
+    public UploadJob submitSubjects(MultipartFile file) {
+        return submit("subjects", file, ".csv", (job, path) -> importCsv(job, path, subjectService::importSubjectRows));
+    }
+
+    public UploadJob submitQuestions(MultipartFile file) {
+        return submit("questions", file, ".xlsx", (job, path) -> importXlsx(job, path, 10, questionService::importQuestionRows));
+    }
+
+    /**
+     * The CO-PO sheet is a handful of rows, so it is saved in one piece. With {@code incremental}
+     * an existing matrix is updated cell by cell instead of rejected.
+     */
+    public UploadJob submitCoPoMatrix(MultipartFile file, String subjectCode, String subjectName, boolean incremental) {
+        return submit("copo", file, ".xlsx", (job, path) -> {
+            try (InputStream in = Files.newInputStream(path)) {
+                int entries;
+                if (incremental) {
+                    // cells read from the sheet; deleted cells are not in it
+                    Map<String, Integer> changes = coPoMatrixService.updateFromExcel(in, subjectCode, subjectName);
+                    entries = changes.get("inserted") + changes.get("updated") + changes.get("unchanged");
+                } else {
+                    entries = coPoMatrixService.parseAndSaveExcel(in, subjectCode, subjectName);
+                }
+                chunkCommitted(job, entries, List.of());
+            }
+        });
+    }
+
+    public Optional<UploadJob> getJob(String id) {
+        return uploadJobRepository.findById(id);
+    }
+
+    public List<UploadJob> getJobs() {
+        return uploadJobRepository.findAllByOrderBySubmittedAtAsc();
+    }
+
+    /** Status as returned by the upload jobs endpoint. */
+    public Map<String, Object> toStatus(UploadJob job) {
+        Instant started = job.getStartedAt();
+        Instant finished = job.getFinishedAt();
+        long elapsedMs = started == null ? 0 : Duration.between(started, finished != null ? finished : Instant.now()).toMillis();
+        int processed = job.getRowsProcessed();
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", job.getId());
+        status.put("kind", job.getKind());
+        status.put("fileName", job.getFileName());
+        status.put("status", job.getStatus());
+        status.put("submittedAt", job.getSubmittedAt().toString());
+        status.put("startedAt", started != null ? started.toString() : null);
+        status.put("finishedAt", finished != null ? finished.toString() : null);
+        status.put("rowsProcessed", processed);
+        status.put("rowsFailed", job.getRowsFailed());
+        status.put("chunksCommitted", job.getChunksCommitted());
+        status.put("elapsedMs", elapsedMs);
+        status.put("rowsPerSecond", elapsedMs == 0 ? 0 : processed * 1000L / elapsedMs);
+        status.put("failure", job.getFailure());
+        status.put("errors", job.getErrors() == null ? List.of() : List.of(job.getErrors().split("\n")));
+        return status;
+    }
+
+    /** Keeps this node's jobs alive, fails the jobs of nodes that stopped and drops old finished jobs. */
+    @Scheduled(fixedDelayString = "${copo.upload.heartbeat:1m}", initialDelayString = "${copo.upload.heartbeat:1m}")
+    public void heartbeat() {
+        Instant now = Instant.now();
+        if (!localJobs.isEmpty()) {
+            uploadJobRepository.touch(List.copyOf(localJobs), now);
+        }
+        int stale = uploadJobRepository.failStale(now.minus(staleAfter), now,
+                "Interrupted: the node running the upload stopped");
+        if (stale > 0) {
+            logger.warn("Marked {} upload jobs of stopped nodes as failed", stale);
+        }
+        uploadJobRepository.deleteFinishedBefore(now.minus(retention));
+    }
+
+    /**
+     * @throws TaskRejectedException when every worker is busy and the queue is full
+     */
+    private UploadJob submit(String kind, MultipartFile file, String suffix, JobTask task) {
+        Path spooled;
+        try {
+            spooled = Files.createTempFile("upload-job-", suffix);
+            file.transferTo(spooled);
+        } catch (IOException e) {
+            logger.error("Failed to spool {} upload", kind, e);
+            throw new RuntimeException("Failed to store uploaded file. Error: " + e.getMessage());
+        }
+
+        return execute(kind, file.getOriginalFilename(), spooled, task, true);
+    }
+
+    /**
+     * Runs {@code task} on a file the caller keeps, such as the spool of an upload session; the
+     * file is left in place when the job ends.
+     *
+     * @throws TaskRejectedException when every worker is busy and the queue is full
+     */
+    UploadJob submitFile(String kind, String fileName, Path file, JobTask task) {
+        return execute(kind, fileName, file, task, false);
+    }
+
+    private UploadJob execute(String kind, String fileName, Path file, JobTask task, boolean deleteAfter) {
+        // committed on its own, before the worker can pick the job up, even when the caller
+        // is in a transaction (an upload session holding its row lock)
+        TransactionTemplate ownTransaction = new TransactionTemplate(transactionManager);
+        ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Instant now = Instant.now();
+        UploadJob job = ownTransaction.execute(tx -> uploadJobRepository.save(UploadJob.builder()
+                .id(UUID.randomUUID().toString())
+                .kind(kind)
+                .fileName(fileName)
+                .status(UploadJob.Status.QUEUED)
+                .submittedAt(now)
+                .updatedAt(now)
+                .build()));
+        localJobs.add(job.getId());
+        try {
+            uploadExecutor.execute(() -> run(job, file, task, deleteAfter));
+        } catch (TaskRejectedException e) {
+            localJobs.remove(job.getId());
+            ownTransaction.executeWithoutResult(tx -> uploadJobRepository.deleteById(job.getId()));
+            if (deleteAfter) {
+                deleteQuietly(file);
+            }
+            logger.warn("Rejected {} upload, the upload queue is full", kind);
+            throw e;
+        }
+        logger.info("Queued {} upload job {} ({})", kind, job.getId(), fileName);
+        return job;
+    }
+
+    private void run(UploadJob job, Path file, JobTask task, boolean deleteAfter) {
+        try {
+            job.setStatus(UploadJob.Status.RUNNING);
+            job.setStartedAt(Instant.now());
+            save(job);
+            task.run(job, file);
+            job.setStatus(UploadJob.Status.COMPLETED);
+            job.setFinishedAt(Instant.now());
+            save(job);
+            logger.info("Upload job {} finished: {}", job.getId(), job);
+        } catch (Exception e) {
+            logger.error("Upload job {} failed", job.getId(), e);
+            try {
+                job.setStatus(UploadJob.Status.FAILED);
+                job.setFailure(abbreviate(e.getMessage(), 2000));
+                job.setFinishedAt(Instant.now());
+                save(job);
+            } catch (RuntimeException saveFailure) {
+                // left to the heartbeat of another node, which fails it as stale
+                logger.error("Could not record the failure of upload job {}", job.getId(), saveFailure);
+            }
+        } finally {
+            localJobs.remove(job.getId());
+            if (deleteAfter) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    void chunkCommitted(UploadJob job, int rows, List<String> rowErrors) {
+        job.setRowsProcessed(job.getRowsProcessed() + rows);
+        job.setRowsFailed(job.getRowsFailed() + rowErrors.size());
+        job.setChunksCommitted(job.getChunksCommitted() + 1);
+        addErrors(job, rowErrors);
+        save(job);
+    }
+
+    void chunkFailed(UploadJob job, int rows, String error) {
+        chunkRejected(job, rows, List.of(error));
+    }
+
+    /** A chunk rolled back because of its row errors, as upload sessions do. */
+    void chunkRejected(UploadJob job, int rows, List<String> rowErrors) {
+        job.setRowsProcessed(job.getRowsProcessed() + rows);
+        job.setRowsFailed(job.getRowsFailed() + rows);
+        addErrors(job, rowErrors);
+        save(job);
+    }
+
+    private void addErrors(UploadJob job, List<String> rowErrors) {
+        int room = Math.min(MAX_ERRORS - job.getErrorCount(), rowErrors.size());
+        if (room <= 0) {
+            return;
+        }
+        StringBuilder errors = new StringBuilder(job.getErrors() == null ? "" : job.getErrors());
+        for (String error : rowErrors.subList(0, room)) {
+            if (!errors.isEmpty()) {
+                errors.append('\n');
+            }
+            errors.append(abbreviate(error.replace('\n', ' '), 199));
+        }
+        job.setErrors(errors.toString());
+        job.setErrorCount(job.getErrorCount() + room);
+    }
+
+    private void save(UploadJob job) {
+        job.setUpdatedAt(Instant.now());
+        uploadJobRepository.save(job);
+    }
+
+    // the columns hold 2000 characters of failure and 1000 errors of 200 (with their line breaks)
+    private static String abbreviate(String message, int max) {
+        return message != null && message.length() > max ? message.substring(0, max - 3) + "..." : message;
+    }
+
+    private void importCsv(UploadJob job, Path file, Function<List<UploadRow>, Map<String, Object>> importer)
+            throws IOException {
+        readCsv(file, 0, chunk -> importChunk(job, chunk, importer));
+    }
+
+    private void importXlsx(UploadJob job, Path file, int columns,
+            Function<List<UploadRow>, Map<String, Object>> importer) throws IOException {
+        readXlsx(file, columns, 0, chunk -> importChunk(job, chunk, importer));
+    }
+
+    /** Whether uploads of this kind are imported in row chunks, and so can be sent as an upload session. */
+    boolean isChunked(String kind) {
+        return rowImporter(kind) != null;
+    }
+
+    /** Imports one chunk of rows of the given kind; see {@link #isChunked(String)}. */
+    Map<String, Object> importRows(String kind, List<UploadRow> chunk) {
+        return rowImporter(kind).apply(chunk);
+    }
+
+    /**
+     * Hands the rows of a file of the given kind to {@code handler} in chunks of
+     * {@code copo.upload.chunk-size}, starting after row {@code skipThrough}. Skipped rows are
+     * not split or validated. The chunk list is reused once the handler returns.
+     */
+    void readChunks(String kind, Path file, int skipThrough, Consumer<List<UploadRow>> handler) throws IOException {
+        if ("questions".equals(kind)) {
+            readXlsx(file, 10, skipThrough, handler);
+        } else {
+            readCsv(file, skipThrough, handler);
+        }
+    }
+
+    private Function<List<UploadRow>, Map<String, Object>> rowImporter(String kind) {
+        return switch (kind) {
+            case "students" -> studentService::importStudentRows;
+            case "faculty" -> facultyService::importFacultyRows;
+            case "subjects" -> subjectService::importSubjectRows;
+            case "questions" -> questionService::importQuestionRows;
+            default -> null;
+        };
+    }
+
+    private void readCsv(Path file, int skipThrough, Consumer<List<UploadRow>> handler) throws IOException {
+        List<UploadRow> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = br.readLine()) != null) {
+                if (++lineNumber <= skipThrough) {
+                    continue;
+                }
+                chunk.add(new UploadRow(lineNumber, line.split(",")));
+                if (chunk.size() == chunkSize) {
+                    handler.accept(chunk);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            handler.accept(chunk);
+        }
+    }
+
+    private void readXlsx(Path file, int columns, int skipThrough, Consumer<List<UploadRow>> handler)
+            throws IOException {
+        List<UploadRow> chunk = new ArrayList<>(chunkSize);
+        XlsxRowReader.read(file, columns, (i, cells) -> {
+            if (i == 0 || i + 1 <= skipThrough) return; // header, or already imported
+            // the reader reuses the cells array
+            chunk.add(new UploadRow(i + 1, cells.clone()));
+            if (chunk.size() == chunkSize) {
+                handler.accept(chunk);
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) {
+            handler.accept(chunk);
+        }
+    }
+
+    /** Saves one chunk in its own transaction; a chunk that fails as a whole counts all its rows as failed. */
+    @SuppressWarnings("unchecked")
+    private void importChunk(UploadJob job, List<UploadRow> chunk,
+            Function<List<UploadRow>, Map<String, Object>> importer) {
+        try {
+            Map<String, Object> result = importer.apply(chunk);
+            chunkCommitted(job, chunk.size(), (List<String>) result.getOrDefault("errors", List.of()));
+        } catch (RuntimeException e) {
+            logger.warn("Upload job {} lost rows {}-{}", job.getId(), chunk.get(0).number(),
+                    chunk.get(chunk.size() - 1).number(), e);
+            chunkFailed(job, chunk.size(), "Rows " + chunk.get(0).number() + "-" + chunk.get(chunk.size() - 1).number()
+                    + ": " + e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete spooled upload {}", file, e);
+        }
+    }
+
+    @FunctionalInterface
+    interface JobTask {
+        void run(UploadJob job, Path file) throws Exception;
+    }
+}
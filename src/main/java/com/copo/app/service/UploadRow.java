@@ -0,0 +1,8 @@
+package com.copo.app.service;
+
+/**
+ * One row of an uploaded file, split into cells. {@code number} is the 1-based line or sheet row
+ * number shown in the "Row n: ..." error messages.
+ */
+public record UploadRow(int number, String[] cells) {
+}
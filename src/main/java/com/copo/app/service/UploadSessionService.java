@@ -0,0 +1,312 @@
+package com.copo.app.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.copo.app.model.UploadJob;
+import com.copo.app.model.UploadSession;
+import com.copo.app.repository.UploadSessionRepository;
+
+/**
+ * Chunked, resumable uploads of rosters and question banks.
+ *
+ * The client opens a session, sends the file in numbered parts (a part already received is
+ * acknowledged again, so a retried part is harmless) and then starts the import, which runs as an
+ * {@link UploadJob}. Unlike a plain upload job, each chunk is all or nothing: it is saved in one
+ * transaction together with the session's checkpoint, and a chunk with invalid rows is rolled
+ * back and stops the import. The client can then send a corrected file and import again; rows up
+ * to the checkpoint are skipped without being parsed or validated.
+ *
+ * Every change to a session runs in a transaction that first locks its row
+ * ({@code SELECT ... FOR UPDATE}), so parts, imports and checkpoints of one session are serialized
+ * across nodes. The parts are spooled under {@code copo.upload.session-dir}, which must be storage
+ * shared by all nodes (e.g. a network file system mount) when more than one node serves uploads:
+ * the parts of a session may arrive at different nodes, and its import runs on whichever node
+ * starts it.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionService.class);
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UploadJobService uploadJobService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${copo.upload.session-dir:${java.io.tmpdir}/copo-upload-sessions}")
+    private Path sessionDir;
+
+    @Value("${copo.upload.session-retention:7d}")
+    private Duration retention;
+
+    public UploadSession createSession(String kind, String fileName) {
+        if (!uploadJobService.isChunked(kind)) {
+            throw new IllegalArgumentException("Upload sessions are not supported for: " + kind);
+        }
+        purgeExpired();
+        Instant now = Instant.now();
+        UploadSession session = UploadSession.builder()
+                .id(UUID.randomUUID().toString())
+                .kind(kind)
+                .fileName(fileName)
+                .status(UploadSession.Status.RECEIVING)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        try {
+            Files.createDirectories(sessionDir);
+            Files.createFile(spool(session));
+        } catch (IOException e) {
+            logger.error("Failed to create spool for {} upload session", kind, e);
+            throw new RuntimeException("Failed to create upload session. Error: " + e.getMessage());
+        }
+        logger.info("Opened {} upload session {} ({})", kind, session.getId(), fileName);
+        return uploadSessionRepository.save(session);
+    }
+
+    public Optional<UploadSession> getSession(String id) {
+        return uploadSessionRepository.findById(id);
+    }
+
+    /**
+     * Appends part {@code index} (counted from 0) to the session's file. Bytes left behind by a
+     * part that broke off are cut before the part is written again.
+     */
+    public UploadSession appendPart(String id, int index, InputStream body) {
+        return withLocked(id, session -> {
+            requireNotImporting(session);
+            if (index < session.getPartsReceived()) {
+                return session;
+            }
+            if (index > session.getPartsReceived()) {
+                throw new IllegalStateException("Expected part " + session.getPartsReceived() + ", got part " + index);
+            }
+            long written;
+            try (FileChannel channel = FileChannel.open(spool(session), StandardOpenOption.WRITE)) {
+                channel.truncate(session.getBytesReceived());
+                channel.position(session.getBytesReceived());
+                written = body.transferTo(Channels.newOutputStream(channel));
+            } catch (IOException e) {
+                logger.error("Failed to store part {} of upload session {}", index, id, e);
+                throw new RuntimeException("Failed to store part " + index + ". Error: " + e.getMessage());
+            }
+            session.setPartsReceived(index + 1);
+            session.setBytesReceived(session.getBytesReceived() + written);
+            session.setStatus(UploadSession.Status.RECEIVING);
+            session.setUpdatedAt(Instant.now());
+            return uploadSessionRepository.save(session);
+        });
+    }
+
+    /** Drops the parts received so far, e.g. to send a corrected file; the checkpoint is kept. */
+    public UploadSession discardParts(String id) {
+        return withLocked(id, session -> {
+            requireNotImporting(session);
+            try (FileChannel channel = FileChannel.open(spool(session), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                channel.truncate(0);
+            } catch (IOException e) {
+                logger.error("Failed to reset upload session {}", id, e);
+                throw new RuntimeException("Failed to discard parts. Error: " + e.getMessage());
+            }
+            session.setPartsReceived(0);
+            session.setBytesReceived(0);
+            session.setStatus(UploadSession.Status.RECEIVING);
+            session.setUpdatedAt(Instant.now());
+            return uploadSessionRepository.save(session);
+        });
+    }
+
+    /**
+     * Imports the session's file from its checkpoint on. The job's first chunk waits for the
+     * session's row lock, so it starts once the session is saved as importing.
+     *
+     * @throws TaskRejectedException when every upload worker is busy and the queue is full
+     */
+    public UploadJob startImport(String id) {
+        return withLocked(id, session -> {
+            requireNotImporting(session);
+            if (session.getStatus() == UploadSession.Status.COMPLETED) {
+                throw new IllegalStateException("Upload session " + id + " is already imported");
+            }
+            if (session.getPartsReceived() == 0) {
+                throw new IllegalStateException("Upload session " + id + " has no parts");
+            }
+            int skipThrough = session.getCommittedThroughRow();
+            UploadJob job = uploadJobService.submitFile(session.getKind(), session.getFileName(), spool(session),
+                    (j, file) -> runImport(id, session.getKind(), skipThrough, j, file));
+            session.setStatus(UploadSession.Status.IMPORTING);
+            session.setJobId(job.getId());
+            session.setLastError(null);
+            session.setUpdatedAt(Instant.now());
+            uploadSessionRepository.save(session);
+            logger.info("Importing upload session {} after row {} as job {}", id, skipThrough, job.getId());
+            return job;
+        });
+    }
+
+    public void deleteSession(String id) {
+        withLocked(id, session -> {
+            requireNotImporting(session);
+            delete(session);
+            return null;
+        });
+    }
+
+    /** Status as returned by the upload sessions endpoint. */
+    public Map<String, Object> toStatus(UploadSession session) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("sessionId", session.getId());
+        status.put("kind", session.getKind());
+        status.put("fileName", session.getFileName());
+        status.put("status", session.getStatus());
+        status.put("partsReceived", session.getPartsReceived());
+        status.put("bytesReceived", session.getBytesReceived());
+        status.put("committedThroughRow", session.getCommittedThroughRow());
+        status.put("rowsCommitted", session.getRowsCommitted());
+        status.put("jobId", session.getJobId());
+        status.put("lastError", session.getLastError());
+        status.put("updatedAt", session.getUpdatedAt() != null ? session.getUpdatedAt().toString() : null);
+        return status;
+    }
+
+    private void runImport(String id, String kind, int skipThrough, UploadJob job, Path file) throws Exception {
+        try {
+            uploadJobService.readChunks(kind, file, skipThrough, chunk -> commitChunk(id, kind, job, chunk));
+        } catch (Exception e) {
+            finish(id, UploadSession.Status.FAILED, e.getMessage());
+            throw e;
+        }
+        finish(id, UploadSession.Status.COMPLETED, null);
+    }
+
+    /**
+     * Saves a chunk and moves the checkpoint past it in one transaction, or rolls both back. The
+     * session's row is locked before the rows are imported.
+     */
+    @SuppressWarnings("unchecked")
+    private void commitChunk(String id, String kind, UploadJob job, List<UploadRow> chunk) {
+        int first = chunk.get(0).number();
+        int last = chunk.get(chunk.size() - 1).number();
+        List<String> errors;
+        try {
+            errors = new TransactionTemplate(transactionManager).execute(tx -> {
+                UploadSession session = findLocked(id);
+                Map<String, Object> result = uploadJobService.importRows(kind, chunk);
+                List<String> rowErrors = (List<String>) result.getOrDefault("errors", List.of());
+                if (!rowErrors.isEmpty()) {
+                    tx.setRollbackOnly();
+                    return rowErrors;
+                }
+                session.setCommittedThroughRow(last);
+                session.setRowsCommitted(session.getRowsCommitted() + chunk.size());
+                session.setUpdatedAt(Instant.now());
+                uploadSessionRepository.save(session);
+                return List.of();
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Upload session {} could not save rows {}-{}", id, first, last, e);
+            errors = List.of("Rows " + first + "-" + last + ": " + e.getMessage());
+        }
+        if (!errors.isEmpty()) {
+            uploadJobService.chunkRejected(job, chunk.size(), errors);
+            throw new IllegalStateException("Rows " + first + "-" + last + " were not saved (" + errors.size()
+                    + " errors); rows up to " + (first - 1) + " are saved, fix the file and import again");
+        }
+        uploadJobService.chunkCommitted(job, chunk.size(), List.of());
+    }
+
+    private void finish(String id, UploadSession.Status status, String error) {
+        withLocked(id, session -> {
+            session.setStatus(status);
+            session.setLastError(error);
+            session.setUpdatedAt(Instant.now());
+            uploadSessionRepository.save(session);
+            if (status == UploadSession.Status.COMPLETED) {
+                deleteSpool(session);
+            }
+            return null;
+        });
+    }
+
+    /** Runs {@code action} in a transaction holding the session's row lock. */
+    private <T> T withLocked(String id, Function<UploadSession, T> action) {
+        return new TransactionTemplate(transactionManager).execute(tx -> action.apply(findLocked(id)));
+    }
+
+    private UploadSession findLocked(String id) {
+        return uploadSessionRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown upload session: " + id));
+    }
+
+    /** A session marked importing whose job is gone (e.g. after a restart) can be imported again. */
+    private void requireNotImporting(UploadSession session) {
+        if (session.getStatus() == UploadSession.Status.IMPORTING && session.getJobId() != null
+                && uploadJobService.getJob(session.getJobId())
+                        .map(UploadJob::isActive)
+                        .orElse(false)) {
+            throw new IllegalStateException("Upload session " + session.getId() + " is being imported");
+        }
+    }
+
+    private void purgeExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        for (UploadSession expired : uploadSessionRepository.findByUpdatedAtBefore(cutoff)) {
+            try {
+                withLocked(expired.getId(), session -> {
+                    // checked again under the lock, another node may have just touched it
+                    if (session.getStatus() != UploadSession.Status.IMPORTING && session.getUpdatedAt().isBefore(cutoff)) {
+                        delete(session);
+                    }
+                    return null;
+                });
+            } catch (IllegalArgumentException e) {
+                // deleted by another node meanwhile
+            }
+        }
+    }
+
+    private void delete(UploadSession session) {
+        deleteSpool(session);
+        uploadSessionRepository.delete(session);
+    }
+
+    private Path spool(UploadSession session) {
+        return sessionDir.resolve(session.getId() + ".part");
+    }
+
+    private void deleteSpool(UploadSession session) {
+        try {
+            Files.deleteIfExists(spool(session));
+        } catch (IOException e) {
+            logger.warn("Could not delete spool of upload session {}", session.getId(), e);
+        }
+    }
+}
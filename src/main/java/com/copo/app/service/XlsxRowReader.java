@@ -0,0 +1,120 @@
+package com.copo.app.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Reads the first sheet of an .xlsx upload row by row with POI's SAX event API, without
+ * building the workbook in memory.
+ *
+ * The upload is spooled to a temporary file so the package is read from disk; only the shared
+ * strings table and the cells of the current row are held in memory. Cell values come out as
+ * trimmed text, the same way the upload services read them from a {@code Cell}: whole numbers
+ * without a trailing ".0", dates as {@link java.util.Date#toString()}, blanks as "".
+ */
+public final class XlsxRowReader {
+
+	/** Receives the cells of one row, indexed by column. The array is reused between rows. */
+	@FunctionalInterface
+	public interface RowHandler {
+		void row(int rowIndex, String[] cells);
+	}
+
+	private XlsxRowReader() {
+	}
+
+	/**
+	 * @param in      the .xlsx content; it is consumed but not closed
+	 * @param columns number of leading columns passed to the handler, the rest are ignored
+	 */
+	public static void read(InputStream in, int columns, RowHandler handler) throws IOException {
+		Path spooled = Files.createTempFile("upload-", ".xlsx");
+		try {
+			Files.copy(in, spooled, StandardCopyOption.REPLACE_EXISTING);
+			read(spooled, columns, handler);
+		} finally {
+			Files.deleteIfExists(spooled);
+		}
+	}
+
+	/** Reads an .xlsx file already on disk. */
+	public static void read(Path file, int columns, RowHandler handler) throws IOException {
+		try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+			XSSFReader reader = new XSSFReader(pkg);
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+			if (!sheets.hasNext()) {
+				return;
+			}
+			try (InputStream sheet = sheets.next()) {
+				XMLReader parser = XMLHelper.newXMLReader();
+				parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), null,
+						new ReadOnlySharedStringsTable(pkg), new Rows(columns, handler), new CellFormatter(), false));
+				parser.parse(new InputSource(sheet));
+			}
+		} catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	private static final class Rows implements XSSFSheetXMLHandler.SheetContentsHandler {
+		private final String[] cells;
+		private final RowHandler handler;
+		private int column;
+
+		Rows(int columns, RowHandler handler) {
+			this.cells = new String[columns];
+			this.handler = handler;
+		}
+
+		@Override
+		public void startRow(int rowNum) {
+			Arrays.fill(cells, "");
+			column = -1;
+		}
+
+		@Override
+		public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+			column = cellReference != null ? new CellReference(cellReference).getCol() : column + 1;
+			if (column < cells.length && formattedValue != null) {
+				cells[column] = formattedValue.trim();
+			}
+		}
+
+		@Override
+		public void endRow(int rowNum) {
+			handler.row(rowNum, cells);
+		}
+	}
+
+	/** Formats numeric cells the way the upload services always have, ignoring the number format. */
+	private static final class CellFormatter extends DataFormatter {
+		@Override
+		public String formatRawCellContents(double value, int formatIndex, String formatString) {
+			if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+				return DateUtil.getJavaDate(value).toString();
+			}
+			return String.valueOf(value).replaceAll("\\.0$", "");
+		}
+	}
+}
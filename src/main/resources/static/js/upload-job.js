@@ -0,0 +1,76 @@
+// Upload forms marked with data-upload-job="<POST url>" are sent to the background upload jobs;
+// the job is then polled until it ends and its progress and row errors are shown under the form.
+(function () {
+    const POLL_MS = 1000;
+
+    function show(box, cssClass, text, errors) {
+        box.className = 'alert mt-2 mb-0 ' + cssClass;
+        box.textContent = text;
+        if (errors && errors.length) {
+            const list = document.createElement('ul');
+            list.className = 'mb-0 mt-2 small';
+            errors.forEach(function (error) {
+                const item = document.createElement('li');
+                item.textContent = error;
+                list.appendChild(item);
+            });
+            box.appendChild(list);
+        }
+    }
+
+    function poll(form, box, statusUrl) {
+        fetch(statusUrl, { headers: { 'Accept': 'application/json' } })
+            .then(function (response) { return response.json(); })
+            .then(function (job) {
+                if (job.error) {
+                    show(box, 'alert-danger', job.error);
+                    form.dataset.busy = '';
+                } else if (job.status === 'QUEUED' || job.status === 'RUNNING') {
+                    show(box, 'alert-info', (job.status === 'QUEUED' ? 'Waiting to start' : 'Uploading')
+                            + ': ' + job.rowsProcessed + ' rows processed, ' + job.rowsFailed + ' failed');
+                    setTimeout(function () { poll(form, box, statusUrl); }, POLL_MS);
+                } else if (job.status === 'FAILED') {
+                    show(box, 'alert-danger', 'Upload failed: ' + job.failure, job.errors);
+                    form.dataset.busy = '';
+                } else {
+                    const saved = job.rowsProcessed - job.rowsFailed;
+                    show(box, job.rowsFailed ? 'alert-warning' : 'alert-success', 'Upload finished: ' + saved
+                            + ' rows saved, ' + job.rowsFailed + ' failed. Reload the page to see them.', job.errors);
+                    form.dataset.busy = '';
+                }
+            })
+            .catch(function () {
+                // a dropped poll is retried, the job carries on regardless
+                setTimeout(function () { poll(form, box, statusUrl); }, POLL_MS * 5);
+            });
+    }
+
+    document.querySelectorAll('form[data-upload-job]').forEach(function (form) {
+        const box = document.createElement('div');
+        box.setAttribute('role', 'status');
+        form.appendChild(box);
+
+        form.addEventListener('submit', function (event) {
+            event.preventDefault();
+            if (form.dataset.busy) {
+                return;
+            }
+            form.dataset.busy = 'true';
+            show(box, 'alert-info', 'Sending the file...');
+            fetch(form.dataset.uploadJob, { method: 'POST', body: new FormData(form) })
+                .then(function (response) { return response.json(); })
+                .then(function (body) {
+                    if (body.statusUrl) {
+                        poll(form, box, body.statusUrl);
+                    } else {
+                        show(box, 'alert-danger', body.error || 'Upload rejected.');
+                        form.dataset.busy = '';
+                    }
+                })
+                .catch(function (error) {
+                    show(box, 'alert-danger', 'Upload failed: ' + error.message);
+                    form.dataset.busy = '';
+                });
+        });
+    });
+})();
@@ -0,0 +1,190 @@
+package com.copo.app.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.core.serializer.support.SerializationDelegate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.copo.app.model.Department;
+import com.copo.app.model.Section;
+import com.copo.app.model.Subject;
+import com.copo.app.service.ReferenceCache.DepartmentRef;
+import com.copo.app.service.ReferenceCache.SectionRef;
+import com.copo.app.service.ReferenceCache.SubjectRef;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+class TwoTierCacheTest {
+
+	private final SharedTier shared = new SharedTier();
+	private final List<String> announced = new ArrayList<>();
+
+	@Test
+	void sharedHitsAreCopiedIntoTheLocalTier() {
+		shared.put("k", "v");
+		shared.calls.set(0);
+		TwoTierCache cache = cache(shared);
+
+		assertEquals("v", cache.get("k").get());
+		assertEquals("v", cache.get("k").get());
+
+		assertEquals(1, shared.calls.get());
+	}
+
+	@Test
+	void writesGoToBothTiersAndEvictionsAreAnnounced() {
+		TwoTierCache cache = cache(shared);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		assertEquals("1", shared.get("a").get());
+
+		cache.evict("a");
+		assertNull(cache.get("a"));
+		assertNull(shared.get("a"));
+		assertEquals("2", cache.get("b").get());
+
+		cache.clear();
+		assertNull(cache.get("b"));
+		assertNull(shared.get("b"));
+		assertEquals(List.of("refs", "refs"), announced);
+	}
+
+	@Test
+	void aChangeAnnouncedByAnotherNodeOnlyDropsTheLocalTier() {
+		TwoTierCache cache = cache(shared);
+		cache.put("k", "v");
+
+		cache.clearLocal();
+
+		assertEquals("v", shared.get("k").get());
+		assertEquals("v", cache.get("k").get());
+		assertEquals(List.of(), announced);
+	}
+
+	@Test
+	void nullValuesAreNotCached() {
+		TwoTierCache cache = cache(shared);
+		AtomicInteger loads = new AtomicInteger();
+
+		assertNull(cache.get("k", () -> {
+			loads.incrementAndGet();
+			return null;
+		}));
+		assertEquals("v", cache.get("k", () -> {
+			loads.incrementAndGet();
+			return "v";
+		}));
+		assertEquals("v", cache.get("k", () -> {
+			loads.incrementAndGet();
+			return "other";
+		}));
+
+		assertEquals(2, loads.get());
+		assertEquals("v", shared.get("k").get());
+	}
+
+	@Test
+	void aFailingSharedTierIsSkippedUntilItsRetry() {
+		TwoTierCache cache = cache(shared);
+		shared.down = true;
+
+		assertNull(cache.get("k"));
+		cache.put("k", "v");
+		cache.evict("other");
+		assertEquals("v", cache.get("k").get());
+		assertEquals(1, shared.calls.get());
+		assertEquals(List.of("refs"), announced);
+
+		shared.down = false;
+		ReflectionTestUtils.setField(cache, "sharedRetryAt", System.nanoTime());
+		cache.put("k2", "v2");
+		assertEquals("v2", shared.get("k2").get());
+	}
+
+	@Test
+	void aLocalOnlyCacheNeedsNoSharedTier() {
+		TwoTierCache cache = cache(null);
+
+		cache.put("k", "v");
+		assertEquals("v", cache.get("k", String.class));
+		cache.clear();
+		assertNull(cache.get("k"));
+	}
+
+	@Test
+	void referenceRecordsSurviveTheSharedTier() {
+		// the shared tier stores values serialized, like Redis
+		DepartmentRef department = new DepartmentRef(1L, "CSE", "Computer Science", false,
+				List.of(new SectionRef(1, "A", null), new SectionRef(2, "B", null)));
+		SubjectRef subject = new SubjectRef(7L, "Compilers", "CS301", 5,
+				new DepartmentRef(1L, "CSE", "Computer Science", false, null));
+		cache(shared).put("v1:department", department);
+		cache(shared).put("v1:subject", subject);
+
+		TwoTierCache otherNode = cache(shared);
+		assertEquals(department, otherNode.get("v1:department").get());
+		assertEquals(subject, otherNode.get("v1:subject").get());
+
+		Department entity = ((DepartmentRef) otherNode.get("v1:department").get()).toEntity();
+		assertEquals(List.of("A", "B"), entity.getSections().stream().map(Section::getSectionName).toList());
+		assertSame(entity, entity.getSections().get(0).getDepartment());
+		Subject subjectEntity = ((SubjectRef) otherNode.get("v1:subject").get()).toEntity();
+		assertNotNull(subjectEntity.getDepartment());
+		assertEquals("CSE", subjectEntity.getDepartment().getName());
+	}
+
+	private TwoTierCache cache(SharedTier sharedTier) {
+		return new TwoTierCache("refs", Caffeine.newBuilder().build(), sharedTier, announced::add);
+	}
+
+	/** An in-memory shared tier that stores values serialized and can be taken down. */
+	private static final class SharedTier extends ConcurrentMapCache {
+
+		final AtomicInteger calls = new AtomicInteger();
+		volatile boolean down;
+
+		SharedTier() {
+			super("refs", new ConcurrentHashMap<>(), false, new SerializationDelegate(SharedTier.class.getClassLoader()));
+		}
+
+		@Override
+		public ValueWrapper get(Object key) {
+			check();
+			return super.get(key);
+		}
+
+		@Override
+		public void put(Object key, Object value) {
+			check();
+			super.put(key, value);
+		}
+
+		@Override
+		public void evict(Object key) {
+			check();
+			super.evict(key);
+		}
+
+		@Override
+		public void clear() {
+			check();
+			super.clear();
+		}
+
+		private void check() {
+			calls.incrementAndGet();
+			if (down) {
+				throw new IllegalStateException("connection refused");
+			}
+		}
+	}
+}
@@ -0,0 +1,314 @@
+package com.copo.app.load;
+
+import java.io.File;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Replays a mix of faculty and student traffic against a running instance and prints latency
+ * percentiles per endpoint.
+ *
+ * The logins and ids come from the manifest written by the synthetic data generator
+ * ({@code copo.seed.enabled=true}), so the same manifest gives the same traffic. Start the
+ * application (e.g. {@code mvn -P h2 spring-boot:run -Dspring-boot.run.profiles=h2}) and run:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.copo.app.load.MarksLoadDriver \
+ *     -Dexec.args="baseUrl=http://localhost:9091 threads=16 durationSeconds=60"
+ * </pre>
+ *
+ * Arguments are {@code key=value} pairs: baseUrl, manifest, threads, warmupSeconds,
+ * durationSeconds, students (number of student sessions), seed and the weights view, filter,
+ * matrix and submit.
+ */
+public class MarksLoadDriver {
+
+	enum Operation {
+		VIEW("/faculty-marks/view"),
+		FILTER("/students/filter"),
+		MATRIX("/copo/matrix"),
+		SUBMIT("/student-marks/submit");
+
+		final String path;
+
+		Operation(String path) {
+			this.path = path;
+		}
+	}
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Map<String, String> options;
+	private final String baseUrl;
+	private final JsonNode manifest;
+	private final Map<String, List<Long>> questionIds = new HashMap<>();
+
+	private final Map<Operation, ConcurrentLinkedQueue<Long>> latencies = new EnumMap<>(Operation.class);
+	private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+	private volatile boolean recording;
+	private volatile boolean running = true;
+
+	MarksLoadDriver(Map<String, String> options) throws Exception {
+		this.options = options;
+		this.baseUrl = option("baseUrl", "http://localhost:9091");
+		this.manifest = objectMapper.readTree(new File(option("manifest", "target/seed-manifest.json")));
+		manifest.get("questionIds").fields().forEachRemaining(e -> {
+			List<Long> ids = new ArrayList<>();
+			e.getValue().forEach(id -> ids.add(id.asLong()));
+			questionIds.put(e.getKey(), ids);
+		});
+		for (Operation operation : Operation.values()) {
+			latencies.put(operation, new ConcurrentLinkedQueue<>());
+			errors.put(operation, new LongAdder());
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			if (eq > 0) {
+				options.put(arg.substring(0, eq), arg.substring(eq + 1));
+			}
+		}
+		new MarksLoadDriver(options).run();
+	}
+
+	void run() throws Exception {
+		int threads = Integer.parseInt(option("threads", "8"));
+		int warmupSeconds = Integer.parseInt(option("warmupSeconds", "10"));
+		int durationSeconds = Integer.parseInt(option("durationSeconds", "60"));
+		long seed = Long.parseLong(option("seed", "42"));
+		Operation[] mix = mix();
+
+		JsonNode faculty = manifest.get("faculty").get(0);
+		List<Session> studentSessions = new ArrayList<>();
+		JsonNode students = manifest.get("students");
+		int studentCount = Math.min(students.size(), Integer.parseInt(option("students", "20")));
+		for (int i = 0; i < studentCount; i++) {
+			// spread the sessions over the whole roster
+			JsonNode student = students.get(i * students.size() / studentCount);
+			studentSessions.add(Session.student(baseUrl, student));
+		}
+
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			Session facultySession = Session.faculty(baseUrl, faculty.get("facultycode").asText(),
+					faculty.get("password").asText());
+			Random random = new Random(seed + t);
+			workers.submit(() -> {
+				while (running) {
+					Operation operation = mix[random.nextInt(mix.length)];
+					Session session = operation == Operation.SUBMIT
+							? studentSessions.get(random.nextInt(studentSessions.size()))
+							: facultySession;
+					execute(operation, session, random);
+				}
+			});
+		}
+
+		System.out.printf("Warming up for %ds with %d threads...%n", warmupSeconds, threads);
+		Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+		recording = true;
+		long started = System.nanoTime();
+		Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+		recording = false;
+		double elapsed = (System.nanoTime() - started) / 1e9;
+		running = false;
+		workers.shutdown();
+		workers.awaitTermination(1, TimeUnit.MINUTES);
+
+		report(elapsed);
+	}
+
+	private void execute(Operation operation, Session session, Random random) {
+		HttpRequest request = request(operation, session, random);
+		long start = System.nanoTime();
+		try {
+			HttpResponse<byte[]> response = session.client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+			long took = System.nanoTime() - start;
+			if (!recording) {
+				return;
+			}
+			if (response.statusCode() == 200) {
+				latencies.get(operation).add(took);
+			} else {
+				errors.get(operation).increment();
+			}
+		} catch (Exception e) {
+			if (recording) {
+				errors.get(operation).increment();
+			}
+		}
+	}
+
+	private HttpRequest request(Operation operation, Session session, Random random) {
+		JsonNode subject = pick(manifest.get("subjects"), random);
+		JsonNode batchIds = manifest.get("batchIds");
+		long batchId = batchIds.get(random.nextInt(batchIds.size())).asLong();
+
+		Map<String, Object> params = new LinkedHashMap<>();
+		switch (operation) {
+		case VIEW -> {
+			JsonNode examTypes = manifest.get("examTypes");
+			params.put("departmentId", subject.get("departmentId").asLong());
+			params.put("batchId", batchId);
+			params.put("semester", subject.get("semester").asInt());
+			params.put("examType", examTypes.get(random.nextInt(examTypes.size())).asText());
+			params.put("subjectId", subject.get("id").asLong());
+		}
+		case FILTER -> {
+			params.put("departmentId", subject.get("departmentId").asLong());
+			params.put("batchId", batchId);
+		}
+		case MATRIX -> {
+			params.put("subjectName", subject.get("name").asText());
+			params.put("subjectCode", subject.get("code").asText());
+		}
+		case SUBMIT -> {
+			return session.post(operation.path, submission(session.student, random));
+		}
+		}
+		return session.get(operation.path + "?" + params.entrySet().stream()
+				.map(e -> e.getKey() + "=" + URLEncoder.encode(String.valueOf(e.getValue()), StandardCharsets.UTF_8))
+				.collect(Collectors.joining("&")));
+	}
+
+	/** A handful of marks for questions of the student's own department and batch. */
+	private String submission(JsonNode student, Random random) {
+		List<Long> ids = questionIds.getOrDefault(
+				student.get("departmentId").asLong() + ":" + student.get("batchId").asLong(), List.of());
+		List<Map<String, Object>> marks = new ArrayList<>();
+		for (int i = 0; i < Math.min(5, ids.size()); i++) {
+			marks.add(Map.of("question", Map.of("id", ids.get(random.nextInt(ids.size()))),
+					"answer", String.valueOf(random.nextInt(6))));
+		}
+		try {
+			return objectMapper.writeValueAsString(marks);
+		} catch (Exception e) {
+			throw new RuntimeException("Failed to write marks. Error: " + e.getMessage());
+		}
+	}
+
+	private Operation[] mix() {
+		List<Operation> mix = new ArrayList<>();
+		Map<Operation, Integer> defaults = Map.of(Operation.VIEW, 50, Operation.FILTER, 20, Operation.MATRIX, 15,
+				Operation.SUBMIT, 15);
+		for (Operation operation : Operation.values()) {
+			int weight = Integer.parseInt(option(operation.name().toLowerCase(), String.valueOf(defaults.get(operation))));
+			for (int i = 0; i < weight; i++) {
+				mix.add(operation);
+			}
+		}
+		return mix.toArray(new Operation[0]);
+	}
+
+	private void report(double elapsedSeconds) {
+		System.out.printf("%-24s %8s %8s %9s %9s %9s %9s %7s%n", "endpoint", "count", "req/s", "p50 ms", "p90 ms",
+				"p99 ms", "max ms", "errors");
+		for (Operation operation : Operation.values()) {
+			long[] sorted = latencies.get(operation).stream().mapToLong(Long::longValue).sorted().toArray();
+			System.out.printf("%-24s %8d %8.1f %9.2f %9.2f %9.2f %9.2f %7d%n", operation.path, sorted.length,
+					sorted.length / elapsedSeconds, percentile(sorted, 50), percentile(sorted, 90),
+					percentile(sorted, 99), sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6,
+					errors.get(operation).sum());
+		}
+	}
+
+	/** Nearest-rank percentile, in milliseconds. */
+	static double percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0.0;
+		}
+		int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+		return sorted[Math.max(0, rank - 1)] / 1e6;
+	}
+
+	private static JsonNode pick(JsonNode array, Random random) {
+		return array.get(random.nextInt(array.size()));
+	}
+
+	private String option(String key, String defaultValue) {
+		return options.getOrDefault(key, defaultValue);
+	}
+
+	/** An HTTP client holding one logged-in session cookie. */
+	static final class Session {
+		final String baseUrl;
+		final HttpClient client;
+		final JsonNode student;
+
+		private Session(String baseUrl, JsonNode student) {
+			this.baseUrl = baseUrl;
+			this.student = student;
+			this.client = HttpClient.newBuilder()
+					.cookieHandler(new CookieManager())
+					.followRedirects(HttpClient.Redirect.NEVER)
+					.connectTimeout(Duration.ofSeconds(10))
+					.build();
+		}
+
+		static Session faculty(String baseUrl, String facultycode, String password) throws Exception {
+			Session session = new Session(baseUrl, null);
+			session.login("/login/faculties", Map.of("facultycode", facultycode, "password", password));
+			return session;
+		}
+
+		static Session student(String baseUrl, JsonNode student) throws Exception {
+			Session session = new Session(baseUrl, student);
+			session.login("/login/students",
+					Map.of("rollNumber", student.get("rollNumber").asText(), "dob", student.get("dob").asText()));
+			return session;
+		}
+
+		/** A successful login redirects to the home page, a failed one renders the login form again. */
+		private void login(String path, Map<String, String> form) throws Exception {
+			String body = form.entrySet().stream()
+					.map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+					.collect(Collectors.joining("&"));
+			HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+					.header("Content-Type", "application/x-www-form-urlencoded")
+					.POST(HttpRequest.BodyPublishers.ofString(body))
+					.build(), HttpResponse.BodyHandlers.discarding());
+			if (response.statusCode() != 302) {
+				throw new IllegalStateException("Login failed on " + path);
+			}
+		}
+
+		HttpRequest get(String pathAndQuery) {
+			return HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery))
+					.timeout(Duration.ofSeconds(30))
+					.GET()
+					.build();
+		}
+
+		HttpRequest post(String path, String json) {
+			return HttpRequest.newBuilder(URI.create(baseUrl + path))
+					.timeout(Duration.ofSeconds(30))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(json))
+					.build();
+		}
+	}
+}
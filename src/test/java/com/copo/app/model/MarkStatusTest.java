@@ -0,0 +1,44 @@
+package com.copo.app.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class MarkStatusTest {
+
+	@Test
+	void statusFollowsTheEnteredText() {
+		assertEquals(MarkStatus.PRESENT, MarkStatus.of("7"));
+		assertEquals(MarkStatus.PRESENT, MarkStatus.of("6.5"));
+		assertEquals(MarkStatus.PRESENT, MarkStatus.of("abc"));
+		assertEquals(MarkStatus.ABSENT, MarkStatus.of("AB"));
+		assertEquals(MarkStatus.ABSENT, MarkStatus.of("ABSENT"));
+		assertEquals(MarkStatus.NOT_ATTEMPTED, MarkStatus.of("N"));
+		assertEquals(MarkStatus.NOT_ATTEMPTED, MarkStatus.of("NA"));
+		assertEquals(MarkStatus.NOT_ATTEMPTED, MarkStatus.of(""));
+		assertEquals(MarkStatus.NOT_ATTEMPTED, MarkStatus.of(null));
+	}
+
+	@Test
+	void nonFiniteNumbersAreTextAsFarAsStatusGoes() {
+		// "NaN" contains "N", "Infinity" does not
+		assertEquals(MarkStatus.NOT_ATTEMPTED, MarkStatus.of("NaN"));
+		assertEquals(MarkStatus.PRESENT, MarkStatus.of("Infinity"));
+	}
+
+	@Test
+	void scoreIsTheFiniteNumberOfTheText() {
+		assertEquals(7.0, MarkStatus.scoreOf("7"));
+		assertEquals(6.5, MarkStatus.scoreOf("6.5"));
+		assertEquals(3.0, MarkStatus.scoreOf(" 3 "));
+		assertEquals(-1.0, MarkStatus.scoreOf("-1"));
+		assertNull(MarkStatus.scoreOf("AB"));
+		assertNull(MarkStatus.scoreOf(""));
+		assertNull(MarkStatus.scoreOf(null));
+		assertNull(MarkStatus.scoreOf("NaN"));
+		assertNull(MarkStatus.scoreOf("Infinity"));
+		assertNull(MarkStatus.scoreOf("-Infinity"));
+		assertNull(MarkStatus.scoreOf("1e400"));
+	}
+}
@@ -0,0 +1,89 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class AttainmentAccumulatorTest {
+
+	private static final byte ABOVE = MarksCube.ATTEMPTED | MarksCube.NUMERIC | MarksCube.ABOVE_HALF;
+	private static final byte BELOW = MarksCube.ATTEMPTED | MarksCube.NUMERIC;
+
+	// CO1 / CAT 1 (columns 0, 1), CO1 / CAT 2 (column 2), CO2 / CAT 1 (column 3)
+	private static MarksCube layout() {
+		MarksCube cube = new MarksCube();
+		cube.addQuestion(1L, "CO1", "CAT 1", "A", "1", "Question", 2);
+		cube.addQuestion(2L, "CO1", "CAT 1", "A", "2", "Question", 2);
+		cube.addQuestion(3L, "CO1", "CAT 2", "A", "1", "Question", 2);
+		cube.addQuestion(4L, "CO2", "CAT 1", "A", "3", "Question", 2);
+		cube.allocate();
+		return cube;
+	}
+
+	@Test
+	void countsRollUpToGroupsAndCos() {
+		MarksCube cube = layout();
+		AttainmentAccumulator stats = new AttainmentAccumulator(cube.groups(), cube.columnCount());
+
+		stats.add(0, ABOVE);
+		stats.add(0, BELOW);
+		stats.add(1, ABOVE);
+		stats.add(2, BELOW);
+		stats.add(3, ABOVE);
+
+		assertEquals(2, stats.attempted(0));
+		assertEquals(1, stats.aboveHalf(0));
+		assertEquals(50.0, stats.percentage(0));
+		assertEquals(3, stats.groupAttempted(0));
+		assertEquals(2, stats.groupAboveHalf(0));
+		assertEquals(1, stats.groupAttempted(1));
+		assertEquals(0.0, stats.groupPercentage(1));
+		assertEquals(4, stats.coAttempted(0));
+		assertEquals(2, stats.coAboveHalf(0));
+		assertEquals(1, stats.coAttempted(1));
+		assertEquals(100.0, stats.groupPercentage(2));
+	}
+
+	@Test
+	void replaceTakesBackThePreviousContribution() {
+		MarksCube cube = layout();
+		AttainmentAccumulator stats = new AttainmentAccumulator(cube.groups(), cube.columnCount());
+
+		stats.add(0, ABOVE);
+		stats.replace(0, ABOVE, BELOW);
+		stats.replace(0, BELOW, (byte) 0);
+		stats.replace(0, (byte) 0, ABOVE);
+
+		assertEquals(1, stats.attempted(0));
+		assertEquals(1, stats.aboveHalf(0));
+		assertEquals(1, stats.groupAttempted(0));
+		assertEquals(1, stats.coAboveHalf(0));
+	}
+
+	@Test
+	void cellsThatAreNotAttemptedCountNowhere() {
+		MarksCube cube = layout();
+		AttainmentAccumulator stats = new AttainmentAccumulator(cube.groups(), cube.columnCount());
+
+		stats.add(0, (byte) 0);
+		stats.add(0, MarksCube.NUMERIC);
+
+		assertEquals(0, stats.attempted(0));
+		assertEquals(0.0, stats.percentage(0));
+		assertEquals(0.0, stats.groupPercentage(0));
+	}
+
+	@Test
+	void addCountsAddsPrecountedTotals() {
+		MarksCube cube = layout();
+		AttainmentAccumulator stats = new AttainmentAccumulator(cube.groups(), cube.columnCount());
+
+		stats.addCounts(2, 8, 6);
+		stats.add(2, ABOVE);
+
+		assertEquals(9, stats.attempted(2));
+		assertEquals(7, stats.aboveHalf(2));
+		assertEquals(9, stats.groupAttempted(1));
+		assertEquals(9, stats.coAttempted(0));
+	}
+}
@@ -0,0 +1,163 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.copo.app.model.CoPoMatrixEntry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class CoPoMatrixViewTest {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+
+	@Test
+	void responseMatchesTheLegacyMatrix() {
+		List<CoPoMatrixEntry> entries = List.of(
+				entry(1, "PO1", 3), entry(2, "PO1", 2), entry(3, "PO1", 2),
+				entry(1, "PO3", 1), entry(4, "PO3", null),
+				entry(5, "PSO2", 3), entry(2, "PO12", 1), entry(3, "PO12", 2), entry(4, "PO12", 2),
+				entry(2, "PO3", 3), entry(1, "PO1", 1),
+				entry(6, "PO7", 2), entry(0, "PSO3", 1), entry(1, "PO13", 3));
+
+		assertParity(entries);
+	}
+
+	@Test
+	void emptyMatrixMatchesTheLegacyMatrix() {
+		CoPoMatrixView view = CoPoMatrixView.of("Maths", List.of());
+
+		assertTrue(view.isEmpty());
+		assertParity(List.of());
+	}
+
+	@Test
+	void theLastEntryOfACellWins() {
+		JsonNode response = json(CoPoMatrixView.of("Maths",
+				List.of(entry(1, "PO2", 3), entry(1, "PO2", null), entry(2, "PO2", 1), entry(2, "PO2", 2)))
+				.toResponse());
+
+		assertEquals("-", response.at("/matrix/1/PO2").asText());
+		assertEquals("2", response.at("/matrix/2/PO2").asText());
+		assertEquals("2.00", response.at("/weightedAverage/PO2").asText());
+	}
+
+	@Test
+	void outcomesOfOtherCosAreShownWithoutLevels() {
+		CoPoMatrixView view = CoPoMatrixView.of("Maths", List.of(entry(6, "PO7", 2), entry(0, "PO7", 1)));
+		JsonNode response = json(view.toResponse());
+
+		assertFalse(view.isEmpty());
+		assertEquals("[\"PO7\"]", response.get("outcomes").toString());
+		for (int co = 1; co <= CoPoMatrixView.CO_COUNT; co++) {
+			assertEquals("-", response.at("/matrix/" + co + "/PO7").asText());
+		}
+		assertEquals("-", response.at("/weightedAverage/PO7").asText());
+	}
+
+	@Test
+	void unknownOutcomesAreIgnored() {
+		CoPoMatrixView view = CoPoMatrixView.of("Maths", List.of(entry(1, "PO13", 3), entry(1, "po1", 2)));
+
+		assertTrue(view.isEmpty());
+		assertEquals(0, json(view.toResponse()).get("outcomes").size());
+	}
+
+	@Test
+	void levelsOutsideAByteAreRejected() {
+		assertThrows(IllegalArgumentException.class,
+				() -> CoPoMatrixView.of("Maths", List.of(entry(1, "PO1", 128))));
+		assertThrows(IllegalArgumentException.class,
+				() -> CoPoMatrixView.of("Maths", List.of(entry(1, "PO1", -128))));
+		assertEquals("-127", json(CoPoMatrixView.of("Maths", List.of(entry(1, "PO1", -127))).toResponse())
+				.at("/matrix/1/PO1").asText());
+	}
+
+	private static void assertParity(List<CoPoMatrixEntry> entries) {
+		assertEquals(json(legacyMatrix(entries)), json(CoPoMatrixView.of("Maths", entries).toResponse()));
+	}
+
+	private static CoPoMatrixEntry entry(int coNumber, String outcome, Integer level) {
+		return CoPoMatrixEntry.builder().subjectCode("MA101").subjectName("Maths").coNumber(coNumber).outcome(outcome)
+				.level(level).build();
+	}
+
+	private static JsonNode json(Object value) {
+		return JSON.valueToTree(value);
+	}
+
+	/** The matrix as {@code CoPoMatrixService.getMatrixData} built it before {@link CoPoMatrixView}. */
+	private static Map<String, Object> legacyMatrix(List<CoPoMatrixEntry> entries) {
+		Set<String> outcomeSet = new TreeSet<>(Comparator.comparing(String::toString));
+		outcomeSet.addAll(entries.stream().map(CoPoMatrixEntry::getOutcome).collect(Collectors.toSet()));
+
+		List<String> outcomes = new ArrayList<>();
+		for (int i = 1; i <= 12; i++) {
+			outcomes.add("PO" + i);
+		}
+		outcomes.add("PSO1");
+		outcomes.add("PSO2");
+		outcomes.add("PSO3");
+		outcomes = outcomes.stream().filter(outcomeSet::contains).collect(Collectors.toList());
+
+		Map<Integer, Map<String, String>> matrix = new HashMap<>();
+		for (int co = 1; co <= 5; co++) {
+			Map<String, String> row = new LinkedHashMap<>();
+			for (String outcome : outcomes) {
+				row.put(outcome, "-");
+			}
+			matrix.put(co, row);
+		}
+		for (CoPoMatrixEntry e : entries) {
+			int coNum = e.getCoNumber();
+			String outcome = e.getOutcome();
+			Integer level = e.getLevel();
+			if (matrix.containsKey(coNum) && matrix.get(coNum).containsKey(outcome)) {
+				matrix.get(coNum).put(outcome, level != null ? level.toString() : "-");
+			}
+		}
+
+		Map<String, Object> result = new HashMap<>();
+		result.put("outcomes", outcomes);
+		result.put("matrix", matrix);
+		result.put("weightedAverage", legacyWeightedAverage(matrix));
+		return result;
+	}
+
+	private static Map<String, String> legacyWeightedAverage(Map<Integer, Map<String, String>> matrix) {
+		Map<String, Double> sumMap = new HashMap<>();
+		Map<String, Integer> countMap = new HashMap<>();
+		for (Map<String, String> row : matrix.values()) {
+			for (Map.Entry<String, String> e : row.entrySet()) {
+				if (!"-".equals(e.getValue())) {
+					int val = Integer.parseInt(e.getValue());
+					sumMap.put(e.getKey(), sumMap.getOrDefault(e.getKey(), 0.0) + val);
+					countMap.put(e.getKey(), countMap.getOrDefault(e.getKey(), 0) + 1);
+				}
+			}
+		}
+
+		Map<String, String> weightedAvg = new HashMap<>();
+		for (String outcome : sumMap.keySet()) {
+			weightedAvg.put(outcome, String.format("%.2f", sumMap.get(outcome) / countMap.get(outcome)));
+		}
+		for (String outcome : matrix.get(1).keySet()) {
+			weightedAvg.putIfAbsent(outcome, "-");
+		}
+		return weightedAvg;
+	}
+}
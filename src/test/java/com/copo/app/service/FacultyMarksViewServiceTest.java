@@ -0,0 +1,133 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class FacultyMarksViewServiceTest {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+
+	/**
+	 * A class with every kind of cell: numeric and decimal marks, "AB", "N", "NA", blanks, text,
+	 * a student without marks, an odd max mark and two questions sharing "Part A - Q2" in CO2 /
+	 * CAT 1, of which the later one owns the cell.
+	 */
+	private static MarksFixture classOf() {
+		return new MarksFixture()
+				.student(1, "Anu", "R1").student(2, "Bala", "R2").student(3, "Chitra", "R3").student(4, "Deepa", "R4")
+				.question(1, "CO1", "CAT 1", "A", "1", 2)
+				.question(2, "CO1", "CAT 1", "B", "3", 10)
+				.question(8, "CO1", "CAT 2", "B", "4", 13)
+				.question(5, "CO2", "CAT 1", "A", "2", 2)
+				.question(6, "CO2", "CAT 1", "A", "2", 4)
+				.question(7, "CO2", "CAT 2", "A", "1", 2)
+				.question(9, "CO3", "Assignment", "A", "1", 5)
+				.mark(1, 1, "2").mark(1, 2, "6.5").mark(1, 8, "7").mark(1, 5, "2").mark(1, 6, "1").mark(1, 7, "AB")
+				.mark(1, 9, " 3")
+				.mark(2, 1, "1").mark(2, 2, "AB").mark(2, 8, "6").mark(2, 5, "2").mark(2, 7, "N").mark(2, 9, "abc")
+				.mark(4, 1, "").mark(4, 2, "10").mark(4, 8, "NA").mark(4, 6, "4").mark(4, 7, "1").mark(4, 9, "5");
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "sparse", "cross-join" })
+	void fullViewMatchesTheLegacyView(String fetchMode) {
+		MarksFixture fixture = classOf();
+
+		Map<String, Object> view = fixture.service(fetchMode).getFullGroupedMarksWithoutExamType(1L, 1L, 1, 1L, 0L);
+
+		assertEquals(json(LegacyMarksViews.fullGroupedMarks(fixture.fullRows())), json(view));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "sparse", "cross-join" })
+	void filteredViewMatchesTheLegacyView(String fetchMode) {
+		MarksFixture fixture = classOf();
+		FacultyMarksViewService service = fixture.service(fetchMode);
+
+		for (String examType : List.of("CAT 1", "CAT 2", "Assignment", "Model")) {
+			Map<String, Object> view = service.getFilteredMarks(1L, 1L, 1, examType, 1L, null, 0L);
+
+			assertEquals(json(LegacyMarksViews.filteredMarks(fixture.filteredRows(examType))), json(view), examType);
+		}
+	}
+
+	@Test
+	void emptyRosterGivesTheLegacyEmptyViews() {
+		MarksFixture fixture = new MarksFixture().question(1, "CO1", "CAT 1", "A", "1", 2);
+		FacultyMarksViewService service = fixture.service("sparse");
+
+		assertEquals(json(LegacyMarksViews.fullGroupedMarks(List.of())),
+				json(service.getFullGroupedMarksWithoutExamType(1L, 1L, 1, 1L, 0L)));
+		assertEquals(json(LegacyMarksViews.filteredMarks(List.of())),
+				json(service.getFilteredMarks(1L, 1L, 1, "CAT 1", 1L, null, 0L)));
+	}
+
+	@Test
+	void duplicateQuestionKeysShareOneColumnOwnedByTheLastQuestion() {
+		JsonNode view = json(classOf().service("sparse").getFullGroupedMarksWithoutExamType(1L, 1L, 1, 1L, 0L));
+
+		assertEquals(2, view.at("/groupedQuestions/CO2/CAT 1/questions").size());
+		assertEquals(1, view.at("/questionStats/CO2/CAT 1").size());
+		// Bala only answered the first of the two questions
+		assertEquals("", view.at("/students/1/marks/CO2/CAT 1/Part A - Q2").asText());
+		assertEquals(2, view.at("/questionStats/CO2/CAT 1/Part A - Q2/attempted").asInt());
+		assertEquals(1, view.at("/questionStats/CO2/CAT 1/Part A - Q2/>=50%").asInt());
+	}
+
+	/**
+	 * Unlike the legacy view, which parsed the text and counted "Infinity" as >=50%: the stored
+	 * score of a non-finite number is null, so it is attempted without ever reaching half.
+	 */
+	@Test
+	void nonFiniteMarksAreAttemptedButNeverAboveHalf() {
+		MarksFixture fixture = new MarksFixture()
+				.student(1, "Anu", "R1").student(2, "Bala", "R2").student(3, "Chitra", "R3")
+				.question(1, "CO1", "CAT 1", "A", "1", 2)
+				.mark(1, 1, "Infinity").mark(2, 1, "NaN").mark(3, 1, "1");
+
+		JsonNode stats = json(fixture.service("sparse").getFullGroupedMarksWithoutExamType(1L, 1L, 1, 1L, 0L))
+				.at("/questionStats/CO1/CAT 1/Part A - Q1");
+
+		assertEquals(2, stats.get("attempted").asInt());
+		assertEquals(1, stats.get(">=50%").asInt());
+	}
+
+	@Test
+	void statsComeFromTheQuestionCountersWhenThereAreAny() {
+		MarksFixture fixture = classOf().counter(1, 40, 30);
+
+		JsonNode view = json(fixture.service("sparse").getFullGroupedMarksWithoutExamType(1L, 1L, 1, 1L, 0L));
+
+		assertEquals(40, view.at("/questionStats/CO1/CAT 1/Part A - Q1/attempted").asInt());
+		assertEquals(30, view.at("/questionStats/CO1/CAT 1/Part A - Q1/>=50%").asInt());
+		assertEquals(75.0, view.at("/questionWisePercentages/CO1/CAT 1/Part A - Q1").asDouble());
+		// columns without a counter keep the counts of their cells
+		assertEquals(2, view.at("/questionStats/CO1/CAT 1/Part B - Q3/attempted").asInt());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void viewsAreReadOnly() {
+		Map<String, Object> view = classOf().service("sparse").getFullGroupedMarksWithoutExamType(1L, 1L, 1, 1L, 0L);
+		List<Map<String, Object>> students = (List<Map<String, Object>>) view.get("students");
+		Map<String, Object> marks = (Map<String, Object>) students.get(0).get("marks");
+
+		assertThrows(UnsupportedOperationException.class, () -> view.put("students", List.of()));
+		assertThrows(UnsupportedOperationException.class, () -> students.remove(0));
+		assertThrows(UnsupportedOperationException.class, () -> marks.clear());
+	}
+
+	private static JsonNode json(Object value) {
+		return JSON.valueToTree(value);
+	}
+}
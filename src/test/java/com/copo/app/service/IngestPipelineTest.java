@@ -0,0 +1,121 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class IngestPipelineTest {
+
+	private ThreadPoolTaskExecutor executor;
+	private IngestPipeline pipeline;
+
+	@BeforeEach
+	void setUp() {
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(3);
+		executor.setThreadNamePrefix("ingest-test-");
+		executor.initialize();
+
+		pipeline = new IngestPipeline();
+		ReflectionTestUtils.setField(pipeline, "ingestExecutor", executor);
+		ReflectionTestUtils.setField(pipeline, "chunkSize", 3);
+		ReflectionTestUtils.setField(pipeline, "chunksInFlight", 2);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+	}
+
+	@Test
+	void chunksAreLookedUpValidatedAndWrittenInFileOrder() throws IOException {
+		List<List<Integer>> lookedUp = Collections.synchronizedList(new ArrayList<>());
+		List<String> written = new ArrayList<>();
+
+		List<String> errors = pipeline.run(lines(10),
+				rows -> {
+					lookedUp.add(rows.stream().map(UploadRow::number).toList());
+					return rows.size();
+				},
+				(rows, size, rowErrors) -> {
+					assertEquals(rows.size(), size);
+					return rows.stream().map(r -> r.cells()[0]).toList();
+				},
+				(rows, rowErrors) -> written.addAll(rows));
+
+		assertEquals(List.of(List.of(1, 2, 3), List.of(4, 5, 6), List.of(7, 8, 9), List.of(10)), lookedUp);
+		assertEquals(IntStream.rangeClosed(1, 10).mapToObj(i -> "r" + i).toList(), written);
+		assertEquals(List.of(), errors);
+	}
+
+	@Test
+	void rowsAreSplitIntoCells() throws IOException {
+		List<String> cells = new ArrayList<>();
+
+		pipeline.run(new BufferedReader(new StringReader("a,b,c\nd,,f")), rows -> null,
+				(rows, lookups, rowErrors) -> rows,
+				(rows, rowErrors) -> rows.forEach(r -> cells.add(String.join("|", r.cells()))));
+
+		assertEquals(List.of("a|b|c", "d||f"), cells);
+	}
+
+	@Test
+	void errorsAreOrderedByRowWithinEachChunk() throws IOException {
+		List<String> errors = pipeline.run(lines(6), rows -> null,
+				(rows, lookups, rowErrors) -> {
+					rows.stream().filter(r -> r.number() % 2 == 0)
+							.forEach(r -> rowErrors.add("Row " + r.number() + ": even"));
+					return rows.stream().filter(r -> r.number() % 2 != 0).toList();
+				},
+				(rows, rowErrors) -> rows.forEach(r -> rowErrors.add("Row " + r.number() + ": duplicate")));
+
+		assertEquals(List.of("Row 1: duplicate", "Row 2: even", "Row 3: duplicate",
+				"Row 4: even", "Row 5: duplicate", "Row 6: even"), errors);
+	}
+
+	@Test
+	void validationFailuresReachTheCaller() {
+		IllegalStateException failure = new IllegalStateException("bad chunk");
+
+		IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> pipeline.run(lines(7),
+				rows -> null,
+				(rows, lookups, rowErrors) -> {
+					if (rows.get(0).number() == 4) {
+						throw failure;
+					}
+					return rows;
+				},
+				(rows, rowErrors) -> {
+				}));
+
+		assertSame(failure, thrown);
+	}
+
+	@Test
+	void rowOfReadsTheRowNumberOfAnError() {
+		assertEquals(12, IngestPipeline.rowOf("Row 12: Invalid email"));
+		assertEquals(0, IngestPipeline.rowOf("Upload failed"));
+		assertEquals(0, IngestPipeline.rowOf("Row : missing"));
+		assertEquals(0, IngestPipeline.rowOf("Row 12345678901: too long"));
+	}
+
+	private static BufferedReader lines(int count) {
+		return new BufferedReader(new StringReader(IntStream.rangeClosed(1, count).mapToObj(i -> "r" + i + ",x")
+				.collect(Collectors.joining("\n"))));
+	}
+}
@@ -0,0 +1,225 @@
+package com.copo.app.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.copo.app.repository.FacultyMarksViewProjection;
+
+/**
+ * The faculty marks views as {@link FacultyMarksViewService} built them from the cross join rows
+ * before the marks cube, kept as the reference the current views are compared with. Attempted
+ * and >=50% are taken from the entered text, as they were then.
+ */
+@SuppressWarnings("unchecked")
+final class LegacyMarksViews {
+
+	private LegacyMarksViews() {
+	}
+
+	static Map<String, Object> filteredMarks(List<FacultyMarksViewProjection> rawData) {
+		List<Map<String, Object>> questions = rawData.stream().map(p -> {
+			Map<String, Object> questionMap = new LinkedHashMap<>();
+			questionMap.put("part", p.getPart());
+			questionMap.put("questionNumber", p.getQuestionNumber());
+			questionMap.put("text", p.getQuestionText());
+			questionMap.put("maxMarks", p.getMaxMarks());
+			questionMap.put("courseOutcome", p.getCourseOutcome());
+			questionMap.put("maxMarks", p.getMaxMarks());
+			return questionMap;
+		}).distinct().collect(Collectors.toList());
+
+		List<Map<String, Object>> students = rawData.stream()
+				.collect(Collectors.groupingBy(FacultyMarksViewProjection::getStudentId)).entrySet().stream()
+				.map(entry -> {
+					Map<String, Object> studentData = new LinkedHashMap<>();
+					studentData.put("name", entry.getValue().get(0).getStudentName());
+					Map<String, String> marksMap = new LinkedHashMap<>();
+					entry.getValue().forEach(p -> marksMap.put("Part " + p.getPart() + " - Q" + p.getQuestionNumber(),
+							p.getSubmittedMarks() == null ? "" : p.getSubmittedMarks()));
+					studentData.put("marks", marksMap);
+					return studentData;
+				}).collect(Collectors.toList());
+
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("questions", questions);
+		response.put("students", students);
+		return response;
+	}
+
+	static Map<String, Object> fullGroupedMarks(List<FacultyMarksViewProjection> rawData) {
+		Map<String, Map<String, Map<String, List<Map<String, Object>>>>> groupedQuestions = groupQuestionsByCOExamType(
+				rawData);
+		Map<Long, Map<String, Object>> studentMap = groupStudentMarks(rawData);
+		Map<String, Map<String, Map<String, Map<String, Integer>>>> questionStats = calculateQuestionStats(
+				groupedQuestions, studentMap);
+		Map<String, Map<String, Map<String, Double>>> questionWisePercentages = calculateQuestionWisePercentages(
+				questionStats);
+
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("groupedQuestions", groupedQuestions);
+		response.put("students", studentMap.values());
+		response.put("questionStats", questionStats);
+		response.put("assessmentPercentages", calculateAssessmentPercentages(questionStats));
+		response.put("questionWisePercentages", questionWisePercentages);
+		response.put("averageQuestionWisePercentages", calculateAverageQuestionWisePercentages(questionWisePercentages));
+		return response;
+	}
+
+	private static Map<String, Map<String, Map<String, List<Map<String, Object>>>>> groupQuestionsByCOExamType(
+			List<FacultyMarksViewProjection> rawData) {
+		Map<String, Map<String, Map<String, List<Map<String, Object>>>>> groupedQuestions = new LinkedHashMap<>();
+		for (FacultyMarksViewProjection p : rawData) {
+			List<Map<String, Object>> questions = groupedQuestions
+					.computeIfAbsent(p.getCourseOutcome(), k -> new LinkedHashMap<>())
+					.computeIfAbsent(p.getExamType(), k -> new LinkedHashMap<>())
+					.computeIfAbsent("questions", k -> new ArrayList<>());
+
+			Map<String, Object> question = new LinkedHashMap<>();
+			question.put("part", p.getPart());
+			question.put("questionNumber", p.getQuestionNumber());
+			question.put("text", p.getQuestionText());
+			question.put("maxMarks", p.getMaxMarks());
+			question.put("questionId", p.getQuestionId());
+			if (!questions.contains(question)) {
+				questions.add(question);
+			}
+		}
+		return groupedQuestions;
+	}
+
+	private static Map<Long, Map<String, Object>> groupStudentMarks(List<FacultyMarksViewProjection> rawData) {
+		Map<Long, Map<String, Object>> studentMap = new LinkedHashMap<>();
+		for (FacultyMarksViewProjection p : rawData) {
+			Long studentId = p.getStudentId();
+			studentMap.putIfAbsent(studentId, new LinkedHashMap<>());
+			studentMap.get(studentId).putIfAbsent("name", p.getStudentName());
+			studentMap.get(studentId).putIfAbsent("rollNumber", p.getRollNumber());
+
+			Map<String, Map<String, Map<String, String>>> coExamMarksMap = (Map<String, Map<String, Map<String, String>>>) studentMap
+					.get(studentId).computeIfAbsent("marks", k -> new LinkedHashMap<>());
+			coExamMarksMap.computeIfAbsent(p.getCourseOutcome(), k -> new LinkedHashMap<>())
+					.computeIfAbsent(p.getExamType(), k -> new LinkedHashMap<>())
+					.put("Part " + p.getPart() + " - Q" + p.getQuestionNumber(),
+							p.getSubmittedMarks() == null ? "" : p.getSubmittedMarks());
+		}
+		return studentMap;
+	}
+
+	private static Map<String, Map<String, Map<String, Map<String, Integer>>>> calculateQuestionStats(
+			Map<String, Map<String, Map<String, List<Map<String, Object>>>>> groupedQuestions,
+			Map<Long, Map<String, Object>> studentMap) {
+		Map<String, Map<String, Map<String, Map<String, Integer>>>> questionStats = new LinkedHashMap<>();
+		for (String co : groupedQuestions.keySet()) {
+			for (String examType : groupedQuestions.get(co).keySet()) {
+				for (Map<String, Object> question : groupedQuestions.get(co).get(examType).get("questions")) {
+					String key = "Part " + question.get("part") + " - Q" + question.get("questionNumber");
+					Map<String, Integer> stats = new LinkedHashMap<>();
+					stats.put("attempted", attemptedCount(co, examType, key, studentMap));
+					stats.put(">=50%", above50Count(co, examType, key, (Integer) question.get("maxMarks"), studentMap));
+					questionStats.computeIfAbsent(co, k -> new LinkedHashMap<>())
+							.computeIfAbsent(examType, k -> new LinkedHashMap<>()).put(key, stats);
+				}
+			}
+		}
+		return questionStats;
+	}
+
+	private static int above50Count(String co, String examType, String key, int maxMarks,
+			Map<Long, Map<String, Object>> studentMap) {
+		int count = 0;
+		int threshold = (int) Math.ceil(maxMarks * 0.5);
+		for (String mark : marksOf(co, examType, key, studentMap)) {
+			if (mark != null && !mark.isEmpty()) {
+				try {
+					if (Double.parseDouble(mark) >= threshold) {
+						count++;
+					}
+				} catch (NumberFormatException e) {
+					// ignore non-numeric values
+				}
+			}
+		}
+		return count;
+	}
+
+	private static int attemptedCount(String co, String examType, String key, Map<Long, Map<String, Object>> studentMap) {
+		int count = 0;
+		for (String mark : marksOf(co, examType, key, studentMap)) {
+			if (mark != null && !mark.isEmpty() && !mark.contains("N") && !mark.contains("AB")) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static List<String> marksOf(String co, String examType, String key, Map<Long, Map<String, Object>> studentMap) {
+		List<String> marks = new ArrayList<>();
+		for (Map<String, Object> student : studentMap.values()) {
+			Map<String, Map<String, Map<String, String>>> marksMap = (Map<String, Map<String, Map<String, String>>>) student
+					.get("marks");
+			if (marksMap.containsKey(co) && marksMap.get(co).containsKey(examType)
+					&& marksMap.get(co).get(examType).containsKey(key)) {
+				marks.add(marksMap.get(co).get(examType).get(key));
+			}
+		}
+		return marks;
+	}
+
+	private static Map<String, Map<String, Double>> calculateAssessmentPercentages(
+			Map<String, Map<String, Map<String, Map<String, Integer>>>> questionStats) {
+		Map<String, Map<String, Double>> assessmentPercentages = new LinkedHashMap<>();
+		for (String co : questionStats.keySet()) {
+			Map<String, Double> examPercentMap = new LinkedHashMap<>();
+			for (String examType : questionStats.get(co).keySet()) {
+				int totalAbove50 = 0;
+				int totalAttempted = 0;
+				for (Map<String, Integer> questionStat : questionStats.get(co).get(examType).values()) {
+					totalAbove50 += questionStat.getOrDefault(">=50%", 0);
+					totalAttempted += questionStat.getOrDefault("attempted", 0);
+				}
+				examPercentMap.put(examType, totalAttempted == 0 ? 0.0 : ((double) totalAbove50 / totalAttempted) * 100.0);
+			}
+			assessmentPercentages.put(co, examPercentMap);
+		}
+		return assessmentPercentages;
+	}
+
+	private static Map<String, Map<String, Map<String, Double>>> calculateQuestionWisePercentages(
+			Map<String, Map<String, Map<String, Map<String, Integer>>>> questionStats) {
+		Map<String, Map<String, Map<String, Double>>> questionWisePercentages = new LinkedHashMap<>();
+		for (String co : questionStats.keySet()) {
+			Map<String, Map<String, Double>> examMap = new LinkedHashMap<>();
+			for (String examType : questionStats.get(co).keySet()) {
+				Map<String, Double> questionMap = new LinkedHashMap<>();
+				for (Map.Entry<String, Map<String, Integer>> stats : questionStats.get(co).get(examType).entrySet()) {
+					int attempted = stats.getValue().getOrDefault("attempted", 0);
+					int above50 = stats.getValue().getOrDefault(">=50%", 0);
+					questionMap.put(stats.getKey(), attempted == 0 ? 0.0 : ((double) above50 / attempted) * 100.0);
+				}
+				examMap.put(examType, questionMap);
+			}
+			questionWisePercentages.put(co, examMap);
+		}
+		return questionWisePercentages;
+	}
+
+	private static Map<String, Double> calculateAverageQuestionWisePercentages(
+			Map<String, Map<String, Map<String, Double>>> questionWisePercentages) {
+		Map<String, Double> averagePercentages = new LinkedHashMap<>();
+		for (String co : questionWisePercentages.keySet()) {
+			double sum = 0.0;
+			int count = 0;
+			for (Map<String, Double> questionMap : questionWisePercentages.get(co).values()) {
+				for (double percentage : questionMap.values()) {
+					sum += percentage;
+					count++;
+				}
+			}
+			averagePercentages.put(co, count == 0 ? 0.0 : sum / count);
+		}
+		return averagePercentages;
+	}
+}
@@ -0,0 +1,144 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.copo.app.model.MarkStatus;
+import com.copo.app.model.QuestionAttainment;
+
+class MarksCubeTest {
+
+	@Test
+	void groupsAreLaidOutCoByCoInFirstSeenOrder() {
+		MarksCube cube = new MarksCube();
+		cube.addQuestion(1L, "CO2", "CAT 1", "A", "1", "Question", 2);
+		cube.addQuestion(2L, "CO1", "CAT 1", "A", "2", "Question", 2);
+		cube.addQuestion(3L, "CO2", "CAT 2", "B", "3", "Question", 10);
+		cube.addQuestion(4L, "CO2", "CAT 1", "A", "4", "Question", 2);
+		cube.allocate();
+
+		List<MarksCube.Group> groups = cube.groups();
+		assertEquals(List.of("CO2/CAT 1", "CO2/CAT 2", "CO1/CAT 1"),
+				groups.stream().map(g -> g.co() + "/" + g.examType()).toList());
+		assertEquals(List.of(0, 2, 3), groups.stream().map(MarksCube.Group::start).toList());
+		assertEquals(List.of(2, 3, 4), groups.stream().map(MarksCube.Group::end).toList());
+		assertEquals("Part A - Q4", cube.columnKey(1));
+		assertEquals(List.of(1L, 4L, 3L, 2L), cube.columnOwners());
+	}
+
+	@Test
+	void duplicateKeysShareAColumnOwnedByTheLastQuestion() {
+		MarksCube cube = new MarksCube();
+		cube.addStudent(10L, "Anu", "R1");
+		cube.addQuestion(1L, "CO1", "CAT 1", "A", "1", "Question", 2);
+		cube.addQuestion(2L, "CO1", "CAT 1", "A", "1", "Question", 4);
+		cube.allocate();
+		cube.put(10L, 1L, "2", MarkStatus.PRESENT, 2.0);
+
+		assertEquals(1, cube.columnCount());
+		assertEquals(2, cube.groups().get(0).questions().size());
+		// marks of the question that does not own the column are dropped
+		assertEquals("", cube.answer(0, 0));
+		assertEquals(0, cube.stats().attempted(0));
+
+		cube.put(10L, 2L, "3", MarkStatus.PRESENT, 3.0);
+		assertEquals("3", cube.answer(0, 0));
+		assertEquals(1, cube.stats().attempted(0));
+		assertEquals(1, cube.stats().aboveHalf(0));
+	}
+
+	@Test
+	void aLaterMarkReplacesTheCellAndItsCounts() {
+		MarksCube cube = new MarksCube();
+		cube.addStudent(10L, "Anu", "R1");
+		cube.addQuestion(1L, "CO1", "CAT 1", "A", "1", "Question", 10);
+		cube.allocate();
+
+		cube.put(10L, 1L, "8", MarkStatus.PRESENT, 8.0);
+		cube.put(10L, 1L, "AB", MarkStatus.ABSENT, null);
+
+		assertEquals("AB", cube.answer(0, 0));
+		assertEquals(0f, cube.score(0, 0));
+		assertEquals(0, cube.stats().attempted(0));
+		assertEquals(0, cube.stats().aboveHalf(0));
+	}
+
+	@Test
+	void marksOfUnknownStudentsOrQuestionsAreIgnored() {
+		MarksCube cube = new MarksCube();
+		cube.addStudent(10L, "Anu", "R1");
+		cube.addQuestion(1L, "CO1", "CAT 1", "A", "1", "Question", 2);
+		cube.allocate();
+
+		cube.put(11L, 1L, "2", MarkStatus.PRESENT, 2.0);
+		cube.put(10L, 2L, "2", MarkStatus.PRESENT, 2.0);
+
+		assertEquals("", cube.answer(0, 0));
+		assertEquals(0, cube.stats().attempted(0));
+	}
+
+	@Test
+	void classifyUsesTheStatusAndScoreOfTheWrite() {
+		assertEquals(MarksCube.ATTEMPTED | MarksCube.NUMERIC | MarksCube.ABOVE_HALF,
+				MarksCube.classify(MarkStatus.PRESENT, 7.0, 13));
+		assertEquals(MarksCube.ATTEMPTED | MarksCube.NUMERIC, MarksCube.classify(MarkStatus.PRESENT, 6.5, 13));
+		// text and non-finite numbers are attempted without a score
+		assertEquals(MarksCube.ATTEMPTED, MarksCube.classify(MarkStatus.PRESENT, null, 13));
+		assertEquals(0, MarksCube.classify(MarkStatus.ABSENT, null, 13));
+		assertEquals(0, MarksCube.classify(MarkStatus.NOT_ATTEMPTED, null, 13));
+		assertEquals(7, MarksCube.threshold(13));
+		assertEquals(0, MarksCube.threshold(0));
+	}
+
+	@Test
+	void sparseAndCrossJoinCubesAgree() {
+		MarksFixture fixture = new MarksFixture()
+				.student(1, "Anu", "R1").student(2, "Bala", "R2")
+				.question(1, "CO1", "CAT 1", "A", "1", 2).question(2, "CO2", "CAT 1", "B", "2", 10)
+				.mark(1, 1, "2").mark(1, 2, "AB").mark(2, 2, "5");
+
+		MarksCube sparse = fixture.cube();
+		MarksCube rows = MarksCube.fromRows(fixture.fullRows());
+
+		assertEquals(rows.columnCount(), sparse.columnCount());
+		for (int s = 0; s < rows.studentCount(); s++) {
+			assertEquals(rows.studentId(s), sparse.studentId(s));
+			for (int column = 0; column < rows.columnCount(); column++) {
+				assertEquals(rows.answer(s, column), sparse.answer(s, column));
+				assertEquals(rows.stats().attempted(column), sparse.stats().attempted(column));
+				assertEquals(rows.stats().aboveHalf(column), sparse.stats().aboveHalf(column));
+			}
+		}
+	}
+
+	@Test
+	void emptySparseFetchGivesAnEmptyCube() {
+		MarksCube cube = MarksCube.fromSparse(List.of(), List.of(), Stream.empty());
+
+		assertEquals(0, cube.studentCount());
+		assertEquals(0, cube.columnCount());
+		assertEquals(List.of(), cube.groups());
+	}
+
+	@Test
+	void countersReplaceTheCountsOfTheirColumnsOnly() {
+		MarksFixture fixture = new MarksFixture()
+				.student(1, "Anu", "R1")
+				.question(1, "CO1", "CAT 1", "A", "1", 2).question(2, "CO1", "CAT 1", "A", "2", 2)
+				.mark(1, 1, "2").mark(1, 2, "2");
+		MarksCube cube = fixture.cube();
+
+		cube.useCounters(Map.of(1L, QuestionAttainment.builder().questionId(1L).attempted(5).aboveHalf(4).build()));
+
+		assertEquals(5, cube.stats().attempted(0));
+		assertEquals(4, cube.stats().aboveHalf(0));
+		assertEquals(1, cube.stats().attempted(1));
+		assertEquals(6, cube.stats().groupAttempted(0));
+		assertEquals(5, cube.stats().groupAboveHalf(0));
+	}
+}
@@ -0,0 +1,189 @@
+package com.copo.app.service;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.copo.app.model.MarkStatus;
+import com.copo.app.model.QuestionAttainment;
+import com.copo.app.repository.FacultyMarksViewProjection;
+import com.copo.app.repository.FacultyMarksViewRepo;
+import com.copo.app.repository.QuestionSlotProjection;
+import com.copo.app.repository.StudentMarksProjection;
+import com.copo.app.repository.StudentRosterProjection;
+
+/**
+ * Students, questions and marks of one subject, served to a {@link FacultyMarksViewService} in
+ * the shapes and orders of both fetch modes: the Student x Question rows of the cross join and
+ * the roster, question slots and submitted marks of the sparse fetch.
+ */
+final class MarksFixture {
+
+	private static final Comparator<Question> BY_PART = Comparator.comparing(Question::getPart)
+			.thenComparing(Question::getQuestionNumber);
+	private static final Comparator<Question> BY_GROUP = Comparator.comparing(Question::getCourseOutcome)
+			.thenComparing(Question::getExamType).thenComparing(BY_PART);
+
+	private final List<Student> students = new ArrayList<>();
+	private final List<Question> questions = new ArrayList<>();
+	private final Map<List<Long>, Mark> marks = new LinkedHashMap<>();
+	private final Map<Long, QuestionAttainment> counters = new LinkedHashMap<>();
+	private long nextMarkId = 1;
+
+	MarksFixture student(long id, String name, String rollNumber) {
+		students.add(new Student(id, name, rollNumber));
+		return this;
+	}
+
+	MarksFixture question(long id, String co, String examType, String part, String number, int maxMarks) {
+		questions.add(new Question(id, part, number, "Question " + id, maxMarks, examType, co));
+		return this;
+	}
+
+	/** Submits a mark the way the write path does, with its status and score derived once. */
+	MarksFixture mark(long studentId, long questionId, String answer) {
+		marks.remove(List.of(studentId, questionId));
+		marks.put(List.of(studentId, questionId), new Mark(nextMarkId++, studentId, questionId, answer,
+				MarkStatus.of(answer), MarkStatus.scoreOf(answer)));
+		return this;
+	}
+
+	MarksFixture counter(long questionId, int attempted, int aboveHalf) {
+		counters.put(questionId, QuestionAttainment.builder().questionId(questionId).attempted(attempted)
+				.aboveHalf(aboveHalf).build());
+		return this;
+	}
+
+	List<StudentRosterProjection> roster() {
+		return students.stream().sorted(Comparator.comparing(Student::getStudentName)
+				.thenComparing(Student::getStudentId)).map(StudentRosterProjection.class::cast).toList();
+	}
+
+	List<QuestionSlotProjection> questionSlots() {
+		return questions.stream().sorted(BY_GROUP).map(QuestionSlotProjection.class::cast).toList();
+	}
+
+	List<QuestionSlotProjection> questionSlots(String examType) {
+		return questions.stream().filter(q -> q.getExamType().equals(examType)).sorted(BY_PART)
+				.map(QuestionSlotProjection.class::cast).toList();
+	}
+
+	List<StudentMarksProjection> submittedMarks(String examType) {
+		return marks.values().stream()
+				.filter(m -> examType == null || question(m.getQuestionId()).getExamType().equals(examType))
+				.sorted(Comparator.comparing(Mark::getId)).map(StudentMarksProjection.class::cast).toList();
+	}
+
+	/** Rows of {@code getFullMarksWithoutExamType}: every student with every question. */
+	List<FacultyMarksViewProjection> fullRows() {
+		return crossJoin(questionSlots());
+	}
+
+	/** Rows of {@code getFilteredMarks}: every student with every question of the exam type. */
+	List<FacultyMarksViewProjection> filteredRows(String examType) {
+		return crossJoin(questionSlots(examType));
+	}
+
+	MarksCube cube() {
+		return MarksCube.fromSparse(roster(), questionSlots(), submittedMarks(null).stream());
+	}
+
+	/** A service reading this fixture, with {@code fetchMode} "sparse" or "cross-join". */
+	FacultyMarksViewService service(String fetchMode) {
+		FacultyMarksViewService service = new FacultyMarksViewService();
+		ReflectionTestUtils.setField(service, "fetchMode", fetchMode);
+		ReflectionTestUtils.setField(service, "facultyMarksViewRepo", repository());
+		ReflectionTestUtils.setField(service, "questionAttainmentService", new QuestionAttainmentService() {
+			@Override
+			public Map<Long, QuestionAttainment> getCounters(Collection<Long> questionIds) {
+				Map<Long, QuestionAttainment> found = new LinkedHashMap<>(counters);
+				found.keySet().retainAll(questionIds);
+				return found;
+			}
+		});
+		return service;
+	}
+
+	private List<FacultyMarksViewProjection> crossJoin(List<QuestionSlotProjection> slots) {
+		List<FacultyMarksViewProjection> rows = new ArrayList<>();
+		for (StudentRosterProjection s : roster()) {
+			for (QuestionSlotProjection q : slots) {
+				Mark mark = marks.get(List.of(s.getStudentId(), q.getQuestionId()));
+				rows.add(new Row(s.getStudentId(), s.getStudentName(), s.getRollNumber(), q.getQuestionId(),
+						q.getPart(), q.getQuestionNumber(), q.getQuestionText(), q.getMaxMarks(), q.getExamType(),
+						q.getCourseOutcome(), mark != null ? mark.getAnswer() : null,
+						mark != null ? mark.getStatus() : null, mark != null ? mark.getScore() : null));
+			}
+		}
+		return rows;
+	}
+
+	private Question question(Long id) {
+		return questions.stream().filter(q -> q.getQuestionId().equals(id)).findFirst().orElseThrow();
+	}
+
+	private FacultyMarksViewRepo repository() {
+		return (FacultyMarksViewRepo) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { FacultyMarksViewRepo.class }, (proxy, method, args) -> switch (method.getName()) {
+					case "getFullMarksWithoutExamType" -> fullRows();
+					case "getFilteredMarks", "getFilteredMarksBySection" -> filteredRows((String) args[3]);
+					case "getRoster" -> roster();
+					case "getQuestionSlots" -> questionSlots();
+					case "getQuestionSlotsByExamType" -> questionSlots((String) args[3]);
+					case "getSubmittedMarks" -> submittedMarks((String) args[3]);
+					case "streamSubmittedMarks" -> submittedMarks((String) args[3]).stream();
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private record Student(Long studentId, String studentName, String rollNumber) implements StudentRosterProjection {
+		public Long getStudentId() { return studentId; }
+		public String getStudentName() { return studentName; }
+		public String getRollNumber() { return rollNumber; }
+	}
+
+	private record Question(Long questionId, String part, String questionNumber, String questionText, Integer maxMarks,
+			String examType, String courseOutcome) implements QuestionSlotProjection {
+		public Long getQuestionId() { return questionId; }
+		public String getPart() { return part; }
+		public String getQuestionNumber() { return questionNumber; }
+		public String getQuestionText() { return questionText; }
+		public Integer getMaxMarks() { return maxMarks; }
+		public String getExamType() { return examType; }
+		public String getCourseOutcome() { return courseOutcome; }
+	}
+
+	private record Mark(Long id, Long studentId, Long questionId, String answer, MarkStatus status, Double score)
+			implements StudentMarksProjection {
+		public Long getId() { return id; }
+		public Long getStudentId() { return studentId; }
+		public Long getQuestionId() { return questionId; }
+		public String getAnswer() { return answer; }
+		public MarkStatus getStatus() { return status; }
+		public Double getScore() { return score; }
+	}
+
+	private record Row(Long studentId, String studentName, String rollNumber, Long questionId, String part,
+			String questionNumber, String questionText, Integer maxMarks, String examType, String courseOutcome,
+			String submittedMarks, MarkStatus markStatus, Double score) implements FacultyMarksViewProjection {
+		public Long getStudentId() { return studentId; }
+		public String getStudentName() { return studentName; }
+		public String getRollNumber() { return rollNumber; }
+		public Long getQuestionId() { return questionId; }
+		public String getPart() { return part; }
+		public String getQuestionNumber() { return questionNumber; }
+		public String getQuestionText() { return questionText; }
+		public Integer getMaxMarks() { return maxMarks; }
+		public String getExamType() { return examType; }
+		public String getCourseOutcome() { return courseOutcome; }
+		public String getSubmittedMarks() { return submittedMarks; }
+		public MarkStatus getMarkStatus() { return markStatus; }
+		public Double getScore() { return score; }
+	}
+}
@@ -0,0 +1,346 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.copo.app.controller.FacultyMarksViewController;
+import com.copo.app.model.Batch;
+import com.copo.app.model.Department;
+import com.copo.app.model.MarkStatus;
+import com.copo.app.model.Question;
+import com.copo.app.model.QuestionAttainment;
+import com.copo.app.model.Student;
+import com.copo.app.model.StudentMarks;
+import com.copo.app.model.Subject;
+import com.copo.app.repository.QuestionAttainmentRepository;
+import com.copo.app.repository.QuestionRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class QuestionAttainmentServiceTest {
+
+	@Autowired
+	private TestData data;
+
+	@Autowired
+	private QuestionAttainmentService questionAttainmentService;
+
+	@Autowired
+	private StudentMarksService studentMarksService;
+
+	@Autowired
+	private StudentService studentService;
+
+	@Autowired
+	private QuestionAttainmentRepository questionAttainmentRepository;
+
+	@Autowired
+	private QuestionRepository questionRepository;
+
+	@Autowired
+	private FacultyMarksViewController facultyMarksViewController;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Department department;
+	private Batch batch;
+	private Subject subject;
+
+	@BeforeEach
+	void setUp() {
+		department = data.department();
+		batch = data.batch();
+		subject = data.subject(department, 1);
+	}
+
+	@Test
+	void newQuestionsStartWithZeroCounters() {
+		Question question = data.question(subject, batch, "CAT 1", "1", 10);
+
+		assertCounter(0, 0, 0.0, data.counter(question));
+	}
+
+	@Test
+	void submissionsMoveTheCountersByTheirMarks() {
+		Question question = data.question(subject, batch, "CAT 1", "1", 10);
+		Student anu = data.student(department, batch);
+		Student bala = data.student(department, batch);
+
+		submit(anu, question, "8");
+		submit(bala, question, "3");
+
+		assertCounter(2, 1, 11.0, data.counter(question));
+	}
+
+	@Test
+	void aResubmittedMarkReplacesItsContribution() {
+		Question question = data.question(subject, batch, "CAT 1", "1", 10);
+		Student anu = data.student(department, batch);
+
+		submit(anu, question, "8");
+		submit(anu, question, "2");
+		assertCounter(1, 0, 2.0, data.counter(question));
+
+		submit(anu, question, "AB");
+		assertCounter(0, 0, 0.0, data.counter(question));
+
+		// the same mark again changes nothing
+		submit(anu, question, "5");
+		submit(anu, question, "5");
+		assertCounter(1, 1, 5.0, data.counter(question));
+	}
+
+	@Test
+	void marksOutsideTheQuestionsRosterAreNotCounted() {
+		Question question = data.question(subject, batch, "CAT 1", "1", 10);
+		Student other = data.student(department, data.batch());
+		StudentMarks mark = StudentMarks.builder().id(1L).student(other).question(question).answer("9").score(9.0)
+				.status(MarkStatus.PRESENT).build();
+
+		questionAttainmentService.applyChanges(List.of(), List.of(mark));
+
+		assertCounter(0, 0, 0.0, data.counter(question));
+	}
+
+	@Test
+	void aQuestionWithoutCounterIsRecountedOnceTheSubmissionCommits() {
+		Question question = data.questionWithoutCounter(subject, batch, "CAT 1", "1", 10);
+		Student anu = data.student(department, batch);
+		Student bala = data.student(department, batch);
+		data.rawMark(bala, question, "6");
+
+		inTransaction(() -> {
+			submit(anu, question, "7");
+			// the views count the question from its marks until then
+			assertNull(data.counter(question));
+			return null;
+		});
+		data.awaitRecounts();
+
+		assertCounter(2, 2, 13.0, data.counter(question));
+	}
+
+	@Test
+	void invalidatedCountersAreRecountedFromTheMarksAfterCommit() {
+		Question question = data.question(subject, batch, "CAT 1", "1", 10);
+		Student anu = data.student(department, batch);
+		submit(anu, question, "8");
+		// written past the counters, as bulk writers do before they invalidate
+		data.rawMark(data.student(department, batch), question, "4");
+
+		inTransaction(() -> {
+			questionAttainmentService.invalidate(List.of(question.getId()));
+			assertNull(data.counter(question));
+			return null;
+		});
+		data.awaitRecounts();
+
+		assertCounter(2, 1, 12.0, data.counter(question));
+	}
+
+	@Test
+	void aRolledBackInvalidationKeepsTheCounter() {
+		Question question = data.question(subject, batch, "CAT 1", "1", 10);
+		submit(data.student(department, batch), question, "8");
+
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			questionAttainmentService.invalidate(List.of(question.getId()));
+			status.setRollbackOnly();
+		});
+
+		assertCounter(1, 1, 8.0, data.counter(question));
+	}
+
+	@Test
+	void concurrentAndOverwritingSubmissionsAddUp() throws Exception {
+		List<Question> questions = List.of(data.question(subject, batch, "CAT 1", "1", 10),
+				data.question(subject, batch, "CAT 1", "2", 5), data.question(subject, batch, "CAT 1", "3", 2));
+		List<Student> students = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			students.add(data.student(department, batch));
+		}
+
+		concurrently(students.stream().map(student -> (Callable<Void>) () -> {
+			for (int round = 0; round < 3; round++) {
+				for (Question question : questions) {
+					submit(student, question, String.valueOf((student.getId() + round + question.getId()) % 6));
+				}
+			}
+			return null;
+		}).toList());
+
+		assertMatchesARecount(questions);
+	}
+
+	@Test
+	void submissionsRacingRecountsEndUpCounted() throws Exception {
+		List<Question> questions = List.of(data.question(subject, batch, "CAT 1", "1", 10),
+				data.question(subject, batch, "CAT 1", "2", 4));
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			Student student = data.student(department, batch);
+			tasks.add(() -> {
+				for (int round = 0; round < 4; round++) {
+					for (Question question : questions) {
+						submit(student, question, String.valueOf((student.getId() + round) % 11));
+					}
+				}
+				return null;
+			});
+		}
+		List<Long> ids = questions.stream().map(Question::getId).toList();
+		for (int i = 0; i < 3; i++) {
+			tasks.add(() -> {
+				for (int round = 0; round < 4; round++) {
+					inTransaction(() -> {
+						questionAttainmentService.invalidate(ids);
+						return null;
+					});
+				}
+				return null;
+			});
+		}
+
+		concurrently(tasks);
+
+		assertMatchesARecount(questions);
+	}
+
+	@Test
+	void aStudentMovingBatchMovesTheirMarksToTheOtherRoster() {
+		Batch other = data.batch();
+		Question here = data.question(subject, batch, "CAT 1", "1", 10);
+		Question there = data.question(subject, other, "CAT 1", "1", 10);
+		Student anu = data.student(department, batch);
+		submit(anu, here, "9");
+		data.rawMark(anu, there, "7");
+
+		studentService.updateStudent(anu.getId(), moved(anu, other));
+		data.awaitRecounts();
+
+		assertCounter(0, 0, 0.0, data.counter(here));
+		assertCounter(1, 1, 7.0, data.counter(there));
+
+		studentService.updateStudent(anu.getId(), moved(anu, batch));
+		data.awaitRecounts();
+
+		assertCounter(1, 1, 9.0, data.counter(here));
+		assertCounter(0, 0, 0.0, data.counter(there));
+	}
+
+	@Test
+	void theRebuildEndpointReconcilesEveryCounter() throws Exception {
+		Question question = data.question(subject, batch, "CAT 1", "1", 10);
+		submit(data.student(department, batch), question, "8");
+		jdbcTemplate.update("UPDATE question_attainment SET attempted = 99, above_half = 42 WHERE question_id = ?",
+				question.getId());
+		Question dropped = data.question(subject, batch, "CAT 1", "2", 10);
+		jdbcTemplate.update("DELETE FROM questions WHERE id = ?", dropped.getId());
+		MockMvc mvc = MockMvcBuilders.standaloneSetup(facultyMarksViewController).build();
+
+		mvc.perform(post("/faculty-marks/attainment/rebuild"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.questions").value((int) questionRepository.count()));
+
+		assertCounter(1, 1, 8.0, data.counter(question));
+		assertNull(data.counter(dropped));
+	}
+
+	private void submit(Student student, Question question, String answer) {
+		studentMarksService.saveStudentMarks(student,
+				List.of(StudentMarks.builder().question(new Question(question.getId())).answer(answer).build()));
+	}
+
+	private Student moved(Student student, Batch batch) {
+		return Student.builder().name(student.getName()).rollNumber(student.getRollNumber())
+				.registerNumber(student.getRegisterNumber()).dob(student.getDob()).department(student.getDepartment())
+				.batch(batch).build();
+	}
+
+	private <T> T inTransaction(Callable<T> work) {
+		return new TransactionTemplate(transactionManager).execute(status -> {
+			try {
+				return work.call();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	private static void concurrently(List<Callable<Void>> tasks) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+		try {
+			for (Future<Void> done : pool.invokeAll(tasks)) {
+				done.get();
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// The counters as the submissions left them must be what a recount from the marks gives
+	private void assertMatchesARecount(List<Question> questions) {
+		data.awaitRecounts();
+		Map<Long, List<Object>> kept = snapshot(questions);
+		inTransaction(() -> {
+			questionAttainmentService.invalidate(questions.stream().map(Question::getId).toList());
+			return null;
+		});
+		data.awaitRecounts();
+
+		assertEquals(snapshot(questions), kept);
+		for (List<Object> counter : kept.values()) {
+			assertNotNull(counter);
+		}
+	}
+
+	private Map<Long, List<Object>> snapshot(List<Question> questions) {
+		Map<Long, List<Object>> counters = new HashMap<>();
+		for (QuestionAttainment counter : questionAttainmentRepository
+				.findAllById(questions.stream().map(Question::getId).collect(Collectors.toList()))) {
+			counters.put(counter.getQuestionId(),
+					List.of(counter.getAttempted(), counter.getAboveHalf(), counter.getMarksTotal()));
+		}
+		assertEquals(questions.size(), counters.size());
+		return counters;
+	}
+
+	private static void assertCounter(int attempted, int aboveHalf, double marksTotal, QuestionAttainment counter) {
+		assertNotNull(counter);
+		assertEquals(attempted, counter.getAttempted(), "attempted");
+		assertEquals(aboveHalf, counter.getAboveHalf(), ">=50%");
+		assertEquals(marksTotal, counter.getMarksTotal(), 1e-9, "marks total");
+	}
+}
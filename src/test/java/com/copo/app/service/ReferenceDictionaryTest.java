@@ -0,0 +1,161 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.info.BuildProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.copo.app.config.ReferenceCacheConfig;
+import com.copo.app.model.ScopeVersion;
+import com.copo.app.repository.BatchRepository;
+import com.copo.app.repository.DepartmentRepository;
+import com.copo.app.repository.NameRefProjection;
+import com.copo.app.repository.ScopeVersionRepository;
+import com.copo.app.repository.SubjectNameRefProjection;
+import com.copo.app.repository.SubjectRepository;
+
+class ReferenceDictionaryTest {
+
+	// the rows the repositories answer from, and the queries they ran
+	private final List<NameRef> departments = new ArrayList<>();
+	private final List<NameRef> batches = new ArrayList<>();
+	private final List<SubjectRef> subjects = new ArrayList<>();
+	private final Map<String, Long> versions = new HashMap<>();
+	private final List<String> queries = new ArrayList<>();
+
+	private ScopeVersions scopeVersions;
+	private ReferenceDictionary dictionary;
+
+	@BeforeEach
+	void setUp() {
+		departments.add(new NameRef(1L, "Computer Science"));
+		departments.add(new NameRef(2L, "Mechanical"));
+		batches.add(new NameRef(10L, "2022-2026"));
+		subjects.add(new SubjectRef(100L, 1L, 3, "Data Structures"));
+
+		scopeVersions = new ScopeVersions(new StaticListableBeanFactory().getBeanProvider(BuildProperties.class));
+		ReflectionTestUtils.setField(scopeVersions, "scopeVersionRepository", repository(ScopeVersionRepository.class));
+		dictionary = new ReferenceDictionary();
+		ReflectionTestUtils.setField(dictionary, "departmentRepository", repository(DepartmentRepository.class));
+		ReflectionTestUtils.setField(dictionary, "batchRepository", repository(BatchRepository.class));
+		ReflectionTestUtils.setField(dictionary, "subjectRepository", repository(SubjectRepository.class));
+		ReflectionTestUtils.setField(dictionary, "scopeVersions", scopeVersions);
+		dictionary.onApplicationReady();
+		queries.clear();
+	}
+
+	@Test
+	void namesResolveTrimmedAndCaseInsensitivelyFromTheMaps() {
+		assertEquals(Optional.of(1L), dictionary.departmentId(" computer SCIENCE "));
+		assertEquals(Optional.of(10L), dictionary.batchId("2022-2026"));
+		assertEquals(Optional.of(100L), dictionary.subjectId(1L, 3, "data structures"));
+		assertEquals(Optional.empty(), dictionary.subjectId(1L, 4, "data structures"));
+		assertEquals(Optional.empty(), dictionary.departmentId(null));
+
+		assertEquals(List.of("subject ids"), queries);
+	}
+
+	@Test
+	void aNameMissingFromTheDatabaseIsLookedUpOncePerSnapshot() {
+		assertEquals(Map.of(), dictionary.departmentIds(List.of("Civil", " civil", "CIVIL", "Civil")));
+		assertEquals(Optional.empty(), dictionary.departmentId("civil"));
+		assertEquals(List.of("department ids"), queries);
+
+		dictionary.reload();
+		queries.clear();
+
+		assertEquals(Optional.empty(), dictionary.departmentId("Civil"));
+		assertEquals(List.of("department ids"), queries);
+	}
+
+	@Test
+	void aNameTheDatabaseHasReloadsTheMaps() {
+		departments.add(new NameRef(3L, "Civil"));
+
+		assertEquals(Optional.of(3L), dictionary.departmentId("civil"));
+		assertEquals(List.of("department ids", "departments", "batches", "subjects"), queries);
+		queries.clear();
+
+		assertEquals(Map.of("Civil", 3L, "Mechanical", 2L), dictionary.departmentIds(List.of("Civil", "Mechanical")));
+		assertEquals(List.of(), queries);
+	}
+
+	@Test
+	void aChangeOnAnotherNodeReloadsTheMapsAtTheNextSync() {
+		long before = dictionary.version();
+		batches.add(new NameRef(11L, "2023-2027"));
+		versions.put(ReferenceCacheConfig.BATCHES, 1L);
+
+		scopeVersions.sync();
+
+		assertEquals(List.of("departments", "batches", "subjects"), queries);
+		assertEquals(before + 1, dictionary.version());
+		queries.clear();
+		assertEquals(Optional.of(11L), dictionary.batchId("2023-2027"));
+		assertEquals(List.of(), queries);
+
+		// nothing moved on since
+		scopeVersions.sync();
+		assertEquals(List.of(), queries);
+	}
+
+	@Test
+	void repeatedNamesResolveToTheFirstRow() {
+		departments.add(new NameRef(4L, "mechanical "));
+		dictionary.reload();
+
+		assertEquals(Optional.of(2L), dictionary.departmentId("Mechanical"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T repository(Class<T> type) {
+		return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> switch (type.getSimpleName() + "." + method.getName()) {
+					case "DepartmentRepository.findActiveNameRefs" -> query("departments", List.copyOf(departments));
+					case "DepartmentRepository.findActiveIdsByName" -> query("department ids", ids(departments, args[0]));
+					case "BatchRepository.findNameRefs" -> query("batches", List.copyOf(batches));
+					case "BatchRepository.findIdsByName" -> query("batch ids", ids(batches, args[0]));
+					case "SubjectRepository.findNameRefs" -> query("subjects", List.copyOf(subjects));
+					case "SubjectRepository.findIdsByName" -> query("subject ids", subjects.stream()
+							.filter(s -> s.departmentId().equals(args[0]) && s.semester().equals(args[1])
+									&& s.name().equalsIgnoreCase((String) args[2]))
+							.map(SubjectRef::id).toList());
+					case "ScopeVersionRepository.findVersion" -> Optional.ofNullable(versions.get(args[0]));
+					case "ScopeVersionRepository.findByScopeIn" -> versions.entrySet().stream()
+							.map(v -> new ScopeVersion(v.getKey(), v.getValue())).toList();
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private <T> T query(String name, T result) {
+		queries.add(name);
+		return result;
+	}
+
+	private static List<Long> ids(List<NameRef> rows, Object name) {
+		return rows.stream().filter(r -> r.name().trim().equalsIgnoreCase((String) name)).map(NameRef::id).toList();
+	}
+
+	private record NameRef(Long id, String name) implements NameRefProjection {
+		public Long getId() { return id; }
+		public String getName() { return name; }
+	}
+
+	private record SubjectRef(Long id, Long departmentId, Integer semester, String name)
+			implements SubjectNameRefProjection {
+		public Long getId() { return id; }
+		public Long getDepartmentId() { return departmentId; }
+		public Integer getSemester() { return semester; }
+		public String getName() { return name; }
+	}
+}
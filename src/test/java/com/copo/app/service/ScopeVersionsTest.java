@@ -0,0 +1,165 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.copo.app.controller.FacultyMarksViewController;
+import com.copo.app.controller.SubjectController;
+import com.copo.app.model.Batch;
+import com.copo.app.model.Department;
+import com.copo.app.model.Question;
+import com.copo.app.model.Student;
+import com.copo.app.model.StudentMarks;
+import com.copo.app.model.Subject;
+
+/**
+ * The ETags of the JSON endpoints, as a client revalidating its copy sees them.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class ScopeVersionsTest {
+
+	@Autowired
+	private TestData data;
+
+	@Autowired
+	private StudentMarksService studentMarksService;
+
+	@Autowired
+	private SubjectService subjectService;
+
+	@Autowired
+	private FacultyMarksViewController facultyMarksViewController;
+
+	@Autowired
+	private SubjectController subjectController;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private MockMvc mvc;
+	private Department department;
+	private Batch batch;
+	private Subject subject;
+	private Question question;
+	private Student anu;
+
+	@BeforeEach
+	void setUp() {
+		mvc = MockMvcBuilders.standaloneSetup(facultyMarksViewController, subjectController).build();
+		department = data.department();
+		batch = data.batch();
+		subject = data.subject(department, 1);
+		question = data.question(subject, batch, "CAT 1", "1", 10);
+		anu = data.student(department, batch);
+	}
+
+	@Test
+	void anUnchangedMarksViewIsNotSentAgain() throws Exception {
+		String etag = marksView(null).andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		assertNotNull(etag);
+		marksView(etag).andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(content().string(""));
+	}
+
+	@Test
+	void aSubmittedMarkMovesTheMarksViewsTag() throws Exception {
+		String etag = etag(marksView(null));
+
+		submit("7");
+
+		String changed = etag(marksView(etag).andExpect(status().isOk())
+				.andExpect(jsonPath("$.students[0].marks.CO1['CAT 1']['Part A - Q1']").value("7")));
+		assertNotEquals(etag, changed);
+		marksView(changed).andExpect(status().isNotModified());
+		// the views of other subjects keep their tags
+		Subject other = data.subject(department, 1);
+		String otherTag = etag(marksView(other, null));
+		submit("8");
+		marksView(other, otherTag).andExpect(status().isNotModified());
+	}
+
+	@Test
+	void aRolledBackSubmissionKeepsTheTag() throws Exception {
+		String etag = etag(marksView(null));
+
+		assertThrows(IllegalStateException.class, () -> new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+			submit("7");
+			throw new IllegalStateException("rolled back");
+		}));
+
+		marksView(etag).andExpect(status().isNotModified());
+	}
+
+	@Test
+	void aNewSubjectMovesTheSubjectListsTag() throws Exception {
+		String etag = etag(subjects(null));
+		subjects(etag).andExpect(status().isNotModified());
+
+		String code = TestData.unique("NEW");
+		subjectService.saveSubject(Subject.builder().name("Subject " + code).code(code).department(department)
+				.semester(2).build());
+
+		subjects(etag).andExpect(status().isOk()).andExpect(jsonPath("$[0].code").value(code));
+	}
+
+	private void submit(String answer) {
+		studentMarksService.saveStudentMarks(anu,
+				List.of(StudentMarks.builder().question(new Question(question.getId())).answer(answer).build()));
+	}
+
+	private ResultActions marksView(String ifNoneMatch) throws Exception {
+		return marksView(subject, ifNoneMatch);
+	}
+
+	private ResultActions marksView(Subject viewed, String ifNoneMatch) throws Exception {
+		var request = get("/faculty-marks/view-marks-full").param("departmentId", department.getId().toString())
+				.param("batchId", batch.getId().toString()).param("semester", "1")
+				.param("subjectId", viewed.getId().toString());
+		if (ifNoneMatch != null) {
+			request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+		}
+		return mvc.perform(request);
+	}
+
+	private ResultActions subjects(String ifNoneMatch) throws Exception {
+		var request = get("/subjects/by-deptId-sem").param("department", department.getId().toString())
+				.param("semester", "2");
+		if (ifNoneMatch != null) {
+			request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+		}
+		return mvc.perform(request);
+	}
+
+	private static String etag(ResultActions response) {
+		String etag = response.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotNull(etag);
+		return etag;
+	}
+}
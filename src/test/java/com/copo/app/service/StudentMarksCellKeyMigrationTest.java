@@ -0,0 +1,114 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.copo.app.model.Batch;
+import com.copo.app.model.Department;
+import com.copo.app.model.Question;
+import com.copo.app.model.Student;
+import com.copo.app.model.StudentMarks;
+
+/**
+ * Drops the cell key the migration added at startup, as on a database from before it, and puts
+ * it back after each test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class StudentMarksCellKeyMigrationTest {
+
+	@Autowired
+	private TestData data;
+
+	@Autowired
+	private StudentMarksCellKeyMigration migration;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Question q1;
+	private Question q2;
+	private Student anu;
+	private Student bala;
+
+	@BeforeEach
+	void setUp() {
+		Department department = data.department();
+		Batch batch = data.batch();
+		q1 = data.question(data.subject(department, 1), batch, "CAT 1", "1", 10);
+		q2 = data.question(q1.getSubject(), batch, "CAT 1", "2", 10);
+		anu = data.student(department, batch);
+		bala = data.student(department, batch);
+		jdbcTemplate.execute("ALTER TABLE student_marks DROP CONSTRAINT " + StudentMarks.CELL_KEY);
+	}
+
+	@AfterEach
+	void restoreTheKey() {
+		jdbcTemplate.execute("DROP INDEX IF EXISTS uk_marks_other_name");
+		migration.afterSingletonsInstantiated();
+		assertEquals(1, cellKeys());
+	}
+
+	@Test
+	void cellsWithSeveralRowsKeepTheNewestAndGetTheKey() {
+		data.rawMark(anu, q1, "3");
+		data.rawMark(anu, q1, "7");
+		data.rawMark(anu, q1, "9");
+		data.rawMark(anu, q2, "4");
+		data.rawMark(bala, q1, "AB");
+		data.rawMark(bala, q1, "5");
+
+		migration.afterSingletonsInstantiated();
+
+		assertEquals(List.of("9"), answers(anu, q1));
+		assertEquals(List.of("4"), answers(anu, q2));
+		assertEquals(List.of("5"), answers(bala, q1));
+		assertEquals(1, cellKeys());
+		assertThrows(DataIntegrityViolationException.class, () -> data.rawMark(anu, q2, "1"));
+	}
+
+	@Test
+	void aStartupWithTheKeyInPlaceChangesNothing() {
+		data.rawMark(anu, q1, "3");
+		migration.afterSingletonsInstantiated();
+
+		migration.afterSingletonsInstantiated();
+
+		assertEquals(List.of("3"), answers(anu, q1));
+		assertEquals(1, cellKeys());
+	}
+
+	@Test
+	void aUniqueIndexOfAnotherNameCountsAsTheKey() {
+		data.rawMark(anu, q1, "3");
+		jdbcTemplate.execute("CREATE UNIQUE INDEX uk_marks_other_name ON student_marks (question_id, student_id)");
+
+		migration.afterSingletonsInstantiated();
+
+		assertEquals(0, cellKeys());
+		assertThrows(DataIntegrityViolationException.class, () -> data.rawMark(anu, q1, "4"));
+	}
+
+	private List<String> answers(Student student, Question question) {
+		return jdbcTemplate.queryForList("SELECT answer FROM student_marks WHERE student_id = ? AND question_id = ?",
+				String.class, student.getId(), question.getId());
+	}
+
+	private int cellKeys() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.table_constraints"
+				+ " WHERE LOWER(constraint_name) = ?", Integer.class, StudentMarks.CELL_KEY);
+	}
+}
@@ -0,0 +1,152 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.copo.app.model.Batch;
+import com.copo.app.model.Department;
+import com.copo.app.model.Question;
+import com.copo.app.model.QuestionAttainment;
+import com.copo.app.model.Student;
+import com.copo.app.model.Subject;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class StudentMarksServiceTest {
+
+	@Autowired
+	private TestData data;
+
+	@Autowired
+	private StudentMarksService studentMarksService;
+
+	private Department department;
+	private Batch batch;
+	private Subject subject;
+	private Question q1;
+	private Question q2;
+	private Student anu;
+	private Student bala;
+
+	@BeforeEach
+	void setUp() {
+		department = data.department();
+		batch = data.batch();
+		subject = data.subject(department, 1);
+		q1 = data.question(subject, batch, "CAT 1", "1", 10);
+		q2 = data.question(subject, batch, "CAT 1", "2", 5);
+		anu = data.student(department, batch);
+		bala = data.student(department, batch);
+	}
+
+	@Test
+	void aSheetSavesItsMarksAndRecountsItsQuestions() throws IOException {
+		data.rawMark(bala, q1, "6");
+		InputStream sheet = sheet(
+				new String[] { "Roll Number", "Name", "part a - q1", " Part A -  Q2 " },
+				new String[] { anu.getRollNumber().toLowerCase(), "Anu", "8", "AB" },
+				// a blank cell keeps the stored mark
+				new String[] { bala.getRollNumber(), "Bala", "", "4" });
+
+		Map<String, Object> result = importSheet(sheet, "cat1");
+
+		assertEquals(2, result.get("students"));
+		assertEquals(2, result.get("questions"));
+		assertEquals(3, result.get("marksSaved"));
+		assertEquals("8", data.answer(anu, q1));
+		assertEquals("AB", data.answer(anu, q2));
+		assertEquals("6", data.answer(bala, q1));
+		assertEquals("4", data.answer(bala, q2));
+		data.awaitRecounts();
+		assertCounter(2, 2, 14.0, data.counter(q1));
+		assertCounter(1, 1, 4.0, data.counter(q2));
+	}
+
+	@Test
+	void anInvalidRowRejectsTheWholeSheet() throws IOException {
+		data.rawMark(anu, q1, "2");
+		InputStream sheet = sheet(
+				new String[] { "Roll Number", "Part A - Q1", "Part B - Q9" },
+				new String[] { anu.getRollNumber(), "9" },
+				new String[] { "NO-SUCH-ROLL", "5" },
+				new String[] { bala.getRollNumber(), "11" },
+				new String[] { anu.getRollNumber(), "3" });
+
+		RuntimeException e = assertThrows(RuntimeException.class, () -> importSheet(sheet, "CAT 1"));
+
+		assertEquals("Errors in marks sheet:\n"
+				+ "Row 1: Unknown question column: Part B - Q9\n"
+				+ "Row 3: Unknown roll number: NO-SUCH-ROLL\n"
+				+ "Row 4: Invalid mark 11 for Part A - Q1 (max 10)\n"
+				+ "Row 5: Duplicate roll number: " + anu.getRollNumber(), e.getMessage());
+		assertEquals("2", data.answer(anu, q1));
+		assertEquals(null, data.answer(bala, q1));
+	}
+
+	@Test
+	void aSheetWithoutQuestionColumnsIsRejected() throws IOException {
+		InputStream sheet = sheet(
+				new String[] { "Roll Number", "Name" },
+				new String[] { anu.getRollNumber(), "Anu" });
+
+		RuntimeException e = assertThrows(RuntimeException.class, () -> importSheet(sheet, "CAT 1"));
+
+		assertTrue(e.getMessage().contains("Row 1: No \"Part X - Qn\" question columns found"), e.getMessage());
+	}
+
+	@Test
+	void anExamWithoutQuestionsIsRejected() throws IOException {
+		InputStream sheet = sheet(
+				new String[] { "Roll Number", "Part A - Q1" },
+				new String[] { anu.getRollNumber(), "5" });
+
+		RuntimeException e = assertThrows(RuntimeException.class, () -> importSheet(sheet, "CAT 2"));
+
+		assertEquals("No students or questions found for the selected exam.", e.getMessage());
+	}
+
+	private Map<String, Object> importSheet(InputStream sheet, String examType) throws IOException {
+		return studentMarksService.importMarksSheet(sheet, department.getId(), batch.getId(), 1, subject.getId(),
+				examType);
+	}
+
+	private static InputStream sheet(String[]... rows) throws IOException {
+		try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			Sheet sheet = workbook.createSheet();
+			for (int r = 0; r < rows.length; r++) {
+				Row row = sheet.createRow(r);
+				for (int c = 0; c < rows[r].length; c++) {
+					row.createCell(c).setCellValue(rows[r][c]);
+				}
+			}
+			workbook.write(out);
+			return new ByteArrayInputStream(out.toByteArray());
+		}
+	}
+
+	private static void assertCounter(int attempted, int aboveHalf, double marksTotal, QuestionAttainment counter) {
+		assertNotNull(counter);
+		assertEquals(attempted, counter.getAttempted(), "attempted");
+		assertEquals(aboveHalf, counter.getAboveHalf(), ">=50%");
+		assertEquals(marksTotal, counter.getMarksTotal(), 1e-9, "marks total");
+	}
+}
@@ -0,0 +1,170 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.copo.app.model.Batch;
+import com.copo.app.model.Department;
+import com.copo.app.model.Student;
+import com.copo.app.repository.StudentRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class StudentServiceTest {
+
+	@Autowired
+	private TestData data;
+
+	@Autowired
+	private StudentService studentService;
+
+	@Autowired
+	private StudentRepository studentRepository;
+
+	private Department department;
+	private Batch batch;
+	private String roll;
+	private String reg;
+
+	@BeforeEach
+	void setUp() {
+		department = data.department();
+		batch = data.batch();
+		// numbers of this test only, in upper case
+		roll = TestData.unique("R").toUpperCase();
+		reg = TestData.unique("G").toUpperCase();
+	}
+
+	@Test
+	void validRowsAreInserted() {
+		Map<String, Object> result = studentService.importStudentRows(rows(
+				row("Anu", roll + "1", reg + "1"),
+				row("Bala", roll + "2", reg + "2")));
+
+		assertEquals(List.of(), errors(result));
+		assertEquals(2, uploaded(result).size());
+		Student anu = studentRepository.findByRollNumber(roll + "1").orElseThrow();
+		assertEquals(reg + "1", anu.getRegisterNumber());
+		assertEquals(department.getId(), anu.getDepartment().getId());
+		assertEquals(batch.getId(), anu.getBatch().getId());
+	}
+
+	@Test
+	void numbersRepeatedInTheFileKeepTheirFirstRowWhateverTheCase() {
+		Map<String, Object> result = studentService.importStudentRows(rows(
+				row("Anu", roll + "1", reg + "1"),
+				row("Bala", (roll + "1").toLowerCase(), reg + "2"),
+				row("Chitra", roll + "3", " " + (reg + "1").toLowerCase() + " ")));
+
+		assertEquals(1, uploaded(result).size());
+		assertEquals(List.of("Row 2: Duplicate student rollNumber: " + (roll + "1").toLowerCase(),
+				"Row 3: Duplicate student registerNumber: " + (reg + "1").toLowerCase()), errors(result));
+		assertEquals("Anu", studentRepository.findByRollNumber(roll + "1").orElseThrow().getName());
+	}
+
+	@Test
+	void aRowRejectedForItsRegisterNumberDoesNotClaimItsRollNumber() {
+		Map<String, Object> result = studentService.importStudentRows(rows(
+				row("Anu", roll + "1", reg + "1"),
+				row("Bala", roll + "2", reg + "1"),
+				row("Chitra", roll + "2", reg + "3")));
+
+		assertEquals(List.of("Row 2: Duplicate student registerNumber: " + reg + "1"), errors(result));
+		assertEquals("Chitra", studentRepository.findByRollNumber(roll + "2").orElseThrow().getName());
+	}
+
+	@Test
+	void numbersOfExistingStudentsAreRejectedWhateverTheCase() {
+		studentService.importStudentRows(rows(row("Anu", roll + "1", reg + "1")));
+
+		Map<String, Object> result = studentService.importStudentRows(rows(
+				row("Bala", (roll + "1").toLowerCase(), reg + "2"),
+				row("Chitra", roll + "3", (reg + "1").toLowerCase())));
+
+		assertEquals(List.of(), uploaded(result));
+		assertEquals(List.of("Row 1: Duplicate student rollNumber: " + (roll + "1").toLowerCase(),
+				"Row 2: Duplicate student registerNumber: " + (reg + "1").toLowerCase()), errors(result));
+	}
+
+	@Test
+	void departmentAndBatchNamesMatchWhateverTheCase() {
+		Map<String, Object> result = studentService.importStudentRows(rows(
+				new String[] { "Anu", roll + "1", reg + "1", "2006-01-01", department.getName().toLowerCase(),
+						" " + batch.getName().toLowerCase() },
+				new String[] { "Bala", roll + "2", reg + "2", "2006-01-01", "NO-SUCH-DEPT", batch.getName() },
+				new String[] { "Chitra", roll + "3", reg + "3", "2006-01-01", department.getName(), "NO-SUCH-BATCH" }));
+
+		assertEquals(1, uploaded(result).size());
+		assertEquals(List.of("Row 2: Department not found: NO-SUCH-DEPT", "Row 3: Batch not found: NO-SUCH-BATCH"),
+				errors(result));
+	}
+
+	@Test
+	void incompleteRowsAreSkipped() {
+		Map<String, Object> result = studentService.importStudentRows(rows(
+				new String[] { "Anu", roll + "1", reg + "1" },
+				new String[] { "Bala", roll + "2", "", "2006-01-01", department.getName(), batch.getName() }));
+
+		assertEquals(List.of(), uploaded(result));
+		// a short row is only logged
+		assertEquals(List.of("Row 2: One or more required fields are empty."), errors(result));
+	}
+
+	@Test
+	void anUploadCatchesRepeatsAcrossItsChunks() throws Exception {
+		// chunks of three rows in the test profile
+		StringBuilder csv = new StringBuilder();
+		for (int i = 1; i <= 7; i++) {
+			csv.append(String.join(",", row("Student " + i, roll + i, reg + i))).append('\n');
+		}
+		csv.append(String.join(",", row("Again", (roll + "2").toLowerCase(), reg + "8"))).append('\n');
+		csv.append(String.join(",", row("Again", roll + "9", (reg + "6").toLowerCase()))).append('\n');
+		MockMultipartFile file = new MockMultipartFile("file", "students.csv", "text/csv",
+				csv.toString().getBytes(StandardCharsets.UTF_8));
+
+		Map<String, Object> result = studentService.uploadStudents(file);
+
+		assertEquals(7, uploaded(result).size());
+		assertEquals(List.of("Row 8: Duplicate student rollNumber: " + (roll + "2").toLowerCase(),
+				"Row 9: Duplicate student registerNumber: " + (reg + "6").toLowerCase()), errors(result));
+		for (int i = 1; i <= 7; i++) {
+			assertTrue(studentRepository.findByRollNumber(roll + i).isPresent(), roll + i);
+		}
+	}
+
+	private String[] row(String name, String rollNumber, String registerNumber) {
+		return new String[] { name, rollNumber, registerNumber, "2006-01-01", department.getName(), batch.getName() };
+	}
+
+	private static List<UploadRow> rows(String[]... cells) {
+		List<UploadRow> rows = new ArrayList<>();
+		for (String[] row : cells) {
+			rows.add(new UploadRow(rows.size() + 1, row));
+		}
+		return rows;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> uploaded(Map<String, Object> result) {
+		return (List<String>) result.get("uploadedStudents");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> errors(Map<String, Object> result) {
+		return (List<String>) result.get("errors");
+	}
+}
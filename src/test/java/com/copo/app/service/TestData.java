@@ -0,0 +1,152 @@
+package com.copo.app.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.copo.app.model.Batch;
+import com.copo.app.model.Department;
+import com.copo.app.model.MarkStatus;
+import com.copo.app.model.Question;
+import com.copo.app.model.QuestionAttainment;
+import com.copo.app.model.Student;
+import com.copo.app.model.Subject;
+import com.copo.app.model.UploadJob;
+import com.copo.app.repository.BatchRepository;
+import com.copo.app.repository.DepartmentRepository;
+import com.copo.app.repository.QuestionAttainmentRepository;
+import com.copo.app.repository.StudentRepository;
+import com.copo.app.repository.SubjectRepository;
+import com.copo.app.repository.UploadJobRepository;
+
+/**
+ * Rows for the tests on the embedded database of {@code application-test.properties}. The tests
+ * of one run share that database, so every name is made unique and each test works on the
+ * departments and batches it created.
+ */
+class TestData {
+
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+	@Autowired
+	private DepartmentRepository departmentRepository;
+
+	@Autowired
+	private BatchRepository batchRepository;
+
+	@Autowired
+	private SubjectRepository subjectRepository;
+
+	@Autowired
+	private StudentRepository studentRepository;
+
+	@Autowired
+	private QuestionAttainmentRepository questionAttainmentRepository;
+
+	@Autowired
+	private UploadJobRepository uploadJobRepository;
+
+	@Autowired
+	private BulkWriter bulkWriter;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	@Qualifier("recountExecutor")
+	private ThreadPoolTaskExecutor recountExecutor;
+
+	static String unique(String prefix) {
+		return prefix + "-" + SEQUENCE.incrementAndGet();
+	}
+
+	Department department() {
+		Department department = new Department();
+		department.setName(unique("DEPT"));
+		department.setDescription("Test department");
+		return departmentRepository.save(department);
+	}
+
+	Batch batch() {
+		return batchRepository.save(Batch.builder().name(unique("BATCH")).description("Test batch").build());
+	}
+
+	Subject subject(Department department, int semester) {
+		String code = unique("SUB");
+		return subjectRepository.save(Subject.builder().name("Subject " + code).code(code).department(department)
+				.semester(semester).build());
+	}
+
+	Student student(Department department, Batch batch) {
+		String roll = unique("ROLL");
+		return studentRepository.save(Student.builder().name("Student " + roll).rollNumber(roll)
+				.registerNumber(unique("REG")).dob("2006-01-01").department(department).batch(batch).build());
+	}
+
+	/** A question written as the services write them, with its counter at zero. */
+	Question question(Subject subject, Batch batch, String examType, String number, int maxMarks) {
+		Question question = Question.builder().examType(examType).subject(subject).department(subject.getDepartment())
+				.batch(batch).semester(subject.getSemester()).part("A").questionNumber(number).text("Question " + number)
+				.maxMarks(maxMarks).courseOutcome("CO1").build();
+		bulkWriter.insertQuestions(List.of(question));
+		return question;
+	}
+
+	/** A question from before the counters were kept. */
+	Question questionWithoutCounter(Subject subject, Batch batch, String examType, String number, int maxMarks) {
+		Question question = question(subject, batch, examType, number, maxMarks);
+		questionAttainmentRepository.deleteById(question.getId());
+		return question;
+	}
+
+	QuestionAttainment counter(Question question) {
+		return questionAttainmentRepository.findById(question.getId()).orElse(null);
+	}
+
+	/** Stores a mark straight into the table, past the services and their counters. */
+	void rawMark(Student student, Question question, String answer) {
+		jdbcTemplate.update("INSERT INTO student_marks (student_id, question_id, answer, status, score) VALUES (?, ?, ?, ?, ?)",
+				student.getId(), question.getId(), answer, MarkStatus.of(answer).name(),
+				MarkStatus.scoreOf(answer));
+	}
+
+	/** The stored answer of a student to a question, or null. */
+	String answer(Student student, Question question) {
+		List<String> answers = jdbcTemplate.queryForList(
+				"SELECT answer FROM student_marks WHERE student_id = ? AND question_id = ?", String.class,
+				student.getId(), question.getId());
+		return answers.isEmpty() ? null : answers.get(0);
+	}
+
+	/** Waits for the recounts queued so far, which are done once a task queued behind them on the single thread ran. */
+	void awaitRecounts() {
+		try {
+			recountExecutor.submit(() -> { }).get(30, TimeUnit.SECONDS);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** The job as saved once it stopped running. */
+	UploadJob finished(UploadJob job) {
+		long deadline = System.currentTimeMillis() + 30_000;
+		while (System.currentTimeMillis() < deadline) {
+			UploadJob current = uploadJobRepository.findById(job.getId()).orElseThrow();
+			if (!current.isActive()) {
+				return current;
+			}
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		}
+		throw new AssertionError("Upload job " + job.getId() + " did not finish");
+	}
+}
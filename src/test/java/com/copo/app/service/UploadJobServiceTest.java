@@ -0,0 +1,182 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.copo.app.model.Batch;
+import com.copo.app.model.Department;
+import com.copo.app.model.UploadJob;
+import com.copo.app.repository.StudentRepository;
+import com.copo.app.repository.UploadJobRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class UploadJobServiceTest {
+
+	@Autowired
+	private TestData data;
+
+	@Autowired
+	private UploadJobService uploadJobService;
+
+	@Autowired
+	private UploadJobRepository uploadJobRepository;
+
+	@Autowired
+	private StudentRepository studentRepository;
+
+	private Department department;
+	private Batch batch;
+	private String roll;
+
+	@BeforeEach
+	void setUp() {
+		department = data.department();
+		batch = data.batch();
+		roll = TestData.unique("J");
+	}
+
+	@Test
+	void eachChunkCountsItsRowsAndErrors() {
+		// chunks of three rows in the test profile; the second one fails as a whole on its long name
+		List<String> lines = new ArrayList<>();
+		for (int i = 1; i <= 7; i++) {
+			lines.add(line(i == 5 ? "x".repeat(300) : "Student " + i, roll + i));
+		}
+		lines.add(line("Again", roll + 1));
+
+		UploadJob job = data.finished(uploadJobService.submitStudents(csv(lines)));
+
+		assertEquals(UploadJob.Status.COMPLETED, job.getStatus());
+		assertEquals(8, job.getRowsProcessed());
+		assertEquals(4, job.getRowsFailed());
+		assertEquals(2, job.getChunksCommitted());
+		List<String> errors = errors(job);
+		assertEquals(2, errors.size());
+		assertTrue(errors.get(0).startsWith("Rows 4-6: "), errors.get(0));
+		assertEquals("Row 8: Duplicate student rollNumber: " + roll + 1, errors.get(1));
+		for (int i : new int[] { 1, 2, 3, 7 }) {
+			assertTrue(studentRepository.findByRollNumber(roll + i).isPresent(), roll + i);
+		}
+		for (int i : new int[] { 4, 5, 6 }) {
+			assertFalse(studentRepository.findByRollNumber(roll + i).isPresent(), roll + i);
+		}
+	}
+
+	@Test
+	void rowErrorsAreKeptUpToTheLimitAndCountedBeyondIt() {
+		UploadJob job = uploadJobRepository.save(job(UploadJob.Status.RUNNING, Instant.now()));
+		List<String> rowErrors = new ArrayList<>();
+		for (int i = 1; i <= UploadJobService.MAX_ERRORS + 200; i++) {
+			rowErrors.add("Row " + i + ": " + "y".repeat(250));
+		}
+
+		uploadJobService.chunkCommitted(job, rowErrors.size(), rowErrors.subList(0, 700));
+		uploadJobService.chunkCommitted(job, rowErrors.size(), rowErrors.subList(700, rowErrors.size()));
+
+		UploadJob saved = uploadJobRepository.findById(job.getId()).orElseThrow();
+		assertEquals(rowErrors.size(), saved.getRowsFailed());
+		assertEquals(UploadJobService.MAX_ERRORS, saved.getErrorCount());
+		List<String> kept = errors(saved);
+		assertEquals(UploadJobService.MAX_ERRORS, kept.size());
+		assertTrue(kept.stream().allMatch(error -> error.length() <= 199));
+		assertTrue(kept.get(kept.size() - 1).startsWith("Row " + UploadJobService.MAX_ERRORS + ": "));
+	}
+
+	@Test
+	void theHeartbeatFailsJobsNoNodeTouchesAnymore() {
+		Instant longAgo = Instant.now().minus(Duration.ofMinutes(10));
+		UploadJob stale = uploadJobRepository.save(job(UploadJob.Status.RUNNING, longAgo));
+		UploadJob queued = uploadJobRepository.save(job(UploadJob.Status.QUEUED, longAgo));
+		UploadJob alive = uploadJobRepository.save(job(UploadJob.Status.RUNNING, Instant.now()));
+		UploadJob local = uploadJobRepository.save(job(UploadJob.Status.RUNNING, longAgo));
+		localJobs().add(local.getId());
+		try {
+			uploadJobService.heartbeat();
+		} finally {
+			localJobs().remove(local.getId());
+		}
+
+		assertEquals(UploadJob.Status.FAILED, status(stale));
+		assertNotNull(uploadJobRepository.findById(stale.getId()).orElseThrow().getFailure());
+		assertEquals(UploadJob.Status.FAILED, status(queued));
+		assertEquals(UploadJob.Status.RUNNING, status(alive));
+		// this node's own job is touched before the stale ones are failed
+		assertEquals(UploadJob.Status.RUNNING, status(local));
+	}
+
+	@Test
+	void theHeartbeatDropsJobsFinishedBeforeTheRetention() {
+		UploadJob old = job(UploadJob.Status.COMPLETED, Instant.now().minus(Duration.ofHours(2)));
+		old.setFinishedAt(old.getUpdatedAt());
+		UploadJob recent = job(UploadJob.Status.FAILED, Instant.now());
+		recent.setFinishedAt(recent.getUpdatedAt());
+		uploadJobRepository.saveAll(List.of(old, recent));
+
+		uploadJobService.heartbeat();
+
+		assertFalse(uploadJobRepository.existsById(old.getId()));
+		assertTrue(uploadJobRepository.existsById(recent.getId()));
+	}
+
+	@Test
+	void theStatusListsTheRowErrors() {
+		UploadJob job = data.finished(uploadJobService.submitStudents(csv(List.of(line("Anu", roll + 1),
+				line("Bala", roll + 1)))));
+
+		Map<String, Object> status = uploadJobService.toStatus(job);
+
+		assertEquals("COMPLETED", String.valueOf(status.get("status")));
+		assertEquals(2, status.get("rowsProcessed"));
+		assertEquals(1, status.get("rowsFailed"));
+		assertEquals(List.of("Row 2: Duplicate student rollNumber: " + roll + 1), status.get("errors"));
+	}
+
+	private String line(String name, String rollNumber) {
+		return String.join(",", name, rollNumber, "REG-" + rollNumber, "2006-01-01", department.getName(), batch.getName());
+	}
+
+	private static MockMultipartFile csv(List<String> lines) {
+		return new MockMultipartFile("file", "students.csv", "text/csv",
+				String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static UploadJob job(UploadJob.Status status, Instant updatedAt) {
+		return UploadJob.builder().id(UUID.randomUUID().toString()).kind("students").fileName("students.csv")
+				.status(status).submittedAt(updatedAt).updatedAt(updatedAt).build();
+	}
+
+	private UploadJob.Status status(UploadJob job) {
+		return uploadJobRepository.findById(job.getId()).orElseThrow().getStatus();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Set<String> localJobs() {
+		return (Set<String>) ReflectionTestUtils.getField(uploadJobService, "localJobs");
+	}
+
+	private static List<String> errors(UploadJob job) {
+		return job.getErrors() == null ? List.of() : List.of(job.getErrors().split("\n"));
+	}
+}
@@ -0,0 +1,151 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.copo.app.model.Batch;
+import com.copo.app.model.Department;
+import com.copo.app.model.UploadJob;
+import com.copo.app.model.UploadSession;
+import com.copo.app.repository.StudentRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class UploadSessionServiceTest {
+
+	@Autowired
+	private TestData data;
+
+	@Autowired
+	private UploadSessionService uploadSessionService;
+
+	@Autowired
+	private StudentRepository studentRepository;
+
+	@Value("${copo.upload.session-dir}")
+	private Path sessionDir;
+
+	private Department department;
+	private Batch batch;
+	private String roll;
+
+	@BeforeEach
+	void setUp() {
+		department = data.department();
+		batch = data.batch();
+		roll = TestData.unique("S");
+	}
+
+	@Test
+	void partsAreAppendedInOrderAndARepeatedPartIsAcknowledged() {
+		UploadSession session = uploadSessionService.createSession("students", "students.csv");
+
+		send(session, 0, line("Anu", roll + 1) + "\n");
+		UploadSession repeated = send(session, 0, "ignored\n");
+		IllegalStateException skipped = assertThrows(IllegalStateException.class,
+				() -> send(session, 2, line("Chitra", roll + 3) + "\n"));
+		UploadSession received = send(session, 1, line("Bala", roll + 2) + "\n");
+
+		assertEquals(1, repeated.getPartsReceived());
+		assertEquals("Expected part 1, got part 2", skipped.getMessage());
+		assertEquals(2, received.getPartsReceived());
+		assertEquals(UploadJob.Status.COMPLETED, data.finished(uploadSessionService.startImport(session.getId())).getStatus());
+		assertTrue(studentRepository.findByRollNumber(roll + 1).isPresent());
+		assertTrue(studentRepository.findByRollNumber(roll + 2).isPresent());
+	}
+
+	@Test
+	void aRejectedChunkStopsTheImportAndTheNextOneResumesAfterTheCheckpoint() throws Exception {
+		// chunks of three rows in the test profile; row 5 repeats row 1
+		List<String> lines = new ArrayList<>();
+		for (int i = 1; i <= 8; i++) {
+			lines.add(line("Student " + i, roll + (i == 5 ? 1 : i)));
+		}
+		UploadSession session = uploadSessionService.createSession("students", "students.csv");
+		send(session, 0, String.join("\n", lines.subList(0, 4)) + "\n");
+		send(session, 1, String.join("\n", lines.subList(4, 8)) + "\n");
+
+		UploadJob failed = data.finished(uploadSessionService.startImport(session.getId()));
+
+		assertEquals(UploadJob.Status.FAILED, failed.getStatus());
+		assertEquals(1, failed.getChunksCommitted());
+		assertEquals(3, failed.getRowsFailed());
+		UploadSession stopped = uploadSessionService.getSession(session.getId()).orElseThrow();
+		assertEquals(UploadSession.Status.FAILED, stopped.getStatus());
+		assertEquals(3, stopped.getCommittedThroughRow());
+		assertEquals(3, stopped.getRowsCommitted());
+		assertTrue(stopped.getLastError().startsWith("Rows 4-6 were not saved"), stopped.getLastError());
+		// the whole chunk was rolled back, not just its bad row
+		assertFalse(studentRepository.findByRollNumber(roll + 4).isPresent());
+
+		// a corrected file; its first three rows are behind the checkpoint and never read
+		lines.set(0, "not,a,valid,row");
+		lines.set(4, line("Student 5", roll + 5));
+		uploadSessionService.discardParts(session.getId());
+		send(session, 0, String.join("\n", lines) + "\n");
+
+		UploadJob resumed = data.finished(uploadSessionService.startImport(session.getId()));
+
+		assertEquals(UploadJob.Status.COMPLETED, resumed.getStatus());
+		assertEquals(5, resumed.getRowsProcessed());
+		assertEquals(0, resumed.getRowsFailed());
+		UploadSession completed = uploadSessionService.getSession(session.getId()).orElseThrow();
+		assertEquals(UploadSession.Status.COMPLETED, completed.getStatus());
+		assertEquals(8, completed.getCommittedThroughRow());
+		assertEquals(8, completed.getRowsCommitted());
+		assertNull(completed.getLastError());
+		for (int i = 1; i <= 8; i++) {
+			assertTrue(studentRepository.findByRollNumber(roll + i).isPresent(), roll + i);
+		}
+		assertEquals("Student 1", studentRepository.findByRollNumber(roll + 1).orElseThrow().getName());
+		assertFalse(Files.exists(sessionDir.resolve(session.getId() + ".part")));
+	}
+
+	@Test
+	void onlySessionsWithPartsThatAreNotImportedYetCanBeImported() {
+		UploadSession session = uploadSessionService.createSession("students", "students.csv");
+
+		IllegalStateException empty = assertThrows(IllegalStateException.class,
+				() -> uploadSessionService.startImport(session.getId()));
+		send(session, 0, line("Anu", roll + 1) + "\n");
+		data.finished(uploadSessionService.startImport(session.getId()));
+		IllegalStateException again = assertThrows(IllegalStateException.class,
+				() -> uploadSessionService.startImport(session.getId()));
+
+		assertEquals("Upload session " + session.getId() + " has no parts", empty.getMessage());
+		assertEquals("Upload session " + session.getId() + " is already imported", again.getMessage());
+	}
+
+	@Test
+	void onlyChunkedKindsOpenSessions() {
+		assertThrows(IllegalArgumentException.class, () -> uploadSessionService.createSession("copo", "copo.xlsx"));
+	}
+
+	private UploadSession send(UploadSession session, int index, String part) {
+		return uploadSessionService.appendPart(session.getId(), index,
+				new ByteArrayInputStream(part.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private String line(String name, String rollNumber) {
+		return String.join(",", name, rollNumber, "REG-" + rollNumber, "2006-01-01", department.getName(), batch.getName());
+	}
+}
@@ -0,0 +1,89 @@
+package com.copo.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+class XlsxRowReaderTest {
+
+	@Test
+	void cellsComeOutAsTheUploadServicesReadThem() throws IOException {
+		InputStream xlsx = workbook(sheet -> {
+			Row row = sheet.createRow(0);
+			row.createCell(0).setCellValue(" R001 ");
+			row.createCell(1).setCellValue(12);
+			row.createCell(2).setCellValue(6.5);
+			row.createCell(3).setCellValue("AB");
+			row.createCell(4).setBlank();
+		});
+
+		List<String[]> rows = read(xlsx, 5);
+
+		assertEquals(1, rows.size());
+		assertEquals(List.of("R001", "12", "6.5", "AB", ""), List.of(rows.get(0)));
+	}
+
+	@Test
+	void missingCellsAreBlankAndExtraColumnsAreIgnored() throws IOException {
+		InputStream xlsx = workbook(sheet -> {
+			Row first = sheet.createRow(0);
+			first.createCell(0).setCellValue("a");
+			first.createCell(2).setCellValue("c");
+			first.createCell(5).setCellValue("ignored");
+			sheet.createRow(1).createCell(1).setCellValue("b");
+		});
+
+		List<String[]> rows = read(xlsx, 3);
+
+		assertEquals(List.of("a", "", "c"), List.of(rows.get(0)));
+		// the cells of one row never leak into the next
+		assertEquals(List.of("", "b", ""), List.of(rows.get(1)));
+	}
+
+	@Test
+	void rowIndexesSkipEmptyRows() throws IOException {
+		InputStream xlsx = workbook(sheet -> {
+			sheet.createRow(0).createCell(0).setCellValue("header");
+			sheet.createRow(3).createCell(0).setCellValue(1);
+		});
+		List<Integer> indexes = new ArrayList<>();
+
+		XlsxRowReader.read(xlsx, 1, (rowIndex, cells) -> indexes.add(rowIndex));
+
+		assertEquals(List.of(0, 3), indexes);
+	}
+
+	@Test
+	void aWorkbookWithoutRowsGivesNoRows() throws IOException {
+		assertEquals(0, read(workbook(sheet -> {
+		}), 2).size());
+	}
+
+	private interface SheetFiller {
+		void fill(Sheet sheet);
+	}
+
+	private static InputStream workbook(SheetFiller filler) throws IOException {
+		try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			filler.fill(workbook.createSheet("Sheet1"));
+			workbook.write(out);
+			return new ByteArrayInputStream(out.toByteArray());
+		}
+	}
+
+	private static List<String[]> read(InputStream xlsx, int columns) throws IOException {
+		List<String[]> rows = new ArrayList<>();
+		XlsxRowReader.read(xlsx, columns, (rowIndex, cells) -> rows.add(cells.clone()));
+		return rows;
+	}
+}